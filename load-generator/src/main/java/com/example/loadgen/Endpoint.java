@@ -0,0 +1,83 @@
+package com.example.loadgen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测目标接口
+ * 路径和请求体支持以下占位符，每个请求展开一次：
+ * {id} 随机用户ID，{seq} 递增序号，{ids} 逗号分隔的一批随机ID，{users} 一批用户的JSON数组
+ *
+ * @param name 报告中使用的名称
+ * @param method HTTP方法
+ * @param path 路径模板
+ * @param body 请求体模板，没有请求体时为null
+ */
+public record Endpoint(String name, String method, String path, String body) {
+
+    private static final String USER_BODY = "{\"id\":\"{id}\",\"name\":\"user-{id}\"}";
+
+    /**
+     * 消费者服务 /consumer/** 下的全部接口
+     */
+    public static final Map<String, Endpoint> CATALOG = catalog(
+            get("hello", "/consumer/hello"),
+            get("hello-old", "/consumer/hello-old"),
+            get("config-message", "/consumer/config-message"),
+            get("rate-limited-hello", "/consumer/rate-limited-provider/hello"),
+            get("rate-limited-heavy-task", "/consumer/rate-limited-provider/heavy-task/{seq}"),
+            get("isolated-hello", "/consumer/isolated-provider/hello"),
+            get("isolated-heavy-task", "/consumer/isolated-provider/heavy-task/{seq}"),
+            get("flow-control-hello", "/consumer/flow-control/hello"),
+            get("flow-control-task", "/consumer/flow-control/task/{seq}"),
+            get("bulkhead-sleep", "/consumer/bulkhead-test/sleep/1"),
+            get("bulkhead-info", "/consumer/bulkhead-test/info"),
+            get("user-get", "/consumer/users/{id}"),
+            new Endpoint("user-create", "POST", "/consumer/users", USER_BODY),
+            new Endpoint("user-update", "PUT", "/consumer/users/{id}", USER_BODY),
+            new Endpoint("user-delete", "DELETE", "/consumer/users/{id}", null),
+            get("users-batch-get", "/consumer/users/batch?ids={ids}"),
+            new Endpoint("users-batch-create", "POST", "/consumer/users/batch", "{users}"),
+            new Endpoint("users-batch-update", "PUT", "/consumer/users/batch", "{users}"),
+            new Endpoint("users-batch-delete", "DELETE", "/consumer/users/batch?ids={ids}", null),
+            get("users-stream", "/consumer/users/stream"),
+            get("reactive-hello", "/consumer/reactive/hello"),
+            get("reactive-rate-limited-hello", "/consumer/reactive/rate-limited-provider/hello"),
+            get("reactive-rate-limited-heavy-task", "/consumer/reactive/rate-limited-provider/heavy-task/{seq}"),
+            get("reactive-isolated-hello", "/consumer/reactive/isolated-provider/hello"),
+            get("reactive-isolated-heavy-task", "/consumer/reactive/isolated-provider/heavy-task/{seq}"),
+            get("reactive-flow-control-hello", "/consumer/reactive/flow-control/hello"),
+            get("reactive-flow-control-task", "/consumer/reactive/flow-control/task/{seq}"),
+            get("reactive-user-get", "/consumer/reactive/users/{id}"),
+            new Endpoint("reactive-user-create", "POST", "/consumer/reactive/users", USER_BODY),
+            new Endpoint("reactive-user-update", "PUT", "/consumer/reactive/users/{id}", USER_BODY),
+            new Endpoint("reactive-user-delete", "DELETE", "/consumer/reactive/users/{id}", null),
+            get("reactive-users-batch-get", "/consumer/reactive/users/batch?ids={ids}"));
+
+    /**
+     * 解析接口定义：目录中的名称，或者 METHOD:/path 形式的自定义接口
+     */
+    public static Endpoint parse(String spec) {
+        Endpoint endpoint = CATALOG.get(spec);
+        if (endpoint != null) {
+            return endpoint;
+        }
+        int colon = spec.indexOf(':');
+        if (colon > 0 && spec.startsWith("/", colon + 1)) {
+            return new Endpoint(spec, spec.substring(0, colon).toUpperCase(), spec.substring(colon + 1), null);
+        }
+        throw new IllegalArgumentException("未知的接口: " + spec + "，可选: " + CATALOG.keySet());
+    }
+
+    private static Endpoint get(String name, String path) {
+        return new Endpoint(name, "GET", path, null);
+    }
+
+    private static Map<String, Endpoint> catalog(Endpoint... endpoints) {
+        Map<String, Endpoint> map = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            map.put(endpoint.name(), endpoint);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 单个接口在一个阶段内的统计
+ * latency 从计划发送时间开始计时（已修正协调遗漏），serviceTime 从实际发送时间开始计时，
+ * 两者差距越大说明压测端或被测服务排队越严重。
+ */
+public class EndpointStats {
+
+    private static final Pattern INSTANCE_PORT = Pattern.compile("端口[：:]\\s*(\\d+)");
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final Map<String, LongAdder> instances = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+
+    public EndpointStats() {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    public void recordResponse(Outcome outcome, int status, String body, long latencyNanos, long serviceNanos) {
+        record(outcome, latencyNanos, serviceNanos);
+        statusCodes.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (outcome == Outcome.OK && body != null) {
+            Matcher matcher = INSTANCE_PORT.matcher(body);
+            if (matcher.find()) {
+                instances.computeIfAbsent(matcher.group(1), port -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    public void record(Outcome outcome, long latencyNanos, long serviceNanos) {
+        outcomes[outcome.ordinal()].increment();
+        latency.recordValue(Math.max(1, latencyNanos / 1000));
+        serviceTime.recordValue(Math.max(1, serviceNanos / 1000));
+    }
+
+    public void recordDropped() {
+        outcomes[Outcome.DROPPED.ordinal()].increment();
+    }
+
+    public long count(Outcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    public long total() {
+        long total = 0;
+        for (LongAdder adder : outcomes) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public double rate(Outcome outcome) {
+        long total = total();
+        return total == 0 ? 0 : (double) count(outcome) / total;
+    }
+
+    /**
+     * 修正后的延迟直方图，单位微秒
+     */
+    public Histogram latency() {
+        return latency;
+    }
+
+    /**
+     * 实际服务时间直方图，单位微秒
+     */
+    public Histogram serviceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * 正常响应按提供者实例端口的分布
+     */
+    public Map<String, Long> instances() {
+        Map<String, Long> result = new TreeMap<>();
+        instances.forEach((port, count) -> result.put(port, count.sum()));
+        return result;
+    }
+
+    public Map<Integer, Long> statusCodes() {
+        Map<Integer, Long> result = new TreeMap<>();
+        statusCodes.forEach((status, count) -> result.put(status, count.sum()));
+        return result;
+    }
+}
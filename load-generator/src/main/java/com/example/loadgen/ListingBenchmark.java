@@ -0,0 +1,242 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户列表流式接口基准
+ * 重复读取NDJSON用户列表，记录首字节时间、总耗时、行数和吞吐；读取期间按采样间隔请求各应用的
+ * /actuator/metrics/jvm.memory.used?tag=area:heap，记录堆内存占用的峰值。
+ * 流式转发时两端的堆峰值应与请求开始前接近，不随用户数增长；可以换不同的 --seed 数量各运行一次对比。
+ * <p>
+ * 堆内存占用包括尚未回收的垃圾，峰值反映的是回收前的高水位，多次读取之间的差异主要来自GC时机。
+ * 示例：先向提供者写入1000万用户（提供者需要以 --user.store.expected-users=10000000 启动，
+ * 写入期间可以关闭预写日志加快速度），再经消费者读取三次：
+ * <pre>
+ * java -cp load-generator/target/load-generator.jar com.example.loadgen.ListingBenchmark \
+ *     --seed 10000000 --expect 10000000 --name 10m
+ * </pre>
+ */
+public class ListingBenchmark {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final String HEAP_METRIC = "/actuator/metrics/jvm.memory.used?tag=area:heap";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ListingConfig config;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ListingBenchmark(ListingConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ListingConfig config;
+        try {
+            config = ListingConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        ListingBenchmark benchmark = new ListingBenchmark(config);
+        if (config.seedUsers() > 0) {
+            benchmark.seed();
+        }
+        List<ListingRun> runs = benchmark.run();
+        ListingReport report = new ListingReport(config, runs);
+        report.print(System.out);
+        report.write(config.output());
+        System.out.println("JSON报告: " + config.output().toAbsolutePath());
+        System.exit(runs.stream().allMatch(ListingRun::succeeded) ? 0 : 1);
+    }
+
+    public List<ListingRun> run() throws InterruptedException {
+        List<ListingRun> runs = new ArrayList<>();
+        for (int i = 1; i <= config.runs(); i++) {
+            ListingRun run = read(i);
+            runs.add(run);
+            System.out.printf("第%d次: %s%n", i, run.describe());
+        }
+        return runs;
+    }
+
+    private ListingRun read(int index) throws InterruptedException {
+        Map<String, Long> baseline = new LinkedHashMap<>();
+        for (URI probe : config.heapProbes()) {
+            long heap = heapUsed(probe);
+            if (heap >= 0) {
+                baseline.put(probe.toString(), heap);
+            }
+        }
+        Map<String, Long> peak = new ConcurrentHashMap<>(baseline);
+        Thread sampler = Thread.ofVirtual().name("heap-sampler").start(() -> sampleHeap(peak));
+
+        HttpRequest request = HttpRequest.newBuilder(config.url()).timeout(config.timeout()).GET().build();
+        long start = System.nanoTime();
+        long firstByte = -1;
+        long lines = 0;
+        long bytes = 0;
+        int status = -1;
+        String failure = null;
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            status = response.statusCode();
+            try (InputStream body = response.body()) {
+                byte[] buffer = new byte[READ_BUFFER_SIZE];
+                int n;
+                while ((n = body.read(buffer)) != -1) {
+                    if (firstByte < 0 && n > 0) {
+                        firstByte = System.nanoTime() - start;
+                    }
+                    bytes += n;
+                    for (int i = 0; i < n; i++) {
+                        if (buffer[i] == '\n') {
+                            lines++;
+                        }
+                    }
+                }
+            }
+            if (status / 100 != 2) {
+                failure = "HTTP " + status;
+            } else if (config.expectedLines() >= 0 && lines != config.expectedLines()) {
+                failure = "行数 " + lines + "，期望 " + config.expectedLines();
+            }
+        } catch (IOException e) {
+            failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        long total = System.nanoTime() - start;
+        return new ListingRun(index, status, firstByte, total, lines, bytes, baseline, Map.copyOf(peak), failure);
+    }
+
+    private void sampleHeap(Map<String, Long> peak) {
+        while (!Thread.currentThread().isInterrupted()) {
+            for (URI probe : config.heapProbes()) {
+                long heap = heapUsed(probe);
+                if (heap >= 0) {
+                    peak.merge(probe.toString(), heap, Math::max);
+                }
+            }
+            try {
+                Thread.sleep(config.sampleInterval());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 应用当前的堆内存占用，应用不可用或没有暴露metrics端点时返回-1
+     */
+    private long heapUsed(URI probe) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(probe + HEAP_METRIC))
+                .timeout(REQUEST_TIMEOUT).GET().build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if ("VALUE".equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asLong();
+                }
+            }
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * 批量创建ID为1..N的用户，用户名为 user-ID
+     */
+    public void seed() throws InterruptedException {
+        int total = config.seedUsers();
+        int batches = (total + config.seedBatch() - 1) / config.seedBatch();
+        Semaphore inFlight = new Semaphore(config.seedConcurrency());
+        AtomicLong created = new AtomicLong();
+        long start = System.nanoTime();
+        System.out.printf("开始创建 %d 个用户，每批 %d 个，并发 %d%n", total, config.seedBatch(), config.seedConcurrency());
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int reportEvery = Math.max(1, batches / 10);
+            for (int batch = 0; batch < batches; batch++) {
+                int from = batch * config.seedBatch() + 1;
+                int to = Math.min(total, from + config.seedBatch() - 1);
+                boolean report = (batch + 1) % reportEvery == 0;
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        postBatch(from, to);
+                        long done = created.addAndGet(to - from + 1);
+                        if (report) {
+                            System.out.printf("已创建 %d 个用户，%.1fs%n", done, (System.nanoTime() - start) / 1e9);
+                        }
+                        return null;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("创建用户失败: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("创建完成: %d 个用户，耗时 %.1fs，%.0f 个/秒%n", total, seconds, total / seconds);
+    }
+
+    private void postBatch(int from, int to) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder((to - from + 1) * 40).append('[');
+        for (int id = from; id <= to; id++) {
+            if (id > from) {
+                body.append(',');
+            }
+            body.append("{\"id\":\"").append(id).append("\",\"name\":\"user-").append(id).append("\"}");
+        }
+        body.append(']');
+        HttpRequest request = HttpRequest.newBuilder(config.seedUrl())
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
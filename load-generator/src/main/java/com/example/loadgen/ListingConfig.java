@@ -0,0 +1,104 @@
+package com.example.loadgen;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户列表流式接口基准参数
+ *
+ * @param heapProbes 采样堆内存的应用地址（不含 /actuator）
+ * @param seedUrl    批量创建用户的地址，seedUsers为0时不使用
+ */
+public record ListingConfig(
+        String name,
+        URI url,
+        List<URI> heapProbes,
+        int runs,
+        Duration sampleInterval,
+        Duration timeout,
+        long expectedLines,
+        int seedUsers,
+        URI seedUrl,
+        int seedBatch,
+        int seedConcurrency,
+        Path output) {
+
+    static final String USAGE = """
+            用法: java -cp load-generator.jar com.example.loadgen.ListingBenchmark [选项]
+              --url URL              NDJSON列表地址，默认 http://localhost:8083/consumer/users/stream
+              --heap URL,URL...      采样 /actuator/metrics/jvm.memory.used 的应用地址，
+                                     默认 http://localhost:8081,http://localhost:8083
+              --runs N               读取次数，默认 3
+              --sample D             堆内存采样间隔，默认 100ms
+              --timeout D            单次读取的最长时间，默认 30m
+              --expect N             期望的行数，不一致时该次读取记为失败，默认不检查
+              --seed N               开始前通过 --seed-url 创建ID为1..N的用户，默认 0（不创建）
+              --seed-url URL         批量创建用户的地址，默认 http://localhost:8081/users/batch
+              --seed-batch N         每个批量请求的用户数，默认 1000
+              --seed-concurrency N   并发的批量请求数，默认 16
+              --name NAME            报告中的名称，默认 listing
+              --output FILE          JSON报告路径，默认 listing-<name>.json
+            时长格式: 500ms, 30s, 2m
+            """;
+
+    public static ListingConfig parse(String[] args) {
+        String name = "listing";
+        URI url = URI.create("http://localhost:8083/consumer/users/stream");
+        List<URI> heapProbes = List.of(URI.create("http://localhost:8081"), URI.create("http://localhost:8083"));
+        int runs = 3;
+        Duration sampleInterval = Duration.ofMillis(100);
+        Duration timeout = Duration.ofMinutes(30);
+        long expectedLines = -1;
+        int seedUsers = 0;
+        URI seedUrl = URI.create("http://localhost:8081/users/batch");
+        int seedBatch = 1000;
+        int seedConcurrency = 16;
+        Path output = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("-h") || option.equals("--help")) {
+                throw new IllegalArgumentException(USAGE);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("缺少参数值: " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--url" -> url = URI.create(value);
+                case "--heap" -> {
+                    List<URI> probes = new ArrayList<>();
+                    for (String probe : value.split(",")) {
+                        if (!probe.isBlank()) {
+                            String trimmed = probe.trim();
+                            probes.add(URI.create(trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed));
+                        }
+                    }
+                    heapProbes = List.copyOf(probes);
+                }
+                case "--runs" -> runs = Integer.parseInt(value);
+                case "--sample" -> sampleInterval = LoadConfig.parseDuration(value);
+                case "--timeout" -> timeout = LoadConfig.parseDuration(value);
+                case "--expect" -> expectedLines = Long.parseLong(value);
+                case "--seed" -> seedUsers = Integer.parseInt(value);
+                case "--seed-url" -> seedUrl = URI.create(value);
+                case "--seed-batch" -> seedBatch = Integer.parseInt(value);
+                case "--seed-concurrency" -> seedConcurrency = Integer.parseInt(value);
+                case "--name" -> name = value;
+                case "--output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("未知的选项: " + option + "\n" + USAGE);
+            }
+        }
+        if (runs < 1 || seedUsers < 0 || seedBatch < 1 || seedConcurrency < 1) {
+            throw new IllegalArgumentException("--runs、--seed-batch、--seed-concurrency 至少为1，--seed 不能为负数");
+        }
+        if (output == null) {
+            output = Path.of("listing-" + name + ".json");
+        }
+        return new ListingConfig(name, url, heapProbes, runs, sampleInterval, timeout, expectedLines, seedUsers,
+                seedUrl, seedBatch, seedConcurrency, output);
+    }
+}
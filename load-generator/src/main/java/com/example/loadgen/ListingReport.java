@@ -0,0 +1,142 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 列表基准报告：控制台汇总和JSON文件，统计只包括成功的读取
+ */
+public class ListingReport {
+
+    private final ListingConfig config;
+    private final List<ListingRun> runs;
+
+    public ListingReport(ListingConfig config, List<ListingRun> runs) {
+        this.config = config;
+        this.runs = runs;
+    }
+
+    public void print(PrintStream out) {
+        long succeeded = runs.stream().filter(ListingRun::succeeded).count();
+        out.printf("%n=== %s: 读取 %d 次，成功 %d 次，%s ===%n", config.name(), runs.size(), succeeded, config.url());
+        out.printf("%-28s %10s %10s %10s %10s%n", "", "min", "p50", "mean", "max");
+        printRow(out, "首字节(ms)", run -> run.firstByteNanos() / 1e6);
+        printRow(out, "总耗时(ms)", run -> run.totalNanos() / 1e6);
+        printRow(out, "行/秒", ListingRun::linesPerSecond);
+        printRow(out, "MB/秒", ListingRun::megabytesPerSecond);
+        for (String probe : probes()) {
+            printRow(out, "堆峰值(MB) " + probe, run -> run.peakHeap().getOrDefault(probe, -1L) / 1e6);
+            printRow(out, "堆增量(MB) " + probe, run -> heapGrowth(run, probe) / 1e6);
+        }
+    }
+
+    private void printRow(PrintStream out, String label, ToDoubleFunction<ListingRun> metric) {
+        double[] values = values(metric);
+        if (values.length == 0) {
+            out.printf("%-28s %10s %10s %10s %10s%n", label, "-", "-", "-", "-");
+            return;
+        }
+        out.printf("%-28s %10.1f %10.1f %10.1f %10.1f%n", label, values[0], median(values),
+                Arrays.stream(values).average().orElse(0), values[values.length - 1]);
+    }
+
+    public void write(Path path) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("generatedAt", Instant.now().toString());
+        root.put("name", config.name());
+        root.put("url", config.url().toString());
+        root.put("seedUsers", config.seedUsers());
+        root.put("sampleIntervalMs", config.sampleInterval().toMillis());
+        root.put("timeToFirstByteMs", summaryJson(values(run -> run.firstByteNanos() / 1e6)));
+        root.put("totalMs", summaryJson(values(run -> run.totalNanos() / 1e6)));
+        root.put("linesPerSecond", summaryJson(values(ListingRun::linesPerSecond)));
+        Map<String, Object> heap = new LinkedHashMap<>();
+        for (String probe : probes()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("peakMb", summaryJson(values(run -> run.peakHeap().getOrDefault(probe, -1L) / 1e6)));
+            json.put("growthMb", summaryJson(values(run -> heapGrowth(run, probe) / 1e6)));
+            heap.put(probe, json);
+        }
+        root.put("heap", heap);
+
+        List<Object> runList = new ArrayList<>();
+        for (ListingRun run : runs) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("index", run.index());
+            json.put("succeeded", run.succeeded());
+            json.put("status", run.status());
+            json.put("firstByteMs", run.firstByteNanos() < 0 ? null : run.firstByteNanos() / 1e6);
+            json.put("totalMs", run.totalNanos() / 1e6);
+            json.put("lines", run.lines());
+            json.put("bytes", run.bytes());
+            json.put("baselineHeapBytes", run.baselineHeap());
+            json.put("peakHeapBytes", run.peakHeap());
+            json.put("failure", run.failure());
+            runList.add(json);
+        }
+        root.put("runs", runList);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), root);
+    }
+
+    private TreeSet<String> probes() {
+        TreeSet<String> probes = new TreeSet<>();
+        runs.forEach(run -> probes.addAll(run.peakHeap().keySet()));
+        return probes;
+    }
+
+    /**
+     * 读取期间堆峰值比开始前多出的字节数，没有采样到时返回负数
+     */
+    private static long heapGrowth(ListingRun run, String probe) {
+        Long peak = run.peakHeap().get(probe);
+        Long baseline = run.baselineHeap().get(probe);
+        return peak == null || baseline == null ? -1 : peak - baseline;
+    }
+
+    /**
+     * 成功读取中该项的取值，升序
+     */
+    private double[] values(ToDoubleFunction<ListingRun> metric) {
+        return runs.stream()
+                .filter(ListingRun::succeeded)
+                .mapToDouble(metric)
+                .filter(value -> value >= 0)
+                .sorted()
+                .toArray();
+    }
+
+    private static Map<String, Object> summaryJson(double[] values) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("count", values.length);
+        if (values.length > 0) {
+            json.put("min", values[0]);
+            json.put("p50", median(values));
+            json.put("mean", Arrays.stream(values).average().orElse(0));
+            json.put("max", values[values.length - 1]);
+        }
+        return json;
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2d;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.loadgen;
+
+import java.util.Map;
+
+/**
+ * 一次读取的结果，时间都从发出请求开始计算，-1 表示没有发生
+ *
+ * @param firstByteNanos 读到响应体第一个字节
+ * @param totalNanos     读完整个响应体
+ * @param baselineHeap   各应用在请求开始前的堆内存占用（字节）
+ * @param peakHeap       各应用在读取期间采样到的堆内存占用峰值（字节）
+ * @param failure        失败原因，成功时为null
+ */
+public record ListingRun(int index, int status, long firstByteNanos, long totalNanos, long lines, long bytes,
+                         Map<String, Long> baselineHeap, Map<String, Long> peakHeap, String failure) {
+
+    public boolean succeeded() {
+        return failure == null;
+    }
+
+    double linesPerSecond() {
+        return totalNanos > 0 ? lines / (totalNanos / 1e9) : 0;
+    }
+
+    double megabytesPerSecond() {
+        return totalNanos > 0 ? bytes / 1e6 / (totalNanos / 1e9) : 0;
+    }
+
+    String describe() {
+        if (!succeeded()) {
+            return "失败（" + failure + "）";
+        }
+        StringBuilder heap = new StringBuilder();
+        peakHeap.forEach((probe, peak) -> heap.append(String.format("，%s 堆峰值 %.0fMB（开始前 %.0fMB）", probe,
+                peak / 1e6, baselineHeap.getOrDefault(probe, -1L) / 1e6)));
+        return String.format("首字节 %.1fms，总耗时 %.0fms，%d 行，%.1fMB，%.0f 行/秒%s", firstByteNanos / 1e6,
+                totalNanos / 1e6, lines, bytes / 1e6, linesPerSecond(), heap);
+    }
+}
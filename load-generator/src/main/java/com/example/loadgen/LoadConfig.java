@@ -0,0 +1,131 @@
+package com.example.loadgen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测参数
+ */
+public record LoadConfig(
+        String baseUrl,
+        List<RateStep> steps,
+        List<Endpoint> endpoints,
+        int[] weights,
+        boolean async,
+        Duration timeout,
+        int maxInFlight,
+        int idRange,
+        int batchSize,
+        Path output) {
+
+    static final String USAGE = """
+            用法: java -jar load-generator.jar [选项]
+              --base-url URL         被测消费者地址，默认 http://localhost:8083
+              --rate N               恒定到达速率（请求/秒），默认 50
+              --duration D           恒定速率的持续时间，默认 30s
+              --steps R@D,R@D...     阶梯速率，例如 50@30s,100@30s,200@30s，指定后忽略 --rate/--duration
+              --warmup D             预热时长（按第一阶段的速率，不计入报告），默认 0
+              --endpoints E[*W],...  接口及权重，E为接口名或 METHOD:/path，默认 hello
+              --client virtual|async 每个请求一个虚拟线程同步发送，或使用HttpClient异步发送，默认 virtual
+              --timeout D            单个请求超时，默认 10s
+              --max-in-flight N      进行中的请求上限，超过的请求记为DROPPED，默认 10000
+              --id-range N           {id} 的取值范围 1..N，默认 1000
+              --batch-size N         {ids}/{users} 的批量大小，默认 10
+              --output FILE          JSON报告路径，默认 load-report.json
+            时长格式: 500ms, 30s, 2m
+            可用接口: %s
+            """;
+
+    public static LoadConfig parse(String[] args) {
+        String baseUrl = "http://localhost:8083";
+        double rate = 50;
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ZERO;
+        String stepsSpec = null;
+        String endpointsSpec = "hello";
+        boolean async = false;
+        Duration timeout = Duration.ofSeconds(10);
+        int maxInFlight = 10_000;
+        int idRange = 1000;
+        int batchSize = 10;
+        Path output = Path.of("load-report.json");
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("-h") || option.equals("--help")) {
+                throw new IllegalArgumentException(usage());
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("缺少参数值: " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--base-url" -> baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--duration" -> duration = parseDuration(value);
+                case "--steps" -> stepsSpec = value;
+                case "--warmup" -> warmup = parseDuration(value);
+                case "--endpoints" -> endpointsSpec = value;
+                case "--client" -> async = switch (value) {
+                    case "virtual" -> false;
+                    case "async" -> true;
+                    default -> throw new IllegalArgumentException("--client 只支持 virtual 或 async: " + value);
+                };
+                case "--timeout" -> timeout = parseDuration(value);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "--id-range" -> idRange = Integer.parseInt(value);
+                case "--batch-size" -> batchSize = Integer.parseInt(value);
+                case "--output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("未知的选项: " + option + "\n" + usage());
+            }
+        }
+
+        List<RateStep> steps = new ArrayList<>();
+        if (stepsSpec != null) {
+            for (String step : stepsSpec.split(",")) {
+                String[] parts = step.trim().split("@");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("阶梯格式应为 速率@时长: " + step);
+                }
+                steps.add(new RateStep(Double.parseDouble(parts[0]), parseDuration(parts[1]), false));
+            }
+        } else {
+            steps.add(new RateStep(rate, duration, false));
+        }
+        if (!warmup.isZero()) {
+            steps.addFirst(new RateStep(steps.getFirst().rate(), warmup, true));
+        }
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        List<Integer> weightList = new ArrayList<>();
+        for (String spec : endpointsSpec.split(",")) {
+            String[] parts = spec.trim().split("\\*");
+            endpoints.add(Endpoint.parse(parts[0]));
+            weightList.add(parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+        }
+        int[] weights = weightList.stream().mapToInt(Integer::intValue).toArray();
+
+        return new LoadConfig(baseUrl, List.copyOf(steps), List.copyOf(endpoints), weights,
+                async, timeout, maxInFlight, idRange, batchSize, output);
+    }
+
+    static String usage() {
+        return USAGE.formatted(Endpoint.CATALOG.keySet());
+    }
+
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofMillis((long) (Double.parseDouble(v.substring(0, v.length() - 1)) * 1000));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofSeconds((long) (Double.parseDouble(v.substring(0, v.length() - 1)) * 60));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型压测工具
+ * 请求按计划时间匀速发出，不等待上一个请求返回，被测服务变慢时请求会在服务端堆积，而不是让压测端自动降速。
+ * 延迟从计划发送时间开始计算，压测端因调度或排队晚发的时间也计入延迟，避免协调遗漏（coordinated omission）
+ * 让p99等高分位延迟看起来比实际好。
+ *
+ * 示例：
+ * java -jar load-generator.jar --steps 50@30s,100@30s,200@30s --endpoints hello*3,user-get,isolated-hello
+ */
+public class LoadGenerator {
+
+    private static final long DRAIN_GRACE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final LoadConfig config;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client;
+    private final int totalWeight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder completed = new LongAdder();
+    private volatile StepStats currentStep;
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.timeout())
+                .executor(executor)
+                .build();
+        int sum = 0;
+        for (int weight : config.weights()) {
+            sum += weight;
+        }
+        this.totalWeight = sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        List<StepStats> results = new LoadGenerator(config).run();
+        LoadReport report = new LoadReport(config, results);
+        report.print(System.out);
+        report.write(config.output());
+        System.out.println("JSON报告: " + config.output().toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * 依次执行所有阶段，返回非预热阶段的统计
+     */
+    public List<StepStats> run() throws InterruptedException {
+        List<StepStats> results = new ArrayList<>();
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "load-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long begin = System.nanoTime();
+        progress.scheduleAtFixedRate(() -> printProgress(begin), 1, 1, TimeUnit.SECONDS);
+
+        long stepStart = System.nanoTime();
+        for (RateStep step : config.steps()) {
+            StepStats stats = new StepStats(step, config.endpoints());
+            currentStep = stats;
+            if (!step.warmup()) {
+                results.add(stats);
+            }
+            System.out.printf("%s阶段开始: 目标速率 %.1f/s，持续 %ds%n", step.warmup() ? "预热" : "",
+                    step.rate(), step.duration().toSeconds());
+            dispatch(step, stats, stepStart);
+            stepStart += step.duration().toNanos();
+        }
+        drain();
+        progress.shutdownNow();
+        return results;
+    }
+
+    /**
+     * 按计划时间依次发出本阶段的请求；落后于计划时立即补发，但延迟仍从计划时间开始计算
+     */
+    private void dispatch(RateStep step, StepStats stats, long stepStart) {
+        double intervalNanos = 1_000_000_000d / step.rate();
+        long planned = step.plannedRequests();
+        for (long i = 0; i < planned; i++) {
+            long intended = stepStart + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = pickEndpoint();
+            EndpointStats endpointStats = stats.endpoint(endpoint.name());
+            if (inFlight.incrementAndGet() > config.maxInFlight()) {
+                inFlight.decrementAndGet();
+                endpointStats.recordDropped();
+                continue;
+            }
+            stats.recordSend(System.nanoTime() - intended);
+            send(endpoint, endpointStats, intended);
+        }
+    }
+
+    private void send(Endpoint endpoint, EndpointStats stats, long intended) {
+        HttpRequest request = buildRequest(endpoint);
+        if (config.async()) {
+            long sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> complete(stats, intended, sentAt, response, error));
+        } else {
+            executor.execute(() -> {
+                long sentAt = System.nanoTime();
+                HttpResponse<String> response = null;
+                Throwable error = null;
+                try {
+                    response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                } catch (Exception e) {
+                    error = e;
+                }
+                complete(stats, intended, sentAt, response, error);
+            });
+        }
+    }
+
+    private void complete(EndpointStats stats, long intended, long sentAt,
+                          HttpResponse<String> response, Throwable error) {
+        long now = System.nanoTime();
+        try {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                stats.record(cause instanceof HttpTimeoutException ? Outcome.TIMEOUT : Outcome.IO_ERROR,
+                        now - intended, now - sentAt);
+            } else {
+                Outcome outcome = Outcome.classify(response.statusCode(), response.body(), response.headers());
+                stats.recordResponse(outcome, response.statusCode(), response.body(), now - intended, now - sentAt);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            completed.increment();
+        }
+    }
+
+    /**
+     * 等待进行中的请求结束，最多等待一个请求超时时间
+     */
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + config.timeout().toNanos() + DRAIN_GRACE_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf("仍有 %d 个请求未完成，不计入报告%n", inFlight.get());
+        }
+    }
+
+    private Endpoint pickEndpoint() {
+        List<Endpoint> endpoints = config.endpoints();
+        if (endpoints.size() == 1) {
+            return endpoints.getFirst();
+        }
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        int[] weights = config.weights();
+        for (int i = 0; i < weights.length; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return endpoints.get(i);
+            }
+        }
+        return endpoints.getLast();
+    }
+
+    private HttpRequest buildRequest(Endpoint endpoint) {
+        long seq = sequence.incrementAndGet();
+        int id = 1 + ThreadLocalRandom.current().nextInt(config.idRange());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(config.baseUrl() + expand(endpoint.path(), seq, id)))
+                .timeout(config.timeout());
+        if (endpoint.body() != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(endpoint.method(), HttpRequest.BodyPublishers.ofString(expand(endpoint.body(), seq, id)));
+        } else {
+            builder.method(endpoint.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    private String expand(String template, long seq, int id) {
+        String result = template.replace("{seq}", Long.toString(seq)).replace("{id}", Integer.toString(id));
+        if (result.contains("{ids}")) {
+            StringJoiner ids = new StringJoiner(",");
+            for (int i = 0; i < config.batchSize(); i++) {
+                ids.add(Integer.toString(randomId()));
+            }
+            result = result.replace("{ids}", ids.toString());
+        }
+        if (result.contains("{users}")) {
+            StringJoiner users = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < config.batchSize(); i++) {
+                int userId = randomId();
+                users.add("{\"id\":\"" + userId + "\",\"name\":\"user-" + userId + "\"}");
+            }
+            result = result.replace("{users}", users.toString());
+        }
+        return result;
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(config.idRange());
+    }
+
+    private void printProgress(long begin) {
+        StepStats step = currentStep;
+        System.out.printf("[%3ds] 已发送: %d，已完成: %d，进行中: %d，当前阶段目标: %.1f/s%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - begin),
+                sequence.get(), completed.sum(), inFlight.get(), step != null ? step.step().rate() : 0d);
+    }
+}
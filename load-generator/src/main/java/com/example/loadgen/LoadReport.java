@@ -0,0 +1,142 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测报告：控制台表格和JSON文件
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadConfig config;
+    private final List<StepStats> steps;
+
+    public LoadReport(LoadConfig config, List<StepStats> steps) {
+        this.config = config;
+        this.steps = steps;
+    }
+
+    public void print(PrintStream out) {
+        for (int i = 0; i < steps.size(); i++) {
+            StepStats stats = steps.get(i);
+            RateStep step = stats.step();
+            out.printf("%n=== 阶段 %d: 目标 %.1f/s，持续 %ds，实际发送 %.1f/s，压测端最大发送延迟 %.1fms ===%n",
+                    i + 1, step.rate(), step.duration().toSeconds(),
+                    stats.sent() / (step.duration().toNanos() / 1e9), stats.maxSendLagNanos() / 1e6);
+            out.printf("%-34s %8s %7s %7s %7s %7s %7s %9s %9s %9s %9s%n", "接口", "请求数", "成功%", "降级%",
+                    "拒绝%", "错误%", "丢弃%", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+            stats.endpoints().forEach((name, endpoint) -> {
+                if (endpoint.total() == 0) {
+                    return;
+                }
+                Histogram latency = endpoint.latency();
+                out.printf("%-34s %8d %7.2f %7.2f %7.2f %7.2f %7.2f %9.1f %9.1f %9.1f %9.1f%n", name,
+                        endpoint.total(),
+                        endpoint.rate(Outcome.OK) * 100,
+                        endpoint.rate(Outcome.FALLBACK) * 100,
+                        endpoint.rate(Outcome.REJECTED) * 100,
+                        errorRate(endpoint) * 100,
+                        endpoint.rate(Outcome.DROPPED) * 100,
+                        millis(latency.getValueAtPercentile(50)),
+                        millis(latency.getValueAtPercentile(99)),
+                        millis(latency.getValueAtPercentile(99.9)),
+                        millis(latency.getMaxValue()));
+                if (!endpoint.instances().isEmpty()) {
+                    out.printf("%-34s 实例分布(端口=次数): %s%n", "", endpoint.instances());
+                }
+            });
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("generatedAt", Instant.now().toString());
+        root.put("baseUrl", config.baseUrl());
+        root.put("client", config.async() ? "async" : "virtual");
+        root.put("timeoutMs", config.timeout().toMillis());
+        root.put("maxInFlight", config.maxInFlight());
+
+        List<Object> stepList = new ArrayList<>();
+        for (StepStats stats : steps) {
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("targetRate", stats.step().rate());
+            step.put("durationSeconds", stats.step().duration().toMillis() / 1000d);
+            step.put("sent", stats.sent());
+            step.put("achievedRate", stats.sent() / (stats.step().duration().toNanos() / 1e9));
+            step.put("maxSendLagMs", stats.maxSendLagNanos() / 1e6);
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            stats.endpoints().forEach((name, endpoint) -> endpoints.put(name, endpointJson(endpoint)));
+            step.put("endpoints", endpoints);
+            stepList.add(step);
+        }
+        root.put("steps", stepList);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), root);
+    }
+
+    private static Map<String, Object> endpointJson(EndpointStats endpoint) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("requests", endpoint.total());
+        Map<String, Long> outcomes = new LinkedHashMap<>();
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome.name(), endpoint.count(outcome));
+        }
+        json.put("outcomes", outcomes);
+        json.put("fallbackRate", endpoint.rate(Outcome.FALLBACK));
+        json.put("rejectionRate", endpoint.rate(Outcome.REJECTED));
+        json.put("errorRate", errorRate(endpoint));
+        json.put("droppedRate", endpoint.rate(Outcome.DROPPED));
+        json.put("latencyMs", histogramJson(endpoint.latency()));
+        json.put("serviceTimeMs", histogramJson(endpoint.serviceTime()));
+        json.put("statusCodes", endpoint.statusCodes());
+
+        Map<String, Long> instances = endpoint.instances();
+        long identified = instances.values().stream().mapToLong(Long::longValue).sum();
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        instances.forEach((port, count) -> distribution.put(port, Map.of(
+                "requests", count,
+                "share", identified == 0 ? 0 : (double) count / identified)));
+        json.put("instances", distribution);
+        return json;
+    }
+
+    private static Map<String, Object> histogramJson(Histogram histogram) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("count", histogram.getTotalCount());
+        if (histogram.getTotalCount() == 0) {
+            return json;
+        }
+        json.put("mean", histogram.getMean() / 1000);
+        for (double percentile : PERCENTILES) {
+            json.put("p" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile)),
+                    millis(histogram.getValueAtPercentile(percentile)));
+        }
+        json.put("max", millis(histogram.getMaxValue()));
+        return json;
+    }
+
+    private static double errorRate(EndpointStats endpoint) {
+        return endpoint.rate(Outcome.HTTP_ERROR) + endpoint.rate(Outcome.TIMEOUT) + endpoint.rate(Outcome.IO_ERROR);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.loadgen;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+
+/**
+ * 单个请求的结果分类
+ * 消费者的降级方法大多返回200和一段提示文本，所以除了状态码还需要按响应内容区分。
+ */
+public enum Outcome {
+
+    /** 正常响应 */
+    OK,
+    /** 断路器或Feign降级，包括返回缓存中的旧数据 */
+    FALLBACK,
+    /** 被限流器、隔离器或服务端准入控制拒绝 */
+    REJECTED,
+    /** 其他4xx/5xx响应 */
+    HTTP_ERROR,
+    /** 超过请求超时时间 */
+    TIMEOUT,
+    /** 连接失败等网络错误 */
+    IO_ERROR,
+    /** 压测端进行中的请求数达到上限，没有发出 */
+    DROPPED;
+
+    private static final List<String> REJECTION_MARKERS = List.of(
+            "限流", "频率超限", "请求频率过高", "隔离器拒绝", "隔离降级", "隔离器工作中", "系统繁忙");
+
+    private static final String FALLBACK_MARKER = "降级";
+
+    public static Outcome classify(int status, String body, HttpHeaders headers) {
+        if (status == 429) {
+            return REJECTED;
+        }
+        if (status == 503) {
+            // 服务端准入控制会带Retry-After，断路器降级（如批量查询）不会
+            return headers.firstValue("Retry-After").isPresent() ? REJECTED : FALLBACK;
+        }
+        if (status >= 400) {
+            return HTTP_ERROR;
+        }
+        if (body != null) {
+            for (String marker : REJECTION_MARKERS) {
+                if (body.contains(marker)) {
+                    return REJECTED;
+                }
+            }
+            if (body.contains(FALLBACK_MARKER)) {
+                return FALLBACK;
+            }
+        }
+        if (headers.firstValue("X-Cache").filter("STALE"::equalsIgnoreCase).isPresent()) {
+            return FALLBACK;
+        }
+        return OK;
+    }
+}
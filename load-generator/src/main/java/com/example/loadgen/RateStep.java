@@ -0,0 +1,29 @@
+package com.example.loadgen;
+
+import java.time.Duration;
+
+/**
+ * 一个恒定到达速率的阶段
+ *
+ * @param rate 每秒发出的请求数
+ * @param duration 阶段持续时间
+ * @param warmup 预热阶段不计入报告
+ */
+public record RateStep(double rate, Duration duration, boolean warmup) {
+
+    public RateStep {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("速率必须大于0: " + rate);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("阶段时长必须大于0: " + duration);
+        }
+    }
+
+    /**
+     * 本阶段计划发出的请求数
+     */
+    public long plannedRequests() {
+        return (long) (rate * duration.toNanos() / 1_000_000_000d);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.loadgen;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 启动时间基准
+ * 重复启动同一个模块，从创建进程开始每隔一个探测间隔请求一次探测地址，记录：
+ * <ul>
+ *     <li>首次响应：第一次收到任何HTTP响应（端口已监听）</li>
+ *     <li>首次成功：第一次收到2xx响应，即扩容时新实例真正可以接收流量的时间</li>
+ *     <li>Spring报告的启动时间（日志中的 Started ... in N seconds），只作参考，它不包括第一个请求触发的延迟初始化</li>
+ * </ul>
+ * 每次启动结束后停止进程（连同子进程），等端口释放后再开始下一次，各次启动的输出保存在 --log-dir 中。
+ * 依赖的服务（注册中心、配置中心、被调用的提供者）需要事先启动。
+ * <p>
+ * 各模块的探测地址：
+ * <ul>
+ *     <li>注册中心：http://localhost:8761/eureka/apps</li>
+ *     <li>配置中心：http://localhost:8888/service-provider/dev</li>
+ *     <li>提供者：http://localhost:8081/provider/hello</li>
+ *     <li>消费者：http://localhost:8083/consumer/hello，经Feign调用提供者，包括第一个请求触发的延迟初始化</li>
+ * </ul>
+ * 示例：消费者的快速启动模式（jar和CDS归档由 mvn -P fast-startup package 生成），另起端口避免与正在运行的实例冲突，
+ * 把 -- 之后换成普通模式的启动命令再运行一次，对比两份报告。
+ * <pre>
+ * java -cp load-generator/target/load-generator.jar com.example.loadgen.StartupBenchmark --name consumer-fast \
+ *     --probe http://localhost:8084/consumer/hello -- \
+ *     java -XX:SharedArchiveFile=service-consumer_8083/target/fast-startup/application.jsa -Dspring.aot.enabled=true \
+ *     -Dspring.config.name=bootstrap -Dspring.profiles.active=fast-startup \
+ *     -jar service-consumer_8083/target/fast-startup/service-consumer_8083-1.0-SNAPSHOT.jar --server.port=8084
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    private static final Pattern SPRING_STARTED = Pattern.compile("Started \\S+ in ([\\d.]+) seconds");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final StartupConfig config;
+    private final HttpClient client;
+
+    public StartupBenchmark(StartupConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        StartupConfig config;
+        try {
+            config = StartupConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        List<StartupRun> runs = new StartupBenchmark(config).run();
+        StartupReport report = new StartupReport(config, runs);
+        report.print(System.out);
+        report.write(config.output());
+        System.out.println("JSON报告: " + config.output().toAbsolutePath());
+        System.exit(runs.stream().allMatch(StartupRun::succeeded) ? 0 : 1);
+    }
+
+    public List<StartupRun> run() throws IOException, InterruptedException {
+        Files.createDirectories(config.logDir());
+        List<StartupRun> runs = new ArrayList<>();
+        for (int i = 1; i <= config.runs(); i++) {
+            awaitPortReleased();
+            Path log = config.logDir().resolve(config.name() + "-" + i + ".log");
+            StartupRun run = launch(i, log);
+            runs.add(run);
+            System.out.printf("第%d次: %s%n", i, run.describe());
+        }
+        return runs;
+    }
+
+    private StartupRun launch(int index, Path log) throws IOException, InterruptedException {
+        HttpRequest probe = HttpRequest.newBuilder(config.probe()).timeout(REQUEST_TIMEOUT).GET().build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(config.command())
+                .directory(config.workDir().toAbsolutePath().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        long deadline = start + config.timeout().toNanos();
+        long firstResponse = -1;
+        long firstSuccess = -1;
+        String failure = null;
+        try {
+            while (firstSuccess < 0) {
+                if (!process.isAlive()) {
+                    failure = "进程退出，退出码 " + process.exitValue();
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    failure = "超过 " + config.timeout().toSeconds() + "s 未返回2xx";
+                    break;
+                }
+                try {
+                    HttpResponse<Void> response = client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    long now = System.nanoTime();
+                    if (firstResponse < 0) {
+                        firstResponse = now - start;
+                    }
+                    if (response.statusCode() / 100 == 2) {
+                        firstSuccess = now - start;
+                        break;
+                    }
+                } catch (ConnectException e) {
+                    // 端口尚未监听
+                } catch (IOException e) {
+                    // 连接被关闭等，继续探测
+                }
+                Thread.sleep(config.pollInterval().toMillis());
+            }
+        } finally {
+            stop(process);
+        }
+        return new StartupRun(index, firstResponse, firstSuccess, springStartedNanos(log), failure, log);
+    }
+
+    /**
+     * 先正常关闭（让应用从注册中心注销），超时后强制结束，子进程一并处理
+     */
+    private static void stop(Process process) throws InterruptedException {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        process.destroy();
+        if (!process.waitFor(STOP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+    /**
+     * 上一次启动的进程退出后端口可能还没有释放，此时探测会连到残留的进程上
+     */
+    private void awaitPortReleased() throws InterruptedException {
+        URI probe = config.probe();
+        int port = probe.getPort() > 0 ? probe.getPort() : "https".equals(probe.getScheme()) ? 443 : 80;
+        long deadline = System.nanoTime() + STOP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(probe.getHost(), port), 200);
+            } catch (IOException e) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("端口 " + port + " 仍被占用，无法开始下一次启动");
+    }
+
+    private static long springStartedNanos(Path log) {
+        try {
+            Matcher matcher = SPRING_STARTED.matcher(Files.readString(log, StandardCharsets.UTF_8));
+            long started = -1;
+            while (matcher.find()) {
+                // 带bootstrap上下文时会出现多次，取最后一次（主上下文）
+                started = (long) (Double.parseDouble(matcher.group(1)) * 1e9);
+            }
+            return started;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.loadgen;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 启动基准参数
+ */
+public record StartupConfig(
+        String name,
+        List<String> command,
+        Path workDir,
+        URI probe,
+        int runs,
+        Duration timeout,
+        Duration pollInterval,
+        Path logDir,
+        Path output) {
+
+    static final String USAGE = """
+            用法: java -cp load-generator.jar com.example.loadgen.StartupBenchmark [选项] -- 启动命令...
+              --probe URL            探测地址，第一次返回2xx即视为可以接收流量（必填）
+              --name NAME            报告中的名称，默认取启动命令中的jar文件名或主类名
+              --runs N               启动次数，默认 5
+              --dir DIR              启动命令的工作目录，默认当前目录
+              --timeout D            单次启动的最长等待时间，默认 120s
+              --poll D               探测间隔，默认 20ms
+              --log-dir DIR          每次启动的输出保存目录，默认 startup-logs
+              --output FILE          JSON报告路径，默认 startup-<name>.json
+            时长格式: 500ms, 30s, 2m
+            """;
+
+    public static StartupConfig parse(String[] args) {
+        String name = null;
+        URI probe = null;
+        int runs = 5;
+        Path workDir = Path.of("");
+        Duration timeout = Duration.ofSeconds(120);
+        Duration pollInterval = Duration.ofMillis(20);
+        Path logDir = Path.of("startup-logs");
+        Path output = null;
+        List<String> command = List.of();
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("-h") || option.equals("--help")) {
+                throw new IllegalArgumentException(USAGE);
+            }
+            if (option.equals("--")) {
+                command = List.copyOf(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("缺少参数值: " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--probe" -> probe = URI.create(value);
+                case "--name" -> name = value;
+                case "--runs" -> runs = Integer.parseInt(value);
+                case "--dir" -> workDir = Path.of(value);
+                case "--timeout" -> timeout = LoadConfig.parseDuration(value);
+                case "--poll" -> pollInterval = LoadConfig.parseDuration(value);
+                case "--log-dir" -> logDir = Path.of(value);
+                case "--output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("未知的选项: " + option + "\n" + USAGE);
+            }
+        }
+        if (probe == null || command.isEmpty()) {
+            throw new IllegalArgumentException("需要 --probe 和 -- 之后的启动命令\n" + USAGE);
+        }
+        if (runs < 1) {
+            throw new IllegalArgumentException("--runs 至少为1: " + runs);
+        }
+        if (name == null) {
+            name = defaultName(command);
+        }
+        if (output == null) {
+            output = Path.of("startup-" + name + ".json");
+        }
+        return new StartupConfig(name, command, workDir, probe, runs, timeout, pollInterval, logDir, output);
+    }
+
+    /**
+     * -jar 后面的jar文件名（去掉版本号），没有 -jar 时取最后一个不以 - 开头的参数（主类名的最后一段）
+     */
+    private static String defaultName(List<String> command) {
+        int jar = command.indexOf("-jar");
+        if (jar >= 0 && jar + 1 < command.size()) {
+            String file = Path.of(command.get(jar + 1)).getFileName().toString();
+            return file.replaceFirst("\\.jar$", "").replaceFirst("-\\d+(\\.\\d+)*(-[A-Za-z]+)?$", "");
+        }
+        for (String argument : command.reversed()) {
+            if (!argument.startsWith("-")) {
+                return argument.substring(argument.lastIndexOf('.') + 1);
+            }
+        }
+        return "app";
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 启动基准报告：控制台汇总和JSON文件，统计只包括成功的启动
+ */
+public class StartupReport {
+
+    private final StartupConfig config;
+    private final List<StartupRun> runs;
+
+    public StartupReport(StartupConfig config, List<StartupRun> runs) {
+        this.config = config;
+        this.runs = runs;
+    }
+
+    public void print(PrintStream out) {
+        long succeeded = runs.stream().filter(StartupRun::succeeded).count();
+        out.printf("%n=== %s: 启动 %d 次，成功 %d 次 ===%n", config.name(), runs.size(), succeeded);
+        out.printf("%-28s %9s %9s %9s %9s%n", "", "min(ms)", "p50(ms)", "mean(ms)", "max(ms)");
+        printRow(out, "首次成功请求", StartupRun::firstSuccessNanos);
+        printRow(out, "首次响应", StartupRun::firstResponseNanos);
+        printRow(out, "Spring报告的启动时间", StartupRun::springStartedNanos);
+    }
+
+    private void printRow(PrintStream out, String label, ToLongFunction<StartupRun> metric) {
+        long[] values = values(metric);
+        if (values.length == 0) {
+            out.printf("%-28s %9s %9s %9s %9s%n", label, "-", "-", "-", "-");
+            return;
+        }
+        out.printf("%-28s %9.0f %9.0f %9.0f %9.0f%n", label, values[0] / 1e6, median(values) / 1e6,
+                Arrays.stream(values).average().orElse(0) / 1e6, values[values.length - 1] / 1e6);
+    }
+
+    public void write(Path path) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("generatedAt", Instant.now().toString());
+        root.put("name", config.name());
+        root.put("command", config.command());
+        root.put("probe", config.probe().toString());
+        root.put("pollIntervalMs", config.pollInterval().toMillis());
+        root.put("timeToFirstSuccessMs", summaryJson(values(StartupRun::firstSuccessNanos)));
+        root.put("timeToFirstResponseMs", summaryJson(values(StartupRun::firstResponseNanos)));
+        root.put("springStartedMs", summaryJson(values(StartupRun::springStartedNanos)));
+
+        List<Object> runList = new ArrayList<>();
+        for (StartupRun run : runs) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("index", run.index());
+            json.put("succeeded", run.succeeded());
+            json.put("firstSuccessMs", millisOrNull(run.firstSuccessNanos()));
+            json.put("firstResponseMs", millisOrNull(run.firstResponseNanos()));
+            json.put("springStartedMs", millisOrNull(run.springStartedNanos()));
+            json.put("failure", run.failure());
+            json.put("log", run.log().toString());
+            runList.add(json);
+        }
+        root.put("runs", runList);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), root);
+    }
+
+    /**
+     * 成功启动中该项的取值，升序
+     */
+    private long[] values(ToLongFunction<StartupRun> metric) {
+        return runs.stream()
+                .filter(StartupRun::succeeded)
+                .mapToLong(metric)
+                .filter(value -> value >= 0)
+                .sorted()
+                .toArray();
+    }
+
+    private static Map<String, Object> summaryJson(long[] values) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("count", values.length);
+        if (values.length > 0) {
+            json.put("min", values[0] / 1e6);
+            json.put("p50", median(values) / 1e6);
+            json.put("mean", Arrays.stream(values).average().orElse(0) / 1e6);
+            json.put("max", values[values.length - 1] / 1e6);
+        }
+        return json;
+    }
+
+    private static double median(long[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2d;
+    }
+
+    private static Double millisOrNull(long nanos) {
+        return nanos < 0 ? null : nanos / 1e6;
+    }
+}
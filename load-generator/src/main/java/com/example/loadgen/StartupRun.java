@@ -0,0 +1,27 @@
+package com.example.loadgen;
+
+import java.nio.file.Path;
+
+/**
+ * 一次启动的结果，时间都从创建进程开始计算，-1 表示没有发生
+ *
+ * @param firstResponseNanos 第一次收到任何HTTP响应
+ * @param firstSuccessNanos  第一次收到2xx响应
+ * @param springStartedNanos 日志中Spring报告的启动时间
+ * @param failure            失败原因，成功时为null
+ */
+public record StartupRun(int index, long firstResponseNanos, long firstSuccessNanos, long springStartedNanos,
+                         String failure, Path log) {
+
+    public boolean succeeded() {
+        return failure == null;
+    }
+
+    String describe() {
+        if (!succeeded()) {
+            return "失败（" + failure + "），输出见 " + log;
+        }
+        return String.format("首次成功 %.0fms，首次响应 %.0fms，Spring报告 %s", firstSuccessNanos / 1e6,
+                firstResponseNanos / 1e6, springStartedNanos < 0 ? "-" : String.format("%.0fms", springStartedNanos / 1e6));
+    }
+}
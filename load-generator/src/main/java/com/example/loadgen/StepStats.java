@@ -0,0 +1,57 @@
+package com.example.loadgen;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个速率阶段的统计，按接口分别记录
+ */
+public class StepStats {
+
+    private final RateStep step;
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final AtomicLong maxSendLagNanos = new AtomicLong();
+
+    public StepStats(RateStep step, List<Endpoint> endpointList) {
+        this.step = step;
+        // 接口集合在压测开始前确定，之后只读，不需要并发容器
+        for (Endpoint endpoint : endpointList) {
+            endpoints.putIfAbsent(endpoint.name(), new EndpointStats());
+        }
+    }
+
+    public RateStep step() {
+        return step;
+    }
+
+    public EndpointStats endpoint(String name) {
+        return endpoints.get(name);
+    }
+
+    public Map<String, EndpointStats> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 记录一次发送，lagNanos为实际发送时间晚于计划时间的部分
+     */
+    void recordSend(long lagNanos) {
+        sent.increment();
+        maxSendLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    /**
+     * 压测端自身的最大发送延迟，明显偏大说明压测机跟不上目标速率，结果不可信
+     */
+    public long maxSendLagNanos() {
+        return maxSendLagNanos.get();
+    }
+}
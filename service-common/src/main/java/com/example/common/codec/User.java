@@ -0,0 +1,8 @@
+package com.example.common.codec;
+
+/**
+ * 用户，消费者UserClient和提供者UserController之间的请求体和响应体
+ * JSON中的id可以是数字，也可以是数字字符串（原来的 Map&lt;String, String&gt; 格式）
+ */
+public record User(int id, String name) {
+}
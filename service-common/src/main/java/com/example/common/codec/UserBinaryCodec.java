@@ -0,0 +1,275 @@
+package com.example.common.codec;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户数据的紧凑二进制格式（application/x-user-bin），提供者和消费者共用
+ * <pre>
+ * 消息       = 版本(1字节，当前为1) 内容
+ * 单个用户   = varint(zigzag(id)) 名字
+ * 用户列表   = varint(个数) 单个用户...      List&lt;User&gt;，Map&lt;Integer, String&gt; 使用相同的布局
+ * 名字       = varint(UTF-8字节数 + 1) UTF-8字节，长度0表示null
+ * </pre>
+ * varint为7位一组、低位在前的变长整数，连续的小ID只占1到3个字节，没有字段名和引号、转义。
+ * 解码时按目标类型解释内容，格式中不带类型信息。
+ */
+public final class UserBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-user-bin";
+
+    private static final int VERSION = 1;
+    /**
+     * 预分配时每个用户的估计字节数：3字节ID、1字节长度和20字节以内的名字
+     */
+    private static final int ESTIMATED_USER_BYTES = 24;
+
+    private UserBinaryCodec() {
+    }
+
+    /**
+     * 是否支持该类型：User、List&lt;User&gt;（或Collection）、Map&lt;Integer, String&gt;
+     */
+    public static boolean supports(Type type) {
+        if (type == User.class) {
+            return true;
+        }
+        if (!(type instanceof ParameterizedType parameterized)
+                || !(parameterized.getRawType() instanceof Class<?> raw)) {
+            return false;
+        }
+        Type[] args = parameterized.getActualTypeArguments();
+        if (raw == List.class || raw == Collection.class) {
+            return args[0] == User.class;
+        }
+        return raw == Map.class && args[0] == Integer.class && args[1] == String.class;
+    }
+
+    /**
+     * @param type 需满足 {@link #supports(Type)}
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Object value, Type type) {
+        if (type == User.class) {
+            return encodeUser((User) value);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return encodeUserMap((Map<Integer, String>) map);
+        }
+        return encodeUsers((Collection<User>) value);
+    }
+
+    public static Object decode(byte[] bytes, Type type) {
+        if (type == User.class) {
+            return decodeUser(bytes);
+        }
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == Map.class) {
+            return decodeUserMap(bytes);
+        }
+        return decodeUsers(bytes);
+    }
+
+    public static byte[] encodeUser(User user) {
+        Output out = new Output(ESTIMATED_USER_BYTES);
+        out.writeUser(user.id(), user.name());
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeUsers(Collection<User> users) {
+        Output out = new Output(5 + users.size() * ESTIMATED_USER_BYTES);
+        out.writeVarint(users.size());
+        for (User user : users) {
+            out.writeUser(user.id(), user.name());
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeUserMap(Map<Integer, String> users) {
+        Output out = new Output(5 + users.size() * ESTIMATED_USER_BYTES);
+        out.writeVarint(users.size());
+        users.forEach(out::writeUser);
+        return out.toByteArray();
+    }
+
+    public static User decodeUser(byte[] bytes) {
+        Input in = new Input(bytes);
+        User user = new User(in.readId(), in.readName());
+        in.finish();
+        return user;
+    }
+
+    public static List<User> decodeUsers(byte[] bytes) {
+        Input in = new Input(bytes);
+        int count = in.readCount();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(in.readId(), in.readName()));
+        }
+        in.finish();
+        return users;
+    }
+
+    public static Map<Integer, String> decodeUserMap(byte[] bytes) {
+        Input in = new Input(bytes);
+        int count = in.readCount();
+        Map<Integer, String> users = LinkedHashMap.newLinkedHashMap(count);
+        for (int i = 0; i < count; i++) {
+            users.put(in.readId(), in.readName());
+        }
+        in.finish();
+        return users;
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int position;
+
+        Output(int capacity) {
+            buffer = new byte[capacity + 1];
+            buffer[position++] = VERSION;
+        }
+
+        void writeUser(int id, String name) {
+            writeVarint((id << 1) ^ (id >> 31));
+            if (name == null) {
+                writeVarint(0);
+                return;
+            }
+            int length = name.length();
+            if (length * 3 + 1 > 0x7F) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length + 1);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+                return;
+            }
+            // 短名字的字节数一定能用1字节的varint表示：先占位，直接把字符编码进缓冲区，再回填长度，省去中间数组
+            ensure(1 + length * 3);
+            int lengthPosition = position++;
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    int codePoint = Character.isHighSurrogate(c) && i + 1 < length
+                            && Character.isLowSurrogate(name.charAt(i + 1))
+                            ? Character.toCodePoint(c, name.charAt(++i)) : -1;
+                    if (codePoint < 0) {
+                        // 与 String.getBytes 一致，不成对的代理字符编码为 '?'
+                        buffer[position++] = '?';
+                    } else {
+                        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                    }
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            buffer[lengthPosition] = (byte) (position - lengthPosition);
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + bytes));
+            }
+        }
+
+        byte[] toByteArray() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+            if (buffer.length == 0 || buffer[0] != VERSION) {
+                throw new IllegalArgumentException("不支持的二进制格式版本: "
+                        + (buffer.length == 0 ? "空消息" : buffer[0]));
+            }
+            position = 1;
+        }
+
+        int readId() {
+            int zigzag = readVarint();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        /**
+         * 每个用户至少占2个字节，超出剩余字节数的个数说明数据已损坏，避免按它预分配
+         */
+        int readCount() {
+            int count = readVarint();
+            if (count < 0 || count > (buffer.length - position) / 2) {
+                throw new IllegalArgumentException("非法的用户个数: " + Integer.toUnsignedString(count));
+            }
+            return count;
+        }
+
+        /**
+         * 长度0表示null；超过int范围的varint解出来是负数，同样说明数据已损坏
+         */
+        String readName() {
+            int encoded = readVarint();
+            if (encoded == 0) {
+                return null;
+            }
+            int length = encoded - 1;
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("非法的名字长度: " + Integer.toUnsignedString(length));
+            }
+            String name = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return name;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= buffer.length) {
+                    throw new IllegalArgumentException("消息不完整");
+                }
+                byte b = buffer[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint过长");
+        }
+
+        void finish() {
+            if (position != buffer.length) {
+                throw new IllegalArgumentException("消息末尾有多余的 " + (buffer.length - position) + " 字节");
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.common.pinning;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 虚拟线程钉住（pinning）监控
+ * 通过JFR的jdk.VirtualThreadPinned事件发现虚拟线程在synchronized块或本地方法中阻塞、
+ * 占住载体线程的位置，按调用栈汇总后记录日志，并通过 /actuator/pinning 端点暴露。
+ */
+@Endpoint(id = "pinning")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 100;
+    private static final int SITE_FRAMES = 6;
+
+    private final Duration threshold;
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("虚拟线程钉住监控已启动，阈值: {}ms", threshold.toMillis());
+    }
+
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * 钉住次数汇总，按出现次数降序
+     */
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("thresholdMillis", threshold.toMillis());
+        report.put("total", total.sum());
+        report.put("sites", sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum(),
+                        (a, b) -> a, LinkedHashMap::new)));
+        return report;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        total.increment();
+        String site = site(event);
+        LongAdder counter = sites.get(site);
+        if (counter == null && sites.size() < MAX_SITES) {
+            counter = sites.computeIfAbsent(site, key -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+        log.warn("虚拟线程被钉住 {}ms，位置:\n{}", event.getDuration().toMillis(), site);
+    }
+
+    /**
+     * 跳过虚拟线程调度和park相关的帧，取业务相关的前几帧作为钉住位置
+     */
+    private static String site(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "<unknown>";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        return frames.stream()
+                .filter(frame -> frame.isJavaFrame() && !isSchedulerFrame(frame))
+                .limit(SITE_FRAMES)
+                .map(frame -> "  at " + frame.getMethod().getType().getName() + "."
+                        + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static boolean isSchedulerFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.lang.VirtualThread")
+                || type.startsWith("java.lang.Thread")
+                || type.startsWith("java.util.concurrent.locks.LockSupport")
+                || type.startsWith("jdk.internal.");
+    }
+}
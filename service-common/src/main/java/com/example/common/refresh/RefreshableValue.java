@@ -0,0 +1,53 @@
+package com.example.common.refresh;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 可在运行时更新的类型化配置值
+ * 由 RefreshableValues 创建并绑定到一个配置名称，可以是单个属性，也可以是一组属性（绑定到对象或record）。
+ * 配置中心刷新后只有名称本身或其下属的键发生变化时才重新绑定，新值整体替换旧值；
+ * 读取只是一次volatile读，不经过代理，也不会重建持有它的Bean。
+ */
+public final class RefreshableValue<T> implements Supplier<T> {
+
+    private final ConfigurationPropertyName name;
+    private final Bindable<T> bindable;
+    private final T defaultValue;
+    private volatile T value;
+
+    RefreshableValue(ConfigurationPropertyName name, Bindable<T> bindable, T defaultValue) {
+        this.name = name;
+        this.bindable = bindable;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public T get() {
+        return value;
+    }
+
+    public String getName() {
+        return name.toString();
+    }
+
+    boolean affectedBy(ConfigurationPropertyName changed) {
+        return name.equals(changed) || name.isAncestorOf(changed);
+    }
+
+    /**
+     * @return 值发生变化时返回true
+     */
+    boolean rebind(Binder binder) {
+        T bound = binder.bind(name, bindable).orElse(defaultValue);
+        if (Objects.equals(bound, value)) {
+            return false;
+        }
+        value = bound;
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.common.refresh;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按变化的键增量刷新配置值，取代 @RefreshScope
+ * 配置刷新（/actuator/refresh 或消息总线）时 ContextRefresher 比较刷新前后的属性源，发布带有变化键集合的
+ * EnvironmentChangeEvent。这里只重新绑定受这些键影响的 RefreshableValue，原地替换为新值，
+ * 没有相关的键变化时什么都不做；Bean本身不会销毁重建，请求路径上也没有作用域代理。
+ */
+public class RefreshableValues implements ApplicationListener<EnvironmentChangeEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshableValues.class);
+
+    private final ConfigurableEnvironment environment;
+    private final List<RefreshableValue<?>> values = new CopyOnWriteArrayList<>();
+
+    public RefreshableValues(ConfigurableEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * @param name 配置名称，如 consumer.message、provider.message；绑定对象时为其前缀
+     * @param defaultValue 没有配置时使用的值
+     */
+    public <T> RefreshableValue<T> bind(String name, Class<T> type, T defaultValue) {
+        RefreshableValue<T> value = new RefreshableValue<>(ConfigurationPropertyName.of(name), Bindable.of(type),
+                defaultValue);
+        value.rebind(Binder.get(environment));
+        values.add(value);
+        return value;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        long start = System.nanoTime();
+        List<ConfigurationPropertyName> changed = event.getKeys().stream()
+                .map(key -> ConfigurationPropertyName.adapt(key, '.'))
+                .toList();
+        Binder binder = null;
+        int updated = 0;
+        for (RefreshableValue<?> value : values) {
+            if (changed.stream().noneMatch(value::affectedBy)) {
+                continue;
+            }
+            if (binder == null) {
+                binder = Binder.get(environment);
+            }
+            if (value.rebind(binder)) {
+                updated++;
+                log.info("配置 {} 已更新", value.getName());
+            }
+        }
+        if (updated > 0) {
+            log.info("配置刷新：{}个键变化，更新{}个配置值，耗时{}μs", changed.size(), updated,
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+}
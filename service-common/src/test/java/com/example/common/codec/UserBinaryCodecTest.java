@@ -0,0 +1,151 @@
+package com.example.common.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserBinaryCodecTest {
+
+    private static final String LONG_NAME = "用户".repeat(40);
+
+    private static final List<User> USERS = List.of(
+            new User(0, "user-0"),
+            new User(1, ""),
+            new User(-1, null),
+            new User(Integer.MAX_VALUE, "名字"),
+            new User(Integer.MIN_VALUE, "emoji-😀"),
+            new User(300, LONG_NAME));
+
+    // 只用来取泛型类型
+    private List<User> userList;
+    private Map<Integer, String> userMap;
+    private Set<User> userSet;
+
+    @Test
+    void roundTripsSingleUsers() {
+        for (User user : USERS) {
+            assertEquals(user, UserBinaryCodec.decodeUser(UserBinaryCodec.encodeUser(user)));
+            assertEquals(user, UserBinaryCodec.decode(UserBinaryCodec.encode(user, User.class), User.class));
+        }
+    }
+
+    @Test
+    void roundTripsListsAndMaps() throws NoSuchFieldException {
+        Type listType = type("userList");
+        assertEquals(USERS, UserBinaryCodec.decode(UserBinaryCodec.encode(USERS, listType), listType));
+        assertEquals(List.of(), UserBinaryCodec.decodeUsers(UserBinaryCodec.encodeUsers(List.of())));
+
+        Map<Integer, String> map = new LinkedHashMap<>();
+        USERS.forEach(user -> map.put(user.id(), user.name()));
+        Type mapType = type("userMap");
+        Object decoded = UserBinaryCodec.decode(UserBinaryCodec.encode(map, mapType), mapType);
+        assertEquals(map, decoded);
+        assertEquals(List.copyOf(map.keySet()), List.copyOf(((Map<?, ?>) decoded).keySet()));
+    }
+
+    @Test
+    void encodesNamesLikeStringGetBytes() {
+        // 短名字直接编码进缓冲区，结果必须与 String.getBytes 一致，包括不成对的代理字符
+        for (String name : List.of("abc", "é", "中文", "😀", "a\uD83Db", "\uDE00", "x\uD83D")) {
+            byte[] encoded = UserBinaryCodec.encodeUser(new User(1, name));
+            byte[] expected = name.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length + 1, encoded[2]);
+            assertArrayEquals(expected, Arrays.copyOfRange(encoded, 3, encoded.length));
+            assertEquals(new String(expected, StandardCharsets.UTF_8), UserBinaryCodec.decodeUser(encoded).name());
+        }
+    }
+
+    @Test
+    void supportsOnlyUserTypes() throws NoSuchFieldException {
+        assertTrue(UserBinaryCodec.supports(User.class));
+        assertTrue(UserBinaryCodec.supports(type("userList")));
+        assertTrue(UserBinaryCodec.supports(type("userMap")));
+        assertFalse(UserBinaryCodec.supports(type("userSet")));
+        assertFalse(UserBinaryCodec.supports(String.class));
+        assertFalse(UserBinaryCodec.supports(List.class));
+    }
+
+    @Test
+    void rejectsWrongVersion() {
+        assertCorrupt();
+        assertCorrupt(2, 2, 1);
+    }
+
+    @Test
+    void rejectsNegativeNameLength() {
+        // 名字长度的varint为 0xFFFFFFFF，按int解出来是-1
+        assertCorrupt(1, 2, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        // 0x80000000 减1后溢出为 Integer.MAX_VALUE
+        assertCorrupt(1, 2, 0x80, 0x80, 0x80, 0x80, 0x08);
+    }
+
+    @Test
+    void rejectsNameLongerThanMessage() {
+        assertCorrupt(1, 2, 5, 'a', 'b');
+    }
+
+    @Test
+    void rejectsTruncatedMessages() {
+        byte[] user = UserBinaryCodec.encodeUser(new User(300, LONG_NAME));
+        for (int length = 0; length < user.length; length++) {
+            byte[] truncated = Arrays.copyOf(user, length);
+            assertThrows(IllegalArgumentException.class, () -> UserBinaryCodec.decodeUser(truncated));
+        }
+        byte[] users = UserBinaryCodec.encodeUsers(USERS);
+        for (int length = 0; length < users.length; length++) {
+            byte[] truncated = Arrays.copyOf(users, length);
+            assertThrows(IllegalArgumentException.class, () -> UserBinaryCodec.decodeUsers(truncated));
+        }
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        byte[] user = UserBinaryCodec.encodeUser(new User(1, "a"));
+        byte[] padded = Arrays.copyOf(user, user.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryCodec.decodeUser(padded));
+    }
+
+    @Test
+    void rejectsImplausibleCount() {
+        // 声明1000个用户，实际只有一个
+        byte[] bytes = {1, (byte) 0xE8, 0x07, 2, 1};
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryCodec.decodeUsers(bytes));
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryCodec.decodeUserMap(bytes));
+        assertThrows(IllegalArgumentException.class,
+                () -> UserBinaryCodec.decodeUsers(bytes(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F)));
+    }
+
+    @Test
+    void rejectsOverlongVarint() {
+        assertCorrupt(1, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01, 1);
+    }
+
+    private static void assertCorrupt(int... values) {
+        byte[] bytes = bytes(values);
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryCodec.decodeUser(bytes));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static Type type(String field) throws NoSuchFieldException {
+        return UserBinaryCodecTest.class.getDeclaredField(field).getGenericType();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.config.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 配置源变化监听
+ * 监听本地配置目录或本地Git裸仓库（包括所有子目录，新建的子目录自动加入），有任何文件变化时让配置响应缓存失效。
+ * 一次提交或批量修改会产生一串事件，在静默一小段时间后合并为一次失效。
+ */
+public class ConfigSourceWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSourceWatcher.class);
+
+    private static final long QUIET_MILLIS = 50;
+
+    private final List<Path> paths;
+    private final EnvironmentResponseCache cache;
+    private WatchService watchService;
+
+    public ConfigSourceWatcher(List<Path> paths, EnvironmentResponseCache cache) {
+        this.paths = paths;
+        this.cache = cache;
+    }
+
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                registerAll(path);
+                log.info("监听配置源变化: {}", path.toAbsolutePath().normalize());
+            } else {
+                log.warn("配置源目录不存在，无法监听变化: {}", path.toAbsolutePath().normalize());
+            }
+        }
+        Thread.ofPlatform().name("config-source-watcher").daemon().start(this::run);
+    }
+
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path changed = handle(key);
+                // 合并紧接着的事件
+                while ((key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    handle(key);
+                }
+                cache.invalidate("配置源变化: " + changed);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // 停止监听
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Path handle(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        Path changed = dir;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            changed = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                try {
+                    registerAll(changed);
+                } catch (IOException | UncheckedIOException e) {
+                    log.warn("无法监听新建的目录 {}: {}", changed, e.toString());
+                }
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void registerAll(Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.config.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 配置响应缓存配置
+ * 在 native（本地目录）和 local-git（本地Git裸仓库）模式下开启：配置源就在本机，可以监听文件变化来失效缓存。
+ * 远程Git模式下配置变化无从感知，不开启缓存。
+ */
+@Configuration
+@ConditionalOnProperty(name = "config.cache.enabled", havingValue = "true")
+public class EnvironmentCacheConfiguration {
+
+    @Bean
+    public EnvironmentResponseCache environmentResponseCache(
+            @Value("${config.cache.max-entries:1024}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        return new EnvironmentResponseCache(maxEntries, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<EnvironmentCacheFilter> environmentCacheFilter(EnvironmentResponseCache cache) {
+        FilterRegistrationBean<EnvironmentCacheFilter> registration =
+                new FilterRegistrationBean<>(new EnvironmentCacheFilter(cache));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ConfigSourceWatcher configSourceWatcher(
+            @Value("${config.cache.watch-paths}") String[] watchPaths,
+            EnvironmentResponseCache cache) {
+        return new ConfigSourceWatcher(Arrays.stream(watchPaths).map(String::trim).map(Path::of).toList(), cache);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.config.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 配置请求缓存过滤器
+ * 对获取配置的GET请求（/{application}/{profile}[/{label}] 以及 .yml/.properties 等形式）：
+ * <ul>
+ *     <li>缓存命中时直接写出缓存的响应体，不经过配置仓库</li>
+ *     <li>请求带 If-None-Match 且与当前ETag一致时返回304，不传输响应体</li>
+ *     <li>未命中时照常处理，200响应计算ETag后写入缓存</li>
+ * </ul>
+ * 管理端点、加解密等接口不缓存。
+ */
+public class EnvironmentCacheFilter extends OncePerRequestFilter {
+
+    private static final List<String> EXCLUDED_PREFIXES =
+            List.of("/actuator", "/encrypt", "/decrypt", "/key", "/monitor", "/error");
+
+    private final EnvironmentResponseCache cache;
+
+    public EnvironmentCacheFilter(EnvironmentResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return EXCLUDED_PREFIXES.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = key(request);
+        EnvironmentResponseCache.CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            write(request, response, cached);
+            return;
+        }
+
+        long generation = cache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        EnvironmentResponseCache.CachedResponse rendered = new EnvironmentResponseCache.CachedResponse(
+                body, wrapper.getContentType(), "\"0" + DigestUtils.md5DigestAsHex(body) + "\"");
+        cache.put(key, rendered, generation);
+        wrapper.setHeader(HttpHeaders.ETAG, rendered.etag());
+        if (notModified(request, rendered)) {
+            wrapper.resetBuffer();
+            wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response,
+                       EnvironmentResponseCache.CachedResponse cached) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (notModified(request, cached)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private boolean notModified(HttpServletRequest request, EnvironmentResponseCache.CachedResponse cached) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && matches(ifNoneMatch, cached.etag())) {
+            cache.recordNotModified();
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.getRequestURI() + (query != null ? "?" + query : "") + "|" + (accept != null ? accept : "");
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.config.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 渲染后的配置响应缓存
+ * 按请求路径、查询参数和Accept缓存已经序列化好的响应体，命中时不再经过配置仓库和序列化。
+ * 配置源变化时整体失效；失效前开始渲染、失效后才写入的响应通过代数判断丢弃，不会把旧配置写回缓存。
+ */
+public class EnvironmentResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EnvironmentResponseCache.class);
+
+    /**
+     * @param etag 响应体的摘要，带引号，可直接用作ETag响应头
+     */
+    public record CachedResponse(byte[] body, String contentType, String etag) {
+    }
+
+    private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public EnvironmentResponseCache(int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        FunctionCounter.builder("config.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("配置请求按缓存结果计数")
+                .register(meterRegistry);
+        FunctionCounter.builder("config.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("config.cache.requests", notModified, LongAdder::sum)
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        Gauge.builder("config.cache.entries", responses, Map::size)
+                .description("缓存的配置响应数")
+                .register(meterRegistry);
+    }
+
+    public CachedResponse get(String key) {
+        CachedResponse response = responses.get(key);
+        if (response != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return response;
+    }
+
+    /**
+     * 渲染开始前取得当前代数，写入时代数不一致说明期间配置已变化
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String key, CachedResponse response, long renderedGeneration) {
+        // 超过上限的新键不再缓存，避免大量不存在的应用名占满内存
+        if (responses.size() >= maxEntries && !responses.containsKey(key)) {
+            return;
+        }
+        responses.put(key, response);
+        if (generation.get() != renderedGeneration) {
+            responses.remove(key, response);
+        }
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public void invalidate(String reason) {
+        generation.incrementAndGet();
+        int size = responses.size();
+        responses.clear();
+        log.info("配置响应缓存已失效（{}），清除{}个响应", reason, size);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.consumer.benchmark;
+
+import com.example.consumer.config.RefreshConfiguration;
+import com.example.consumer.config.ResilienceConfig;
+import com.example.consumer.controller.ConsumerController;
+import com.example.consumer.controller.IsolatedProviderController;
+import com.example.consumer.controller.RateLimitedProviderController;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import io.github.resilience4j.springboot3.ratelimiter.autoconfigure.RateLimiterAutoConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基准测试用的最小Spring上下文
+ * 只加载AOP、刷新和Resilience4j的自动配置，以及被测的三个控制器、ResilienceConfig和RefreshConfiguration，
+ * 不连接注册中心、配置中心和消息总线；Feign客户端由StubProviderClient代替。
+ * 断路器使用基于时间的滑动窗口并把最小调用数设为Integer.MAX_VALUE，保证FALLBACK场景下断路器一直处于关闭状态，
+ * 每次调用都会走"记录失败 + 执行降级方法"的完整路径。
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportAutoConfiguration({
+        AopAutoConfiguration.class,
+        RefreshAutoConfiguration.class,
+        CircuitBreakerAutoConfiguration.class,
+        RateLimiterAutoConfiguration.class,
+        BulkheadAutoConfiguration.class
+})
+@Import({
+        ResilienceConfig.class,
+        RefreshConfiguration.class,
+        ConsumerController.class,
+        RateLimitedProviderController.class,
+        IsolatedProviderController.class
+})
+public class BenchmarkContext {
+
+    static final String CIRCUIT_BREAKER = "circuitBreakerA";
+    static final String RATE_LIMITER = "providerServiceRateLimiter";
+    static final String BULKHEAD = "providerServiceBulkhead";
+
+    @Bean
+    public StubProviderClient stubProviderClient(@Value("${benchmark.mode}") StubMode mode) {
+        return new StubProviderClient(mode);
+    }
+
+    @Bean
+    public RestTemplate restTemplate() {
+        return new RestTemplate();
+    }
+
+    /**
+     * 按场景启动上下文
+     *
+     * @param eventConsumers 是否给每个弹性组件注册事件消费者，对应应用中注册日志监听器的情况
+     * @param eventCounter 事件消费者的计数器，防止消费者被JIT优化掉
+     */
+    public static ConfigurableApplicationContext start(StubMode mode, boolean eventConsumers, LongAdder eventCounter) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(properties(mode))
+                .run();
+
+        CircuitBreakerRegistry circuitBreakerRegistry = context.getBean(CircuitBreakerRegistry.class);
+        RateLimiterRegistry rateLimiterRegistry = context.getBean(RateLimiterRegistry.class);
+        BulkheadRegistry bulkheadRegistry = context.getBean(BulkheadRegistry.class);
+        // 提前创建实例，避免第一次调用时才创建
+        circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        rateLimiterRegistry.rateLimiter(RATE_LIMITER);
+        bulkheadRegistry.bulkhead(BULKHEAD);
+
+        if (mode == StubMode.REJECT) {
+            circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER).transitionToForcedOpenState();
+            // 限流周期内唯一的许可先用掉，之后的请求全部被拒绝
+            rateLimiterRegistry.rateLimiter(RATE_LIMITER).acquirePermission();
+        }
+        if (eventConsumers) {
+            circuitBreakerRegistry.getAllCircuitBreakers()
+                    .forEach(cb -> cb.getEventPublisher().onEvent(event -> eventCounter.increment()));
+            rateLimiterRegistry.getAllRateLimiters()
+                    .forEach(rl -> rl.getEventPublisher().onEvent(event -> eventCounter.increment()));
+            bulkheadRegistry.getAllBulkheads()
+                    .forEach(bh -> bh.getEventPublisher().onEvent(event -> eventCounter.increment()));
+        }
+        return context;
+    }
+
+    private static Map<String, Object> properties(StubMode mode) {
+        boolean reject = mode == StubMode.REJECT;
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("benchmark.mode", mode.name());
+        props.put("spring.cloud.config.enabled", false);
+        props.put("spring.cloud.config.import-check.enabled", false);
+        props.put("spring.cloud.refresh.enabled", true);
+        // 排除日志输出的开销，只测量切面、注册表查找和事件发布
+        props.put("logging.level.root", "WARN");
+        props.put("logging.level.com.example.consumer", "OFF");
+
+        String cb = "resilience4j.circuitbreaker.instances." + CIRCUIT_BREAKER + ".";
+        props.put(cb + "sliding-window-type", "TIME_BASED");
+        props.put(cb + "sliding-window-size", 10);
+        props.put(cb + "minimum-number-of-calls", Integer.MAX_VALUE);
+
+        String rl = "resilience4j.ratelimiter.instances." + RATE_LIMITER + ".";
+        props.put(rl + "limit-for-period", reject ? 1 : Integer.MAX_VALUE);
+        props.put(rl + "limit-refresh-period", reject ? "1h" : "1s");
+        props.put(rl + "timeout-duration", "0");
+
+        // ResilienceConfig 从 consumer.bulkhead.* 读取隔离器配置
+        props.put("consumer.bulkhead.max-concurrent-calls", reject ? 0 : 100_000);
+        props.put("consumer.bulkhead.max-wait-ms", 0);
+        return props;
+    }
+}
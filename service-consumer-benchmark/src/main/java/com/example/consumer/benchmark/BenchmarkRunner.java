@@ -0,0 +1,83 @@
+package com.example.consumer.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.StackProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按线程数 1, 2, 4 ... N 依次运行基准测试
+ * 每一轮都开启gc分析器（分配速率）和stack分析器（线程状态分布，BLOCKED/WAITING比例反映锁竞争），
+ * 结果以JSON写入输出目录，每个线程数一个文件，方便和上一次的结果做对比。
+ *
+ * 参数：[最大线程数，默认CPU核数] [基准测试正则，默认ResilienceAnnotationBenchmark]
+ * 输出目录：-Dbenchmark.output=target/jmh
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        String include = args.length > 1 ? args[1] : ResilienceAnnotationBenchmark.class.getSimpleName();
+        Path output = Path.of(System.getProperty("benchmark.output", "target/jmh"));
+        Files.createDirectories(output);
+
+        List<String> summary = new ArrayList<>();
+        for (int threads : threadCounts(maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .addProfiler(StackProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.resolve("threads-" + threads + ".json").toString())
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                summary.add(summarize(threads, result));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %-45s %-30s %15s %15s%n", "threads", "benchmark", "params", "ops/ms", "B/op");
+        summary.forEach(System.out::println);
+        System.out.println("JSON结果目录: " + output.toAbsolutePath());
+    }
+
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads <<= 1) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(maxThreads, 1));
+        return counts;
+    }
+
+    private static String summarize(int threads, RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        StringBuilder params = new StringBuilder();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.append(key).append('=').append(result.getParams().getParam(key)).append(' ');
+        }
+        Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+        return String.format("%-8d %-45s %-30s %15.1f %15s", threads,
+                benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1),
+                params.toString().trim(),
+                result.getPrimaryResult().getScore(),
+                allocation != null ? String.format("%.1f", allocation.getScore()) : "-");
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.consumer.benchmark;
+
+import com.example.common.refresh.RefreshableValue;
+import com.example.common.refresh.RefreshableValues;
+import com.example.consumer.config.RefreshConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @RefreshScope 与增量刷新（RefreshableValues）的对比
+ * <ul>
+ *     <li>read：每个请求读取一次可刷新的配置值。REFRESH_SCOPE经过作用域代理（每次调用都从作用域取目标Bean），
+ *     DELTA直接读取持有者中的值</li>
+ *     <li>refresh：修改一个配置键后，按 ContextRefresher 的顺序发布 EnvironmentChangeEvent、调用 refreshAll，
+ *     再读取一次新值。REFRESH_SCOPE要销毁并重建Bean，DELTA只重新绑定受影响的值</li>
+ *     <li>refreshUnrelated：修改一个无关的配置键，DELTA什么都不做，REFRESH_SCOPE照样重建Bean</li>
+ * </ul>
+ * 配置中心拉取配置、比较属性源的耗时两种方式相同，不在测量范围内。
+ *
+ * 运行：java -jar target/benchmarks.jar ConfigRefreshBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ConfigRefreshBenchmark {
+
+    public enum RefreshMode {
+        REFRESH_SCOPE,
+        DELTA
+    }
+
+    static final String MESSAGE_KEY = "consumer.message";
+    static final String UNRELATED_KEY = "consumer.unrelated";
+
+    @Param({"REFRESH_SCOPE", "DELTA"})
+    public RefreshMode mode;
+
+    private ConfigurableApplicationContext context;
+    private org.springframework.cloud.context.scope.refresh.RefreshScope refreshScope;
+    private ConfigMessage configMessage;
+    private final Map<String, Object> properties = new HashMap<>();
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        properties.put(MESSAGE_KEY, "message-0");
+        properties.put(UNRELATED_KEY, "unrelated-0");
+        context = new SpringApplicationBuilder(mode == RefreshMode.DELTA
+                ? DeltaContext.class : RefreshScopeContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(Map.of(
+                        "spring.cloud.config.enabled", false,
+                        "spring.cloud.config.import-check.enabled", false,
+                        "logging.level.root", "WARN",
+                        "logging.level.com.example.consumer", "OFF"))
+                .initializers(ctx -> ctx.getEnvironment().getPropertySources()
+                        .addFirst(new MapPropertySource("benchmark", properties)))
+                .run();
+        refreshScope = context.getBean(org.springframework.cloud.context.scope.refresh.RefreshScope.class);
+        configMessage = context.getBean(ConfigMessage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String read() {
+        return configMessage.message();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String refresh() {
+        return change(MESSAGE_KEY);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String refreshUnrelated() {
+        return change(UNRELATED_KEY);
+    }
+
+    private String change(String key) {
+        properties.put(key, key + "-" + ++version);
+        context.publishEvent(new EnvironmentChangeEvent(context, Set.of(key)));
+        refreshScope.refreshAll();
+        return configMessage.message();
+    }
+
+    public interface ConfigMessage {
+        String message();
+    }
+
+    /**
+     * 改造前的方式：@Value 字段 + @RefreshScope
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration(RefreshAutoConfiguration.class)
+    static class RefreshScopeContext {
+
+        @Bean
+        @RefreshScope
+        public ScopedConfigMessage configMessage(@Value("${" + MESSAGE_KEY + "}") String message) {
+            return new ScopedConfigMessage(message);
+        }
+    }
+
+    public static class ScopedConfigMessage implements ConfigMessage {
+
+        private final String message;
+
+        public ScopedConfigMessage(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String message() {
+            return message;
+        }
+    }
+
+    /**
+     * 改造后的方式：普通单例 + RefreshableValue
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration(RefreshAutoConfiguration.class)
+    @Import(RefreshConfiguration.class)
+    static class DeltaContext {
+
+        @Bean
+        public ConfigMessage configMessage(RefreshableValues refreshableValues) {
+            RefreshableValue<String> message = refreshableValues.bind(MESSAGE_KEY, String.class, null);
+            return message::get;
+        }
+    }
+}
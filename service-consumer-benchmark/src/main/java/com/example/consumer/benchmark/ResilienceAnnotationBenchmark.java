@@ -0,0 +1,104 @@
+package com.example.consumer.benchmark;
+
+import com.example.consumer.controller.ConsumerController;
+import com.example.consumer.controller.IsolatedProviderController;
+import com.example.consumer.controller.RateLimitedProviderController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 弹性注解的单次调用开销
+ * baseline直接调用桩客户端，其余三个方法分别经过 @CircuitBreaker、@RateLimiter、@Bulkhead 切面，
+ * 与baseline的差值就是AOP代理、注册表查找、状态机和事件发布的开销。
+ *
+ * 单独运行：java -jar target/benchmarks.jar ResilienceAnnotationBenchmark -t 4 -prof gc
+ * 按线程数扫描：java -cp target/benchmarks.jar com.example.consumer.benchmark.BenchmarkRunner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ResilienceAnnotationBenchmark {
+
+    @Param({"PASS", "FALLBACK", "REJECT"})
+    public StubMode mode;
+
+    @Param({"false", "true"})
+    public boolean eventConsumers;
+
+    private final LongAdder eventCounter = new LongAdder();
+
+    private ConfigurableApplicationContext context;
+    private StubProviderClient stubProviderClient;
+    private ConsumerController consumerController;
+    private RateLimitedProviderController rateLimitedProviderController;
+    private IsolatedProviderController isolatedProviderController;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(mode, eventConsumers, eventCounter);
+        stubProviderClient = context.getBean(StubProviderClient.class);
+        consumerController = context.getBean(ConsumerController.class);
+        rateLimitedProviderController = context.getBean(RateLimitedProviderController.class);
+        isolatedProviderController = context.getBean(IsolatedProviderController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 不经过任何切面，FALLBACK场景下包含异常的创建开销
+     */
+    @Benchmark
+    public String baseline() {
+        try {
+            return stubProviderClient.hello();
+        } catch (IllegalStateException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * ConsumerController.hello：@CircuitBreaker(circuitBreakerA)
+     */
+    @Benchmark
+    public String circuitBreaker() {
+        return consumerController.hello();
+    }
+
+    /**
+     * RateLimitedProviderController.getHello：@RateLimiter(providerServiceRateLimiter)
+     */
+    @Benchmark
+    public ResponseEntity<String> rateLimiter() {
+        return rateLimitedProviderController.getHello();
+    }
+
+    /**
+     * IsolatedProviderController.getHello：@Bulkhead(providerServiceBulkhead, SEMAPHORE)
+     */
+    @Benchmark
+    public ResponseEntity<String> bulkhead() {
+        return isolatedProviderController.getHello();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.consumer.benchmark;
+
+/**
+ * 基准测试场景
+ */
+public enum StubMode {
+
+    /**
+     * 下游正常返回，弹性组件全部放行，测量注解切面本身的开销
+     */
+    PASS,
+
+    /**
+     * 下游每次都抛异常，弹性组件放行并记录失败，降级方法每次都会执行
+     */
+    FALLBACK,
+
+    /**
+     * 断路器强制打开、限流器无许可、隔离器无并发额度，请求在切面内被直接拒绝后降级
+     */
+    REJECT
+}
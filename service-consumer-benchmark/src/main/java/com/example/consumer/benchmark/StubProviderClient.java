@@ -0,0 +1,42 @@
+package com.example.consumer.benchmark;
+
+import com.example.consumer.client.IsolatedProviderClient;
+import com.example.consumer.client.ProviderClient;
+import com.example.consumer.client.RateLimitedProviderClient;
+
+/**
+ * 进程内的桩客户端，代替Feign客户端，不产生任何网络调用
+ */
+public class StubProviderClient implements ProviderClient, RateLimitedProviderClient, IsolatedProviderClient {
+
+    private static final String HELLO = "Hello from stub provider, 端口：0";
+
+    private final boolean failing;
+
+    public StubProviderClient(StubMode mode) {
+        this.failing = mode == StubMode.FALLBACK;
+    }
+
+    @Override
+    public String hello() {
+        return respond();
+    }
+
+    @Override
+    public String getHello() {
+        return respond();
+    }
+
+    @Override
+    public String performHeavyTask(String taskId) {
+        return respond();
+    }
+
+    private String respond() {
+        if (failing) {
+            // 与真实的Feign调用失败一样，每次都新建异常并填充堆栈
+            throw new IllegalStateException("stub provider failure");
+        }
+        return HELLO;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.consumer.benchmark;
+
+import com.example.common.codec.User;
+import com.example.common.codec.UserBinaryCodec;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户数据的JSON与二进制格式（application/x-user-bin）对比
+ * <ul>
+ *     <li>encodeUsers / decodeUsers：批量创建、批量更新的请求体 List&lt;User&gt;</li>
+ *     <li>encodeUserMap / decodeUserMap：批量查询的响应 Map&lt;Integer, String&gt;</li>
+ * </ul>
+ * JSON使用与Feign的SpringEncoder/SpringDecoder相同的Jackson，只比较序列化本身，不包括HTTP和转换器查找。
+ * 启动时打印每种负载在两种格式下的字节数，即线上传输的请求体/响应体大小。
+ *
+ * 运行：java -jar target/benchmarks.jar UserCodecBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserCodecBenchmark {
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    private static final TypeReference<List<User>> USER_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<Integer, String>> USER_MAP = new TypeReference<>() {
+    };
+
+    @Param({"JSON", "BINARY"})
+    public Format format;
+
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<User> users;
+    private Map<Integer, String> userMap;
+    private byte[] encodedUsers;
+    private byte[] encodedUserMap;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        users = new ArrayList<>(batchSize);
+        userMap = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            // 与压测数据相同的ID分布和用户名长度，少量非ASCII用户名
+            int id = 1_000_000 + i * 37;
+            String name = i % 10 == 0 ? "用户-" + id : "user-" + id;
+            users.add(new User(id, name));
+            userMap.put(id, name);
+        }
+        encodedUsers = encodeUsers();
+        encodedUserMap = encodeUserMap();
+        System.out.printf("%n%s batchSize=%d: List<User> %d 字节，Map<Integer, String> %d 字节%n",
+                format, batchSize, encodedUsers.length, encodedUserMap.length);
+    }
+
+    @Benchmark
+    public byte[] encodeUsers() throws IOException {
+        return format == Format.JSON
+                ? objectMapper.writeValueAsBytes(users)
+                : UserBinaryCodec.encodeUsers(users);
+    }
+
+    @Benchmark
+    public List<User> decodeUsers() throws IOException {
+        return format == Format.JSON
+                ? objectMapper.readValue(encodedUsers, USER_LIST)
+                : UserBinaryCodec.decodeUsers(encodedUsers);
+    }
+
+    @Benchmark
+    public byte[] encodeUserMap() throws IOException {
+        return format == Format.JSON
+                ? objectMapper.writeValueAsBytes(userMap)
+                : UserBinaryCodec.encodeUserMap(userMap);
+    }
+
+    @Benchmark
+    public Map<Integer, String> decodeUserMap() throws IOException {
+        return format == Format.JSON
+                ? objectMapper.readValue(encodedUserMap, USER_MAP)
+                : UserBinaryCodec.decodeUserMap(encodedUserMap);
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.consumer;
 
 import com.example.consumer.config.FeignConfiguration;
-import com.example.consumer.config.LoadBalancerConfig;
+import com.example.consumer.config.LatencyAwareLoadBalancerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -18,7 +18,7 @@ import java.time.Duration;
 @SpringBootApplication
 @EnableDiscoveryClient  // 启用 Eureka 客户端
 @EnableFeignClients(basePackages = "com.example.consumer.client", defaultConfiguration = FeignConfiguration.class)  // 明确指定扫描包路径和默认配置
-@LoadBalancerClient(name = "SERVICE-PROVIDER", configuration = LoadBalancerConfig.class)
+@LoadBalancerClient(name = "SERVICE-PROVIDER", configuration = LatencyAwareLoadBalancerConfig.class)
 @ComponentScan(basePackages = {"com.example.consumer"})  // 确保组件被扫描到
 public class ServiceConsumerApplication {
     public static void main(String[] args) {
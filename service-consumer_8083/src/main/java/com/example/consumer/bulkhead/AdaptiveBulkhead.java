@@ -0,0 +1,373 @@
+package com.example.consumer.bulkhead;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.event.BulkheadEvent;
+import io.github.resilience4j.bulkhead.event.BulkheadOnCallFinishedEvent;
+import io.github.resilience4j.bulkhead.event.BulkheadOnCallPermittedEvent;
+import io.github.resilience4j.bulkhead.event.BulkheadOnCallRejectedEvent;
+import io.github.resilience4j.core.EventConsumer;
+import io.github.resilience4j.core.EventProcessor;
+import io.github.resilience4j.core.exception.AcquirePermissionCancelledException;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 并发上限自适应的信号量隔离器
+ * 实现Resilience4j的Bulkhead接口，注册到BulkheadRegistry后 @Bulkhead 注解和Reactor算子直接使用它。
+ * 并发上限由LimitAlgorithm根据每个请求的响应时间和失败情况调整，等待许可的最长时间仍取自BulkheadConfig。
+ * <p>
+ * @Bulkhead 切面通过 executeCheckedSupplier / executeCompletionStage 执行调用，这里能拿到响应时间和异常，
+ * 是上限调整的样本来源；响应式调用链路通过 {@link AdaptiveBulkheadOperator} 提供样本。
+ * 只调用 acquirePermission / onComplete 的场景（如Resilience4j自带的BulkheadOperator）只占用和归还许可，不产生样本。
+ */
+public class AdaptiveBulkhead implements Bulkhead {
+
+    private final String name;
+    private final LimitAlgorithm algorithm;
+    private final Predicate<Throwable> dropPredicate;
+    private final BulkheadEventProcessor eventProcessor = new BulkheadEventProcessor();
+    private final AdaptiveMetrics metrics = new AdaptiveMetrics();
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder permitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private volatile BulkheadConfig config;
+    private volatile int limit;
+
+    /**
+     * @param dropPredicate 哪些异常视为下游过载，客户端错误之类的异常不应该降低并发上限
+     */
+    public AdaptiveBulkhead(String name, BulkheadConfig config, LimitAlgorithm algorithm,
+                            Predicate<Throwable> dropPredicate) {
+        this.name = name;
+        this.config = config;
+        this.algorithm = algorithm;
+        this.dropPredicate = dropPredicate;
+        this.limit = algorithm.initialLimit();
+    }
+
+    /**
+     * 当前的并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 当前正在进行的调用数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 累计获得许可的调用数
+     */
+    public long getPermittedCount() {
+        return permitted.sum();
+    }
+
+    /**
+     * 累计被拒绝的调用数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 只更新等待时间等配置，并发上限由算法决定
+     */
+    @Override
+    public void changeConfig(BulkheadConfig newConfig) {
+        this.config = newConfig;
+    }
+
+    @Override
+    public boolean tryAcquirePermission() {
+        boolean acquired = tryAcquire();
+        publishAcquireResult(acquired);
+        return acquired;
+    }
+
+    @Override
+    public void acquirePermission() {
+        boolean acquired;
+        try {
+            acquired = acquire(config.getMaxWaitDuration().toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publishAcquireResult(false);
+            throw new AcquirePermissionCancelledException();
+        }
+        publishAcquireResult(acquired);
+        if (!acquired) {
+            throw BulkheadFullException.createBulkheadFullException(this);
+        }
+    }
+
+    @Override
+    public void releasePermission() {
+        release();
+    }
+
+    @Override
+    public void onComplete() {
+        release();
+        publishEvent(new BulkheadOnCallFinishedEvent(name));
+    }
+
+    /**
+     * 异步调用完成时归还许可并记录样本，startNanos为获得许可的时间
+     */
+    void onComplete(long startNanos, Throwable error) {
+        complete(startNanos, error != null && dropPredicate.test(error));
+    }
+
+    @Override
+    public <T> T executeCheckedSupplier(CheckedSupplier<T> supplier) throws Throwable {
+        acquirePermission();
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return supplier.get();
+        } catch (Throwable e) {
+            dropped = dropPredicate.test(e);
+            throw e;
+        } finally {
+            complete(start, dropped);
+        }
+    }
+
+    @Override
+    public <T> T executeSupplier(Supplier<T> supplier) {
+        acquirePermission();
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return supplier.get();
+        } catch (RuntimeException | Error e) {
+            dropped = dropPredicate.test(e);
+            throw e;
+        } finally {
+            complete(start, dropped);
+        }
+    }
+
+    @Override
+    public <T> T executeCallable(Callable<T> callable) throws Exception {
+        acquirePermission();
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return callable.call();
+        } catch (Exception | Error e) {
+            dropped = dropPredicate.test(e);
+            throw e;
+        } finally {
+            complete(start, dropped);
+        }
+    }
+
+    @Override
+    public void executeRunnable(Runnable runnable) {
+        executeSupplier(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> CompletionStage<T> executeCompletionStage(Supplier<CompletionStage<T>> supplier) {
+        try {
+            acquirePermission();
+        } catch (BulkheadFullException | AcquirePermissionCancelledException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            supplier.get().whenComplete((value, error) -> {
+                complete(start, error != null && dropPredicate.test(error));
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (Throwable e) {
+            complete(start, dropPredicate.test(e));
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BulkheadConfig getBulkheadConfig() {
+        return config;
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return Map.of();
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return eventProcessor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdaptiveBulkhead '%s', limit: %d, inflight: %d", name, limit, inflight.get());
+    }
+
+    private void complete(long start, boolean dropped) {
+        long rtt = System.nanoTime() - start;
+        int current = inflight.get();
+        release();
+        publishEvent(new BulkheadOnCallFinishedEvent(name));
+        boolean raised;
+        synchronized (algorithm) {
+            int newLimit = algorithm.update(rtt, current, dropped);
+            raised = newLimit > limit;
+            limit = newLimit;
+        }
+        if (raised) {
+            signalWaiters();
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean acquire(long waitNanos) throws InterruptedException {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (waitNanos <= 0) {
+            return false;
+        }
+        waiting.incrementAndGet();
+        lock.lock();
+        try {
+            long remaining = waitNanos;
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void release() {
+        inflight.decrementAndGet();
+        signalWaiters();
+    }
+
+    private void signalWaiters() {
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void publishAcquireResult(boolean success) {
+        if (success) {
+            permitted.increment();
+            publishEvent(new BulkheadOnCallPermittedEvent(name));
+        } else {
+            rejected.increment();
+            publishEvent(new BulkheadOnCallRejectedEvent(name));
+        }
+    }
+
+    private void publishEvent(BulkheadEvent event) {
+        if (eventProcessor.hasConsumers()) {
+            eventProcessor.consumeEvent(event);
+        }
+    }
+
+    private final class AdaptiveMetrics implements Metrics {
+
+        @Override
+        public int getAvailableConcurrentCalls() {
+            return Math.max(0, limit - inflight.get());
+        }
+
+        @Override
+        public int getMaxAllowedConcurrentCalls() {
+            return limit;
+        }
+    }
+
+    private static final class BulkheadEventProcessor extends EventProcessor<BulkheadEvent>
+            implements EventPublisher, EventConsumer<BulkheadEvent> {
+
+        @Override
+        public EventPublisher onCallPermitted(EventConsumer<BulkheadOnCallPermittedEvent> consumer) {
+            registerConsumer(BulkheadOnCallPermittedEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public EventPublisher onCallRejected(EventConsumer<BulkheadOnCallRejectedEvent> consumer) {
+            registerConsumer(BulkheadOnCallRejectedEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public EventPublisher onCallFinished(EventConsumer<BulkheadOnCallFinishedEvent> consumer) {
+            registerConsumer(BulkheadOnCallFinishedEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public void consumeEvent(BulkheadEvent event) {
+            super.processEvent(event);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.consumer.bulkhead;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 创建自适应隔离器并注册监控指标
+ * <ul>
+ *     <li>consumer.bulkhead.limit：当前的并发上限</li>
+ *     <li>consumer.bulkhead.inflight：正在进行的调用数</li>
+ *     <li>consumer.bulkhead.calls：按outcome（permitted/rejected）区分的调用数，拒绝率为 rate(rejected) / rate(全部)</li>
+ * </ul>
+ * Resilience4j自带的 resilience4j.bulkhead.max.allowed.concurrent.calls 等指标也会反映动态上限。
+ */
+public class AdaptiveBulkheadFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBulkheadFactory.class);
+
+    private final String algorithmName;
+    private final Supplier<LimitAlgorithm> algorithms;
+    private final Predicate<Throwable> dropPredicate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param algorithms 每个隔离器各自持有一个算法实例
+     */
+    public AdaptiveBulkheadFactory(String algorithmName, Supplier<LimitAlgorithm> algorithms,
+                                   Predicate<Throwable> dropPredicate, MeterRegistry meterRegistry) {
+        this.algorithmName = algorithmName;
+        this.algorithms = algorithms;
+        this.dropPredicate = dropPredicate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AdaptiveBulkhead create(String name, BulkheadConfig config) {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(name, config, algorithms.get(), dropPredicate);
+        Gauge.builder("consumer.bulkhead.limit", bulkhead, AdaptiveBulkhead::getLimit)
+                .tag("name", name)
+                .description("自适应隔离器当前的并发上限")
+                .register(meterRegistry);
+        Gauge.builder("consumer.bulkhead.inflight", bulkhead, AdaptiveBulkhead::getInflight)
+                .tag("name", name)
+                .description("自适应隔离器中正在进行的调用数")
+                .register(meterRegistry);
+        FunctionCounter.builder("consumer.bulkhead.calls", bulkhead, AdaptiveBulkhead::getPermittedCount)
+                .tags("name", name, "outcome", "permitted")
+                .description("自适应隔离器放行的调用数")
+                .register(meterRegistry);
+        FunctionCounter.builder("consumer.bulkhead.calls", bulkhead, AdaptiveBulkhead::getRejectedCount)
+                .tags("name", name, "outcome", "rejected")
+                .description("自适应隔离器拒绝的调用数")
+                .register(meterRegistry);
+        log.info("隔离器 {} 使用自适应并发上限，算法: {}，初始上限: {}", name, algorithmName, bulkhead.getLimit());
+        return bulkhead;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.consumer.bulkhead;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * 响应式调用链路的隔离器算子
+ * Resilience4j的BulkheadOperator只占用和归还许可，自适应隔离器拿不到样本，响应式调用再多上限也不会调整。
+ * 这里在订阅时占用许可，完成或出错时把响应时间和异常交给AdaptiveBulkhead；被取消的调用没有结果，只归还许可。
+ * 与BulkheadOperator一致，拿不到许可时直接以BulkheadFullException失败，不等待。
+ */
+public final class AdaptiveBulkheadOperator<T> implements UnaryOperator<Publisher<T>> {
+
+    private final AdaptiveBulkhead bulkhead;
+
+    private AdaptiveBulkheadOperator(AdaptiveBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * 自适应隔离器使用本算子，其他隔离器仍使用BulkheadOperator
+     */
+    public static <T> UnaryOperator<Publisher<T>> of(Bulkhead bulkhead) {
+        return bulkhead instanceof AdaptiveBulkhead adaptive
+                ? new AdaptiveBulkheadOperator<>(adaptive)
+                : BulkheadOperator.of(bulkhead);
+    }
+
+    @Override
+    public Publisher<T> apply(Publisher<T> publisher) {
+        if (publisher instanceof Mono<T> mono) {
+            return Mono.defer(() -> {
+                if (!bulkhead.tryAcquirePermission()) {
+                    return Mono.error(BulkheadFullException.createBulkheadFullException(bulkhead));
+                }
+                long start = System.nanoTime();
+                AtomicReference<Throwable> error = new AtomicReference<>();
+                return mono.doOnError(error::set)
+                        .doFinally(signal -> complete(signal, start, error.get()));
+            });
+        }
+        return Flux.defer(() -> {
+            if (!bulkhead.tryAcquirePermission()) {
+                return Flux.error(BulkheadFullException.createBulkheadFullException(bulkhead));
+            }
+            long start = System.nanoTime();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            return Flux.from(publisher).doOnError(error::set)
+                    .doFinally(signal -> complete(signal, start, error.get()));
+        });
+    }
+
+    private void complete(SignalType signal, long start, Throwable error) {
+        if (signal == SignalType.CANCEL) {
+            bulkhead.onComplete();
+        } else {
+            bulkhead.onComplete(start, error);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.consumer.bulkhead;
+
+/**
+ * 加性增、乘性减（AIMD）
+ * 请求失败或超过超时阈值时上限乘以回退比例，同一个响应时间内最多回退一次，避免一批同时超时的请求把上限连乘到底；
+ * 否则在并发接近上限时（达到上限或只差一个，上限确实是瓶颈）每个请求把上限加 1/limit，即每一轮上限个请求加一。
+ * 不依赖延迟基线，适合延迟本身波动较大、主要靠失败判断过载的下游。
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+    private double limit;
+    private long lastBackoffNanos;
+
+    /**
+     * @param backoffRatio 过载时上限的缩小比例，取值 (0, 1)
+     * @param timeoutNanos 响应时间超过该值按失败处理
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long timeoutNanos) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio必须在0到1之间: " + backoffRatio);
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeoutNanos;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int initialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(long rttNanos, int inflight, boolean dropped) {
+        if (dropped || rttNanos > timeoutNanos) {
+            long now = System.nanoTime();
+            if (now - lastBackoffNanos > rttNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastBackoffNanos = now;
+            }
+        } else if (inflight >= (int) limit - 1) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        return (int) limit;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.consumer.bulkhead;
+
+/**
+ * 延迟梯度算法
+ * 梯度 = tolerance × 无负载延迟 / 当前响应时间（限制在0.5到1之间）：
+ * 当前延迟不超过基线的tolerance倍时梯度为1，上限按 sqrt(limit) 的余量增长；延迟继续升高时按比例缩小，最多减半。
+ * 稳定时上限停在下游开始排队的拐点附近。请求失败时按最小梯度处理。
+ */
+public class GradientLimit extends NoLoadRttLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final double tolerance;
+
+    /**
+     * @param tolerance 允许当前延迟超过基线的倍数，超过后才开始缩小上限
+     * @param smoothing 每一轮（上限个）请求对上限的影响权重，取值 (0, 1]
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        super(initialLimit, minLimit, maxLimit, smoothing);
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    protected double target(long rttNanos, boolean dropped) {
+        double gradient = dropped
+                ? MIN_GRADIENT
+                : Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * noLoadRttNanos / rttNanos));
+        return limit * gradient + Math.sqrt(limit);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.consumer.bulkhead;
+
+/**
+ * 并发上限调整算法
+ * 每个请求完成后用它的响应时间、发出时的并发数和是否失败计算新的并发上限。
+ * 调用方负责串行化，实现类不需要线程安全。
+ */
+public interface LimitAlgorithm {
+
+    int initialLimit();
+
+    /**
+     * @param rttNanos 请求的响应时间
+     * @param inflight 请求完成时（含自身）正在进行的请求数
+     * @param dropped 请求失败或超时，视为下游过载的信号
+     * @return 新的并发上限
+     */
+    int update(long rttNanos, int inflight, boolean dropped);
+}
@@ -0,0 +1,87 @@
+package com.example.consumer.bulkhead;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 以无负载延迟为基线的算法的公共部分
+ * 基线取观察到的最小响应时间。下游整体变慢（如扩容后换了机器）会让最小延迟过时，每隔约 limit × 30 个样本重新探测一次：
+ * 上限先减半，等原来排队的请求完成后取一轮请求的最小延迟作为新基线，探测期间不调整上限。
+ * 直接拿满载时的一个样本当基线会让上限越调越高。
+ */
+abstract class NoLoadRttLimit implements LimitAlgorithm {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    protected double limit;
+    protected long noLoadRttNanos;
+    private long samplesUntilProbe;
+    private int probeSamples;
+
+    /**
+     * @param smoothing 每一轮（上限个）请求对上限的影响权重，取值 (0, 1]
+     */
+    protected NoLoadRttLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+        resetProbe();
+    }
+
+    @Override
+    public int initialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(long rttNanos, int inflight, boolean dropped) {
+        long rtt = Math.max(rttNanos, 1);
+        if (probeSamples > 0) {
+            // 原来排队的请求还没完成时inflight会超过减半后的上限，这些样本不算
+            if (!dropped && inflight <= limit) {
+                updateNoLoadRtt(rtt);
+                if (--probeSamples == 0) {
+                    resetProbe();
+                }
+            }
+            return (int) limit;
+        }
+        if (--samplesUntilProbe <= 0) {
+            limit = Math.max(minLimit, limit / 2);
+            probeSamples = (int) Math.ceil(limit);
+            noLoadRttNanos = 0;
+            return (int) limit;
+        }
+        updateNoLoadRtt(rtt);
+        // 并发远低于上限时延迟不能说明上限是否合适，不调整
+        if (!dropped && inflight * 2 < limit) {
+            return (int) limit;
+        }
+        double newLimit = Math.max(minLimit, Math.min(maxLimit, target(rtt, dropped)));
+        // 调整生效前还有一整轮按旧上限发出的请求，权重按上限摊开，每轮请求合计只调整一次smoothing
+        double weight = smoothing / limit;
+        limit = limit * (1 - weight) + newLimit * weight;
+        return (int) limit;
+    }
+
+    /**
+     * 根据本次样本计算目标上限，noLoadRttNanos已经包含本次样本
+     */
+    protected abstract double target(long rttNanos, boolean dropped);
+
+    private void updateNoLoadRtt(long rtt) {
+        if (noLoadRttNanos == 0 || rtt < noLoadRttNanos) {
+            noLoadRttNanos = rtt;
+        }
+    }
+
+    private void resetProbe() {
+        long base = (long) (limit * PROBE_MULTIPLIER);
+        samplesUntilProbe = base + ThreadLocalRandom.current().nextLong(base + 1);
+    }
+}
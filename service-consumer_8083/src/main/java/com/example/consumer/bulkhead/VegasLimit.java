@@ -0,0 +1,35 @@
+package com.example.consumer.bulkhead;
+
+/**
+ * 仿TCP Vegas的排队估计算法
+ * 估计下游排队的请求数 queue = limit × (1 - 无负载延迟 / 当前延迟)：
+ * 排队很少时快速增长，排队适中时缓慢增长，排队过多或请求失败时缩小；阈值按 log10(limit) 缩放。
+ */
+public class VegasLimit extends NoLoadRttLimit {
+
+    /**
+     * @param smoothing 每一轮（上限个）请求对上限的影响权重，取值 (0, 1]
+     */
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        super(initialLimit, minLimit, maxLimit, smoothing);
+    }
+
+    @Override
+    protected double target(long rttNanos, boolean dropped) {
+        double log = Math.max(1, Math.log10(limit));
+        if (dropped) {
+            return limit - log;
+        }
+        double queue = Math.ceil(limit * (1 - (double) noLoadRttNanos / rttNanos));
+        if (queue <= log) {
+            return limit + 6 * log;
+        }
+        if (queue < 3 * log) {
+            return limit + log;
+        }
+        if (queue > 6 * log) {
+            return limit - log;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.consumer.cache;
+
+import com.example.consumer.client.UserClient;
+import com.example.consumer.client.UserClientFallback;
+import com.example.consumer.client.UserRequestCoalescer;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+
+/**
+ * 用户信息读穿缓存
+ * 位于UserClient.getUser之前，按容量和写入时间淘汰：
+ * 超过fresh-ttl的条目仍会立即返回，同时在后台刷新（stale-while-revalidate）；
+ * 超过stale-ttl的条目才真正过期。断路器B打开时，降级路径可以读取尚未过期的旧数据。
+ */
+@Component
+@ConditionalOnProperty(name = "consumer.user.cache.enabled", havingValue = "true")
+public class UserCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+
+    private static final String CACHE_NAME = "userCache";
+
+    private final UserClient userClient;
+    private final UserRequestCoalescer userRequestCoalescer;
+    private final CircuitBreaker circuitBreaker;
+    private final LoadingCache<Integer, String> cache;
+    private final Counter staleServed;
+
+    public UserCache(UserClient userClient,
+                     ObjectProvider<UserRequestCoalescer> userRequestCoalescer,
+                     CircuitBreakerRegistry circuitBreakerRegistry,
+                     MeterRegistry meterRegistry,
+                     @Value("${consumer.user.cache.max-size:100000}") long maxSize,
+                     @Value("${consumer.user.cache.fresh-ttl-seconds:30}") long freshTtlSeconds,
+                     @Value("${consumer.user.cache.stale-ttl-seconds:600}") long staleTtlSeconds) {
+        this.userClient = userClient;
+        this.userRequestCoalescer = userRequestCoalescer.getIfAvailable();
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("circuitBreakerB");
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofSeconds(freshTtlSeconds))
+                .expireAfterWrite(Duration.ofSeconds(staleTtlSeconds))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .recordStats()
+                .build(new UserLoader());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("用户缓存命中率")
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("cache.stale.served")
+                .tag("cache", CACHE_NAME)
+                .description("断路器降级时返回旧数据的次数")
+                .register(meterRegistry);
+        log.info("用户缓存已开启，容量: {}，新鲜期: {}s，过期时间: {}s", maxSize, freshTtlSeconds, staleTtlSeconds);
+    }
+
+    /**
+     * 读取用户，未命中时同步加载；加载失败的异常直接抛给调用方（由断路器B处理）
+     */
+    public String get(int id) {
+        return cache.get(id);
+    }
+
+    /**
+     * 不加载的读取，供响应式链路使用：命中时与 {@link #get(int)} 一样计入统计，超过新鲜期的条目在后台刷新；
+     * 未命中返回null，由调用方异步加载后 {@link #put(int, String)}
+     */
+    public String getIfPresent(int id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * 写入调用方自行加载到的用户数据
+     */
+    public void put(int id, String name) {
+        cache.put(id, name);
+    }
+
+    /**
+     * 降级路径读取旧数据，不触发刷新也不计入命中统计；没有可用数据时返回null
+     */
+    public String getStale(int id) {
+        String name = cache.policy().getIfPresentQuietly(id);
+        if (name != null) {
+            staleServed.increment();
+        }
+        return name;
+    }
+
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<Integer> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    private String fetch(int id) {
+        String name = userRequestCoalescer != null ? userRequestCoalescer.getUser(id) : userClient.getUser(id);
+        if (UserClientFallback.isFallbackResponse(name)) {
+            // Feign降级返回的是提示文本而不是用户数据，不能写入缓存
+            throw new IllegalStateException("User服务降级，未获取到用户信息, ID: " + id);
+        }
+        return name;
+    }
+
+    private class UserLoader implements CacheLoader<Integer, String> {
+
+        /**
+         * 未命中时在请求线程中加载，外层控制器上的断路器B会记录调用结果
+         */
+        @Override
+        public String load(Integer id) {
+            return fetch(id);
+        }
+
+        /**
+         * 后台刷新不经过控制器，需要自行受断路器B保护；失败时保留旧值
+         */
+        @Override
+        public String reload(Integer id, String oldValue) {
+            return circuitBreaker.executeSupplier(() -> fetch(id));
+        }
+    }
+}
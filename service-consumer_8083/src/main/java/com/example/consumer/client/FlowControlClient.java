@@ -9,10 +9,10 @@ import org.springframework.web.bind.annotation.PathVariable;
  * 专门用于限流器测试，与其他弹性组件隔离
  */
 @FeignClient(
-    name = "service-provider",
+    name = "SERVICE-PROVIDER",
     contextId = "flowControlClient", 
     fallback = FlowControlClientFallback.class,
-    url = "${provider.service.url:http://localhost:8081}"
+    url = "${provider.service.url:}"
 )
 public interface FlowControlClient {
 
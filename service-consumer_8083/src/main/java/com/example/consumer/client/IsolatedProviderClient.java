@@ -1,5 +1,6 @@
 package com.example.consumer.client;
 
+import com.example.consumer.hedging.Hedged;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,16 +10,17 @@ import org.springframework.web.bind.annotation.PathVariable;
  * 用于展示如何直接在Feign客户端级别应用隔离保护
  */
 @FeignClient(
-    name = "service-provider",
+    name = "SERVICE-PROVIDER",
     contextId = "isolatedProviderClient", 
     fallback = IsolatedProviderClientFallback.class,
-    url = "${provider.service.url:http://localhost:8081}"
+    url = "${provider.service.url:}"
 )
 public interface IsolatedProviderClient {
 
     /**
      * 获取问候消息
      */
+    @Hedged
     @GetMapping("/provider/hello")
     String getHello();
     
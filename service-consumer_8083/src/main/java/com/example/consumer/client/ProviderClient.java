@@ -1,5 +1,7 @@
 package com.example.consumer.client;
 
+import com.example.consumer.hedging.Hedged;
+import com.example.consumer.retry.Idempotent;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.context.annotation.Primary;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,10 +11,10 @@ import org.springframework.web.bind.annotation.GetMapping;
  * 用于调用服务提供者的基础服务
  */
 @FeignClient(
-    name = "service-provider", 
+    name = "SERVICE-PROVIDER", 
     contextId = "providerClient", 
     fallback = ProviderClientFallback.class,
-    url = "${provider.service.url:http://localhost:8081}" // 提供默认URL，避免服务发现失败
+    url = "${provider.service.url:}" // 为空时按服务名经负载均衡选择实例
 )
 @Primary
 public interface ProviderClient {
@@ -21,6 +23,8 @@ public interface ProviderClient {
      * 调用服务提供者的hello接口
      * @return 服务提供者的问候
      */
+    @Hedged
+    @Idempotent
     @GetMapping("/provider/hello")
     String hello();
 } 
\ No newline at end of file
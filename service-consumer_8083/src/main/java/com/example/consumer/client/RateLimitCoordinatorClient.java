@@ -0,0 +1,22 @@
+package com.example.consumer.client;
+
+import com.example.consumer.ratelimit.LeaseRequest;
+import com.example.consumer.ratelimit.LeaseResponse;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * 集群限流协调者客户端，协调者部署在注册中心
+ * 没有降级实现：调用失败由DistributedRateLimiter切换到按实例平分的本地限流
+ */
+@FeignClient(
+    name = "rate-limit-coordinator",
+    contextId = "rateLimitCoordinatorClient",
+    url = "${consumer.rate-limit.distributed.coordinator-url:http://localhost:8761}"
+)
+public interface RateLimitCoordinatorClient {
+
+    @PostMapping("/rate-limit/leases")
+    LeaseResponse lease(@RequestBody LeaseRequest request);
+}
@@ -9,10 +9,10 @@ import org.springframework.web.bind.annotation.PathVariable;
  * 用于展示如何通过限流器保护远程服务调用
  */
 @FeignClient(
-    name = "service-provider",
+    name = "SERVICE-PROVIDER",
     contextId = "rateLimitedProviderClient",
     fallback = RateLimitedProviderClientFallback.class,
-    url = "${provider.service.url:http://localhost:8081}"
+    url = "${provider.service.url:}"
 )
 public interface RateLimitedProviderClient {
 
@@ -0,0 +1,49 @@
+package com.example.consumer.client;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 服务提供者的响应式客户端
+ * 对应ProviderClient、RateLimitedProviderClient、IsolatedProviderClient、FlowControlClient的接口，
+ * 等待响应期间不占用线程。超时计入调用失败，由调用方的断路器/限流器/隔离器算子处理。
+ */
+@Component
+public class ReactiveProviderClient {
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ReactiveProviderClient(@Qualifier("providerWebClient") WebClient webClient,
+                                  @Value("${consumer.reactive.timeout-ms:5000}") long timeoutMillis) {
+        this.webClient = webClient;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    /**
+     * 调用服务提供者的hello接口
+     */
+    public Mono<String> hello() {
+        return webClient.get()
+                .uri("/provider/hello")
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(timeout);
+    }
+
+    /**
+     * 调用服务提供者的繁重任务接口
+     */
+    public Mono<String> performHeavyTask(String taskId) {
+        return webClient.get()
+                .uri("/provider/heavy-task/{taskId}", taskId)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(timeout);
+    }
+}
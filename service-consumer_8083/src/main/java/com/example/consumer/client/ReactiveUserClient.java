@@ -0,0 +1,70 @@
+package com.example.consumer.client;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User服务的响应式客户端，对应UserClient
+ * 4xx响应（如用户不存在）原样返回给调用方，不算调用失败；5xx和超时以异常结束，计入断路器失败。
+ */
+@Component
+public class ReactiveUserClient {
+
+    private static final ParameterizedTypeReference<Map<Integer, String>> USER_MAP =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ReactiveUserClient(@Qualifier("providerWebClient") WebClient webClient,
+                              @Value("${consumer.reactive.timeout-ms:5000}") long timeoutMillis) {
+        this.webClient = webClient;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    public Mono<ResponseEntity<String>> getUser(int id) {
+        return exchange(webClient.get().uri("/users/{id}", id));
+    }
+
+    public Mono<ResponseEntity<String>> createUser(Map<String, String> user) {
+        return exchange(webClient.post().uri("/users").bodyValue(user));
+    }
+
+    public Mono<ResponseEntity<String>> updateUser(int id, Map<String, String> user) {
+        return exchange(webClient.put().uri("/users/{id}", id).bodyValue(user));
+    }
+
+    public Mono<ResponseEntity<String>> deleteUser(int id) {
+        return exchange(webClient.delete().uri("/users/{id}", id));
+    }
+
+    public Mono<Map<Integer, String>> getUsers(List<Integer> ids) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/users/batch").queryParam("ids", ids).build())
+                .retrieve()
+                .bodyToMono(USER_MAP)
+                .timeout(timeout);
+    }
+
+    private Mono<ResponseEntity<String>> exchange(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(this::toEntity).timeout(timeout);
+    }
+
+    private Mono<ResponseEntity<String>> toEntity(ClientResponse response) {
+        if (response.statusCode().is5xxServerError()) {
+            return response.createError();
+        }
+        return response.toEntity(String.class);
+    }
+}
@@ -1,29 +1,59 @@
 package com.example.consumer.client;
 
+import com.example.common.codec.User;
+import com.example.consumer.retry.Idempotent;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.context.annotation.Primary;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(
-    name = "service-provider", 
+    name = "SERVICE-PROVIDER", 
     contextId = "userClient", 
     fallback = UserClientFallback.class,
-    url = "${provider.service.url:http://localhost:8081}"  // 提供默认URL，避免服务发现失败
+    url = "${provider.service.url:}"  // 为空时按服务名经负载均衡选择实例
 )
 @Primary
 public interface UserClient {
 
+    @Idempotent
     @GetMapping("/users/{id}")
     String getUser(@PathVariable("id") int id);
 
     @PostMapping("/users")
-    String createUser(@RequestBody Map<String, String> user);
+    String createUser(@RequestBody User user);
 
+    @Idempotent
     @PutMapping("/users/{id}")
-    String updateUser(@PathVariable("id") int id, @RequestBody Map<String, String> user);
+    String updateUser(@PathVariable("id") int id, @RequestBody User user);
 
     @DeleteMapping("/users/{id}")
     String deleteUser(@PathVariable("id") int id);
+
+    /**
+     * 批量获取用户，只返回存在的用户
+     */
+    @Idempotent
+    @GetMapping("/users/batch")
+    Map<Integer, String> getUsers(@RequestParam("ids") List<Integer> ids);
+
+    @PostMapping("/users/batch")
+    String createUsers(@RequestBody List<User> users);
+
+    @Idempotent
+    @PutMapping("/users/batch")
+    String updateUsers(@RequestBody List<User> users);
+
+    @DeleteMapping("/users/batch")
+    String deleteUsers(@RequestParam("ids") List<Integer> ids);
+
+    /**
+     * 以NDJSON流式列出用户，返回未读取的原始响应，由调用方边读边转发并负责关闭；cursor为空时从头开始
+     */
+    @Idempotent
+    @GetMapping("/users/stream")
+    Response streamUsers(@RequestParam(value = "cursor", required = false) Long cursor);
 }
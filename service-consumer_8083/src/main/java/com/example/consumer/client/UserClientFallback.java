@@ -1,6 +1,14 @@
 package com.example.consumer.client;
 
+import com.example.common.codec.User;
+import feign.Request;
+import feign.Response;
 import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -10,18 +18,39 @@ import java.util.Map;
 @Component("userClientFallbackImpl")
 public class UserClientFallback implements UserClient {
 
+    public static final String GET_USER_FALLBACK = "User服务不可用，无法获取用户信息，这是断路器B的降级响应";
+
+    /**
+     * getUsers的降级响应：单独创建的空表，按引用区分降级和所有用户都不存在
+     */
+    private static final Map<Integer, String> GET_USERS_FALLBACK = Collections.unmodifiableMap(new HashMap<>());
+
+    /**
+     * 判断getUser的返回值是否为降级响应，降级响应不能被当作用户数据缓存
+     */
+    public static boolean isFallbackResponse(String response) {
+        return GET_USER_FALLBACK.equals(response);
+    }
+
+    /**
+     * 判断getUsers的返回值是否为降级响应，降级响应不能被当作"这些用户都不存在"
+     */
+    public static boolean isFallbackResponse(Map<Integer, String> response) {
+        return response == GET_USERS_FALLBACK;
+    }
+
     @Override
     public String getUser(int id) {
-        return "User服务不可用，无法获取用户信息，这是断路器B的降级响应";
+        return GET_USER_FALLBACK;
     }
 
     @Override
-    public String createUser(Map<String, String> user) {
+    public String createUser(User user) {
         return "User服务不可用，无法创建用户，这是断路器B的降级响应";
     }
 
     @Override
-    public String updateUser(int id, Map<String, String> user) {
+    public String updateUser(int id, User user) {
         return "User服务不可用，无法更新用户，这是断路器B的降级响应";
     }
 
@@ -29,4 +58,35 @@ public class UserClientFallback implements UserClient {
     public String deleteUser(int id) {
         return "User服务不可用，无法删除用户，这是断路器B的降级响应";
     }
-} 
\ No newline at end of file
+
+    @Override
+    public Map<Integer, String> getUsers(List<Integer> ids) {
+        return GET_USERS_FALLBACK;
+    }
+
+    @Override
+    public String createUsers(List<User> users) {
+        return "User服务不可用，无法批量创建用户，这是断路器B的降级响应";
+    }
+
+    @Override
+    public String updateUsers(List<User> users) {
+        return "User服务不可用，无法批量更新用户，这是断路器B的降级响应";
+    }
+
+    @Override
+    public String deleteUsers(List<Integer> ids) {
+        return "User服务不可用，无法批量删除用户，这是断路器B的降级响应";
+    }
+
+    @Override
+    public Response streamUsers(Long cursor) {
+        return Response.builder()
+                .status(503)
+                .reason("Service Unavailable")
+                .request(Request.create(Request.HttpMethod.GET, "/users/stream", Map.of(), null,
+                        StandardCharsets.UTF_8, null))
+                .body("User服务不可用，无法列出用户，这是断路器B的降级响应", StandardCharsets.UTF_8)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.consumer.client;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户查询合并器
+ * 把一个时间窗口内并发到达的单个getUser调用合并成一次批量请求，相同ID的请求共享同一个结果。
+ * 通过 consumer.user.coalescing.enabled=true 开启。
+ */
+@Component
+@ConditionalOnProperty(name = "consumer.user.coalescing.enabled", havingValue = "true")
+public class UserRequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(UserRequestCoalescer.class);
+
+    private final UserClient userClient;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Map<Integer, CompletableFuture<String>> pending = new HashMap<>();
+    private long generation;
+
+    public UserRequestCoalescer(UserClient userClient,
+                                @Value("${consumer.user.coalescing.window-ms:5}") long windowMillis,
+                                @Value("${consumer.user.coalescing.max-batch-size:200}") int maxBatchSize,
+                                @Value("${consumer.user.coalescing.timeout-ms:10000}") long timeoutMillis) {
+        this.userClient = userClient;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-request-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("用户查询合并已开启，窗口: {}ms，最大批量: {}", windowMillis, maxBatchSize);
+    }
+
+    /**
+     * 查询单个用户，与窗口内的其他请求合并后发出
+     *
+     * @throws NoSuchElementException 用户不存在
+     * @throws IllegalStateException User服务降级或合并查询失败，不能当作用户不存在
+     */
+    public String getUser(int id) {
+        CompletableFuture<String> future;
+        Map<Integer, CompletableFuture<String>> full = null;
+        lock.lock();
+        try {
+            future = pending.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(id, future);
+                if (pending.size() == 1) {
+                    long scheduledGeneration = generation;
+                    scheduler.schedule(() -> flush(scheduledGeneration), windowMillis, TimeUnit.MILLISECONDS);
+                } else if (pending.size() >= maxBatchSize) {
+                    full = swapPending();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return await(id, future);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.shutdown();
+    }
+
+    private void flush(long scheduledGeneration) {
+        Map<Integer, CompletableFuture<String>> batch;
+        lock.lock();
+        try {
+            // 该窗口的请求已经因为达到批量上限被提前发出
+            if (scheduledGeneration != generation || pending.isEmpty()) {
+                return;
+            }
+            batch = swapPending();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private Map<Integer, CompletableFuture<String>> swapPending() {
+        Map<Integer, CompletableFuture<String>> batch = pending;
+        pending = new HashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(Map<Integer, CompletableFuture<String>> batch) {
+        dispatcher.execute(() -> {
+            List<Integer> ids = new ArrayList<>(batch.keySet());
+            try {
+                Map<Integer, String> users = userClient.getUsers(ids);
+                if (UserClientFallback.isFallbackResponse(users)) {
+                    // 降级返回的空表不代表用户不存在，按失败处理，由调用方的断路器B记录
+                    throw new IllegalStateException("User服务降级，合并查询未获取到用户信息");
+                }
+                log.debug("合并查询完成，请求数: {}，命中: {}", ids.size(), users.size());
+                batch.forEach((id, future) -> {
+                    String name = users.get(id);
+                    if (name != null) {
+                        future.complete(name);
+                    } else {
+                        future.completeExceptionally(new NoSuchElementException("用户不存在, ID: " + id));
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("合并查询失败，请求数: {}，错误: {}", ids.size(), e.getMessage());
+                batch.values().forEach(future -> future.completeExceptionally(e));
+            }
+        });
+    }
+
+    private String await(int id, CompletableFuture<String> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("合并查询超时, ID: " + id, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("合并查询被中断, ID: " + id, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.consumer.codec;
+
+import com.example.common.codec.UserBinaryCodec;
+import feign.MethodMetadata;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 二进制模式下，返回值可以用二进制格式表示的方法（如批量查询的 Map&lt;Integer, String&gt;）在Accept中优先要求该格式，
+ * 同时接受JSON，未升级的提供者照常返回JSON。返回String等其他类型的方法不受影响。
+ */
+public class UserBinaryAcceptInterceptor implements RequestInterceptor {
+
+    static final String ACCEPT = UserBinaryCodec.MEDIA_TYPE + ", application/json;q=0.9";
+
+    private final Supplier<WireFormat> format;
+
+    public UserBinaryAcceptInterceptor(Supplier<WireFormat> format) {
+        this.format = format;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        MethodMetadata metadata = template.methodMetadata();
+        if (format.get() == WireFormat.BINARY && metadata != null && !template.headers().containsKey("Accept")
+                && UserBinaryCodec.supports(metadata.returnType())) {
+            template.header("Accept", ACCEPT);
+        }
+    }
+}
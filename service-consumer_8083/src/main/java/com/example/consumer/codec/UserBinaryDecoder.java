@@ -0,0 +1,49 @@
+package com.example.consumer.codec;
+
+import com.example.common.codec.UserBinaryCodec;
+import feign.FeignException;
+import feign.Response;
+import feign.Util;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * 响应体解码：按响应的Content-Type判断，提供者返回 application/x-user-bin 时直接解码，其余交给Spring的解码器，
+ * 与当前的 consumer.feign.codec 无关，切换格式期间仍在进行的请求也能正确解码
+ */
+public class UserBinaryDecoder implements Decoder {
+
+    private final Decoder delegate;
+
+    public UserBinaryDecoder(Decoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException, FeignException {
+        if (response.body() == null || !isBinary(response) || !UserBinaryCodec.supports(type)) {
+            return delegate.decode(response, type);
+        }
+        byte[] bytes;
+        try (InputStream body = response.body().asInputStream()) {
+            bytes = Util.toByteArray(body);
+        }
+        try {
+            return UserBinaryCodec.decode(bytes, type);
+        } catch (IllegalArgumentException e) {
+            throw new DecodeException(response.status(), "无法解析二进制用户数据: " + e.getMessage(),
+                    response.request(), e);
+        }
+    }
+
+    private static boolean isBinary(Response response) {
+        Collection<String> contentType = response.headers().get("content-type");
+        return contentType != null && !contentType.isEmpty()
+                && contentType.iterator().next().startsWith(UserBinaryCodec.MEDIA_TYPE);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.consumer.codec;
+
+import com.example.common.codec.UserBinaryCodec;
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 请求体编码：二进制模式下User和List&lt;User&gt;编码为 application/x-user-bin，其他类型和JSON模式交给Spring的编码器
+ */
+public class UserBinaryEncoder implements Encoder {
+
+    private final Encoder delegate;
+    private final Supplier<WireFormat> format;
+
+    public UserBinaryEncoder(Encoder delegate, Supplier<WireFormat> format) {
+        this.delegate = delegate;
+        this.format = format;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        if (format.get() != WireFormat.BINARY || object == null || !UserBinaryCodec.supports(bodyType)) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        template.header("Content-Type", List.of());
+        template.header("Content-Type", UserBinaryCodec.MEDIA_TYPE);
+        template.body(UserBinaryCodec.encode(object, bodyType), null);
+    }
+}
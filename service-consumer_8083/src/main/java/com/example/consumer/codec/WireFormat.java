@@ -0,0 +1,19 @@
+package com.example.consumer.codec;
+
+import com.example.common.codec.UserBinaryCodec;
+
+/**
+ * UserClient请求体和批量查询响应的编码格式，由 consumer.feign.codec 配置，可在运行时刷新
+ */
+public enum WireFormat {
+
+    /**
+     * JSON，便于抓包和调试；提供者不支持二进制格式时也使用JSON
+     */
+    JSON,
+
+    /**
+     * application/x-user-bin，见 {@link UserBinaryCodec}
+     */
+    BINARY
+}
@@ -0,0 +1,51 @@
+package com.example.consumer.config;
+
+import com.example.consumer.bulkhead.AdaptiveBulkheadFactory;
+import com.example.consumer.bulkhead.AimdLimit;
+import com.example.consumer.bulkhead.GradientLimit;
+import com.example.consumer.bulkhead.LimitAlgorithm;
+import com.example.consumer.bulkhead.VegasLimit;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 自适应隔离器配置
+ * 开启后ResilienceConfig用动态上限的隔离器替换 providerServiceBulkhead 和 userServiceBulkhead，
+ * 原来的固定上限 consumer.bulkhead.max-concurrent-calls 作为初始上限。
+ */
+@Configuration
+@ConditionalOnProperty(name = "consumer.bulkhead.adaptive.enabled", havingValue = "true")
+public class AdaptiveBulkheadConfiguration {
+
+    @Bean
+    public AdaptiveBulkheadFactory adaptiveBulkheadFactory(
+            MeterRegistry meterRegistry,
+            @Value("${consumer.bulkhead.adaptive.algorithm:gradient}") String algorithm,
+            @Value("${consumer.bulkhead.max-concurrent-calls:10}") int initialLimit,
+            @Value("${consumer.bulkhead.adaptive.min-limit:2}") int minLimit,
+            @Value("${consumer.bulkhead.adaptive.max-limit:200}") int maxLimit,
+            @Value("${consumer.bulkhead.adaptive.smoothing:0.2}") double smoothing,
+            @Value("${consumer.bulkhead.adaptive.gradient.tolerance:1.5}") double tolerance,
+            @Value("${consumer.bulkhead.adaptive.aimd.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${consumer.bulkhead.adaptive.aimd.timeout-ms:2000}") long timeoutMillis) {
+        Supplier<LimitAlgorithm> algorithms = switch (algorithm) {
+            case "gradient" -> () -> new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+            case "vegas" -> () -> new VegasLimit(initialLimit, minLimit, maxLimit, smoothing);
+            case "aimd" -> () -> new AimdLimit(initialLimit, minLimit, maxLimit, backoffRatio,
+                    TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+            default -> throw new IllegalArgumentException("未知的并发上限算法: " + algorithm + "，可选 gradient/vegas/aimd");
+        };
+        // 4xx是调用方的问题，不说明下游过载
+        return new AdaptiveBulkheadFactory(algorithm, algorithms,
+                e -> !(e instanceof FeignException feignException
+                        && feignException.status() >= 400 && feignException.status() < 500),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.consumer.config;
+
+import com.example.consumer.client.RateLimitCoordinatorClient;
+import com.example.consumer.ratelimit.DistributedRateLimiterFactory;
+import io.github.resilience4j.common.CompositeCustomizer;
+import io.github.resilience4j.common.ratelimiter.configuration.RateLimiterConfigCustomizer;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * 集群限流配置
+ * 开启后用集群限流器替换 consumer.rate-limit.distributed.names 中的限流器，RateLimiterConfiguration 和
+ * RateLimiterConfig2023 中配置的每周期许可数变为整个集群的限额，令牌向注册中心上的协调者租用。
+ * 同一台机器上启动多个消费者实例时用不同的 server.port，实例ID随端口区分。
+ */
+@Configuration
+@ConditionalOnProperty(name = "consumer.rate-limit.distributed.enabled", havingValue = "true")
+public class DistributedRateLimiterConfiguration {
+
+    @Bean
+    public DistributedRateLimiterFactory distributedRateLimiterFactory(
+            ObjectProvider<RateLimitCoordinatorClient> coordinatorClient,
+            DiscoveryClient discoveryClient,
+            MeterRegistry meterRegistry,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${eureka.instance.instance-id:${spring.application.name}}") String instanceId,
+            @Value("${consumer.rate-limit.distributed.batch-fraction:0.2}") double batchFraction,
+            @Value("${consumer.rate-limit.distributed.retry-interval-ms:5000}") long retryIntervalMillis) {
+        // Feign客户端在第一次租用时才创建，避免在限流器注册表初始化阶段提前初始化Feign
+        return new DistributedRateLimiterFactory(instanceId,
+                request -> coordinatorClient.getObject().lease(request),
+                batchFraction, Duration.ofMillis(retryIntervalMillis),
+                () -> discoveryClient.getInstances(applicationName).size(),
+                meterRegistry);
+    }
+
+    /**
+     * 限流器注册表创建后立即替换，@RateLimiter 注解和按名称取限流器的Reactor链路拿到的都是替换后的实例。
+     * 返回类型必须声明为 Registrar：Spring在实例化之前按 @Bean 方法的返回类型判断后处理器是否实现Ordered，
+     * 声明为BeanPostProcessor时它会被当成无序的后处理器，执行顺序不再有保证。
+     */
+    @Bean
+    public static Registrar distributedRateLimiterRegistrar(
+            ObjectProvider<DistributedRateLimiterFactory> factory,
+            ObjectProvider<CompositeCustomizer<RateLimiterConfigCustomizer>> customizers,
+            @Value("${consumer.rate-limit.distributed.names:providerServiceRateLimiter,rateLimit2023}") String[] names) {
+        return new Registrar(factory, customizers, names);
+    }
+
+    /**
+     * 实现Ordered，保证先于 ResilienceMetricsConfiguration 中的等待计时包装执行，计时包在集群限流器外层
+     */
+    record Registrar(ObjectProvider<DistributedRateLimiterFactory> factory,
+                             ObjectProvider<CompositeCustomizer<RateLimiterConfigCustomizer>> customizers,
+                             String[] names) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof RateLimiterRegistry registry) {
+                for (String name : names) {
+                    // 只在代码中定制、没有在配置文件中声明的限流器，注册表不会应用定制器，这里补上
+                    RateLimiterConfig.Builder builder = RateLimiterConfig.from(
+                            registry.rateLimiter(name).getRateLimiterConfig());
+                    customizers.ifAvailable(composite -> composite.getCustomizer(name)
+                            .ifPresent(customizer -> customizer.customize(builder)));
+                    registry.replace(name, factory.getObject().create(name, builder.build()));
+                }
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.consumer.config;
+
+import com.example.common.pinning.VirtualThreadPinningMonitor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 快速启动模式配置
+ * fast-startup 配置文件开启 spring.main.lazy-initialization，bean在第一次使用时才创建：
+ * 控制器和它们调用的Feign客户端（连同每个客户端的子上下文和连接池）、负载均衡子上下文、
+ * Resilience4j注册表及其事件订阅和指标都推迟到第一个用到它们的请求。
+ * <p>
+ * 这里列出仍要在启动时创建的bean：它们没有被其他bean依赖，延迟创建就等于一直不工作。
+ * 没有开启延迟初始化时排除规则不起作用。
+ */
+@Configuration
+public class FastStartupConfiguration {
+
+    /**
+     * 虚拟线程钉住监控要从启动开始记录
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(VirtualThreadPinningMonitor.class);
+    }
+}
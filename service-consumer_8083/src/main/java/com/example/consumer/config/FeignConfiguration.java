@@ -1,19 +1,84 @@
 package com.example.consumer.config;
 
+import com.example.common.refresh.RefreshableValue;
+import com.example.common.refresh.RefreshableValues;
+import com.example.consumer.codec.UserBinaryAcceptInterceptor;
+import com.example.consumer.codec.UserBinaryDecoder;
+import com.example.consumer.codec.UserBinaryEncoder;
+import com.example.consumer.codec.WireFormat;
+import com.example.consumer.hedging.HedgeBudget;
+import com.example.consumer.hedging.HedgePolicy;
+import com.example.consumer.hedging.HedgingClient;
+import com.example.consumer.retry.RetryBudget;
+import com.example.consumer.retry.RetryPolicy;
+import com.example.consumer.retry.RetryingClient;
+import com.example.consumer.transport.MeteredClient;
+import com.example.consumer.transport.MeteredConnectionManager;
+import com.example.consumer.transport.SharedTransports;
+import feign.Client;
+import feign.Request;
+import feign.RequestInterceptor;
 import feign.codec.Decoder;
 import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
-import org.springframework.cloud.openfeign.EnableFeignClients;
+import feign.form.spring.SpringFormEncoder;
+import feign.optionals.OptionalDecoder;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.cloud.openfeign.support.FeignEncoderProperties;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Feign客户端配置类
  * 启用Feign客户端的断路器支持
+ * 作为 @EnableFeignClients 的默认配置，会在每个Feign客户端（按contextId）的子上下文中各实例化一次。
  */
 @Configuration
 public class FeignConfiguration {
-    
+
+    /**
+     * Feign子上下文中的客户端名称（即contextId），主上下文中不存在该属性
+     */
+    static final String CLIENT_NAME_PROPERTY = "spring.cloud.openfeign.client.name";
+
+    static final String SHARED_TRANSPORT_PROPERTY = "consumer.feign.shared-transport.enabled";
+
     /**
      * 自定义错误解码器，处理Feign调用异常
      */
@@ -21,46 +86,282 @@ public class FeignConfiguration {
     public ErrorDecoder errorDecoder() {
         return new ErrorDecoder.Default();
     }
-    
+
     /**
-     * 确保客户端配置生效
+     * 默认超时时间，单个客户端可以通过 spring.cloud.openfeign.client.config.<contextId>.connect-timeout/read-timeout 覆盖
      */
     @Bean
-    public FeignClientFactoryCustomizer feignClientFactoryCustomizer() {
-        return feignClientFactory -> {
-            feignClientFactory.setConnectTimeout(5000);
-            feignClientFactory.setReadTimeout(5000);
-        };
+    public Request.Options feignRequestOptions(
+            @Value("${consumer.feign.connect-timeout-ms:5000}") long connectTimeoutMillis,
+            @Value("${consumer.feign.read-timeout-ms:5000}") long readTimeoutMillis) {
+        return new Request.Options(connectTimeoutMillis, TimeUnit.MILLISECONDS,
+                readTimeoutMillis, TimeUnit.MILLISECONDS, true);
     }
-    
+
     /**
-     * 自定义客户端工厂配置类
+     * 编解码器，只在Feign子上下文中创建，替换Spring Cloud默认的SpringEncoder/SpringDecoder组合
+     * consumer.feign.codec=binary 时用户数据使用 application/x-user-bin：请求体直接编码，响应通过Accept协商；
+     * 解码只看响应的Content-Type，JSON响应照常交给SpringDecoder。格式可以随配置中心刷新，切回json即可抓包调试。
+     * 共享传输层模式下各客户端直接使用 SharedTransports 中的同一份编解码器。
      */
-    public interface FeignClientFactoryCustomizer {
-        void customize(FeignClientFactory factory);
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(CLIENT_NAME_PROPERTY)
+    static class CodecConfiguration {
+
+        @Bean
+        public Encoder feignEncoder(ObjectProvider<SharedTransports> sharedTransports,
+                                    RefreshableValues refreshableValues,
+                                    ObjectFactory<HttpMessageConverters> messageConverters,
+                                    ObjectProvider<FeignEncoderProperties> encoderProperties,
+                                    ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+            SharedTransports shared = sharedTransports.getIfAvailable();
+            return shared != null ? shared.encoder()
+                    : encoder(refreshableValues, messageConverters, encoderProperties, customizers);
+        }
+
+        @Bean
+        public Decoder feignDecoder(ObjectProvider<SharedTransports> sharedTransports,
+                                    ObjectFactory<HttpMessageConverters> messageConverters,
+                                    ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+            SharedTransports shared = sharedTransports.getIfAvailable();
+            return shared != null ? shared.decoder() : decoder(messageConverters, customizers);
+        }
+
+        @Bean
+        public RequestInterceptor userBinaryAcceptInterceptor(ObjectProvider<SharedTransports> sharedTransports,
+                                                              RefreshableValues refreshableValues) {
+            SharedTransports shared = sharedTransports.getIfAvailable();
+            return shared != null ? shared.acceptInterceptor() : acceptInterceptor(refreshableValues);
+        }
+
+        static Encoder encoder(RefreshableValues refreshableValues,
+                               ObjectFactory<HttpMessageConverters> messageConverters,
+                               ObjectProvider<FeignEncoderProperties> encoderProperties,
+                               ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+            Encoder springEncoder = new SpringEncoder(new SpringFormEncoder(), messageConverters,
+                    encoderProperties.getIfAvailable(FeignEncoderProperties::new), customizers);
+            return new UserBinaryEncoder(springEncoder, wireFormat(refreshableValues));
+        }
+
+        static Decoder decoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                               ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+            return new OptionalDecoder(new ResponseEntityDecoder(
+                    new UserBinaryDecoder(new SpringDecoder(messageConverters, customizers))));
+        }
+
+        static RequestInterceptor acceptInterceptor(RefreshableValues refreshableValues) {
+            return new UserBinaryAcceptInterceptor(wireFormat(refreshableValues));
+        }
+
+        private static RefreshableValue<WireFormat> wireFormat(RefreshableValues refreshableValues) {
+            return refreshableValues.bind("consumer.feign.codec", WireFormat.class, WireFormat.JSON);
+        }
     }
-    
+
     /**
-     * Feign客户端工厂
+     * 每个Feign客户端一个独立的HTTP传输层（连接池），只在Feign子上下文中创建
+     * 返回的Client包装在FeignBlockingLoadBalancerClient中：配置了固定url的客户端直接使用内部的传输层，
+     * 没有url的客户端经过负载均衡选择实例。
+     * 开启 consumer.feign.shared-transport.enabled 后不再创建自己的连接池，改用 SharedTransports 中所属服务的传输层，
+     * 计时、对冲和负载均衡的包装仍按客户端创建。
      */
-    public static class FeignClientFactory {
-        private int connectTimeout = 5000;
-        private int readTimeout = 5000;
-        
-        public int getConnectTimeout() {
-            return connectTimeout;
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(CLIENT_NAME_PROPERTY)
+    @Import(TransportConfiguration.DedicatedTransportConfiguration.class)
+    static class TransportConfiguration {
+
+        private static final Logger log = LoggerFactory.getLogger(TransportConfiguration.class);
+
+        private static final Pattern KEEP_ALIVE_TIMEOUT = Pattern.compile("timeout\\s*=\\s*(\\d+)");
+
+        /**
+         * 客户端独占的连接池和HTTP客户端
+         * 通过 @Import 引入而不标注 @Configuration，避免被组件扫描单独注册到主上下文
+         */
+        @ConditionalOnProperty(name = SHARED_TRANSPORT_PROPERTY, havingValue = "false", matchIfMissing = true)
+        static class DedicatedTransportConfiguration {
+
+            @Bean
+            @ConditionalOnProperty(name = "consumer.feign.http2.enabled", havingValue = "false", matchIfMissing = true)
+            public MeteredConnectionManager feignConnectionManager(
+                    @Value("${" + CLIENT_NAME_PROPERTY + "}") String clientName,
+                    MeterRegistry meterRegistry,
+                    @Value("${consumer.feign.pool.max-total:200}") int maxTotal,
+                    @Value("${consumer.feign.pool.max-per-route:50}") int maxPerRoute,
+                    @Value("${consumer.feign.pool.time-to-live-seconds:300}") long timeToLiveSeconds,
+                    @Value("${consumer.feign.pool.validate-after-inactivity-ms:2000}") long validateAfterInactivityMillis) {
+                return connectionManager(clientName, meterRegistry, maxTotal, maxPerRoute,
+                        timeToLiveSeconds, validateAfterInactivityMillis);
+            }
+
+            @Bean
+            @ConditionalOnProperty(name = "consumer.feign.http2.enabled", havingValue = "false", matchIfMissing = true)
+            public CloseableHttpClient feignHttpClient(
+                    MeteredConnectionManager connectionManager,
+                    @Value("${consumer.feign.pool.lease-timeout-ms:1000}") long leaseTimeoutMillis,
+                    @Value("${consumer.feign.pool.keep-alive-seconds:15}") long keepAliveSeconds,
+                    @Value("${consumer.feign.pool.idle-evict-seconds:15}") long idleEvictSeconds) {
+                return httpClient(connectionManager, leaseTimeoutMillis, keepAliveSeconds, idleEvictSeconds);
+            }
+
+            @Bean
+            @ConditionalOnProperty(name = "consumer.feign.http2.enabled", havingValue = "true")
+            public HttpClient feignHttp2Client(@Value("${consumer.feign.connect-timeout-ms:5000}") long connectTimeoutMillis) {
+                return http2Client(connectTimeoutMillis);
+            }
+        }
+
+        /**
+         * 连接池，设置总连接数、单路由连接数、连接存活时间和空闲连接校验
+         *
+         * @param name 指标中的client标签：独占模式下为客户端名称，共享模式下为服务名
+         */
+        static MeteredConnectionManager connectionManager(String name, MeterRegistry meterRegistry,
+                                                          int maxTotal, int maxPerRoute,
+                                                          long timeToLiveSeconds, long validateAfterInactivityMillis) {
+            MeteredConnectionManager connectionManager = new MeteredConnectionManager(name, meterRegistry);
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+            connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                    .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMillis))
+                    .build());
+            log.info("Feign连接池 {}，总连接数: {}，单路由连接数: {}", name, maxTotal, maxPerRoute);
+            return connectionManager;
+        }
+
+        /**
+         * 基于连接池的Apache HttpClient 5
+         * 关闭了HttpClient自带的重试（默认间隔1秒），失效连接由空闲校验和定期清理处理
+         */
+        static CloseableHttpClient httpClient(MeteredConnectionManager connectionManager, long leaseTimeoutMillis,
+                                              long keepAliveSeconds, long idleEvictSeconds) {
+            return HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(leaseTimeoutMillis, TimeUnit.MILLISECONDS)
+                            .build())
+                    .setKeepAliveStrategy((response, context) -> {
+                        // 服务端声明了更短的保活时间时以服务端为准，避免复用已被服务端关闭的连接
+                        Header header = response.getFirstHeader("Keep-Alive");
+                        if (header != null) {
+                            Matcher matcher = KEEP_ALIVE_TIMEOUT.matcher(header.getValue());
+                            if (matcher.find()) {
+                                return TimeValue.ofSeconds(Math.min(Long.parseLong(matcher.group(1)), keepAliveSeconds));
+                            }
+                        }
+                        return TimeValue.ofSeconds(keepAliveSeconds);
+                    })
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                    .disableAutomaticRetries()
+                    .build();
+        }
+
+        /**
+         * HTTP/2模式：JDK HttpClient在单个连接上多路复用请求（明文时通过h2c升级），提供者需开启 server.http2.enabled
+         */
+        static HttpClient http2Client(long connectTimeoutMillis) {
+            return HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                    .build();
         }
-        
-        public void setConnectTimeout(int connectTimeout) {
-            this.connectTimeout = connectTimeout;
+
+        /**
+         * 请求对冲策略，只对标注了 @Hedged 的GET方法生效
+         */
+        @Bean
+        @ConditionalOnProperty(name = "consumer.hedging.enabled", havingValue = "true")
+        public HedgePolicy hedgePolicy(
+                @Value("${" + CLIENT_NAME_PROPERTY + "}") String clientName,
+                MeterRegistry meterRegistry,
+                @Value("${consumer.hedging.delay-ms:100}") long delayMillis,
+                @Value("${consumer.hedging.percentile:95}") double percentile,
+                @Value("${consumer.hedging.min-delay-ms:10}") long minDelayMillis,
+                @Value("${consumer.hedging.max-delay-ms:1000}") long maxDelayMillis,
+                @Value("${consumer.hedging.window-ms:10000}") long windowMillis,
+                @Value("${consumer.hedging.budget-percent:10}") double budgetPercent,
+                @Value("${consumer.hedging.budget-burst:10}") int budgetBurst) {
+            return new HedgePolicy(clientName, meterRegistry, new HedgeBudget(budgetPercent, budgetBurst),
+                    delayMillis, percentile, minDelayMillis, maxDelayMillis, windowMillis);
         }
-        
-        public int getReadTimeout() {
-            return readTimeout;
+
+        /**
+         * 执行对冲调用的虚拟线程，客户端子上下文关闭时中断还在进行的请求
+         */
+        @Bean(destroyMethod = "shutdownNow")
+        @ConditionalOnProperty(name = "consumer.hedging.enabled", havingValue = "true")
+        public ExecutorService hedgingExecutor() {
+            return Executors.newVirtualThreadPerTaskExecutor();
         }
-        
-        public void setReadTimeout(int readTimeout) {
-            this.readTimeout = readTimeout;
+
+        /**
+         * 重试策略，只对标注了 @Idempotent 的幂等方法生效
+         * consumer.retry.circuit-breakers.&lt;contextId&gt; 指定调用方使用的熔断器，熔断器不是CLOSED时不重试
+         */
+        @Bean
+        @ConditionalOnProperty(name = "consumer.retry.enabled", havingValue = "true")
+        public RetryPolicy retryPolicy(
+                @Value("${" + CLIENT_NAME_PROPERTY + "}") String clientName,
+                MeterRegistry meterRegistry,
+                ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry,
+                @Value("${consumer.retry.circuit-breakers.${" + CLIENT_NAME_PROPERTY + "}:}") String circuitBreakerName,
+                @Value("${consumer.retry.max-attempts:2}") int maxAttempts,
+                @Value("${consumer.retry.initial-backoff-ms:50}") long initialBackoffMillis,
+                @Value("${consumer.retry.backoff-multiplier:2}") double backoffMultiplier,
+                @Value("${consumer.retry.jitter:0.5}") double jitter,
+                @Value("${consumer.retry.max-backoff-ms:1000}") long maxBackoffMillis,
+                @Value("${consumer.retry.budget-percent:10}") double budgetPercent,
+                @Value("${consumer.retry.budget-burst:10}") int budgetBurst) {
+            RetryConfig retryConfig = RetryConfig.custom()
+                    .maxAttempts(maxAttempts)
+                    .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                            initialBackoffMillis, backoffMultiplier, jitter, maxBackoffMillis))
+                    .build();
+            // 熔断器到第一次需要重试时才查找，不提前创建注册表
+            return new RetryPolicy(clientName, meterRegistry, new RetryBudget(budgetPercent, budgetBurst), retryConfig,
+                    circuitBreakerName.isEmpty() ? null
+                            : () -> circuitBreakerRegistry.getObject().circuitBreaker(circuitBreakerName));
+        }
+
+        @Bean
+        public Client feignClient(ObjectProvider<SharedTransports> sharedTransports,
+                                  ObjectProvider<CloseableHttpClient> pooledClient,
+                                  ObjectProvider<HttpClient> http2Client,
+                                  ObjectProvider<HedgePolicy> hedgePolicy,
+                                  @Qualifier("hedgingExecutor") ObjectProvider<ExecutorService> hedgingExecutor,
+                                  ObjectProvider<RetryPolicy> retryPolicy,
+                                  LoadBalancerClient loadBalancerClient,
+                                  LoadBalancerClientFactory loadBalancerClientFactory,
+                                  ObjectProvider<LoadBalancerFeignRequestTransformer> transformers,
+                                  @Value("${" + CLIENT_NAME_PROPERTY + "}") String clientName,
+                                  MeterRegistry meterRegistry) {
+            SharedTransports shared = sharedTransports.getIfAvailable();
+            Client delegate;
+            if (shared != null) {
+                delegate = shared.client(clientName);
+            } else {
+                CloseableHttpClient httpClient = pooledClient.getIfAvailable();
+                delegate = httpClient != null
+                        ? new ApacheHttp5Client(httpClient)
+                        : new Http2Client(http2Client.getObject());
+            }
+            // 计时放在对冲之内，主请求和对冲请求按各自选中的实例分别计入
+            delegate = new MeteredClient(delegate, clientName, meterRegistry);
+            HedgePolicy policy = hedgePolicy.getIfAvailable();
+            if (policy != null) {
+                // 对冲在选定实例之后进行，这样对冲请求可以重新经过负载均衡选择另一个实例
+                delegate = new HedgingClient(delegate, policy, hedgingExecutor.getObject(),
+                        loadBalancerClient, loadBalancerClientFactory);
+            }
+            RetryPolicy retry = retryPolicy.getIfAvailable();
+            if (retry != null) {
+                // 重试在对冲之外，每次尝试仍可对冲；在负载均衡之内，重试请求另选一个实例
+                delegate = new RetryingClient(delegate, retry, loadBalancerClient, loadBalancerClientFactory);
+            }
+            return new FeignBlockingLoadBalancerClient(delegate, loadBalancerClient, loadBalancerClientFactory,
+                    transformers.orderedStream().toList());
         }
     }
-} 
\ No newline at end of file
+}
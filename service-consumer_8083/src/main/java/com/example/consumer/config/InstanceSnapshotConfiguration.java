@@ -0,0 +1,39 @@
+package com.example.consumer.config;
+
+import com.example.consumer.loadbalancer.RegistryInstanceLookup;
+import com.example.consumer.loadbalancer.ServiceInstanceSnapshots;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 快照式服务实例列表配置
+ * 使用 LatencyAwareLoadBalancerConfig 的服务改用 SnapshotServiceInstanceListSupplier：
+ * 注册中心在实例上下线时推送到 /loadbalancer/membership（订阅关系写在本实例的Eureka元数据中），
+ * 收到推送后向注册中心查询该实例核实，
+ * 主动健康检查摘除连接不上的实例，注册表拉取作为兜底。
+ */
+@Configuration
+@ConditionalOnProperty(name = "consumer.loadbalancer.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class InstanceSnapshotConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ServiceInstanceSnapshots serviceInstanceSnapshots(
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            @Value("${consumer.loadbalancer.snapshot.registry-url:${eureka.client.service-url.defaultZone:http://localhost:8761/eureka/}}") String registryUrl,
+            @Value("${consumer.loadbalancer.snapshot.registry-timeout-ms:1000}") long registryTimeoutMillis,
+            @Value("${consumer.loadbalancer.snapshot.health-check-interval-ms:1000}") long healthCheckIntervalMillis,
+            @Value("${consumer.loadbalancer.snapshot.connect-timeout-ms:200}") long connectTimeoutMillis) {
+        // defaultZone可以是逗号分隔的多个地址，核实只需要其中一个
+        RegistryInstanceLookup registryLookup = new RegistryInstanceLookup(registryUrl.split(",")[0].trim(),
+                Duration.ofMillis(registryTimeoutMillis), objectMapper);
+        return new ServiceInstanceSnapshots(registryLookup, meterRegistry, Duration.ofMillis(healthCheckIntervalMillis),
+                Duration.ofMillis(connectTimeoutMillis));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.consumer.config;
+
+import com.example.consumer.loadbalancer.InstanceStatsRegistry;
+import com.example.consumer.loadbalancer.LatencyAwareLoadBalancer;
+import com.example.consumer.loadbalancer.LatencyRecordingLifecycle;
+import com.example.consumer.loadbalancer.ServiceInstanceSnapshots;
+import com.example.consumer.loadbalancer.SnapshotServiceInstanceListSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 延迟感知负载均衡配置，通过 @LoadBalancerClient(configuration = LatencyAwareLoadBalancerConfig.class) 按服务选用
+ * 这里的Bean只在对应服务的负载均衡子上下文中创建，每个服务各自维护一份实例统计。
+ * 注意：不要添加@Configuration，否则会被组件扫描进主上下文，统计会被重复记录。
+ */
+public class LatencyAwareLoadBalancerConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancerConfig.class);
+
+    @Bean
+    public InstanceStatsRegistry instanceStatsRegistry(
+            @Value("${consumer.loadbalancer.ewma.decay-ms:10000}") long decayMillis,
+            @Value("${consumer.loadbalancer.ewma.initial-latency-ms:50}") long initialLatencyMillis,
+            @Value("${consumer.loadbalancer.ewma.failure-penalty-ms:1000}") long failurePenaltyMillis) {
+        return new InstanceStatsRegistry(decayMillis, initialLatencyMillis, failurePenaltyMillis);
+    }
+
+    /**
+     * 快照式实例列表，取代默认的按服务发现拉取并缓存的实例列表
+     */
+    @Bean
+    @ConditionalOnProperty(name = "consumer.loadbalancer.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+    public ServiceInstanceListSupplier snapshotServiceInstanceListSupplier(
+            Environment environment,
+            DiscoveryClient discoveryClient,
+            ServiceInstanceSnapshots serviceInstanceSnapshots,
+            @Value("${consumer.loadbalancer.snapshot.push-grace-ms:90000}") long pushGraceMillis) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        SnapshotServiceInstanceListSupplier supplier = new SnapshotServiceInstanceListSupplier(serviceId,
+                () -> discoveryClient.getInstances(serviceId), pushGraceMillis);
+        serviceInstanceSnapshots.register(supplier);
+        return supplier;
+    }
+
+    @Bean
+    public ReactorServiceInstanceLoadBalancer latencyAwareLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceStatsRegistry instanceStatsRegistry) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        log.info("Creating latency-aware load balancer for service: {}", serviceId);
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId,
+                instanceStatsRegistry);
+    }
+
+    @Bean
+    public LoadBalancerLifecycle<Object, Object, org.springframework.cloud.client.ServiceInstance> latencyRecordingLifecycle(
+            InstanceStatsRegistry instanceStatsRegistry) {
+        return new LatencyRecordingLifecycle(instanceStatsRegistry);
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.consumer.config;
 
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import io.github.resilience4j.common.ratelimiter.configuration.RateLimiterConfigCustomizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,24 +30,4 @@ public class RateLimiterConfig2023 {
                 .limitRefreshPeriod(Duration.ofSeconds(2))  // 刷新周期为2秒
                 .timeoutDuration(Duration.ofMillis(500)));  // 等待超时时间
     }
-    
-    /**
-     * 监听限流事件
-     */
-    @Bean
-    public Object rateLimiterEventLogger2023(RateLimiterRegistry rateLimiterRegistry) {
-        log.info("注册限流器(rateLimit2023)事件监听器");
-        
-        rateLimiterRegistry.getAllRateLimiters().forEach(rateLimiter -> {
-            if ("rateLimit2023".equals(rateLimiter.getName())) {
-                rateLimiter.getEventPublisher()
-                    .onSuccess(event -> log.info("限流通过: {}, 时间: {}", 
-                        event.getRateLimiterName(), event.getCreationTime()))
-                    .onFailure(event -> log.warn("限流拒绝: {}, 时间: {}", 
-                        event.getRateLimiterName(), event.getCreationTime()));
-            }
-        });
-            
-        return new Object();
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.example.consumer.config;
 
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import io.github.resilience4j.common.ratelimiter.configuration.RateLimiterConfigCustomizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,22 +25,4 @@ public class RateLimiterConfiguration {
                 .limitRefreshPeriod(Duration.ofSeconds(2))  // 刷新周期为2秒
                 .timeoutDuration(Duration.ofSeconds(1)));  // 等待权限的超时时间为1秒
     }
-    
-    /**
-     * 添加日志记录，监听限流事件
-     */
-    @Bean
-    public Object rateLimiterEventLogger(RateLimiterRegistry rateLimiterRegistry) {
-        log.info("【限流配置】注册限流器事件监听器");
-        
-        rateLimiterRegistry.getAllRateLimiters().forEach(rateLimiter -> 
-            rateLimiter.getEventPublisher()
-                .onSuccess(event -> log.info("【限流事件】请求通过: {}, 时间: {}", 
-                    event.getRateLimiterName(), event.getCreationTime()))
-                .onFailure(event -> log.warn("【限流事件】请求被拒: {}, 时间: {}", 
-                    event.getRateLimiterName(), event.getCreationTime()))
-        );
-            
-        return new Object();
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
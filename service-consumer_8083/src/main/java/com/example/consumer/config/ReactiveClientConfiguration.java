@@ -0,0 +1,28 @@
+package com.example.consumer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * 响应式客户端配置
+ * 负载均衡过滤器（ReactorLoadBalancerExchangeFilterFunction）选择实例时直接订阅SERVICE-PROVIDER配置的ReactorLoadBalancer，
+ * 不会像RestTemplate/Feign那样阻塞等待选择结果。
+ * 只暴露构建好的WebClient而不是 @LoadBalanced 的WebClient.Builder：WebClient.Builder类型的bean会替换掉
+ * Spring Boot自动配置的构建器，应用中其他地方注入的构建器也会带上负载均衡过滤器。
+ */
+@Configuration
+public class ReactiveClientConfiguration {
+
+    /**
+     * 访问服务提供者的WebClient，基于Spring Boot自动配置的构建器（编解码器、观测等配置保持一致）
+     */
+    @Bean
+    public WebClient providerWebClient(WebClient.Builder webClientBuilder,
+                                       LoadBalancedExchangeFilterFunction loadBalancerFilter,
+                                       @Value("${consumer.reactive.provider-url:http://SERVICE-PROVIDER}") String providerUrl) {
+        return webClientBuilder.filter(loadBalancerFilter).baseUrl(providerUrl).build();
+    }
+}
@@ -1,14 +1,15 @@
 package com.example.consumer.config;
 
-import io.github.resilience4j.bulkhead.Bulkhead;
+import com.example.consumer.bulkhead.AdaptiveBulkheadFactory;
 import io.github.resilience4j.bulkhead.BulkheadConfig;
 import io.github.resilience4j.bulkhead.BulkheadRegistry;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * Resilience4j 配置类
@@ -17,32 +18,51 @@ import java.time.Duration;
 @Configuration
 public class ResilienceConfig {
     
-    private static final Logger log = LoggerFactory.getLogger(ResilienceConfig.class);
+    /**
+     * 开启自适应并发上限时被替换的隔离器
+     */
+    private static final List<String> ADAPTIVE_BULKHEADS = List.of("providerServiceBulkhead", "userServiceBulkhead");
+
+    /**
+     * 没有单独隔离需求的接口使用的隔离器，虚拟线程模式下防止这些接口的并发不受限制
+     */
+    private static final List<String> ENDPOINT_BULKHEADS = List.of("consumerBulkhead", "flowControlBulkhead");
 
     /**
      * 创建一个BulkheadRegistry，可以用于监控和管理所有隔离器
+     * 虚拟线程模式下Tomcat线程池不再限制并发，隔离器的并发上限就是实际的并发上限
      */
     @Bean
-    public BulkheadRegistry bulkheadRegistry() {
+    public BulkheadRegistry bulkheadRegistry(
+            @Value("${consumer.bulkhead.max-concurrent-calls:10}") int maxConcurrentCalls,
+            @Value("${consumer.bulkhead.max-wait-ms:20}") long maxWaitMillis,
+            @Value("${consumer.bulkhead.endpoint-max-concurrent-calls:200}") int endpointMaxConcurrentCalls,
+            ObjectProvider<AdaptiveBulkheadFactory> adaptiveBulkheadFactory) {
         // 创建隔离器配置
         BulkheadConfig bulkheadConfig = BulkheadConfig.custom()
-                .maxConcurrentCalls(10)                     // 最大并发调用数量
-                .maxWaitDuration(Duration.ofMillis(20))     // 等待获取许可的最大时间
+                .maxConcurrentCalls(maxConcurrentCalls)     // 最大并发调用数量
+                .maxWaitDuration(Duration.ofMillis(maxWaitMillis))  // 等待获取许可的最大时间
                 // 注意：根据实际支持的方法调整配置
                 .writableStackTraceEnabled(true)            // 启用可写堆栈跟踪
                 .build();
 
         // 创建隔离器注册表
         BulkheadRegistry registry = BulkheadRegistry.of(bulkheadConfig);
+
+        // 自适应模式：用动态上限的隔离器替换固定上限的隔离器，@Bulkhead 注解按名称取到的就是替换后的实例
+        adaptiveBulkheadFactory.ifAvailable(factory -> ADAPTIVE_BULKHEADS.forEach(name -> {
+            registry.bulkhead(name);
+            registry.replace(name, factory.create(name, bulkheadConfig));
+        }));
         
         // 创建一个命名为userServiceBulkhead的隔离器实例（通常会从application.yml加载配置）
-        Bulkhead bulkhead = registry.bulkhead("userServiceBulkhead");
-        
-        // 添加事件监听器
-        bulkhead.getEventPublisher()
-                .onCallPermitted(event -> log.info("隔离器允许调用: {}", event))
-                .onCallRejected(event -> log.warn("隔离器拒绝调用: {}", event))
-                .onCallFinished(event -> log.info("隔离器调用完成: {}", event));
+        // 隔离器事件由ResilienceEventAggregator异步汇总输出
+        registry.bulkhead("userServiceBulkhead");
+
+        BulkheadConfig endpointConfig = BulkheadConfig.from(bulkheadConfig)
+                .maxConcurrentCalls(endpointMaxConcurrentCalls)
+                .build();
+        ENDPOINT_BULKHEADS.forEach(name -> registry.bulkhead(name, endpointConfig));
 
         return registry;
     }
@@ -0,0 +1,65 @@
+package com.example.consumer.config;
+
+import com.example.consumer.events.ResilienceEventAggregator;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 弹性事件汇总配置
+ * 订阅注册表中已有的和之后创建、替换的熔断器、限流器、隔离器，事件异步汇总后定期输出，
+ * 取代原来在请求线程上逐条输出的事件日志。
+ * 订阅在注册表创建时进行，汇总器不主动创建注册表：快速启动模式下注册表到第一次使用时才创建。
+ */
+@Configuration
+public class ResilienceEventConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ResilienceEventAggregator resilienceEventAggregator(
+            @Value("${consumer.events.ring-buffer-size:8192}") int ringBufferSize,
+            @Value("${consumer.events.summary-interval-seconds:10}") long summaryIntervalSeconds,
+            @Value("${consumer.events.debug-sample-rate:0}") double debugSampleRate) {
+        return new ResilienceEventAggregator(ringBufferSize,
+                Duration.ofSeconds(summaryIntervalSeconds), debugSampleRate);
+    }
+
+    /**
+     * 注册表初始化完成后订阅其中的组件，之后创建和替换的组件通过注册表事件订阅；
+     * 集群限流器、计时包装等替换无论发生在订阅之前还是之后都不会重复订阅，汇总器按事件发布器去重
+     */
+    @Bean
+    public static BeanPostProcessor resilienceEventSubscriber(ObjectProvider<ResilienceEventAggregator> aggregator) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CircuitBreakerRegistry registry) {
+                    ResilienceEventAggregator target = aggregator.getObject();
+                    registry.getAllCircuitBreakers().forEach(target::subscribe);
+                    registry.getEventPublisher()
+                            .onEntryAdded(event -> target.subscribe(event.getAddedEntry()))
+                            .onEntryReplaced(event -> target.subscribe(event.getNewEntry()));
+                } else if (bean instanceof RateLimiterRegistry registry) {
+                    ResilienceEventAggregator target = aggregator.getObject();
+                    registry.getAllRateLimiters().forEach(target::subscribe);
+                    registry.getEventPublisher()
+                            .onEntryAdded(event -> target.subscribe(event.getAddedEntry()))
+                            .onEntryReplaced(event -> target.subscribe(event.getNewEntry()));
+                } else if (bean instanceof BulkheadRegistry registry) {
+                    ResilienceEventAggregator target = aggregator.getObject();
+                    registry.getAllBulkheads().forEach(target::subscribe);
+                    registry.getEventPublisher()
+                            .onEntryAdded(event -> target.subscribe(event.getAddedEntry()))
+                            .onEntryReplaced(event -> target.subscribe(event.getNewEntry()));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.consumer.config;
+
+import com.example.consumer.metrics.ResilienceMeterBinder;
+import com.example.consumer.ratelimit.TimedRateLimiter;
+import io.github.resilience4j.common.CompositeCustomizer;
+import io.github.resilience4j.common.ratelimiter.configuration.RateLimiterConfigCustomizer;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 弹性组件监控指标配置
+ * 熔断器状态变化、隔离器饱和度由 ResilienceMeterBinder 绑定，限流器外层包一层 TimedRateLimiter 记录许可等待时间。
+ * 指标通过 /actuator/prometheus 导出。
+ */
+@Configuration
+public class ResilienceMetricsConfiguration {
+
+    /**
+     * 熔断器、隔离器注册表创建时绑定指标
+     */
+    @Bean
+    public static ResilienceMeterBinder resilienceMeterBinder(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ResilienceMeterBinder(meterRegistry);
+    }
+
+    /**
+     * 限流器注册表创建后把其中的限流器都换成计时包装，在集群限流器替换（DistributedRateLimiterConfiguration）之后执行
+     */
+    @Bean
+    public static BeanPostProcessor rateLimiterWaitTimer(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<CompositeCustomizer<RateLimiterConfigCustomizer>> customizers) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RateLimiterRegistry registry) {
+                    // 只在代码中定制的限流器要到第一次调用才创建，这里提前按定制后的配置创建，以便一起包装
+                    customizers.ifAvailable(composite -> composite.instanceNames().forEach(name -> {
+                        if (registry.find(name).isEmpty()) {
+                            RateLimiterConfig.Builder builder = RateLimiterConfig.from(registry.getDefaultConfig());
+                            composite.getCustomizer(name).ifPresent(customizer -> customizer.customize(builder));
+                            registry.rateLimiter(name, builder.build());
+                        }
+                    }));
+                    for (RateLimiter rateLimiter : List.copyOf(registry.getAllRateLimiters())) {
+                        if (!(rateLimiter instanceof TimedRateLimiter)) {
+                            registry.replace(rateLimiter.getName(),
+                                    new TimedRateLimiter(rateLimiter, meterRegistry.getObject()));
+                        }
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.consumer.config;
+
+import com.example.common.refresh.RefreshableValues;
+import com.example.consumer.transport.MeteredConnectionManager;
+import com.example.consumer.transport.SharedTransports;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.cloud.openfeign.FeignClientFactory;
+import org.springframework.cloud.openfeign.FeignClientSpecification;
+import org.springframework.cloud.openfeign.support.FeignEncoderProperties;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.net.http.HttpClient;
+
+/**
+ * 共享传输层配置，consumer.feign.shared-transport.enabled=true 时生效
+ * 指向同一服务的Feign客户端共用连接池和HTTP客户端，所有客户端共用编解码器；
+ * 各客户端仍有自己的子上下文，超时（spring.cloud.openfeign.client.config.&lt;contextId&gt;）、对冲和resilience4j策略不变。
+ * 连接池参数沿用 consumer.feign.pool.*，上限按服务计算。
+ */
+@Configuration
+@ConditionalOnProperty(name = FeignConfiguration.SHARED_TRANSPORT_PROPERTY, havingValue = "true")
+public class SharedTransportConfiguration {
+
+    @Bean
+    public SharedTransports sharedTransports(
+            FeignClientFactory feignClientFactory,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            RefreshableValues refreshableValues,
+            ObjectFactory<HttpMessageConverters> messageConverters,
+            ObjectProvider<FeignEncoderProperties> encoderProperties,
+            ObjectProvider<HttpMessageConverterCustomizer> customizers,
+            @Value("${consumer.feign.http2.enabled:false}") boolean http2,
+            @Value("${consumer.feign.connect-timeout-ms:5000}") long connectTimeoutMillis,
+            @Value("${consumer.feign.pool.max-total:200}") int maxTotal,
+            @Value("${consumer.feign.pool.max-per-route:50}") int maxPerRoute,
+            @Value("${consumer.feign.pool.time-to-live-seconds:300}") long timeToLiveSeconds,
+            @Value("${consumer.feign.pool.validate-after-inactivity-ms:2000}") long validateAfterInactivityMillis,
+            @Value("${consumer.feign.pool.lease-timeout-ms:1000}") long leaseTimeoutMillis,
+            @Value("${consumer.feign.pool.keep-alive-seconds:15}") long keepAliveSeconds,
+            @Value("${consumer.feign.pool.idle-evict-seconds:15}") long idleEvictSeconds) {
+        return new SharedTransports(
+                clientName -> serviceId(feignClientFactory, environment, clientName),
+                serviceId -> {
+                    if (http2) {
+                        HttpClient httpClient = FeignConfiguration.TransportConfiguration.http2Client(connectTimeoutMillis);
+                        return new SharedTransports.Transport(new Http2Client(httpClient), httpClient);
+                    }
+                    MeteredConnectionManager connectionManager = FeignConfiguration.TransportConfiguration.connectionManager(
+                            serviceId, meterRegistry, maxTotal, maxPerRoute, timeToLiveSeconds, validateAfterInactivityMillis);
+                    CloseableHttpClient httpClient = FeignConfiguration.TransportConfiguration.httpClient(
+                            connectionManager, leaseTimeoutMillis, keepAliveSeconds, idleEvictSeconds);
+                    return new SharedTransports.Transport(new ApacheHttp5Client(httpClient), httpClient);
+                },
+                FeignConfiguration.CodecConfiguration.encoder(refreshableValues, messageConverters, encoderProperties, customizers),
+                FeignConfiguration.CodecConfiguration.decoder(messageConverters, customizers),
+                FeignConfiguration.CodecConfiguration.acceptInterceptor(refreshableValues));
+    }
+
+    /**
+     * 客户端的服务名，即接口上 @FeignClient 的name；取不到时按客户端名称单独建传输层
+     */
+    private static String serviceId(FeignClientFactory feignClientFactory, Environment environment, String clientName) {
+        FeignClientSpecification specification = feignClientFactory.getConfigurations().get(clientName);
+        if (specification == null || specification.getClassName() == null) {
+            return clientName;
+        }
+        FeignClient feignClient = AnnotatedElementUtils.findMergedAnnotation(
+                ClassUtils.resolveClassName(specification.getClassName(), null), FeignClient.class);
+        if (feignClient == null || !StringUtils.hasText(feignClient.name())) {
+            return clientName;
+        }
+        return environment.resolvePlaceholders(feignClient.name());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.consumer.config;
+
+import com.example.common.pinning.VirtualThreadPinningMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式配置
+ * spring.threads.virtual.enabled=true 时，Tomcat请求处理线程改为虚拟线程，
+ * 控制器中发起的Feign调用也随之在虚拟线程上阻塞，不再受Tomcat线程池大小限制。
+ * 此时并发上限完全由隔离器（SEMAPHORE类型，按调用计数而非线程计数）决定，
+ * 见 consumer.bulkhead.max-concurrent-calls 和 consumer.bulkhead.endpoint-max-concurrent-calls。
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    /**
+     * 监控虚拟线程钉住情况，例如HTTP客户端中的synchronized代码块
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${consumer.virtual-threads.pinning-threshold-ms:20}") long thresholdMillis) {
+        return new VirtualThreadPinningMonitor(Duration.ofMillis(thresholdMillis));
+    }
+}
@@ -1,18 +1,19 @@
 package com.example.consumer.controller;
 
+import com.example.common.refresh.RefreshableValue;
+import com.example.common.refresh.RefreshableValues;
 import com.example.consumer.client.ProviderClient;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
 
-@RefreshScope  // 添加RefreshScope注解，支持动态配置刷新
 @RestController
 @RequestMapping("/consumer")
 public class ConsumerController {
@@ -23,18 +24,19 @@ public class ConsumerController {
     @Autowired
     private ProviderClient providerClient;  // 移除Qualifier注解，让Spring自动注入
     
-    // 添加可动态刷新的配置属性
-    @Value("${consumer.message:消费者默认配置消息}")
-    private String configMessage;
+    // 可动态刷新的配置属性，配置中心刷新时原地更新，不重建控制器
+    private final RefreshableValue<String> configMessage;
 
-    public ConsumerController(RestTemplate restTemplate) {
+    public ConsumerController(RestTemplate restTemplate, RefreshableValues refreshableValues) {
         this.restTemplate = restTemplate;
+        this.configMessage = refreshableValues.bind("consumer.message", String.class, "消费者默认配置消息");
     }
 
     /**
      * 使用RestTemplate的原始方法，不使用断路器
      */
     @GetMapping("/hello-old")
+    @Bulkhead(name = "consumerBulkhead", type = Bulkhead.Type.SEMAPHORE, fallbackMethod = "bulkheadFallback")
     public String helloOld() {
         return restTemplate.getForObject("http://SERVICE-PROVIDER/provider/hello", String.class);
     }
@@ -45,6 +47,7 @@ public class ConsumerController {
      */
     @GetMapping("/hello")
     @CircuitBreaker(name = "circuitBreakerA", fallbackMethod = "helloFallback")
+    @Bulkhead(name = "consumerBulkhead", type = Bulkhead.Type.SEMAPHORE, fallbackMethod = "bulkheadFallback")
     public String hello() {
         log.info("调用provider的hello接口");
         return providerClient.hello();
@@ -62,13 +65,22 @@ public class ConsumerController {
         return "Provider服务调用失败，这是本地断路器A的降级响应: " + errorMessage;
     }
     
+    /**
+     * 隔离器的降级方法，并发已满时直接拒绝，不计入断路器A
+     */
+    public String bulkheadFallback(BulkheadFullException ex) {
+        log.warn("隔离器触发，拒绝hello请求: {}", ex.getMessage());
+        return "资源受限，请求被隔离器拒绝 [隔离降级]";
+    }
+
     /**
      * 用于测试配置动态刷新的端点
      * 返回从配置中心获取的消息
      */
     @GetMapping("/config-message")
     public String getConfigMessage() {
-        log.info("获取配置消息，当前消息：{}", configMessage);
-        return "消费者的配置消息：" + configMessage;
+        String message = configMessage.get();
+        log.info("获取配置消息，当前消息：{}", message);
+        return "消费者的配置消息：" + message;
     }
 }
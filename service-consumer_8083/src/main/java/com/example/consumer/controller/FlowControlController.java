@@ -1,6 +1,8 @@
 package com.example.consumer.controller;
 
 import com.example.consumer.client.FlowControlClient;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +28,7 @@ public class FlowControlController {
      */
     @GetMapping("/hello")
     @RateLimiter(name = "rateLimit2023", fallbackMethod = "helloFallback")
+    @Bulkhead(name = "flowControlBulkhead", type = Bulkhead.Type.SEMAPHORE, fallbackMethod = "helloBulkheadFallback")
     public ResponseEntity<String> getHello() {
         long startTime = System.currentTimeMillis();
         log.info("流量控制测试 - 开始请求hello, 时间: {}", startTime);
@@ -41,6 +44,7 @@ public class FlowControlController {
      */
     @GetMapping("/task/{taskId}")
     @RateLimiter(name = "rateLimit2023", fallbackMethod = "taskFallback")
+    @Bulkhead(name = "flowControlBulkhead", type = Bulkhead.Type.SEMAPHORE, fallbackMethod = "taskBulkheadFallback")
     public ResponseEntity<String> processTask(@PathVariable String taskId) {
         long startTime = System.currentTimeMillis();
         log.info("流量控制测试 - 开始处理任务, ID: {}, 时间: {}", taskId, startTime);
@@ -60,6 +64,22 @@ public class FlowControlController {
         return ResponseEntity.ok("请求频率超限! 每2秒仅允许5个请求 [限流降级]");
     }
     
+    /**
+     * hello接口隔离器降级方法
+     */
+    public ResponseEntity<String> helloBulkheadFallback(BulkheadFullException ex) {
+        log.warn("隔离降级 - hello接口: {}", ex.getMessage());
+        return ResponseEntity.ok("资源受限，请求被隔离器拒绝 [隔离降级]");
+    }
+
+    /**
+     * 任务处理接口隔离器降级方法
+     */
+    public ResponseEntity<String> taskBulkheadFallback(String taskId, BulkheadFullException ex) {
+        log.warn("隔离降级 - 任务处理 taskId: {}, 错误: {}", taskId, ex.getMessage());
+        return ResponseEntity.ok("资源受限，任务处理请求被隔离器拒绝 [隔离降级], 任务ID: " + taskId);
+    }
+
     /**
      * 任务处理接口限流降级方法
      */
@@ -0,0 +1,43 @@
+package com.example.consumer.controller;
+
+import com.example.consumer.loadbalancer.MembershipChange;
+import com.example.consumer.loadbalancer.ServiceInstanceSnapshots;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务实例成员接口
+ * 注册中心在实例上下线时推送成员变化到这里，推送只触发一次向注册中心的核实，异步生效；
+ * 查询接口返回负载均衡当前使用的实例，用于排查。
+ */
+@RestController
+@RequestMapping("/loadbalancer")
+@ConditionalOnProperty(name = "consumer.loadbalancer.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class LoadBalancerMembershipController {
+
+    private final ServiceInstanceSnapshots serviceInstanceSnapshots;
+
+    public LoadBalancerMembershipController(ServiceInstanceSnapshots serviceInstanceSnapshots) {
+        this.serviceInstanceSnapshots = serviceInstanceSnapshots;
+    }
+
+    @PostMapping("/membership")
+    public ResponseEntity<Void> membership(@RequestBody MembershipChange change) {
+        return serviceInstanceSnapshots.apply(change)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/instances")
+    public Map<String, Map<String, List<String>>> instances() {
+        return serviceInstanceSnapshots.status();
+    }
+}
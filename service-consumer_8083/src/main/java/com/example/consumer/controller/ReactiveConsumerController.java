@@ -0,0 +1,223 @@
+package com.example.consumer.controller;
+
+import com.example.consumer.bulkhead.AdaptiveBulkheadOperator;
+import com.example.consumer.cache.UserCache;
+import com.example.consumer.client.ReactiveProviderClient;
+import com.example.consumer.client.ReactiveUserClient;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 响应式调用链路
+ * 与 /consumer/** 下的阻塞接口一一对应，使用同名的断路器、限流器和隔离器实例（共享状态和配置），
+ * 通过Resilience4j的Reactor算子而不是注解切面保护调用。等待提供者响应时不占用请求线程，
+ * 提供者变慢不会再让消费者的线程数随之增长；降级响应与阻塞接口保持一致。
+ */
+@RestController
+@RequestMapping("/consumer/reactive")
+public class ReactiveConsumerController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveConsumerController.class);
+
+    private final ReactiveProviderClient providerClient;
+    private final ReactiveUserClient userClient;
+    private final UserCache userCache;  // 开启用户缓存时才存在
+
+    private final CircuitBreaker circuitBreakerA;
+    private final CircuitBreaker circuitBreakerB;
+    private final RateLimiter providerServiceRateLimiter;
+    private final RateLimiter flowControlRateLimiter;
+    private final Bulkhead providerServiceBulkhead;
+
+    public ReactiveConsumerController(ReactiveProviderClient providerClient,
+                                      ReactiveUserClient userClient,
+                                      ObjectProvider<UserCache> userCache,
+                                      CircuitBreakerRegistry circuitBreakerRegistry,
+                                      RateLimiterRegistry rateLimiterRegistry,
+                                      BulkheadRegistry bulkheadRegistry) {
+        this.providerClient = providerClient;
+        this.userClient = userClient;
+        this.userCache = userCache.getIfAvailable();
+        this.circuitBreakerA = circuitBreakerRegistry.circuitBreaker("circuitBreakerA");
+        this.circuitBreakerB = circuitBreakerRegistry.circuitBreaker("circuitBreakerB");
+        this.providerServiceRateLimiter = rateLimiterRegistry.rateLimiter("providerServiceRateLimiter");
+        this.flowControlRateLimiter = rateLimiterRegistry.rateLimiter("rateLimit2023");
+        this.providerServiceBulkhead = bulkheadRegistry.bulkhead("providerServiceBulkhead");
+    }
+
+    /**
+     * 对应 /consumer/hello，断路器A保护
+     */
+    @GetMapping("/hello")
+    public Mono<String> hello() {
+        return providerClient.hello()
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerA))
+                .onErrorResume(ex -> {
+                    log.error("响应式调用provider失败: {}", ex.toString());
+                    return Mono.just("Provider服务调用失败，这是本地断路器A的降级响应: " + ex.getMessage());
+                });
+    }
+
+    /**
+     * 对应 /consumer/rate-limited-provider/hello，限流器等待许可时不阻塞线程
+     */
+    @GetMapping("/rate-limited-provider/hello")
+    public Mono<ResponseEntity<String>> rateLimitedHello() {
+        return providerClient.hello()
+                .transformDeferred(RateLimiterOperator.of(providerServiceRateLimiter))
+                .map(ResponseEntity::ok)
+                .onErrorResume(ex -> {
+                    log.warn("【限流测试】限流器触发，拒绝响应式hello请求: {}", ex.getMessage());
+                    return Mono.just(ResponseEntity.ok("请求频率过高，被限流器拒绝 [限流降级]"));
+                });
+    }
+
+    @GetMapping("/rate-limited-provider/heavy-task/{taskId}")
+    public Mono<ResponseEntity<String>> rateLimitedHeavyTask(@PathVariable String taskId) {
+        return providerClient.performHeavyTask(taskId)
+                .transformDeferred(RateLimiterOperator.of(providerServiceRateLimiter))
+                .map(ResponseEntity::ok)
+                .onErrorResume(ex -> {
+                    log.warn("【限流测试】限流器触发，拒绝响应式繁重任务请求, taskId: {}, error: {}", taskId, ex.getMessage());
+                    return Mono.just(ResponseEntity.ok("请求频率过高，繁重任务请求被限流器拒绝 [限流降级]"));
+                });
+    }
+
+    /**
+     * 对应 /consumer/isolated-provider/hello，隔离器限制的是进行中的调用数而不是线程数；
+     * 开启自适应并发上限时响应式调用同样为上限调整提供样本
+     */
+    @GetMapping("/isolated-provider/hello")
+    public Mono<ResponseEntity<String>> isolatedHello() {
+        return providerClient.hello()
+                .transformDeferred(AdaptiveBulkheadOperator.of(providerServiceBulkhead))
+                .map(ResponseEntity::ok)
+                .onErrorResume(ex -> {
+                    log.warn("隔离器触发，拒绝响应式hello请求: {}", ex.getMessage());
+                    return Mono.just(ResponseEntity.ok("资源受限，请求被隔离器拒绝 [隔离降级]"));
+                });
+    }
+
+    @GetMapping("/isolated-provider/heavy-task/{taskId}")
+    public Mono<ResponseEntity<String>> isolatedHeavyTask(@PathVariable String taskId) {
+        return providerClient.performHeavyTask(taskId)
+                .transformDeferred(AdaptiveBulkheadOperator.of(providerServiceBulkhead))
+                .map(ResponseEntity::ok)
+                .onErrorResume(ex -> {
+                    log.warn("隔离器触发，拒绝响应式繁重任务请求, taskId: {}, error: {}", taskId, ex.getMessage());
+                    return Mono.just(ResponseEntity.ok("资源受限，繁重任务请求被隔离器拒绝 [隔离降级]"));
+                });
+    }
+
+    /**
+     * 对应 /consumer/flow-control/hello，使用rateLimit2023
+     */
+    @GetMapping("/flow-control/hello")
+    public Mono<ResponseEntity<String>> flowControlHello() {
+        return providerClient.hello()
+                .transformDeferred(RateLimiterOperator.of(flowControlRateLimiter))
+                .map(result -> ResponseEntity.ok("流量控制测试结果: " + result))
+                .onErrorResume(ex -> {
+                    log.warn("限流降级 - 响应式hello接口: {}", ex.getMessage());
+                    return Mono.just(ResponseEntity.ok("请求频率超限! 每2秒仅允许5个请求 [限流降级]"));
+                });
+    }
+
+    @GetMapping("/flow-control/task/{taskId}")
+    public Mono<ResponseEntity<String>> flowControlTask(@PathVariable String taskId) {
+        return providerClient.performHeavyTask(taskId)
+                .transformDeferred(RateLimiterOperator.of(flowControlRateLimiter))
+                .map(result -> ResponseEntity.ok("流量控制任务结果: " + result))
+                .onErrorResume(ex -> {
+                    log.warn("限流降级 - 响应式任务处理 taskId: {}, 错误: {}", taskId, ex.getMessage());
+                    return Mono.just(ResponseEntity.ok("任务处理请求频率超限! 每2秒仅允许5个请求 [限流降级], 任务ID: " + taskId));
+                });
+    }
+
+    /**
+     * 对应 /consumer/users/{id}，断路器B保护；开启用户缓存时与阻塞接口读同一个缓存，返回的数据新鲜度一致。
+     * 未命中时异步加载并写入缓存（不经过缓存的同步加载，避免阻塞请求线程）；降级时优先返回缓存中的旧数据
+     */
+    @GetMapping("/users/{id}")
+    public Mono<ResponseEntity<String>> getUser(@PathVariable int id) {
+        return Mono.defer(() -> {
+                    String cached = userCache != null ? userCache.getIfPresent(id) : null;
+                    if (cached != null) {
+                        return Mono.just(ResponseEntity.ok(cached));
+                    }
+                    return userClient.getUser(id).doOnNext(response -> cacheUser(id, response));
+                })
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerB))
+                .onErrorResume(ex -> {
+                    String stale = userCache != null ? userCache.getStale(id) : null;
+                    if (stale != null) {
+                        return Mono.just(ResponseEntity.ok().header("X-Cache", "STALE").body(stale));
+                    }
+                    return Mono.just(ResponseEntity.ok("获取用户信息失败，这是本地断路器B的降级响应: " + ex.getMessage()));
+                });
+    }
+
+    @PostMapping("/users")
+    public Mono<ResponseEntity<String>> createUser(@RequestBody Map<String, String> user) {
+        return userClient.createUser(user)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerB))
+                .onErrorResume(ex -> Mono.just(ResponseEntity.ok("创建用户失败，这是本地断路器B的降级响应: " + ex.getMessage())));
+    }
+
+    @PutMapping("/users/{id}")
+    public Mono<ResponseEntity<String>> updateUser(@PathVariable int id, @RequestBody Map<String, String> user) {
+        return userClient.updateUser(id, user)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerB))
+                .doFinally(signal -> invalidate(id))
+                .onErrorResume(ex -> Mono.just(ResponseEntity.ok("更新用户失败，这是本地断路器B的降级响应: " + ex.getMessage())));
+    }
+
+    @DeleteMapping("/users/{id}")
+    public Mono<ResponseEntity<String>> deleteUser(@PathVariable int id) {
+        return userClient.deleteUser(id)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerB))
+                .doFinally(signal -> invalidate(id))
+                .onErrorResume(ex -> Mono.just(ResponseEntity.ok("删除用户失败，这是本地断路器B的降级响应: " + ex.getMessage())));
+    }
+
+    @GetMapping("/users/batch")
+    public Mono<ResponseEntity<Map<Integer, String>>> getUsers(@RequestParam("ids") List<Integer> ids) {
+        return userClient.getUsers(ids)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerB))
+                .map(ResponseEntity::ok)
+                .onErrorResume(ex -> Mono.just(ResponseEntity.status(503).body(Map.of())));
+    }
+
+    /**
+     * 与阻塞路径一样只缓存查到的用户，4xx响应（如用户不存在）不缓存
+     */
+    private void cacheUser(int id, ResponseEntity<String> response) {
+        if (userCache != null && response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            userCache.put(id, response.getBody());
+        }
+    }
+
+    /**
+     * 更新或删除后使缓存失效，无论远程调用是否成功
+     */
+    private void invalidate(int id) {
+        if (userCache != null) {
+            userCache.invalidate(id);
+        }
+    }
+}
@@ -1,60 +1,212 @@
 package com.example.consumer.controller;
 
+import com.example.common.codec.User;
+import com.example.consumer.cache.UserCache;
 import com.example.consumer.client.UserClient;
+import com.example.consumer.client.UserClientFallback;
+import com.example.consumer.client.UserRequestCoalescer;
+import feign.FeignException;
+import feign.Response;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/consumer/users")
 public class UserConsumerController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserConsumerController.class);
+    private static final int RELAY_BUFFER_SIZE = 8192;
+
     @Autowired
     private UserClient userClient;  // 移除Qualifier注解，让Spring自动注入
 
+    @Autowired(required = false)
+    private UserRequestCoalescer userRequestCoalescer;  // 开启请求合并时才存在
+
+    @Autowired(required = false)
+    private UserCache userCache;  // 开启用户缓存时才存在
+
     @GetMapping("/{id}")
     @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "getUserFallback")
     public ResponseEntity<String> getUser(@PathVariable int id) {
+        if (userCache != null) {
+            return ResponseEntity.ok(userCache.get(id));
+        }
+        if (userRequestCoalescer != null) {
+            return ResponseEntity.ok(userRequestCoalescer.getUser(id));
+        }
         return ResponseEntity.ok(userClient.getUser(id));
     }
 
     @PostMapping
     @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "createUserFallback")
-    public ResponseEntity<String> createUser(@RequestBody Map<String, String> user) {
+    public ResponseEntity<String> createUser(@RequestBody User user) {
         return ResponseEntity.ok(userClient.createUser(user));
     }
 
     @PutMapping("/{id}")
     @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "updateUserFallback")
-    public ResponseEntity<String> updateUser(@PathVariable int id, @RequestBody Map<String, String> user) {
-        return ResponseEntity.ok(userClient.updateUser(id, user));
+    public ResponseEntity<String> updateUser(@PathVariable int id, @RequestBody User user) {
+        try {
+            return ResponseEntity.ok(userClient.updateUser(id, user));
+        } finally {
+            invalidate(id);
+        }
     }
 
     @DeleteMapping("/{id}")
     @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "deleteUserFallback")
     public ResponseEntity<String> deleteUser(@PathVariable int id) {
-        return ResponseEntity.ok(userClient.deleteUser(id));
+        try {
+            return ResponseEntity.ok(userClient.deleteUser(id));
+        } finally {
+            invalidate(id);
+        }
     }
     
+    @GetMapping("/batch")
+    @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "getUsersFallback")
+    public ResponseEntity<Map<Integer, String>> getUsers(@RequestParam("ids") List<Integer> ids) {
+        Map<Integer, String> users = userClient.getUsers(ids);
+        if (UserClientFallback.isFallbackResponse(users)) {
+            // Feign降级的空表不是查询结果，抛出后由断路器B记录失败并返回503
+            throw new IllegalStateException("User服务降级，批量查询未获取到用户信息");
+        }
+        return ResponseEntity.ok(users);
+    }
+
+    @PostMapping("/batch")
+    @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "createUsersFallback")
+    public ResponseEntity<String> createUsers(@RequestBody List<User> users) {
+        return ResponseEntity.ok(userClient.createUsers(users));
+    }
+
+    @PutMapping("/batch")
+    @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "updateUsersFallback")
+    public ResponseEntity<String> updateUsers(@RequestBody List<User> users) {
+        try {
+            return ResponseEntity.ok(userClient.updateUsers(users));
+        } finally {
+            if (userCache != null) {
+                userCache.invalidateAll(users.stream().map(User::id).toList());
+            }
+        }
+    }
+
+    @DeleteMapping("/batch")
+    @CircuitBreaker(name = "circuitBreakerB", fallbackMethod = "deleteUsersFallback")
+    public ResponseEntity<String> deleteUsers(@RequestParam("ids") List<Integer> ids) {
+        try {
+            return ResponseEntity.ok(userClient.deleteUsers(ids));
+        } finally {
+            if (userCache != null) {
+                userCache.invalidateAll(ids);
+            }
+        }
+    }
+
+    /**
+     * 转发提供者的NDJSON用户列表：每次读到的数据立即写给调用方，堆内只有一个固定大小的缓冲区，与用户总数无关。
+     * 不加断路器注解：整个流的耗时随数据量增长，计入断路器B会触发慢调用熔断；连接失败时直接返回503。
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public void streamUsers(@RequestParam(value = "cursor", required = false) Long cursor,
+                            HttpServletResponse response) throws IOException {
+        Response upstream;
+        try {
+            upstream = userClient.streamUsers(cursor);
+        } catch (FeignException e) {
+            logger.warn("流式列出用户失败: {}", e.getMessage());
+            response.sendError(503, "User服务不可用，无法列出用户");
+            return;
+        }
+        long bytes = 0;
+        try (upstream) {
+            response.setStatus(upstream.status());
+            Collection<String> contentType = upstream.headers().get("content-type");
+            if (contentType != null && !contentType.isEmpty()) {
+                response.setContentType(contentType.iterator().next());
+            }
+            if (upstream.body() == null) {
+                return;
+            }
+            InputStream in = upstream.body().asInputStream();
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[RELAY_BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                bytes += n;
+                // 提供者那边暂时没有更多数据时才刷新，连续到达的数据合并成较大的分块
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // 调用方断开或提供者中途失败，关闭上游连接即可，响应头已经发出无法再改状态码
+            logger.warn("转发用户列表中断，已转发: {} 字节，原因: {}", bytes, e.getMessage());
+        }
+    }
+
+    /**
+     * 更新或删除后使缓存失效，无论远程调用是否成功
+     */
+    private void invalidate(int id) {
+        if (userCache != null) {
+            userCache.invalidate(id);
+        }
+    }
+
     /**
      * 断路器B的本地降级方法
+     * 缓存中还有该用户的旧数据时优先返回旧数据，并通过X-Cache响应头标明
      */
     public ResponseEntity<String> getUserFallback(int id, Exception ex) {
+        String stale = userCache != null ? userCache.getStale(id) : null;
+        if (stale != null) {
+            return ResponseEntity.ok().header("X-Cache", "STALE").body(stale);
+        }
         return ResponseEntity.ok("获取用户信息失败，这是本地断路器B的降级响应: " + ex.getMessage());
     }
     
-    public ResponseEntity<String> createUserFallback(Map<String, String> user, Exception ex) {
+    public ResponseEntity<String> createUserFallback(User user, Exception ex) {
         return ResponseEntity.ok("创建用户失败，这是本地断路器B的降级响应: " + ex.getMessage());
     }
     
-    public ResponseEntity<String> updateUserFallback(int id, Map<String, String> user, Exception ex) {
+    public ResponseEntity<String> updateUserFallback(int id, User user, Exception ex) {
         return ResponseEntity.ok("更新用户失败，这是本地断路器B的降级响应: " + ex.getMessage());
     }
     
     public ResponseEntity<String> deleteUserFallback(int id, Exception ex) {
         return ResponseEntity.ok("删除用户失败，这是本地断路器B的降级响应: " + ex.getMessage());
     }
+
+    public ResponseEntity<Map<Integer, String>> getUsersFallback(List<Integer> ids, Exception ex) {
+        return ResponseEntity.status(503).body(Map.of());
+    }
+
+    public ResponseEntity<String> createUsersFallback(List<User> users, Exception ex) {
+        return ResponseEntity.ok("批量创建用户失败，这是本地断路器B的降级响应: " + ex.getMessage());
+    }
+
+    public ResponseEntity<String> updateUsersFallback(List<User> users, Exception ex) {
+        return ResponseEntity.ok("批量更新用户失败，这是本地断路器B的降级响应: " + ex.getMessage());
+    }
+
+    public ResponseEntity<String> deleteUsersFallback(List<Integer> ids, Exception ex) {
+        return ResponseEntity.ok("批量删除用户失败，这是本地断路器B的降级响应: " + ex.getMessage());
+    }
 }
@@ -0,0 +1,89 @@
+package com.example.consumer.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 多生产者、单消费者的有界无锁环形缓冲区
+ * 槽位预先分配、循环复用，发布事件不分配对象。生产者用CAS认领序号，写完字段后发布该槽位的序号；
+ * 消费者按序号顺序读取，读到未发布的槽位就停下。缓冲区满时直接丢弃事件，不阻塞请求线程。
+ */
+public class EventRingBuffer {
+
+    private final int mask;
+    private final ResilienceEventType[] types;
+    private final String[] names;
+    private final String[] details;
+    private final long[] durations;
+    /**
+     * 每个槽位已发布的序号 + 1，消费者据此判断槽位是否可读、生产者据此判断槽位是否已被消费
+     */
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * @param capacity 槽位数，向上取整为2的幂
+     */
+    public EventRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.types = new ResilienceEventType[size];
+        this.names = new String[size];
+        this.details = new String[size];
+        this.durations = new long[size];
+        this.published = new AtomicLongArray(size);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return 缓冲区已满时返回false
+     */
+    public boolean offer(ResilienceEventType type, String name, String detail, long durationNanos) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int index = (int) sequence & mask;
+        types[index] = type;
+        names[index] = name;
+        details[index] = detail;
+        durations[index] = durationNanos;
+        published.lazySet(index, sequence + 1);
+        return true;
+    }
+
+    /**
+     * 只能由消费者线程调用
+     *
+     * @return 本次读取的事件数
+     */
+    public int drain(EventHandler handler, int limit) {
+        long sequence = head;
+        int count = 0;
+        while (count < limit) {
+            int index = (int) sequence & mask;
+            if (published.get(index) != sequence + 1) {
+                break;
+            }
+            handler.onEvent(types[index], names[index], details[index], durations[index]);
+            names[index] = null;
+            details[index] = null;
+            sequence++;
+            count++;
+        }
+        head = sequence;
+        return count;
+    }
+
+    @FunctionalInterface
+    public interface EventHandler {
+        void onEvent(ResilienceEventType type, String name, String detail, long durationNanos);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.consumer.events;
+
+import com.example.consumer.events.ResilienceEventType.Component;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 弹性组件事件汇总
+ * 熔断器、限流器、隔离器的事件监听器只把事件写入环形缓冲区，请求线程上没有日志和锁；
+ * 后台线程读取事件，按组件名称累计每秒计数，熔断器调用耗时记入直方图，每隔一个汇总周期输出一行汇总：
+ * 各类事件的总数和每秒峰值、耗时分位数、期间的状态变化。熔断器状态变化在读到时立即输出。
+ * <p>
+ * 逐条事件日志只作为调试采样：consumer.events.debug-sample-rate 大于0时按比例输出到
+ * com.example.consumer.events.ResilienceEventAggregator.sample 日志。
+ */
+public class ResilienceEventAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienceEventAggregator.class);
+    private static final Logger sampleLog = LoggerFactory.getLogger(ResilienceEventAggregator.class.getName() + ".sample");
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int DRAIN_BATCH = 1024;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final ResilienceEventType[] TYPES = ResilienceEventType.values();
+
+    private final EventRingBuffer ringBuffer;
+    private final long summaryIntervalNanos;
+    private final double debugSampleRate;
+    private final LongAdder dropped = new LongAdder();
+    private final EventRingBuffer.EventHandler handler = this::onEvent;
+    // 包装类型（如 TimedRateLimiter）与被包装的实例共用事件发布器，按发布器去重，同一事件只记录一次
+    private final Set<Object> subscribed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    // 以下字段只由汇总线程访问
+    private final Map<Component, Map<String, ComponentStats>> stats = new EnumMap<>(Component.class);
+    private long droppedReported;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param debugSampleRate 逐条输出的事件比例，0表示不输出
+     */
+    public ResilienceEventAggregator(int ringBufferSize, Duration summaryInterval, double debugSampleRate) {
+        this.ringBuffer = new EventRingBuffer(ringBufferSize);
+        this.summaryIntervalNanos = summaryInterval.toNanos();
+        this.debugSampleRate = debugSampleRate;
+        for (Component component : Component.values()) {
+            stats.put(component, new HashMap<>());
+        }
+    }
+
+    public void subscribe(CircuitBreaker circuitBreaker) {
+        if (!subscribed.add(circuitBreaker.getEventPublisher())) {
+            return;
+        }
+        String name = circuitBreaker.getName();
+        circuitBreaker.getEventPublisher()
+                .onSuccess(event -> publish(ResilienceEventType.CIRCUIT_BREAKER_SUCCESS, name, null,
+                        event.getElapsedDuration().toNanos()))
+                .onError(event -> publish(ResilienceEventType.CIRCUIT_BREAKER_ERROR, name, null,
+                        event.getElapsedDuration().toNanos()))
+                .onCallNotPermitted(event -> publish(ResilienceEventType.CIRCUIT_BREAKER_NOT_PERMITTED, name, null, 0))
+                .onStateTransition(event -> publish(ResilienceEventType.CIRCUIT_BREAKER_STATE_TRANSITION, name,
+                        event.getStateTransition().name(), 0));
+    }
+
+    public void subscribe(RateLimiter rateLimiter) {
+        if (!subscribed.add(rateLimiter.getEventPublisher())) {
+            return;
+        }
+        String name = rateLimiter.getName();
+        rateLimiter.getEventPublisher()
+                .onSuccess(event -> publish(ResilienceEventType.RATE_LIMITER_SUCCESS, name, null, 0))
+                .onFailure(event -> publish(ResilienceEventType.RATE_LIMITER_FAILURE, name, null, 0));
+    }
+
+    public void subscribe(Bulkhead bulkhead) {
+        if (!subscribed.add(bulkhead.getEventPublisher())) {
+            return;
+        }
+        String name = bulkhead.getName();
+        bulkhead.getEventPublisher()
+                .onCallPermitted(event -> publish(ResilienceEventType.BULKHEAD_PERMITTED, name, null, 0))
+                .onCallRejected(event -> publish(ResilienceEventType.BULKHEAD_REJECTED, name, null, 0))
+                .onCallFinished(event -> publish(ResilienceEventType.BULKHEAD_FINISHED, name, null, 0));
+    }
+
+    /**
+     * 在事件发生的线程上调用，缓冲区满时丢弃并计数
+     */
+    public void publish(ResilienceEventType type, String name, String detail, long durationNanos) {
+        if (!ringBuffer.offer(type, name, detail, durationNanos)) {
+            dropped.increment();
+        }
+    }
+
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("resilience-event-aggregator").daemon().start(this::run);
+        log.info("弹性事件汇总已启动，缓冲区: {}，汇总周期: {}秒，调试采样比例: {}",
+                ringBuffer.capacity(), TimeUnit.NANOSECONDS.toSeconds(summaryIntervalNanos), debugSampleRate);
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    private void run() {
+        long nextSecond = System.nanoTime() + SECOND_NANOS;
+        long nextSummary = System.nanoTime() + summaryIntervalNanos;
+        while (running) {
+            int drained = ringBuffer.drain(handler, DRAIN_BATCH);
+            long now = System.nanoTime();
+            if (now - nextSecond >= 0) {
+                rollSecond();
+                nextSecond = Math.max(nextSecond + SECOND_NANOS, now);
+                // 汇总紧跟在秒边界之后，当前秒的计数已经并入汇总周期
+                if (now - nextSummary >= 0) {
+                    emitSummary();
+                    nextSummary = now + summaryIntervalNanos;
+                }
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        ringBuffer.drain(handler, Integer.MAX_VALUE);
+        rollSecond();
+        emitSummary();
+    }
+
+    private void onEvent(ResilienceEventType type, String name, String detail, long durationNanos) {
+        ComponentStats componentStats = stats.get(type.component()).computeIfAbsent(name, ComponentStats::new);
+        componentStats.second[type.ordinal()]++;
+        if (durationNanos > 0) {
+            componentStats.recordLatency(durationNanos);
+        }
+        if (type == ResilienceEventType.CIRCUIT_BREAKER_STATE_TRANSITION) {
+            componentStats.transitions.add(detail);
+            log.warn("【熔断器状态】{} {}", name, detail);
+        }
+        if (debugSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < debugSampleRate) {
+            sampleLog.info("【事件采样】{} {} {}{}{}", type.component().label(), name, type.label(),
+                    detail != null ? " " + detail : "",
+                    durationNanos > 0 ? " 耗时" + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms" : "");
+        }
+    }
+
+    private void rollSecond() {
+        stats.values().forEach(byName -> byName.values().forEach(ComponentStats::rollSecond));
+    }
+
+    private void emitSummary() {
+        long intervalSeconds = TimeUnit.NANOSECONDS.toSeconds(summaryIntervalNanos);
+        stats.forEach((component, byName) -> byName.values().forEach(componentStats -> {
+            String summary = componentStats.summarize();
+            if (summary != null) {
+                log.info("【弹性事件】{} {} 最近{}秒: {}", component.label(), componentStats.name, intervalSeconds, summary);
+            }
+        }));
+        long droppedTotal = dropped.sum();
+        if (droppedTotal > droppedReported) {
+            log.warn("【弹性事件】缓冲区已满，最近{}秒丢弃{}个事件", intervalSeconds, droppedTotal - droppedReported);
+            droppedReported = droppedTotal;
+        }
+    }
+
+    private static final class ComponentStats {
+
+        private final String name;
+        private final long[] second = new long[TYPES.length];
+        private final long[] total = new long[TYPES.length];
+        private final long[] peak = new long[TYPES.length];
+        private final List<String> transitions = new ArrayList<>();
+        private Histogram latency;
+
+        ComponentStats(String name) {
+            this.name = name;
+        }
+
+        void recordLatency(long durationNanos) {
+            if (latency == null) {
+                latency = new Histogram(MAX_LATENCY_MICROS, 2);
+            }
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(durationNanos), MAX_LATENCY_MICROS));
+        }
+
+        void rollSecond() {
+            for (int i = 0; i < second.length; i++) {
+                total[i] += second[i];
+                peak[i] = Math.max(peak[i], second[i]);
+                second[i] = 0;
+            }
+        }
+
+        /**
+         * @return 汇总周期内没有事件时返回null
+         */
+        String summarize() {
+            List<String> parts = new ArrayList<>();
+            for (ResilienceEventType type : TYPES) {
+                int i = type.ordinal();
+                if (total[i] > 0 && type != ResilienceEventType.CIRCUIT_BREAKER_STATE_TRANSITION) {
+                    parts.add(type.label() + " " + total[i] + "（峰值 " + peak[i] + "/秒）");
+                }
+            }
+            if (latency != null && latency.getTotalCount() > 0) {
+                parts.add(String.format("耗时 p50=%.1fms p99=%.1fms max=%.1fms",
+                        latency.getValueAtPercentile(50) / 1000.0,
+                        latency.getValueAtPercentile(99) / 1000.0,
+                        latency.getMaxValue() / 1000.0));
+                latency.reset();
+            }
+            if (!transitions.isEmpty()) {
+                parts.add("状态变化 " + String.join(" ", transitions));
+                transitions.clear();
+            }
+            Arrays.fill(total, 0);
+            Arrays.fill(peak, 0);
+            return parts.isEmpty() ? null : String.join(", ", parts);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.consumer.events;
+
+/**
+ * 汇总的弹性组件事件类型
+ */
+public enum ResilienceEventType {
+
+    CIRCUIT_BREAKER_SUCCESS(Component.CIRCUIT_BREAKER, "成功"),
+    CIRCUIT_BREAKER_ERROR(Component.CIRCUIT_BREAKER, "失败"),
+    CIRCUIT_BREAKER_NOT_PERMITTED(Component.CIRCUIT_BREAKER, "熔断拒绝"),
+    CIRCUIT_BREAKER_STATE_TRANSITION(Component.CIRCUIT_BREAKER, "状态变化"),
+    RATE_LIMITER_SUCCESS(Component.RATE_LIMITER, "通过"),
+    RATE_LIMITER_FAILURE(Component.RATE_LIMITER, "拒绝"),
+    BULKHEAD_PERMITTED(Component.BULKHEAD, "允许"),
+    BULKHEAD_REJECTED(Component.BULKHEAD, "拒绝"),
+    BULKHEAD_FINISHED(Component.BULKHEAD, "完成");
+
+    private final Component component;
+    private final String label;
+
+    ResilienceEventType(Component component, String label) {
+        this.component = component;
+        this.label = label;
+    }
+
+    public Component component() {
+        return component;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public enum Component {
+        CIRCUIT_BREAKER("熔断器"),
+        RATE_LIMITER("限流器"),
+        BULKHEAD("隔离器");
+
+        private final String label;
+
+        Component(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+}
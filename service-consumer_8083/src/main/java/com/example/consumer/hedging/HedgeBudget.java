@@ -0,0 +1,66 @@
+package com.example.consumer.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲预算（令牌桶）
+ * 每个可对冲的请求存入 percent/100 个令牌，每发出一个对冲请求消耗一个令牌，
+ * 因此长期来看对冲请求不会超过请求量的 percent%；桶内最多积攒 burst 个令牌，应付短时间的慢请求集中出现。
+ * 下游整体变慢时令牌很快耗尽，对冲自动停止，不会把负载放大一倍。
+ */
+public class HedgeBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long depositPerCall;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    /**
+     * @param percent 对冲请求占请求量的上限（百分比）
+     * @param burst 最多积攒的令牌数
+     */
+    public HedgeBudget(double percent, int burst) {
+        if (percent < 0 || burst < 1) {
+            throw new IllegalArgumentException("对冲预算参数不合法, percent: " + percent + ", burst: " + burst);
+        }
+        this.depositPerCall = Math.round(percent / 100 * TOKEN);
+        this.capacity = burst * TOKEN;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * 每个可对冲的请求调用一次
+     */
+    public void deposit() {
+        balance.accumulateAndGet(depositPerCall, (current, amount) -> Math.min(current + amount, capacity));
+    }
+
+    /**
+     * 尝试取出一个令牌，成功才允许发出对冲请求
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * 取出令牌后没有发出对冲请求时归还
+     */
+    public void release() {
+        balance.accumulateAndGet(TOKEN, (current, amount) -> Math.min(current + amount, capacity));
+    }
+
+    /**
+     * 当前剩余的令牌数
+     */
+    public double available() {
+        return (double) balance.get() / TOKEN;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.consumer.hedging;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲延迟
+ * percentile &lt;= 0 时固定使用 fixedDelay；否则按最近一个窗口内请求延迟的指定分位数自适应调整，
+ * 窗口内样本不足时继续累积到下一个窗口，在此之前沿用上一次的结果（初始为 fixedDelay）。
+ * 结果限制在 [minDelay, maxDelay] 之间，避免延迟普遍很低时对冲过于激进。
+ */
+public class HedgeDelay {
+
+    private static final long MIN_SAMPLES = 100;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long windowNanos;
+
+    private final Recorder recorder = new Recorder(2);
+    private final AtomicLong nextUpdate;
+    private Histogram interval;
+    private Histogram window;
+    private volatile long delayNanos;
+
+    public HedgeDelay(long fixedDelayMillis, double percentile, long minDelayMillis, long maxDelayMillis,
+                      long windowMillis) {
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(fixedDelayMillis);
+        this.nextUpdate = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    public boolean isAdaptive() {
+        return percentile > 0;
+    }
+
+    /**
+     * 记录一次完成的请求耗时
+     */
+    public void record(long latencyNanos) {
+        if (isAdaptive()) {
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        }
+    }
+
+    /**
+     * 当前的对冲延迟，窗口到期时由其中一个调用线程顺带重新计算
+     */
+    public long delayNanos() {
+        if (isAdaptive()) {
+            long deadline = nextUpdate.get();
+            long now = System.nanoTime();
+            if (now - deadline >= 0 && nextUpdate.compareAndSet(deadline, now + windowNanos)) {
+                update();
+            }
+        }
+        return delayNanos;
+    }
+
+    public double delayMillis() {
+        return delayNanos / 1_000_000.0;
+    }
+
+    private synchronized void update() {
+        interval = recorder.getIntervalHistogram(interval);
+        if (window == null) {
+            window = interval.copy();
+        } else {
+            window.add(interval);
+        }
+        if (window.getTotalCount() < MIN_SAMPLES) {
+            return;
+        }
+        long nanos = TimeUnit.MICROSECONDS.toNanos(window.getValueAtPercentile(percentile));
+        delayNanos = Math.max(minDelayNanos, Math.min(nanos, maxDelayNanos));
+        window.reset();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.consumer.hedging;
+
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个Feign客户端的对冲策略
+ * 按方法上的 @Hedged 注解决定是否对冲，所有方法共享同一个对冲预算，每个方法各自维护对冲延迟和指标：
+ * <ul>
+ *     <li>feign.client.hedge.calls：可对冲的请求数</li>
+ *     <li>feign.client.hedge.sent：发出的对冲请求数</li>
+ *     <li>feign.client.hedge.won：对冲请求先于原请求返回的次数</li>
+ *     <li>feign.client.hedge.skipped：到了对冲时间但没有发出对冲请求的次数，reason为budget或no_instance</li>
+ *     <li>feign.client.hedge.win.ratio：对冲请求的胜出比例，接近0说明对冲延迟设得太短</li>
+ *     <li>feign.client.hedge.delay：当前的对冲延迟（毫秒）</li>
+ *     <li>feign.client.hedge.budget：对冲预算中剩余的令牌数</li>
+ * </ul>
+ */
+public class HedgePolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgePolicy.class);
+
+    private final String clientName;
+    private final MeterRegistry meterRegistry;
+    private final HedgeBudget budget;
+    private final long delayMillis;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final long windowMillis;
+    private final Map<Method, Optional<HedgedMethod>> methods = new ConcurrentHashMap<>();
+
+    /**
+     * @param delayMillis 固定对冲延迟，自适应模式下作为样本不足时的初始值
+     * @param percentile 自适应对冲延迟取的延迟分位数，&lt;= 0 时使用固定延迟
+     * @param minDelayMillis 自适应对冲延迟的下限
+     * @param maxDelayMillis 自适应对冲延迟的上限
+     * @param windowMillis 自适应对冲延迟的统计窗口
+     */
+    public HedgePolicy(String clientName, MeterRegistry meterRegistry, HedgeBudget budget,
+                       long delayMillis, double percentile, long minDelayMillis, long maxDelayMillis,
+                       long windowMillis) {
+        this.clientName = clientName;
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+        this.delayMillis = delayMillis;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.windowMillis = windowMillis;
+        Gauge.builder("feign.client.hedge.budget", budget, HedgeBudget::available)
+                .tag("client", clientName)
+                .description("对冲预算中剩余的令牌数")
+                .register(meterRegistry);
+    }
+
+    public HedgeBudget budget() {
+        return budget;
+    }
+
+    /**
+     * 查找请求对应的对冲配置，不需要对冲时返回null
+     */
+    public HedgedMethod lookup(Request request) {
+        RequestTemplate template = request.requestTemplate();
+        MethodMetadata metadata = template != null ? template.methodMetadata() : null;
+        if (metadata == null || metadata.method() == null) {
+            return null;
+        }
+        return methods.computeIfAbsent(metadata.method(), method -> create(method, metadata)).orElse(null);
+    }
+
+    private Optional<HedgedMethod> create(Method method, MethodMetadata metadata) {
+        if (!method.isAnnotationPresent(Hedged.class)) {
+            return Optional.empty();
+        }
+        if (!Request.HttpMethod.GET.name().equals(metadata.template().method())) {
+            log.warn("@Hedged只支持幂等的GET方法，已忽略: {}", metadata.configKey());
+            return Optional.empty();
+        }
+        HedgeDelay delay = new HedgeDelay(delayMillis, percentile, minDelayMillis, maxDelayMillis, windowMillis);
+        log.info("Feign方法 {} 开启请求对冲，{}", metadata.configKey(), delay.isAdaptive()
+                ? "对冲延迟取最近延迟的P" + percentile + "，初始 " + delayMillis + "ms"
+                : "对冲延迟 " + delayMillis + "ms");
+        return Optional.of(new HedgedMethod(metadata.configKey(), delay));
+    }
+
+    /**
+     * 单个可对冲方法的延迟统计和指标
+     */
+    public final class HedgedMethod {
+
+        private final HedgeDelay delay;
+        private final Counter calls;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter skippedByBudget;
+        private final Counter skippedNoInstance;
+
+        private HedgedMethod(String name, HedgeDelay delay) {
+            this.delay = delay;
+            this.calls = counter("feign.client.hedge.calls", name, "可对冲的请求数");
+            this.sent = counter("feign.client.hedge.sent", name, "发出的对冲请求数");
+            this.won = counter("feign.client.hedge.won", name, "对冲请求先返回的次数");
+            this.skippedByBudget = skippedCounter(name, "budget");
+            this.skippedNoInstance = skippedCounter(name, "no_instance");
+            Gauge.builder("feign.client.hedge.win.ratio", this,
+                            m -> m.sent.count() == 0 ? 0 : m.won.count() / m.sent.count())
+                    .tags("client", clientName, "method", name)
+                    .description("对冲请求的胜出比例")
+                    .register(meterRegistry);
+            Gauge.builder("feign.client.hedge.delay", delay, HedgeDelay::delayMillis)
+                    .tags("client", clientName, "method", name)
+                    .description("当前的对冲延迟（毫秒）")
+                    .register(meterRegistry);
+        }
+
+        long delayNanos() {
+            return delay.delayNanos();
+        }
+
+        void recordLatency(long latencyNanos) {
+            delay.record(latencyNanos);
+        }
+
+        void recordCall() {
+            calls.increment();
+            budget.deposit();
+        }
+
+        void recordSent() {
+            sent.increment();
+        }
+
+        void recordWon() {
+            won.increment();
+        }
+
+        void recordSkippedByBudget() {
+            skippedByBudget.increment();
+        }
+
+        void recordSkippedNoInstance() {
+            skippedNoInstance.increment();
+        }
+
+        private Counter counter(String meterName, String method, String description) {
+            return Counter.builder(meterName)
+                    .tags("client", clientName, "method", method)
+                    .description(description)
+                    .register(meterRegistry);
+        }
+
+        private Counter skippedCounter(String method, String reason) {
+            return Counter.builder("feign.client.hedge.skipped")
+                    .tags("client", clientName, "method", method, "reason", reason)
+                    .description("到了对冲时间但没有发出对冲请求的次数")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.consumer.hedging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记可以对冲的Feign方法
+ * 请求超过对冲延迟仍未返回时，向另一个实例再发一次相同的请求，先返回的结果生效，另一个请求被取消。
+ * 只对幂等的GET方法生效，标在其他方法上会被忽略。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedged {
+}
@@ -0,0 +1,254 @@
+package com.example.consumer.hedging;
+
+import com.example.consumer.hedging.HedgePolicy.HedgedMethod;
+import com.example.consumer.loadbalancer.AlternateInstanceChooser;
+import com.example.consumer.loadbalancer.AlternateInstanceChooser.Alternate;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 请求对冲的Feign传输层装饰器
+ * 位于FeignBlockingLoadBalancerClient和连接池之间：原请求已经选好实例，超过对冲延迟仍未返回时，
+ * 通过负载均衡器再选一个不同的实例发出对冲请求，先返回的非5xx响应生效，另一个请求所在的虚拟线程被中断，
+ * 连接随之关闭（虚拟线程上的Socket读写可被中断）。
+ * 配置了固定url的客户端不经过负载均衡，对冲请求只会重复发往同一个慢实例，因此直接调用、不对冲；
+ * 负载均衡器选不出其他实例时同样不发对冲请求。
+ * 对冲请求会单独回调负载均衡生命周期，延迟感知负载均衡能看到它的耗时；对冲请求胜出时，
+ * 原实例按被取消（或已经失败）记录，而不是记成对冲请求的结果。
+ */
+public class HedgingClient implements Client {
+
+    private final Client delegate;
+    private final HedgePolicy policy;
+    private final AlternateInstanceChooser alternateInstances;
+    private final ExecutorService executor;
+
+    /**
+     * @param executor 执行原请求和对冲请求，由调用方负责关闭
+     */
+    public HedgingClient(Client delegate, HedgePolicy policy, ExecutorService executor,
+                         LoadBalancerClient loadBalancerClient, LoadBalancerClientFactory loadBalancerClientFactory) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.executor = executor;
+        this.alternateInstances = new AlternateInstanceChooser(loadBalancerClient, loadBalancerClientFactory);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        HedgedMethod method = policy.lookup(request);
+        if (method == null || !alternateInstances.isLoadBalanced(request)) {
+            return delegate.execute(request, options);
+        }
+        method.recordCall();
+        return new HedgedCall(method, options).execute(request);
+    }
+
+    /**
+     * 一次可对冲的调用，最多包含原请求和一个对冲请求
+     * 2xx~4xx的响应立即胜出；5xx的响应先保留，另一个请求成功则用它的响应，两个请求都结束仍没有成功响应时才返回保留的5xx。
+     */
+    private final class HedgedCall {
+
+        private final HedgedMethod method;
+        private final Request.Options options;
+        private final CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        // 未结束的请求数，降为0后不再发出对冲请求
+        private final AtomicInteger outstanding = new AtomicInteger();
+        // 先返回的5xx响应，等另一个请求结束
+        private final AtomicReference<Attempt> held = new AtomicReference<>();
+        // 原请求已返回或失败，正在处理结果
+        private volatile boolean primaryDone;
+        // 原请求失败（异常或5xx，而不是被取消）时的耗时，没有失败时为-1
+        private volatile long primaryFailedNanos = -1;
+
+        HedgedCall(HedgedMethod method, Request.Options options) {
+            this.method = method;
+            this.options = options;
+        }
+
+        Response execute(Request request) throws IOException {
+            outstanding.incrementAndGet();
+            Future<?> primary = executor.submit(() -> run(request, null, false));
+            Future<?> hedge = null;
+            try {
+                Attempt attempt = awaitWinner(method.delayNanos());
+                if (attempt == null) {
+                    hedge = startHedge(request);
+                    attempt = awaitWinner(-1);
+                }
+                // 另一个请求先返回的5xx响应没有被采用
+                Attempt unused = held.getAndSet(null);
+                if (unused != null && unused != attempt) {
+                    unused.response().close();
+                }
+                // 只中断落败的请求，胜出请求的响应体还要由调用方读取
+                cancel(attempt.hedge() ? primary : hedge);
+                if (!attempt.hedge()) {
+                    return attempt.response();
+                }
+                long failedNanos = primaryFailedNanos;
+                return failedNanos >= 0
+                        ? AlternateInstanceChooser.withPrimaryFailed(attempt.response(), failedNanos)
+                        : AlternateInstanceChooser.withPrimaryCancelled(attempt.response());
+            } catch (InterruptedIOException e) {
+                cancel(primary);
+                cancel(hedge);
+                throw e;
+            }
+        }
+
+        private void cancel(Future<?> future) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * 只在原请求仍未返回时发出对冲请求；先选实例再取预算，没有其他实例时不消耗令牌，
+         * 取到令牌后原请求已经结束则归还
+         */
+        private Future<?> startHedge(Request request) {
+            if (primaryDone) {
+                return null;
+            }
+            Alternate target = alternateInstances.choose(request);
+            if (target == null) {
+                method.recordSkippedNoInstance();
+                return null;
+            }
+            if (!policy.budget().tryAcquire()) {
+                method.recordSkippedByBudget();
+                return null;
+            }
+            if (primaryDone || !incrementIfOutstanding()) {
+                policy.budget().release();
+                return null;
+            }
+            method.recordSent();
+            return executor.submit(() -> run(target.request(), target, true));
+        }
+
+        private boolean incrementIfOutstanding() {
+            int current;
+            do {
+                current = outstanding.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!outstanding.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void run(Request request, Alternate target, boolean hedge) {
+            if (target != null) {
+                target.started();
+            }
+            long start = System.nanoTime();
+            try {
+                Response response;
+                try {
+                    response = delegate.execute(request, options);
+                } finally {
+                    if (!hedge) {
+                        primaryDone = true;
+                    }
+                }
+                long latency = System.nanoTime() - start;
+                method.recordLatency(latency);
+                if (target != null) {
+                    target.completed(response, null);
+                }
+                Attempt attempt = new Attempt(response, hedge);
+                if (response.status() >= 500) {
+                    if (!hedge) {
+                        primaryFailedNanos = latency;
+                    }
+                    // 另一个请求可能还会成功，先保留；已经有胜出者或保留了响应时直接关闭
+                    if (winner.isDone() || !held.compareAndSet(null, attempt)) {
+                        response.close();
+                    }
+                    finish(null);
+                    return;
+                }
+                if (winner.complete(attempt)) {
+                    if (hedge) {
+                        method.recordWon();
+                    }
+                } else {
+                    response.close();
+                }
+                finish(null);
+            } catch (IOException | RuntimeException e) {
+                boolean cancelled = winner.isDone();
+                if (cancelled) {
+                    // 落败被取消的请求也计入延迟分布，否则慢请求都被截掉，自适应延迟会越调越低
+                    method.recordLatency(System.nanoTime() - start);
+                } else if (!hedge) {
+                    primaryFailedNanos = System.nanoTime() - start;
+                }
+                if (target != null) {
+                    target.completed(null, cancelled ? null : e);
+                }
+                finish(e);
+            }
+        }
+
+        /**
+         * 最后一个结束的请求负责结束调用：有保留的5xx响应时返回它，否则抛出最后的异常
+         */
+        private void finish(Throwable error) {
+            if (outstanding.decrementAndGet() != 0) {
+                return;
+            }
+            Attempt attempt = held.getAndSet(null);
+            if (attempt != null) {
+                if (!winner.complete(attempt)) {
+                    attempt.response().close();
+                }
+            } else if (error != null) {
+                winner.completeExceptionally(error);
+            }
+        }
+
+        /**
+         * @param timeoutNanos 小于0时一直等待
+         * @return 超时返回null
+         */
+        private Attempt awaitWinner(long timeoutNanos) throws IOException {
+            try {
+                return timeoutNanos < 0 ? winner.get() : winner.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待Feign响应时被中断");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private record Attempt(Response response, boolean hedge) {
+    }
+}
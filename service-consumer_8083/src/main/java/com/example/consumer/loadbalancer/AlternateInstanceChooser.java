@@ -0,0 +1,209 @@
+package com.example.consumer.loadbalancer;
+
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 为对冲、重试等二次请求选择另一个实例
+ * 供FeignBlockingLoadBalancerClient之内的传输层装饰器使用：原请求已经选好实例，这里带着排除请求头
+ * 通过负载均衡器再选一个不同的实例，并为二次请求单独回调负载均衡生命周期，延迟感知负载均衡能看到它的耗时和结果。
+ * 配置了固定url的客户端不经过负载均衡，没有可选的其他实例，二次请求只会重复发往同一地址，因此不选择目标。
+ * <p>
+ * 二次请求的响应代替原请求返回时，外层FeignBlockingLoadBalancerClient会把它当作原实例的结果回调生命周期；
+ * 装饰器用 {@link #withPrimaryCancelled} / {@link #withPrimaryFailed} 在响应上标记原实例自己的结果，
+ * LatencyRecordingLifecycle 按标记记录原实例。
+ */
+public class AlternateInstanceChooser {
+
+    private static final Logger log = LoggerFactory.getLogger(AlternateInstanceChooser.class);
+
+    /**
+     * 标记原实例结果的响应头，只在消费者进程内传递
+     */
+    public static final String PRIMARY_OUTCOME_HEADER = "X-Primary-Attempt-Outcome";
+
+    private static final int CHOOSE_ATTEMPTS = 3;
+    private static final String PRIMARY_CANCELLED = "cancelled";
+    private static final String PRIMARY_FAILED = "failed;";
+
+    private final LoadBalancerClient loadBalancerClient;
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+
+    public AlternateInstanceChooser(LoadBalancerClient loadBalancerClient,
+                                    LoadBalancerClientFactory loadBalancerClientFactory) {
+        this.loadBalancerClient = loadBalancerClient;
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+    }
+
+    /**
+     * 请求是否经过负载均衡；固定url的客户端返回false，{@link #choose} 总是返回null
+     */
+    public boolean isLoadBalanced(Request request) {
+        return serviceId(request, URI.create(request.url())) != null;
+    }
+
+    /**
+     * 为二次请求选择一个与原请求不同的实例，固定url的客户端或没有其他可用实例时返回null
+     */
+    public Alternate choose(Request request) {
+        URI uri = URI.create(request.url());
+        String serviceId = serviceId(request, uri);
+        if (serviceId == null) {
+            return null;
+        }
+        String excluded = uri.getHost() + ":" + uri.getPort();
+        HttpHeaders headers = new HttpHeaders();
+        request.headers().forEach((name, values) -> headers.addAll(name, new ArrayList<>(values)));
+        headers.set(LatencyAwareLoadBalancer.EXCLUDE_INSTANCE_HEADER, excluded);
+        RequestData requestData = new RequestData(HttpMethod.valueOf(request.httpMethod().name()), uri, headers,
+                null, new HashMap<>());
+        DefaultRequest<RequestDataContext> lbRequest = new DefaultRequest<>(new RequestDataContext(requestData));
+
+        // 不识别排除请求头的负载均衡器（如随机）可能再次选中原实例，多选几次
+        for (int i = 0; i < CHOOSE_ATTEMPTS; i++) {
+            ServiceInstance instance = loadBalancerClient.choose(serviceId, lbRequest);
+            if (instance == null) {
+                return null;
+            }
+            if (!excluded.equals(InstanceStatsRegistry.key(instance))) {
+                String url = LoadBalancerUriTools.reconstructURI(instance, uri).toString();
+                Request alternateRequest = Request.create(request.httpMethod(), url, request.headers(), request.body(),
+                        request.charset(), request.requestTemplate());
+                return new Alternate(alternateRequest, serviceId, lbRequest, new DefaultResponse(instance));
+            }
+        }
+        log.debug("服务 {} 没有其他可用实例，原实例: {}", serviceId, excluded);
+        return null;
+    }
+
+    /**
+     * 原请求被取消（对冲请求先返回），原实例按已等待的时间记为失败
+     */
+    public static Response withPrimaryCancelled(Response response) {
+        return withPrimaryOutcome(response, PRIMARY_CANCELLED);
+    }
+
+    /**
+     * 原请求已经失败（重试或对冲请求成功），原实例按失败时的耗时记为失败
+     */
+    public static Response withPrimaryFailed(Response response, long latencyNanos) {
+        return withPrimaryOutcome(response, PRIMARY_FAILED + latencyNanos);
+    }
+
+    /**
+     * 读取响应上标记的原实例结果，没有标记时返回null
+     *
+     * @return 原请求被取消时返回-1，失败时返回失败时的耗时
+     */
+    public static Long primaryOutcome(HttpHeaders headers) {
+        String outcome = headers != null ? headers.getFirst(PRIMARY_OUTCOME_HEADER) : null;
+        if (outcome == null) {
+            return null;
+        }
+        return outcome.startsWith(PRIMARY_FAILED) ? Long.parseLong(outcome.substring(PRIMARY_FAILED.length())) : -1L;
+    }
+
+    private static Response withPrimaryOutcome(Response response, String outcome) {
+        Map<String, Collection<String>> headers = new HashMap<>(response.headers());
+        headers.put(PRIMARY_OUTCOME_HEADER, List.of(outcome));
+        return response.toBuilder().headers(headers).build();
+    }
+
+    /**
+     * 经过负载均衡的请求，url中的主机已被替换为实例地址，与Feign目标中的服务名不同；固定url的客户端两者相同，返回null
+     */
+    private static String serviceId(Request request, URI uri) {
+        Target<?> target = request.requestTemplate() != null ? request.requestTemplate().feignTarget() : null;
+        if (target == null) {
+            return null;
+        }
+        String targetHost = URI.create(target.url()).getHost();
+        return targetHost == null || targetHost.equalsIgnoreCase(uri.getHost()) ? null : targetHost;
+    }
+
+    /**
+     * 二次请求的目标，经过负载均衡时负责回调生命周期
+     */
+    public final class Alternate {
+
+        private final Request request;
+        private final String serviceId;
+        private final DefaultRequest<RequestDataContext> lbRequest;
+        private final DefaultResponse lbResponse;
+        // LoadBalancerLifecycleValidator返回的是原始类型的集合
+        @SuppressWarnings("rawtypes")
+        private Set<LoadBalancerLifecycle> lifecycles = Set.of();
+
+        Alternate(Request request, String serviceId, DefaultRequest<RequestDataContext> lbRequest,
+                    DefaultResponse lbResponse) {
+            this.request = request;
+            this.serviceId = serviceId;
+            this.lbRequest = lbRequest;
+            this.lbResponse = lbResponse;
+        }
+
+        public Request request() {
+            return request;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void started() {
+            lifecycles = LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                    loadBalancerClientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                    RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+            lifecycles.forEach(lifecycle -> {
+                lifecycle.onStart(lbRequest);
+                lifecycle.onStartRequest(lbRequest, lbResponse);
+            });
+        }
+
+        /**
+         * @param error 请求失败的原因；被取消的请求传null，按成功记录已耗时
+         */
+        @SuppressWarnings("unchecked")
+        public void completed(Response response, Throwable error) {
+            if (lifecycles.isEmpty()) {
+                return;
+            }
+            CompletionContext<ResponseData, ServiceInstance, RequestDataContext> context;
+            if (error != null) {
+                context = new CompletionContext<>(CompletionContext.Status.FAILED, error, lbRequest, lbResponse);
+            } else if (response != null) {
+                HttpHeaders headers = new HttpHeaders();
+                response.headers().forEach((name, values) -> headers.addAll(name, new ArrayList<>(values)));
+                context = new CompletionContext<>(CompletionContext.Status.SUCCESS, lbRequest, lbResponse,
+                        new ResponseData(HttpStatusCode.valueOf(response.status()), headers, null,
+                                lbRequest.getContext().getClientRequest()));
+            } else {
+                context = new CompletionContext<>(CompletionContext.Status.SUCCESS, lbRequest, lbResponse);
+            }
+            lifecycles.forEach(lifecycle -> lifecycle.onComplete(context));
+        }
+    }
+}
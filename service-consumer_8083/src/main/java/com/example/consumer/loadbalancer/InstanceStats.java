@@ -0,0 +1,83 @@
+package com.example.consumer.loadbalancer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个服务实例的负载统计：响应时间的指数加权移动平均（EWMA）、进行中的请求数和最早的进行中请求的开始时间
+ * EWMA按时间衰减：两次采样间隔越长，旧值权重越低；长时间没有采样时读取的值逐渐回到初始响应时间，
+ * 使恢复后的慢实例能重新获得探测流量，而不会因为没有采样就显得比正常实例更快。
+ * 实例卡住时一直没有请求完成、EWMA得不到更新，因此响应时间至少按最早的进行中请求已经等待的时间计算。
+ */
+public class InstanceStats {
+
+    private final long decayNanos;
+    private final long baselineNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 进行中请求的开始时间 -> 同一时刻开始的请求数
+    private final ConcurrentSkipListMap<Long, Integer> inFlightStarts = new ConcurrentSkipListMap<>();
+
+    private double ewmaNanos;
+    private long lastSampleNanos;
+    private long samples;
+
+    InstanceStats(long decayNanos, long initialLatencyNanos) {
+        this.decayNanos = decayNanos;
+        this.baselineNanos = initialLatencyNanos;
+        this.ewmaNanos = initialLatencyNanos;
+        this.lastSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * @param startNanos 请求开始的 System.nanoTime()，结束时用同一个值调用 {@link #requestFinished(long)}
+     */
+    void requestStarted(long startNanos) {
+        inFlight.incrementAndGet();
+        inFlightStarts.merge(startNanos, 1, Integer::sum);
+    }
+
+    void requestFinished(long startNanos) {
+        inFlightStarts.computeIfPresent(startNanos, (start, count) -> count == 1 ? null : count - 1);
+        inFlight.decrementAndGet();
+    }
+
+    synchronized void record(long latencyNanos) {
+        long now = System.nanoTime();
+        double weight = Math.exp(-(double) (now - lastSampleNanos) / decayNanos);
+        ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+        lastSampleNanos = now;
+        samples++;
+    }
+
+    /**
+     * 当前的EWMA响应时间，距上次采样越久越接近初始响应时间
+     */
+    public synchronized double getLatencyNanos() {
+        double idle = System.nanoTime() - lastSampleNanos;
+        return baselineNanos + (ewmaNanos - baselineNanos) * Math.exp(-idle / decayNanos);
+    }
+
+    /**
+     * 最早的进行中请求已经等待的时间，没有进行中的请求时为0
+     */
+    public long getOldestInFlightNanos() {
+        Map.Entry<Long, Integer> oldest = inFlightStarts.firstEntry();
+        return oldest == null ? 0 : System.nanoTime() - oldest.getKey();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * 负载代价：max(响应时间, 最早的进行中请求已等待的时间) × (进行中的请求数 + 1)
+     */
+    public double cost() {
+        return Math.max(getLatencyNanos(), getOldestInFlightNanos()) * (getInFlight() + 1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.consumer.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务实例统计注册表，按 host:port 区分实例
+ */
+public class InstanceStatsRegistry {
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final long decayNanos;
+    private final long initialLatencyNanos;
+    private final long failurePenaltyNanos;
+
+    /**
+     * @param decayMillis EWMA衰减时间常数
+     * @param initialLatencyMillis 尚未采样实例的假定响应时间
+     * @param failurePenaltyMillis 请求失败时按不低于该值的响应时间记录
+     */
+    public InstanceStatsRegistry(long decayMillis, long initialLatencyMillis, long failurePenaltyMillis) {
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+        this.initialLatencyNanos = TimeUnit.MILLISECONDS.toNanos(initialLatencyMillis);
+        this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenaltyMillis);
+    }
+
+    public InstanceStats get(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), key -> new InstanceStats(decayNanos, initialLatencyNanos));
+    }
+
+    public void recordSuccess(ServiceInstance instance, long latencyNanos) {
+        get(instance).record(latencyNanos);
+    }
+
+    public void recordFailure(ServiceInstance instance, long latencyNanos) {
+        get(instance).record(Math.max(latencyNanos, failurePenaltyNanos));
+    }
+
+    public Map<String, InstanceStats> snapshot() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.consumer.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟和并发感知的负载均衡器（power of two choices）
+ * 每次随机挑选两个实例，选择 EWMA响应时间 × (进行中请求数 + 1) 较小的一个。
+ * 慢实例或GC停顿中的实例会积压请求、响应变慢，从而自动少分流量。
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    /**
+     * 请求头中携带 host:port 时，选实例时排除该实例（只要还有其他实例可选），对冲请求用它避开原请求所在的实例
+     */
+    public static final String EXCLUDE_INSTANCE_HEADER = "X-LB-Exclude-Instance";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                    String serviceId,
+                                    InstanceStatsRegistry statsRegistry) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String excluded = excludedInstance(request);
+        return supplier.get(request).next()
+                .map(instances -> processInstanceResponse(supplier, exclude(instances, excluded)));
+    }
+
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> instances) {
+        Response<ServiceInstance> response = choose(instances);
+        if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+            callback.selectedServiceInstance(response.getServer());
+        }
+        return response;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static String excludedInstance(Request request) {
+        if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            return context.getClientRequest().getHeaders().getFirst(EXCLUDE_INSTANCE_HEADER);
+        }
+        return null;
+    }
+
+    private static List<ServiceInstance> exclude(List<ServiceInstance> instances, String excluded) {
+        if (excluded == null) {
+            return instances;
+        }
+        List<ServiceInstance> remaining = instances.stream()
+                .filter(instance -> !excluded.equals(InstanceStatsRegistry.key(instance)))
+                .toList();
+        return remaining.isEmpty() ? instances : remaining;
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("没有可用的服务实例: {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        double costA = statsRegistry.get(a).cost();
+        double costB = statsRegistry.get(b).cost();
+        return new DefaultResponse(costA <= costB ? a : b);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.consumer.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 负载均衡生命周期回调，为LatencyAwareLoadBalancer采集实例统计
+ * 对经过负载均衡的 @LoadBalanced RestTemplate 和 Feign 客户端请求都会生效。
+ */
+public class LatencyRecordingLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceStatsRegistry statsRegistry;
+    private final Map<RequestKey, Long> startTimes = new ConcurrentHashMap<>();
+
+    public LatencyRecordingLifecycle(InstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        if (request.getContext() instanceof TimedRequestContext context) {
+            context.setRequestStartTime(startNanos);
+        }
+        // 开始时间单独保存：其他生命周期（如Micrometer统计）也会改写上下文中的开始时间，结束时会对不上
+        startTimes.put(new RequestKey(request), startNanos);
+        statsRegistry.get(lbResponse.getServer()).requestStarted(startNanos);
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        // DISCARD表示没有选出实例，onStartRequest不会被调用
+        if (lbResponse == null || !lbResponse.hasServer()
+                || completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        Long startNanos = startTimes.remove(new RequestKey(completionContext.getLoadBalancerRequest()));
+        if (startNanos == null) {
+            return;
+        }
+        statsRegistry.get(instance).requestFinished(startNanos);
+        long latency = System.nanoTime() - startNanos;
+        Long primaryOutcome = completionContext.getClientResponse() instanceof ResponseData responseData
+                ? AlternateInstanceChooser.primaryOutcome(responseData.getHeaders()) : null;
+        if (primaryOutcome != null) {
+            // 响应来自对冲或重试请求，不能算作本实例的结果：本实例的请求被取消或已经失败
+            statsRegistry.recordFailure(instance, primaryOutcome >= 0 ? primaryOutcome : latency);
+            return;
+        }
+        if (completionContext.status() == CompletionContext.Status.FAILED
+                || isServerError(completionContext.getClientResponse())) {
+            statsRegistry.recordFailure(instance, latency);
+        } else {
+            statsRegistry.recordSuccess(instance, latency);
+        }
+    }
+
+    /**
+     * 按对象身份区分负载均衡请求，内容相同的并发请求各自记录开始时间
+     */
+    private record RequestKey(Request<?> request) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RequestKey key && key.request == request;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(request);
+        }
+    }
+
+    private static boolean isServerError(Object clientResponse) {
+        if (clientResponse instanceof ResponseData responseData) {
+            return responseData.getHttpStatus() != null && responseData.getHttpStatus().is5xxServerError();
+        }
+        if (clientResponse instanceof ClientHttpResponse httpResponse) {
+            try {
+                return httpResponse.getStatusCode().is5xxServerError();
+            } catch (IOException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
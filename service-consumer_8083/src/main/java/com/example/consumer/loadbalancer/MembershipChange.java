@@ -0,0 +1,15 @@
+package com.example.consumer.loadbalancer;
+
+/**
+ * 注册中心推送的服务实例成员变化
+ * 推送接口不做认证，消费者只用其中的服务名称和实例ID向注册中心核实，地址和状态都以注册表为准。
+ *
+ * @param serviceId 服务名称（Eureka中的应用名）
+ * @param instanceId 实例ID
+ * @param host 实例地址，下线时为null
+ * @param port 实例端口，下线时为0
+ * @param secure 是否使用HTTPS
+ * @param up true表示实例已注册并可用，false表示实例已下线或被剔除
+ */
+public record MembershipChange(String serviceId, String instanceId, String host, int port, boolean secure, boolean up) {
+}
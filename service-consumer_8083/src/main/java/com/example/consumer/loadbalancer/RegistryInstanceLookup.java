@@ -0,0 +1,75 @@
+package com.example.consumer.loadbalancer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 直接向注册中心查询单个实例
+ * 用于核实推送过来的成员变化：/eureka/apps/{应用名}/{实例ID} 直接读取注册表，不经过注册中心的响应缓存，
+ * 查询结果比客户端定期拉取的注册表新。推送的内容本身不可信，实例地址和状态都以这里的查询结果为准。
+ */
+public class RegistryInstanceLookup {
+
+    private static final String UP = "UP";
+
+    private final URI registryUrl;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    /**
+     * @param registryUrl 注册中心地址，如 http://localhost:8761/eureka/
+     */
+    public RegistryInstanceLookup(String registryUrl, Duration timeout, ObjectMapper objectMapper) {
+        this.registryUrl = URI.create(registryUrl.endsWith("/") ? registryUrl : registryUrl + "/");
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * @return 实例已注册且状态为UP时返回注册表中的地址，未注册或不是UP时返回null
+     * @throws IOException 注册中心不可用或返回了无法识别的响应
+     */
+    public ServiceInstance find(String serviceId, String instanceId) throws IOException, InterruptedException {
+        URI uri = registryUrl.resolve("apps/" + encode(serviceId) + "/" + encode(instanceId));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("注册中心返回 " + response.statusCode() + ": " + uri);
+        }
+        JsonNode instance = objectMapper.readTree(response.body()).path("instance");
+        if (!UP.equals(instance.path("status").asText())) {
+            return null;
+        }
+        String host = instance.path("hostName").asText(null);
+        boolean secure = instance.path("securePort").path("@enabled").asBoolean(false);
+        int port = instance.path(secure ? "securePort" : "port").path("$").asInt(0);
+        if (host == null || port <= 0) {
+            throw new IOException("注册中心返回的实例缺少地址: " + uri);
+        }
+        return new DefaultServiceInstance(instanceId, serviceId, host, port, secure);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.consumer.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 各服务的快照式实例列表的管理者，位于主上下文
+ * 负载均衡子上下文中创建的 SnapshotServiceInstanceListSupplier 在这里登记，以便：
+ * <ul>
+ *     <li>注册表拉取完成（HeartbeatEvent只在主上下文中发布）后刷新所有服务的成员</li>
+ *     <li>注册中心推送的成员变化只作为提示：向注册中心查询该实例，按注册表中的地址和状态转给对应的实例列表，
+ *     推送接口本身不做认证，伪造的推送不能加入注册表之外的地址，也不能摘除注册表中可用的实例</li>
+ *     <li>由一个后台线程定期对所有成员做主动健康检查：建立一次TCP连接，连接不上即视为不可用</li>
+ * </ul>
+ * 健康检查在虚拟线程上并发进行，一轮检查的耗时不超过连接超时。
+ */
+public class ServiceInstanceSnapshots implements ApplicationListener<HeartbeatEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceInstanceSnapshots.class);
+
+    private final Map<String, SnapshotServiceInstanceListSupplier> suppliers = new ConcurrentHashMap<>();
+    private final Set<String> verifying = ConcurrentHashMap.newKeySet();
+    private final RegistryInstanceLookup registryLookup;
+    private final MeterRegistry meterRegistry;
+    private final Duration healthCheckInterval;
+    private final Duration connectTimeout;
+    private final ExecutorService probes = Executors.newVirtualThreadPerTaskExecutor();
+    private ScheduledExecutorService scheduler;
+
+    public ServiceInstanceSnapshots(RegistryInstanceLookup registryLookup, MeterRegistry meterRegistry,
+                                    Duration healthCheckInterval, Duration connectTimeout) {
+        this.registryLookup = registryLookup;
+        this.meterRegistry = meterRegistry;
+        this.healthCheckInterval = healthCheckInterval;
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void register(SnapshotServiceInstanceListSupplier supplier) {
+        String serviceId = supplier.getServiceId();
+        suppliers.put(key(serviceId), supplier);
+        Gauge.builder("consumer.loadbalancer.instances", supplier, s -> s.snapshot().healthy().size())
+                .tag("service", serviceId)
+                .tag("state", "healthy")
+                .description("负载均衡当前使用的实例数")
+                .register(meterRegistry);
+        Gauge.builder("consumer.loadbalancer.instances", supplier, s -> s.snapshot().members().size())
+                .tag("service", serviceId)
+                .tag("state", "member")
+                .description("注册表和推送得到的实例数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 收到推送后异步向注册中心核实，同一个实例同时只核实一次，重复的推送直接忽略
+     *
+     * @return 没有订阅该服务（负载均衡子上下文尚未创建）时返回false
+     */
+    public boolean apply(MembershipChange change) {
+        if (change.serviceId() == null || change.instanceId() == null) {
+            return false;
+        }
+        SnapshotServiceInstanceListSupplier supplier = suppliers.get(key(change.serviceId()));
+        if (supplier == null) {
+            return false;
+        }
+        String verifyKey = key(change.serviceId()) + "/" + change.instanceId();
+        if (verifying.add(verifyKey)) {
+            try {
+                probes.execute(() -> {
+                    try {
+                        verify(supplier, change);
+                    } finally {
+                        verifying.remove(verifyKey);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                verifying.remove(verifyKey);
+            }
+        }
+        return true;
+    }
+
+    private void verify(SnapshotServiceInstanceListSupplier supplier, MembershipChange change) {
+        ServiceInstance registered;
+        try {
+            registered = registryLookup.find(supplier.getServiceId(), change.instanceId());
+        } catch (IOException e) {
+            log.warn("核实成员变化失败，忽略推送，等待注册表拉取: {} {}: {}", change.serviceId(), change.instanceId(),
+                    e.toString());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        boolean up = registered != null;
+        if (up != change.up()) {
+            log.warn("推送的成员变化与注册表不一致，以注册表为准: {} {} 推送{}，注册表{}", change.serviceId(),
+                    change.instanceId(), change.up() ? "上线" : "下线", up ? "可用" : "不可用");
+        } else {
+            log.info("收到成员变化推送: {} {} {}", change.serviceId(), change.instanceId(), up ? "上线" : "下线");
+        }
+        supplier.apply(change.instanceId(), registered, up);
+    }
+
+    @Override
+    public void onApplicationEvent(HeartbeatEvent event) {
+        suppliers.values().forEach(SnapshotServiceInstanceListSupplier::refresh);
+    }
+
+    /**
+     * 各服务当前的可用实例和成员，用于排查
+     */
+    public Map<String, Map<String, List<String>>> status() {
+        Map<String, Map<String, List<String>>> status = new LinkedHashMap<>();
+        suppliers.values().forEach(supplier -> {
+            SnapshotServiceInstanceListSupplier.Snapshot snapshot = supplier.snapshot();
+            status.put(supplier.getServiceId(), Map.of(
+                    "healthy", snapshot.healthy().stream().map(InstanceStatsRegistry::key).toList(),
+                    "members", snapshot.members().stream().map(InstanceStatsRegistry::key).toList()));
+        });
+        return status;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("instance-health-check").daemon().factory());
+        long intervalMillis = healthCheckInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("服务实例健康检查已启动，间隔: {}ms，连接超时: {}ms", intervalMillis, connectTimeout.toMillis());
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        probes.shutdownNow();
+    }
+
+    private void checkAll() {
+        try {
+            suppliers.values().forEach(this::check);
+        } catch (RuntimeException e) {
+            log.warn("服务实例健康检查异常: {}", e.toString());
+        }
+    }
+
+    private void check(SnapshotServiceInstanceListSupplier supplier) {
+        List<ServiceInstance> members = supplier.snapshot().members();
+        if (members.isEmpty()) {
+            return;
+        }
+        Map<String, Future<Boolean>> pending = new HashMap<>();
+        for (ServiceInstance member : members) {
+            pending.put(SnapshotServiceInstanceListSupplier.id(member), probes.submit(() -> probe(member)));
+        }
+        Map<String, Boolean> results = new HashMap<>();
+        long deadline = System.nanoTime() + connectTimeout.toNanos() * 2;
+        pending.forEach((instanceId, future) -> results.put(instanceId, await(future, deadline)));
+        supplier.applyHealth(results);
+    }
+
+    private boolean probe(ServiceInstance instance) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(instance.getHost(), instance.getPort()), (int) connectTimeout.toMillis());
+            return true;
+        } catch (IOException e) {
+            log.debug("实例 {} 健康检查失败: {}", InstanceStatsRegistry.key(instance), e.toString());
+            return false;
+        }
+    }
+
+    private static boolean await(Future<Boolean> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(true);
+            return false;
+        }
+    }
+
+    private static String key(String serviceId) {
+        return serviceId.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.consumer.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 快照式服务实例列表
+ * 实例列表保存在不可变快照中，负载均衡选实例时只读一次volatile字段，不加锁、不访问注册中心客户端。
+ * 快照在三种情况下重建（写操作之间加锁串行）：
+ * <ul>
+ *     <li>注册表拉取完成（HeartbeatEvent）：按服务发现的结果刷新成员</li>
+ *     <li>注册中心推送成员变化：立即加入或移除实例，并在 pushGrace 内优先于拉取结果，
+ *     避免注册中心响应缓存中的旧列表把刚下线的实例加回来</li>
+ *     <li>主动健康检查：连接失败的实例立即从可用列表中摘除，恢复后加回</li>
+ * </ul>
+ * 所有实例都检查失败时返回全部成员，由熔断和重试处理，避免健康检查本身的问题导致无实例可用。
+ */
+public class SnapshotServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotServiceInstanceListSupplier.class);
+
+    /**
+     * @param healthy 负载均衡使用的实例
+     * @param members 所有成员，健康检查针对它们进行
+     */
+    record Snapshot(List<ServiceInstance> healthy, List<ServiceInstance> members) {
+    }
+
+    private record PushedMember(ServiceInstance instance, boolean up, long pushedAt) {
+    }
+
+    private final String serviceId;
+    private final Supplier<List<ServiceInstance>> discovery;
+    private final long pushGraceNanos;
+    private final Flux<List<ServiceInstance>> instances;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), List.of());
+
+    // 以下字段由 this 保护
+    private Map<String, ServiceInstance> discovered = Map.of();
+    private final Map<String, PushedMember> pushed = new HashMap<>();
+    private final Set<String> unhealthy = new HashSet<>();
+
+    /**
+     * @param discovery 从服务发现获取实例列表，只在刷新时调用
+     * @param pushGraceMillis 推送的成员变化优先于拉取结果的时长，应覆盖注册表拉取间隔加上注册中心的响应缓存时间
+     */
+    public SnapshotServiceInstanceListSupplier(String serviceId, Supplier<List<ServiceInstance>> discovery,
+                                               long pushGraceMillis) {
+        this.serviceId = serviceId;
+        this.discovery = discovery;
+        this.pushGraceNanos = pushGraceMillis * 1_000_000;
+        this.instances = Flux.defer(() -> Flux.just(snapshot.healthy()));
+        refresh();
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return instances;
+    }
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 按服务发现的当前结果刷新成员
+     */
+    public void refresh() {
+        List<ServiceInstance> fetched;
+        try {
+            fetched = discovery.get();
+        } catch (RuntimeException e) {
+            log.warn("服务 {} 刷新实例列表失败，继续使用当前快照: {}", serviceId, e.toString());
+            return;
+        }
+        Map<String, ServiceInstance> byId = new LinkedHashMap<>();
+        fetched.forEach(instance -> byId.put(id(instance), instance));
+        synchronized (this) {
+            discovered = byId;
+            long now = System.nanoTime();
+            pushed.values().removeIf(member -> now - member.pushedAt() > pushGraceNanos);
+            rebuild();
+        }
+    }
+
+    /**
+     * 注册中心推送的成员变化
+     */
+    public synchronized void apply(String instanceId, ServiceInstance instance, boolean up) {
+        pushed.put(instanceId, new PushedMember(instance, up, System.nanoTime()));
+        if (up) {
+            // 重新注册的实例重新接受健康检查，在检查失败之前按可用处理
+            unhealthy.remove(instanceId);
+        }
+        rebuild();
+    }
+
+    /**
+     * 健康检查结果，key为实例ID
+     */
+    public synchronized void applyHealth(Map<String, Boolean> results) {
+        boolean changed = false;
+        for (Map.Entry<String, Boolean> result : results.entrySet()) {
+            changed |= result.getValue() ? unhealthy.remove(result.getKey()) : unhealthy.add(result.getKey());
+        }
+        if (changed) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        Map<String, ServiceInstance> members = new LinkedHashMap<>(discovered);
+        pushed.forEach((instanceId, member) -> {
+            if (member.up()) {
+                members.putIfAbsent(instanceId, member.instance());
+            } else {
+                members.remove(instanceId);
+            }
+        });
+        unhealthy.retainAll(members.keySet());
+        List<ServiceInstance> healthy = new ArrayList<>(members.size());
+        members.forEach((instanceId, instance) -> {
+            if (!unhealthy.contains(instanceId)) {
+                healthy.add(instance);
+            }
+        });
+        if (healthy.isEmpty() && !members.isEmpty()) {
+            log.warn("服务 {} 的{}个实例健康检查全部失败，暂时使用全部实例", serviceId, members.size());
+            healthy.addAll(members.values());
+        }
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(List.copyOf(healthy), List.copyOf(members.values()));
+        if (previous.healthy().size() != healthy.size() || previous.members().size() != members.size()) {
+            log.info("服务 {} 实例列表更新，可用: {}，成员: {}", serviceId, healthy.size(), members.size());
+        }
+    }
+
+    static String id(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : InstanceStatsRegistry.key(instance);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.consumer.metrics;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * 弹性组件指标
+ * Resilience4j自带的指标（resilience4j.circuitbreaker.state 等）只覆盖自动配置的注册表，这里补充：
+ * <ul>
+ *     <li>consumer.circuitbreaker.transitions：熔断器状态变化次数，按变化前后的状态区分</li>
+ *     <li>consumer.bulkhead.saturation：隔离器已占用的并发数占上限的比例，ResilienceConfig 自建的注册表没有自带指标</li>
+ * </ul>
+ * 新增的熔断器和隔离器通过注册表事件补上；饱和度按名称从注册表取隔离器，替换后的实例（如自适应隔离器）自动生效。
+ * <p>
+ * 在注册表创建时绑定，不主动创建注册表：快速启动模式下注册表到第一次使用时才创建，指标随之出现。
+ */
+public class ResilienceMeterBinder implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ResilienceMeterBinder(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CircuitBreakerRegistry registry) {
+            bindTo(registry, meterRegistry.getObject());
+        } else if (bean instanceof BulkheadRegistry registry) {
+            bindTo(registry, meterRegistry.getObject());
+        }
+        return bean;
+    }
+
+    private void bindTo(CircuitBreakerRegistry circuitBreakerRegistry, MeterRegistry meterRegistry) {
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(cb -> bindTransitions(cb, meterRegistry));
+        circuitBreakerRegistry.getEventPublisher()
+                .onEntryAdded(event -> bindTransitions(event.getAddedEntry(), meterRegistry));
+    }
+
+    private void bindTo(BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry) {
+        bulkheadRegistry.getAllBulkheads()
+                .forEach(bulkhead -> bindSaturation(bulkheadRegistry, bulkhead.getName(), meterRegistry));
+        bulkheadRegistry.getEventPublisher()
+                .onEntryAdded(event -> bindSaturation(bulkheadRegistry, event.getAddedEntry().getName(), meterRegistry));
+    }
+
+    private void bindTransitions(CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        // 状态变化很少发生，计数器在第一次变化时注册，没有发生过的组合不产生时间序列
+        circuitBreaker.getEventPublisher().onStateTransition(event -> Counter.builder("consumer.circuitbreaker.transitions")
+                .tag("name", circuitBreaker.getName())
+                .tag("from", event.getStateTransition().getFromState().name())
+                .tag("to", event.getStateTransition().getToState().name())
+                .description("熔断器状态变化次数")
+                .register(meterRegistry)
+                .increment());
+    }
+
+    private void bindSaturation(BulkheadRegistry bulkheadRegistry, String name, MeterRegistry meterRegistry) {
+        Gauge.builder("consumer.bulkhead.saturation", bulkheadRegistry,
+                        registry -> registry.find(name).map(ResilienceMeterBinder::saturation).orElse(Double.NaN))
+                .tag("name", name)
+                .description("隔离器已占用的并发数占上限的比例，接近1说明调用在排队或被拒绝")
+                .register(meterRegistry);
+    }
+
+    private static double saturation(Bulkhead bulkhead) {
+        Bulkhead.Metrics metrics = bulkhead.getMetrics();
+        int max = metrics.getMaxAllowedConcurrentCalls();
+        return max > 0 ? (double) (max - metrics.getAvailableConcurrentCalls()) / max : 0;
+    }
+}
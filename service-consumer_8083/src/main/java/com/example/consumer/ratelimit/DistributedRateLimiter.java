@@ -0,0 +1,415 @@
+package com.example.consumer.ratelimit;
+
+import io.github.resilience4j.core.EventConsumer;
+import io.github.resilience4j.core.EventProcessor;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.event.RateLimiterEvent;
+import io.github.resilience4j.ratelimiter.event.RateLimiterOnFailureEvent;
+import io.github.resilience4j.ratelimiter.event.RateLimiterOnSuccessEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * 集群限流器
+ * 实现Resilience4j的RateLimiter接口，注册到RateLimiterRegistry后 @RateLimiter 注解和Reactor算子直接使用它。
+ * 配置中的 limitForPeriod / limitRefreshPeriod 是整个集群的限额：令牌向协调者成批租用，本地扣减，
+ * 剩余令牌不多时在后台预取下一批，大多数调用不需要访问协调者。限额较小时每批租用本实例的整份份额，
+ * 协调者没有更多令牌时按它给出的时间再租，一个周期内只访问协调者一两次。
+ * <p>
+ * 协调者不可用时降级为本地的Resilience4j限流器，每个实例分到 limitForPeriod / 实例数（至少1个），
+ * 实例数取协调者最近一次返回的活跃实例数，没有时取注册中心里的实例数；之后每隔一段时间重新尝试租用，成功即恢复。
+ * <p>
+ * reservePermission（Reactor算子使用）不等待租约：本地没有令牌时触发预取并立即拒绝。
+ */
+public class DistributedRateLimiter implements RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(DistributedRateLimiter.class);
+
+    /**
+     * 每批至少租用的令牌数（不超过本实例份额）。份额很小时按比例算出的批次只有1个，
+     * 几乎每次调用都会触发预取，本地扣减就失去了意义
+     */
+    private static final int MIN_BATCH_PERMITS = 8;
+
+    private final String name;
+    private final String instanceId;
+    private final Function<LeaseRequest, LeaseResponse> coordinator;
+    private final double batchFraction;
+    private final long retryIntervalNanos;
+    private final IntSupplier registeredInstances;
+    private final RateLimiter fallback;
+    private final RateLimiterEventProcessor eventProcessor = new RateLimiterEventProcessor();
+    private final DistributedMetrics metrics = new DistributedMetrics();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition leased = lock.newCondition();
+    private final LongAdder leaseSuccesses = new LongAdder();
+    private final LongAdder leaseFailures = new LongAdder();
+    private final LongAdder leasedPermits = new LongAdder();
+
+    private volatile RateLimiterConfig config;
+    private volatile boolean degraded;
+    private volatile int activeInstances;
+    // 以下字段只在持有lock时修改
+    private volatile int permits;
+    private volatile int waiting;
+    private long expiresAt;
+    private long nextLeaseAt;
+    private boolean leasing;
+
+    /**
+     * @param coordinator 向协调者租用令牌，失败时抛出异常
+     * @param batchFraction 每次租用的令牌数占本实例应得份额的比例
+     * @param retryInterval 降级后重新尝试租用的间隔
+     * @param registeredInstances 注册中心里的消费者实例数，协调者从未响应过时用于计算降级份额
+     */
+    public DistributedRateLimiter(String name, RateLimiterConfig config, String instanceId,
+                                  Function<LeaseRequest, LeaseResponse> coordinator, double batchFraction,
+                                  Duration retryInterval, IntSupplier registeredInstances) {
+        this.name = name;
+        this.config = config;
+        this.instanceId = instanceId;
+        this.coordinator = coordinator;
+        this.batchFraction = batchFraction;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.registeredInstances = registeredInstances;
+        this.fallback = RateLimiter.of(name, RateLimiterConfig.from(config).limitForPeriod(fallbackShare()).build());
+        this.expiresAt = System.nanoTime();
+        this.nextLeaseAt = expiresAt;
+    }
+
+    /**
+     * 协调者不可用、正在使用本地份额限流
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * 本地剩余的已租用令牌数
+     */
+    public int getLocalPermits() {
+        return permits;
+    }
+
+    public long getLeaseSuccessCount() {
+        return leaseSuccesses.sum();
+    }
+
+    public long getLeaseFailureCount() {
+        return leaseFailures.sum();
+    }
+
+    /**
+     * 累计从协调者租到的令牌数
+     */
+    public long getLeasedPermitCount() {
+        return leasedPermits.sum();
+    }
+
+    @Override
+    public boolean acquirePermission(int requested) {
+        boolean acquired;
+        if (degraded) {
+            retryLease();
+            acquired = fallback.acquirePermission(requested);
+        } else {
+            Boolean leasedAcquired = acquireLeased(requested);
+            // 等待期间协调者不可用，改用本地份额
+            acquired = leasedAcquired != null ? leasedAcquired : fallback.acquirePermission(requested);
+        }
+        publishResult(acquired, requested);
+        return acquired;
+    }
+
+    @Override
+    public long reservePermission(int requested) {
+        long waitNanos;
+        if (degraded) {
+            retryLease();
+            waitNanos = fallback.reservePermission(requested);
+        } else {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                waitNanos = takeLocal(requested, now) ? 0 : -1;
+                if (waitNanos < 0) {
+                    requestLease(now);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        publishResult(waitNanos >= 0, requested);
+        return waitNanos;
+    }
+
+    @Override
+    public void drainPermissions() {
+        lock.lock();
+        try {
+            permits = 0;
+        } finally {
+            lock.unlock();
+        }
+        fallback.drainPermissions();
+    }
+
+    @Override
+    public void changeTimeoutDuration(Duration timeoutDuration) {
+        config = RateLimiterConfig.from(config).timeoutDuration(timeoutDuration).build();
+        fallback.changeTimeoutDuration(timeoutDuration);
+    }
+
+    /**
+     * 修改整个集群的每周期许可数，下一次租约请求把新值带给协调者
+     */
+    @Override
+    public void changeLimitForPeriod(int limitForPeriod) {
+        config = RateLimiterConfig.from(config).limitForPeriod(limitForPeriod).build();
+        fallback.changeLimitForPeriod(fallbackShare());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public RateLimiterConfig getRateLimiterConfig() {
+        return config;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return Map.of();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return eventProcessor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DistributedRateLimiter '%s', degraded: %s, localPermits: %d", name, degraded, permits);
+    }
+
+    /**
+     * @return 是否拿到许可；协调者在等待期间变为不可用时返回null
+     */
+    private Boolean acquireLeased(int requested) {
+        long deadline = System.nanoTime() + config.getTimeoutDuration().toNanos();
+        lock.lock();
+        waiting++;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (takeLocal(requested, now)) {
+                    return true;
+                }
+                requestLease(now);
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    return false;
+                }
+                // 协调者已告知下一个令牌的时间时，到点醒来重新租用，否则等租约返回
+                long waitNanos = leasing ? remaining : Math.min(remaining, nextLeaseAt - now);
+                leased.awaitNanos(Math.max(waitNanos, 1));
+                if (degraded) {
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting--;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 持有lock时调用
+     */
+    private boolean takeLocal(int requested, long now) {
+        if (permits > 0 && now - expiresAt >= 0) {
+            permits = 0;
+        }
+        if (permits < requested) {
+            return false;
+        }
+        permits -= requested;
+        if (permits <= batchSize() / 2) {
+            requestLease(now);
+        }
+        return true;
+    }
+
+    /**
+     * 持有lock时调用，同一时间最多一个租约请求在进行
+     */
+    private void requestLease(long now) {
+        if (leasing || now - nextLeaseAt < 0) {
+            return;
+        }
+        leasing = true;
+        int batch = batchSize();
+        RateLimiterConfig current = config;
+        LeaseRequest request = new LeaseRequest(name, instanceId, batch, current.getLimitForPeriod(),
+                current.getLimitRefreshPeriod().toMillis());
+        Thread.ofVirtual().name("rate-limit-lease-" + name).start(() -> lease(request));
+    }
+
+    private void lease(LeaseRequest request) {
+        LeaseResponse response;
+        try {
+            response = coordinator.apply(request);
+        } catch (RuntimeException e) {
+            leaseFailed(e);
+            return;
+        }
+        leaseSucceeded(request, response);
+    }
+
+    private void leaseSucceeded(LeaseRequest request, LeaseResponse response) {
+        leaseSuccesses.increment();
+        leasedPermits.add(response.granted());
+        boolean recovered;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            leasing = false;
+            if (response.granted() > 0) {
+                if (now - expiresAt >= 0) {
+                    permits = 0;
+                }
+                permits += response.granted();
+                expiresAt = now + TimeUnit.MILLISECONDS.toNanos(response.expiresInMillis());
+            }
+            nextLeaseAt = response.granted() < request.permits()
+                    ? now + TimeUnit.MILLISECONDS.toNanos(response.retryAfterMillis())
+                    : now;
+            recovered = degraded;
+            degraded = false;
+            leased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (activeInstances != response.activeInstances()) {
+            activeInstances = response.activeInstances();
+            fallback.changeLimitForPeriod(fallbackShare());
+        }
+        if (recovered) {
+            log.info("限流器 {} 已恢复集群限流，活跃实例数: {}", name, activeInstances);
+        }
+    }
+
+    private void leaseFailed(RuntimeException e) {
+        leaseFailures.increment();
+        boolean entered;
+        lock.lock();
+        try {
+            leasing = false;
+            nextLeaseAt = System.nanoTime() + retryIntervalNanos;
+            entered = !degraded;
+            degraded = true;
+            permits = 0;
+            leased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (entered) {
+            fallback.changeLimitForPeriod(fallbackShare());
+            log.warn("限流器 {} 无法访问限流协调者，改为本地限流，每周期{}个许可: {}",
+                    name, fallback.getRateLimiterConfig().getLimitForPeriod(), e.getMessage());
+        }
+    }
+
+    private void retryLease() {
+        if (lock.tryLock()) {
+            try {
+                requestLease(System.nanoTime());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private int instances() {
+        int instances = activeInstances;
+        return instances > 0 ? instances : Math.max(1, registeredInstances.getAsInt());
+    }
+
+    /**
+     * 本实例份额的 batchFraction，但不少于 min(份额, MIN_BATCH_PERMITS)：份额较小时整份租用
+     */
+    private int batchSize() {
+        int share = Math.max(1, config.getLimitForPeriod() / instances());
+        return Math.max(Math.min(share, MIN_BATCH_PERMITS), (int) Math.round(share * batchFraction));
+    }
+
+    /**
+     * 向下取整，保证各实例合计不超过集群限额（限额小于实例数时除外）
+     */
+    private int fallbackShare() {
+        return Math.max(1, config.getLimitForPeriod() / instances());
+    }
+
+    private void publishResult(boolean permitted, int requested) {
+        if (eventProcessor.hasConsumers()) {
+            eventProcessor.consumeEvent(permitted
+                    ? new RateLimiterOnSuccessEvent(name, requested)
+                    : new RateLimiterOnFailureEvent(name, requested));
+        }
+    }
+
+    private final class DistributedMetrics implements Metrics {
+
+        @Override
+        public int getNumberOfWaitingThreads() {
+            return waiting + fallback.getMetrics().getNumberOfWaitingThreads();
+        }
+
+        @Override
+        public int getAvailablePermissions() {
+            return degraded ? fallback.getMetrics().getAvailablePermissions() : permits;
+        }
+    }
+
+    private static final class RateLimiterEventProcessor extends EventProcessor<RateLimiterEvent>
+            implements EventPublisher, EventConsumer<RateLimiterEvent> {
+
+        @Override
+        public EventPublisher onSuccess(EventConsumer<RateLimiterOnSuccessEvent> consumer) {
+            registerConsumer(RateLimiterOnSuccessEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public EventPublisher onFailure(EventConsumer<RateLimiterOnFailureEvent> consumer) {
+            registerConsumer(RateLimiterOnFailureEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public void consumeEvent(RateLimiterEvent event) {
+            super.processEvent(event);
+        }
+    }
+}
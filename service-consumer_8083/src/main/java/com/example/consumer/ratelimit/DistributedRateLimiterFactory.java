@@ -0,0 +1,72 @@
+package com.example.consumer.ratelimit;
+
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * 创建集群限流器并注册监控指标
+ * <ul>
+ *     <li>consumer.ratelimiter.local.permits：本地剩余的已租用令牌数</li>
+ *     <li>consumer.ratelimiter.degraded：1表示协调者不可用、正在按本地份额限流</li>
+ *     <li>consumer.ratelimiter.leases：按outcome（success/failure）区分的租约请求数</li>
+ *     <li>consumer.ratelimiter.leased.permits：累计租到的令牌数</li>
+ * </ul>
+ */
+public class DistributedRateLimiterFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(DistributedRateLimiterFactory.class);
+
+    private final String instanceId;
+    private final Function<LeaseRequest, LeaseResponse> coordinator;
+    private final double batchFraction;
+    private final Duration retryInterval;
+    private final IntSupplier registeredInstances;
+    private final MeterRegistry meterRegistry;
+
+    public DistributedRateLimiterFactory(String instanceId, Function<LeaseRequest, LeaseResponse> coordinator,
+                                         double batchFraction, Duration retryInterval,
+                                         IntSupplier registeredInstances, MeterRegistry meterRegistry) {
+        this.instanceId = instanceId;
+        this.coordinator = coordinator;
+        this.batchFraction = batchFraction;
+        this.retryInterval = retryInterval;
+        this.registeredInstances = registeredInstances;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public DistributedRateLimiter create(String name, RateLimiterConfig config) {
+        DistributedRateLimiter rateLimiter = new DistributedRateLimiter(name, config, instanceId, coordinator,
+                batchFraction, retryInterval, registeredInstances);
+        Gauge.builder("consumer.ratelimiter.local.permits", rateLimiter, DistributedRateLimiter::getLocalPermits)
+                .tag("name", name)
+                .description("本地剩余的已租用令牌数")
+                .register(meterRegistry);
+        Gauge.builder("consumer.ratelimiter.degraded", rateLimiter, limiter -> limiter.isDegraded() ? 1 : 0)
+                .tag("name", name)
+                .description("协调者不可用、按本地份额限流时为1")
+                .register(meterRegistry);
+        FunctionCounter.builder("consumer.ratelimiter.leases", rateLimiter, DistributedRateLimiter::getLeaseSuccessCount)
+                .tags("name", name, "outcome", "success")
+                .description("向协调者租用令牌的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("consumer.ratelimiter.leases", rateLimiter, DistributedRateLimiter::getLeaseFailureCount)
+                .tags("name", name, "outcome", "failure")
+                .description("向协调者租用令牌的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("consumer.ratelimiter.leased.permits", rateLimiter, DistributedRateLimiter::getLeasedPermitCount)
+                .tag("name", name)
+                .description("从协调者租到的令牌数")
+                .register(meterRegistry);
+        log.info("限流器 {} 使用集群限流，实例: {}，集群限额: 每{}毫秒{}个许可", name, instanceId,
+                config.getLimitRefreshPeriod().toMillis(), config.getLimitForPeriod());
+        return rateLimiter;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.consumer.ratelimit;
+
+/**
+ * 向协调者租用令牌的请求，与注册中心的 /rate-limit/leases 接口对应
+ *
+ * @param name 限流器名称
+ * @param instanceId 本实例ID
+ * @param permits 希望租用的令牌数
+ * @param limitForPeriod 整个集群每周期的许可数
+ * @param periodMillis 周期长度
+ */
+public record LeaseRequest(String name, String instanceId, int permits, int limitForPeriod, long periodMillis) {
+}
@@ -0,0 +1,12 @@
+package com.example.consumer.ratelimit;
+
+/**
+ * 协调者返回的令牌租约
+ *
+ * @param granted 实际租到的令牌数，可能少于请求数
+ * @param expiresInMillis 令牌的有效期，过期未用的令牌作废
+ * @param retryAfterMillis 未租满时下一个令牌补充出来的时间
+ * @param activeInstances 最近在租用该限流器令牌的实例数
+ */
+public record LeaseResponse(int granted, long expiresInMillis, long retryAfterMillis, int activeInstances) {
+}
@@ -0,0 +1,104 @@
+package com.example.consumer.ratelimit;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录许可等待时间的限流器
+ * 包装注册表中的限流器（本地限流器或集群限流器）：@RateLimiter 注解经过的 acquirePermission 记录从开始等待到
+ * 拿到或放弃许可的时间，Reactor链路经过的 reservePermission 记录限流器给出的预约等待时间。
+ * 其余方法原样委托，事件发布器也是被包装的限流器的，事件监听不受影响。
+ */
+public class TimedRateLimiter implements RateLimiter {
+
+    private final RateLimiter delegate;
+    private final Timer permitted;
+    private final Timer rejected;
+
+    public TimedRateLimiter(RateLimiter delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.permitted = waitTimer(meterRegistry, delegate.getName(), "permitted");
+        this.rejected = waitTimer(meterRegistry, delegate.getName(), "rejected");
+    }
+
+    @Override
+    public boolean acquirePermission(int permits) {
+        long start = System.nanoTime();
+        boolean acquired = delegate.acquirePermission(permits);
+        (acquired ? permitted : rejected).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return acquired;
+    }
+
+    @Override
+    public long reservePermission(int permits) {
+        long waitNanos = delegate.reservePermission(permits);
+        if (waitNanos >= 0) {
+            permitted.record(waitNanos, TimeUnit.NANOSECONDS);
+        } else {
+            rejected.record(0, TimeUnit.NANOSECONDS);
+        }
+        return waitNanos;
+    }
+
+    @Override
+    public void changeTimeoutDuration(Duration timeoutDuration) {
+        delegate.changeTimeoutDuration(timeoutDuration);
+    }
+
+    @Override
+    public void changeLimitForPeriod(int limitForPeriod) {
+        delegate.changeLimitForPeriod(limitForPeriod);
+    }
+
+    @Override
+    public void drainPermissions() {
+        delegate.drainPermissions();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public RateLimiterConfig getRateLimiterConfig() {
+        return delegate.getRateLimiterConfig();
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return delegate.getTags();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return delegate.getMetrics();
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return delegate.getEventPublisher();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String name, String outcome) {
+        return Timer.builder("consumer.ratelimiter.wait")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .description("获取限流许可的等待时间")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.consumer.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记可以重试的幂等Feign方法
+ * 连接失败、超时或返回502/503/504时，在重试预算和熔断器允许的情况下换一个实例重发。
+ * 只对GET、HEAD、OPTIONS、PUT、DELETE生效，标在POST、PATCH上会被忽略。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -0,0 +1,59 @@
+package com.example.consumer.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重试预算（令牌桶）
+ * 每个成功的请求存入 percent/100 个令牌，每次重试消耗一个令牌，重试量因此不超过成功请求量的 percent%；
+ * 桶内最多积攒 burst 个令牌，偶发的连接重置可以立即重试。
+ * 与对冲预算不同，令牌只随成功的请求存入：下游大面积失败时成功请求变少，重试随之停止，不会在最需要减压的时候放大负载。
+ */
+public class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long depositPerSuccess;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    /**
+     * @param percent 重试次数占成功请求数的上限（百分比）
+     * @param burst 最多积攒的令牌数
+     */
+    public RetryBudget(double percent, int burst) {
+        if (percent < 0 || burst < 1) {
+            throw new IllegalArgumentException("重试预算参数不合法, percent: " + percent + ", burst: " + burst);
+        }
+        this.depositPerSuccess = Math.round(percent / 100 * TOKEN);
+        this.capacity = burst * TOKEN;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * 每个成功的请求调用一次
+     */
+    public void deposit() {
+        balance.accumulateAndGet(depositPerSuccess, (current, amount) -> Math.min(current + amount, capacity));
+    }
+
+    /**
+     * 尝试取出一个令牌，成功才允许重试
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * 当前剩余的令牌数
+     */
+    public double available() {
+        return (double) balance.get() / TOKEN;
+    }
+}
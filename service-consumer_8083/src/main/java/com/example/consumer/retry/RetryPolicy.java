@@ -0,0 +1,193 @@
+package com.example.consumer.retry;
+
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.functions.Either;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 单个Feign客户端的重试策略
+ * 按方法上的 @Idempotent 注解决定是否重试，所有方法共享同一个重试预算，每个方法各自维护指标：
+ * <ul>
+ *     <li>feign.client.retry.calls：可重试方法的调用次数</li>
+ *     <li>feign.client.retry.retries：发出的重试请求数</li>
+ *     <li>feign.client.retry.recovered：重试后成功的调用次数</li>
+ *     <li>feign.client.retry.skipped：失败后没有重试的次数，reason为exhausted、circuit_breaker、no_instance或budget</li>
+ *     <li>feign.client.retry.amplification：实际发出的请求数与调用次数之比，1表示没有重试</li>
+ *     <li>feign.client.retry.budget：重试预算中剩余的令牌数</li>
+ * </ul>
+ * 最大尝试次数和退避间隔来自resilience4j的 RetryConfig（带随机抖动的指数退避）。
+ */
+public class RetryPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(502, 503, 504);
+
+    private final String clientName;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget budget;
+    private final RetryConfig retryConfig;
+    private final Supplier<CircuitBreaker> circuitBreaker;
+    private final Map<Method, Optional<RetriedMethod>> methods = new ConcurrentHashMap<>();
+
+    /**
+     * @param retryConfig 使用其中的最大尝试次数（包括第一次请求）和退避间隔
+     * @param circuitBreaker 调用方包在外层的熔断器，不是CLOSED时不重试；为null时只受预算限制
+     */
+    public RetryPolicy(String clientName, MeterRegistry meterRegistry, RetryBudget budget, RetryConfig retryConfig,
+                       Supplier<CircuitBreaker> circuitBreaker) {
+        this.clientName = clientName;
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+        this.retryConfig = retryConfig;
+        this.circuitBreaker = circuitBreaker;
+        Gauge.builder("feign.client.retry.budget", budget, RetryBudget::available)
+                .tag("client", clientName)
+                .description("重试预算中剩余的令牌数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查找请求对应的重试配置，不需要重试时返回null
+     */
+    public RetriedMethod lookup(Request request) {
+        RequestTemplate template = request.requestTemplate();
+        MethodMetadata metadata = template != null ? template.methodMetadata() : null;
+        if (metadata == null || metadata.method() == null) {
+            return null;
+        }
+        return methods.computeIfAbsent(metadata.method(), method -> create(method, metadata)).orElse(null);
+    }
+
+    /**
+     * 客户端的每个成功请求都存入预算，包括不可重试的方法
+     */
+    public void recordSuccess(Response response) {
+        if (response.status() < 500) {
+            budget.deposit();
+        }
+    }
+
+    /**
+     * 需要重试的响应：网关错误、服务不可用和网关超时，其余状态码原样返回给调用方
+     */
+    public boolean isRetryable(Response response) {
+        return RETRYABLE_STATUSES.contains(response.status());
+    }
+
+    /**
+     * 连接失败和读超时可以重试；请求线程被中断（调用方放弃、对冲落败）时不重试
+     */
+    public boolean isRetryable(IOException e) {
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * 第attempt次尝试失败后能否再试，只检查次数和熔断器，不消耗预算
+     *
+     * @return 不能重试的原因，可以重试时返回null
+     */
+    String denyReason(int attempt) {
+        if (attempt >= retryConfig.getMaxAttempts()) {
+            return "exhausted";
+        }
+        if (circuitBreaker != null && circuitBreaker.get().getState() != CircuitBreaker.State.CLOSED) {
+            // 半开时只放行少量探测请求，重试会把探测结果和放大的负载混在一起；打开时调用方本来就不会进来
+            return "circuit_breaker";
+        }
+        return null;
+    }
+
+    boolean tryAcquireBudget() {
+        return budget.tryAcquire();
+    }
+
+    /**
+     * 第attempt次尝试失败后的退避时间
+     */
+    long backoffMillis(int attempt, Either<Throwable, Response> failure) {
+        return retryConfig.<Response>getIntervalBiFunction().apply(attempt, failure);
+    }
+
+    private Optional<RetriedMethod> create(Method method, MethodMetadata metadata) {
+        if (!method.isAnnotationPresent(Idempotent.class)) {
+            return Optional.empty();
+        }
+        if (!IDEMPOTENT_METHODS.contains(metadata.template().method())) {
+            log.warn("@Idempotent只支持幂等的HTTP方法，已忽略: {} {}", metadata.template().method(), metadata.configKey());
+            return Optional.empty();
+        }
+        log.info("Feign方法 {} 开启重试，最多尝试 {} 次", metadata.configKey(), retryConfig.getMaxAttempts());
+        return Optional.of(new RetriedMethod(metadata.configKey()));
+    }
+
+    /**
+     * 单个可重试方法的指标
+     */
+    public final class RetriedMethod {
+
+        private final Counter calls;
+        private final Counter retries;
+        private final Counter recovered;
+        private final Map<String, Counter> skipped = new ConcurrentHashMap<>();
+        private final String name;
+
+        private RetriedMethod(String name) {
+            this.name = name;
+            this.calls = counter("feign.client.retry.calls", "可重试方法的调用次数");
+            this.retries = counter("feign.client.retry.retries", "发出的重试请求数");
+            this.recovered = counter("feign.client.retry.recovered", "重试后成功的调用次数");
+            Gauge.builder("feign.client.retry.amplification", this,
+                            m -> m.calls.count() == 0 ? 1 : (m.calls.count() + m.retries.count()) / m.calls.count())
+                    .tags("client", clientName, "method", name)
+                    .description("实际发出的请求数与调用次数之比")
+                    .register(meterRegistry);
+        }
+
+        void recordCall() {
+            calls.increment();
+        }
+
+        void recordRetry() {
+            retries.increment();
+        }
+
+        void recordRecovered() {
+            recovered.increment();
+        }
+
+        void recordSkipped(String reason) {
+            skipped.computeIfAbsent(reason, key -> Counter.builder("feign.client.retry.skipped")
+                    .tags("client", clientName, "method", name, "reason", key)
+                    .description("失败后没有重试的次数")
+                    .register(meterRegistry)).increment();
+        }
+
+        private Counter counter(String meterName, String description) {
+            return Counter.builder(meterName)
+                    .tags("client", clientName, "method", name)
+                    .description(description)
+                    .register(meterRegistry);
+        }
+    }
+}
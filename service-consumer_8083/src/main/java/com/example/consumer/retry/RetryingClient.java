@@ -0,0 +1,144 @@
+package com.example.consumer.retry;
+
+import com.example.consumer.loadbalancer.AlternateInstanceChooser;
+import com.example.consumer.loadbalancer.AlternateInstanceChooser.Alternate;
+import com.example.consumer.retry.RetryPolicy.RetriedMethod;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.core.functions.Either;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * 带预算的重试，Feign传输层装饰器
+ * 位于FeignBlockingLoadBalancerClient之内、对冲之外：原请求已经选好实例，失败（IO异常或502/503/504）后
+ * 依次检查尝试次数、熔断器状态、是否有其他实例和重试预算，都通过才按退避时间等待，
+ * 再经负载均衡器选一个不同的实例重发。配置了固定url的客户端不经过负载均衡，没有其他实例，不重试（no_instance）。
+ * 没有通过检查时把最后一次的异常或响应原样交给调用方，由外层的熔断器和降级处理。
+ * <p>
+ * 重试请求单独回调负载均衡生命周期；原实例由FeignBlockingLoadBalancerClient回调，
+ * 发生过重试时在返回的响应上标记第一次请求已失败，原实例按第一次请求的耗时记为失败，而不是重试的结果。
+ */
+public class RetryingClient implements Client {
+
+    private final Client delegate;
+    private final RetryPolicy policy;
+    private final AlternateInstanceChooser alternateInstances;
+
+    public RetryingClient(Client delegate, RetryPolicy policy, LoadBalancerClient loadBalancerClient,
+                          LoadBalancerClientFactory loadBalancerClientFactory) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.alternateInstances = new AlternateInstanceChooser(loadBalancerClient, loadBalancerClientFactory);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        RetriedMethod method = policy.lookup(request);
+        if (method == null) {
+            Response response = delegate.execute(request, options);
+            policy.recordSuccess(response);
+            return response;
+        }
+        method.recordCall();
+        Request current = request;
+        Alternate target = null;
+        long startNanos = System.nanoTime();
+        long primaryFailedNanos = -1;
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            if (target != null) {
+                target.started();
+            }
+            try {
+                response = delegate.execute(current, options);
+            } catch (IOException e) {
+                if (target != null) {
+                    target.completed(null, e);
+                }
+                if (!policy.isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt == 1) {
+                    primaryFailedNanos = System.nanoTime() - startNanos;
+                }
+                target = retryTarget(method, current, attempt);
+                if (target == null) {
+                    throw e;
+                }
+                backoff(method, attempt, Either.left(e));
+                current = target.request();
+                continue;
+            } catch (RuntimeException e) {
+                if (target != null) {
+                    target.completed(null, e);
+                }
+                throw e;
+            }
+            if (target != null) {
+                target.completed(response, null);
+            }
+            if (!policy.isRetryable(response)) {
+                policy.recordSuccess(response);
+                if (attempt > 1) {
+                    method.recordRecovered();
+                    return AlternateInstanceChooser.withPrimaryFailed(response, primaryFailedNanos);
+                }
+                return response;
+            }
+            if (attempt == 1) {
+                primaryFailedNanos = System.nanoTime() - startNanos;
+            }
+            Alternate next = retryTarget(method, current, attempt);
+            if (next == null) {
+                return attempt > 1 ? AlternateInstanceChooser.withPrimaryFailed(response, primaryFailedNanos) : response;
+            }
+            // 退避期间不占用连接
+            response.close();
+            backoff(method, attempt, Either.right(response));
+            target = next;
+            current = next.request();
+        }
+    }
+
+    /**
+     * 依次检查尝试次数、熔断器、其他实例和预算；预算放在最后，没有重试时不消耗令牌
+     *
+     * @return 不能重试时返回null
+     */
+    private Alternate retryTarget(RetriedMethod method, Request request, int attempt) {
+        String reason = policy.denyReason(attempt);
+        Alternate target = null;
+        if (reason == null) {
+            target = alternateInstances.choose(request);
+            if (target == null) {
+                reason = "no_instance";
+            } else if (!policy.tryAcquireBudget()) {
+                reason = "budget";
+            }
+        }
+        if (reason != null) {
+            method.recordSkipped(reason);
+            return null;
+        }
+        return target;
+    }
+
+    private void backoff(RetriedMethod method, int attempt, Either<Throwable, Response> failure)
+            throws InterruptedIOException {
+        long backoffMillis = policy.backoffMillis(attempt, failure);
+        if (backoffMillis > 0) {
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("重试退避时被中断");
+            }
+        }
+        method.recordRetry();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.consumer.transport;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带延迟直方图的Feign传输层
+ * 包在HTTP客户端的最外层、负载均衡和对冲之内，每一次实际发出的请求（包括对冲请求）都按
+ * 客户端、接口方法、服务实例和结果记入 feign.client.requests，耗时截止到收到响应头。
+ * 对冲落败后被中断的请求记为 CANCELLED，不算作IO_ERROR，避免把主动取消当成下游故障。
+ * <p>
+ * 直方图使用固定的分桶（publishPercentileHistogram），记录一次只是几个计数器自增，分位数由Prometheus查询时计算；
+ * 计时器按标签组合缓存，请求路径上不再经过Micrometer的注册查找。
+ */
+public class MeteredClient implements Client {
+
+    private static final String UNKNOWN = "unknown";
+    private static final String IO_ERROR = "IO_ERROR";
+    private static final String CANCELLED = "CANCELLED";
+
+    private final Client delegate;
+    private final String clientName;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public MeteredClient(Client delegate, String clientName, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.clientName = clientName;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Response response = delegate.execute(request, options);
+            timer(request, Outcome.forStatus(response.status()).name())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return response;
+        } catch (IOException e) {
+            timer(request, isCancelled(e) ? CANCELLED : IO_ERROR)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * 请求线程被中断（对冲落败的请求通过 Future.cancel(true) 取消）导致的异常
+     */
+    private static boolean isCancelled(IOException e) {
+        return e instanceof InterruptedIOException || e instanceof ClosedByInterruptException
+                || e.getCause() instanceof InterruptedException || Thread.currentThread().isInterrupted();
+    }
+
+    private Timer timer(Request request, String outcome) {
+        RequestTemplate template = request.requestTemplate();
+        String method = template != null && template.methodMetadata() != null
+                ? template.methodMetadata().configKey() : UNKNOWN;
+        return timers.computeIfAbsent(new TimerKey(method, instance(request.url()), outcome), key ->
+                Timer.builder("feign.client.requests")
+                        .tag("client", clientName)
+                        .tag("method", key.method())
+                        .tag("instance", key.instance())
+                        .tag("outcome", key.outcome())
+                        .description("Feign客户端每个请求从发出到收到响应头的耗时")
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry));
+    }
+
+    /**
+     * 取出URL中的 host:port，不经过URI解析
+     */
+    static String instance(String url) {
+        int hostStart = url.indexOf("://");
+        if (hostStart < 0) {
+            return UNKNOWN;
+        }
+        hostStart += 3;
+        int hostEnd = hostStart;
+        while (hostEnd < url.length()) {
+            char c = url.charAt(hostEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            hostEnd++;
+        }
+        return url.substring(hostStart, hostEnd);
+    }
+
+    private record TimerKey(String method, String instance, String outcome) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.consumer.transport;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 带监控指标的连接池
+ * 除了Micrometer自带的连接池指标（httpcomponents.httpclient.pool.*，包括等待连接的请求数pending），
+ * 额外记录从连接池获取连接的等待时间，以及已借出连接占上限的比例。
+ * 等待时间明显大于0说明连接池已经饱和，请求在排队等连接。
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final Timer leaseAcquired;
+    private final Timer leaseTimedOut;
+
+    public MeteredConnectionManager(String clientName, MeterRegistry meterRegistry) {
+        new PoolingHttpClientConnectionManagerMetricsBinder(this, clientName).bindTo(meterRegistry);
+        this.leaseAcquired = leaseTimer(meterRegistry, clientName, "acquired");
+        this.leaseTimedOut = leaseTimer(meterRegistry, clientName, "timeout");
+        Gauge.builder("feign.client.pool.saturation", this,
+                        pool -> (double) pool.getTotalStats().getLeased() / pool.getMaxTotal())
+                .tag("client", clientName)
+                .description("已借出连接数占连接池上限的比例")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                try {
+                    ConnectionEndpoint endpoint = delegate.get(timeout);
+                    leaseAcquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return endpoint;
+                } catch (TimeoutException e) {
+                    leaseTimedOut.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+
+    private static Timer leaseTimer(MeterRegistry meterRegistry, String clientName, String outcome) {
+        return Timer.builder("feign.client.pool.lease")
+                .tag("client", clientName)
+                .tag("outcome", outcome)
+                .description("从连接池获取连接的等待时间")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
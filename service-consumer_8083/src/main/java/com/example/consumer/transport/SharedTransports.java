@@ -0,0 +1,96 @@
+package com.example.consumer.transport;
+
+import feign.Client;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 共享传输层（consumer.feign.shared-transport.enabled=true）
+ * 指向同一服务的Feign客户端共用一个连接池和HTTP客户端：保活连接、空闲校验和失效连接的清理在这些客户端之间共享，
+ * 连接数上限也按服务而不是按客户端计算。编解码器与服务无关，所有客户端共用一份。
+ * <p>
+ * 超时（Request.Options）随每个请求传入，计时、对冲和resilience4j策略仍在各客户端自己的子上下文中，不受影响。
+ * 服务名按 @FeignClient 的name确定，不区分大小写。
+ */
+public class SharedTransports implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedTransports.class);
+
+    private final Map<String, Transport> transports = new ConcurrentHashMap<>();
+    private final Function<String, String> serviceIds;
+    private final Function<String, Transport> transportFactory;
+    private final Encoder encoder;
+    private final Decoder decoder;
+    private final RequestInterceptor acceptInterceptor;
+
+    /**
+     * @param serviceIds 客户端名称（contextId）到服务名的映射
+     * @param transportFactory 按服务名创建传输层，每个服务只调用一次
+     */
+    public SharedTransports(Function<String, String> serviceIds,
+                            Function<String, Transport> transportFactory,
+                            Encoder encoder, Decoder decoder, RequestInterceptor acceptInterceptor) {
+        this.serviceIds = serviceIds;
+        this.transportFactory = transportFactory;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.acceptInterceptor = acceptInterceptor;
+    }
+
+    /**
+     * 客户端所属服务的传输层，第一个客户端创建，后续客户端复用
+     */
+    public Client client(String clientName) {
+        String serviceId = serviceIds.apply(clientName);
+        Transport transport = transports.computeIfAbsent(key(serviceId), key -> {
+            log.info("为服务 {} 创建共享传输层", serviceId);
+            return transportFactory.apply(serviceId);
+        });
+        log.info("Feign客户端 {} 使用服务 {} 的共享传输层", clientName, serviceId);
+        return transport.client();
+    }
+
+    public Encoder encoder() {
+        return encoder;
+    }
+
+    public Decoder decoder() {
+        return decoder;
+    }
+
+    public RequestInterceptor acceptInterceptor() {
+        return acceptInterceptor;
+    }
+
+    @Override
+    public void destroy() {
+        transports.forEach((serviceId, transport) -> {
+            try {
+                transport.resource().close();
+            } catch (Exception e) {
+                log.warn("关闭服务 {} 的共享传输层失败: {}", serviceId, e.toString());
+            }
+        });
+        transports.clear();
+    }
+
+    private static String key(String serviceId) {
+        return serviceId.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param client 最内层的Feign传输（ApacheHttp5Client或Http2Client）
+     * @param resource 关闭时释放的HTTP客户端
+     */
+    public record Transport(Client client, AutoCloseable resource) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.provider.codec;
+
+import com.example.common.codec.User;
+import com.example.common.codec.UserBinaryCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * application/x-user-bin 的消息转换器
+ * 请求体按Content-Type选择转换器；响应只在请求的Accept明确要求该格式时使用，
+ * 因为它排在JSON转换器之后，Accept为空或 *&#47;* 的调用方（curl、浏览器、JSON模式的消费者）仍然得到JSON。
+ */
+public class UserBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(UserBinaryCodec.MEDIA_TYPE);
+
+    public UserBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // 泛型类型由下面的 canRead/canWrite 判断
+        return clazz == User.class;
+    }
+
+    /**
+     * Spring按返回值的实际类型（LinkedHashMap、ArrayList）查询可以产生的媒体类型，在此之前已经用泛型类型调用过 canWrite，
+     * 这里不能再按实际类型过滤，否则 Accept: application/x-user-bin 会得到406
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return UserBinaryCodec.supports(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return type != null && UserBinaryCodec.supports(type) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return UserBinaryCodec.decode(inputMessage.getBody().readAllBytes(), type);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException("无法解析二进制用户数据: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = UserBinaryCodec.encode(value, type);
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.provider.config;
+
+import com.example.common.pinning.VirtualThreadPinningMonitor;
+import com.example.provider.store.UserStoreSnapshotter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 快速启动模式配置
+ * fast-startup 配置文件开启 spring.main.lazy-initialization，控制器、繁重任务引擎等在第一次请求时才创建。
+ * <p>
+ * 这里列出仍要在启动时创建的bean：它们没有被其他bean依赖，延迟创建就等于一直不工作。
+ * 没有开启延迟初始化时排除规则不起作用。
+ */
+@Configuration
+public class FastStartupConfiguration {
+
+    /**
+     * 用户快照要在接收请求之前恢复，并从启动开始定期写入；钉住监控要从启动开始记录
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(UserStoreSnapshotter.class, VirtualThreadPinningMonitor.class);
+    }
+}
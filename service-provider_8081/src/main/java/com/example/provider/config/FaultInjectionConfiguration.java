@@ -0,0 +1,34 @@
+package com.example.provider.config;
+
+import com.example.common.refresh.RefreshableValues;
+import com.example.provider.fault.FaultInjector;
+import com.example.provider.fault.FaultProperties;
+import com.example.provider.fault.FaultRule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * 故障注入配置
+ * 规则绑定到 provider.fault，随配置中心刷新；没有任何配置时使用与原来写死的行为一致的默认规则。
+ */
+@Configuration
+public class FaultInjectionConfiguration {
+
+    static final FaultProperties DEFAULT_FAULTS = new FaultProperties(Map.of(
+            "get-user", FaultRule.latency("fixed:3000"),
+            "get-users", FaultRule.latency("fixed:3000"),
+            "heavy-task", FaultRule.latency("fixed:1000"),
+            "error", FaultRule.errors(1.0)), Map.of());
+
+    @Bean
+    public FaultInjector faultInjector(RefreshableValues refreshableValues,
+                                       @Value("${eureka.instance.instance-id:${spring.application.name}-${server.port}}") String instanceId,
+                                       MeterRegistry meterRegistry) {
+        return new FaultInjector(refreshableValues.bind("provider.fault", FaultProperties.class, DEFAULT_FAULTS),
+                instanceId, meterRegistry);
+    }
+}
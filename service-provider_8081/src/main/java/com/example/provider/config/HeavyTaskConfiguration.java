@@ -0,0 +1,36 @@
+package com.example.provider.config;
+
+import com.example.provider.task.HeavyTaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 繁重任务执行引擎配置
+ * provider.task.executor=virtual 每个任务一个虚拟线程（默认），=pool 使用固定大小线程池
+ */
+@Configuration
+public class HeavyTaskConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeavyTaskConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public HeavyTaskEngine heavyTaskEngine(@Value("${provider.task.executor:virtual}") String executorType,
+                                           @Value("${provider.task.pool-size:16}") int poolSize,
+                                           @Value("${provider.task.capacity:1000}") int capacity,
+                                           @Value("${provider.task.retention-seconds:300}") long retentionSeconds) {
+        ExecutorService executor;
+        if ("pool".equalsIgnoreCase(executorType)) {
+            executor = Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("heavy-task-", 0).factory());
+        } else {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("heavy-task-", 0).factory());
+        }
+        logger.info("繁重任务引擎: 执行器={}，线程池大小={}，容量={}", executorType, poolSize, capacity);
+        return new HeavyTaskEngine(executor, capacity, retentionSeconds * 1000);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.provider.config;
+
+import com.example.common.refresh.RefreshableValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * 增量配置刷新
+ * 需要随配置中心刷新的值通过 RefreshableValues.bind 绑定，不再使用 @RefreshScope 重建整个Bean。
+ */
+@Configuration
+public class RefreshConfiguration {
+
+    @Bean
+    public RefreshableValues refreshableValues(ConfigurableEnvironment environment) {
+        return new RefreshableValues(environment);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.provider.config;
+
+import com.example.provider.codec.UserBinaryHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 用户数据的二进制格式
+ * 转换器追加在默认转换器之后：请求体按Content-Type解析，响应按Accept协商，未明确要求二进制格式的调用方得到JSON。
+ */
+@Configuration
+public class UserCodecConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new UserBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.provider.config;
+
+import com.example.provider.store.ConcurrentMapUserStore;
+import com.example.provider.store.DurableUserStore;
+import com.example.provider.store.OffHeapUserStore;
+import com.example.provider.store.UserStore;
+import com.example.provider.store.UserStoreSnapshotter;
+import com.example.provider.store.WriteAheadLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * 用户存储引擎配置
+ * user.store.engine=offheap 使用堆外开放寻址表（默认），=map 使用原有的ConcurrentHashMap
+ * user.store.wal.enabled=true 时在引擎外包一层预写日志（DurableUserStore），写操作落盘后才返回；
+ * 日志的恢复和截断由快照完成，因此需要同时开启快照
+ */
+@Configuration
+public class UserStoreConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStoreConfiguration.class);
+
+    @Bean
+    public UserStore userStore(@Value("${user.store.engine:offheap}") String engine,
+                               @Value("${user.store.expected-users:1048576}") int expectedUsers,
+                               @Value("${user.store.segment-bytes:16777216}") int segmentBytes,
+                               @Value("${user.store.wal.enabled:false}") boolean walEnabled,
+                               @Value("${user.store.snapshot.enabled:false}") boolean snapshotEnabled,
+                               @Value("${user.store.wal.dir:./data/users.wal}") String walDir,
+                               @Value("${user.store.wal.sync:batch}") String sync,
+                               @Value("${user.store.wal.sync-interval-millis:100}") long syncIntervalMillis,
+                               @Value("${user.store.wal.segment-bytes:67108864}") long walSegmentBytes,
+                               MeterRegistry meterRegistry) {
+        logger.info("用户存储引擎: {}", engine);
+        UserStore store = "map".equalsIgnoreCase(engine)
+                ? new ConcurrentMapUserStore()
+                : new OffHeapUserStore(expectedUsers, segmentBytes);
+        if (!walEnabled) {
+            return store;
+        }
+        if (!snapshotEnabled) {
+            throw new IllegalStateException("user.store.wal.enabled 需要同时开启 user.store.snapshot.enabled，"
+                    + "启动时由快照加载器回放日志，快照写入后截断日志");
+        }
+        WriteAheadLog.SyncMode mode = WriteAheadLog.SyncMode.valueOf(sync.toUpperCase(Locale.ROOT));
+        logger.info("用户存储预写日志: {}，同步模式: {}", walDir, mode);
+        return new DurableUserStore(store,
+                new WriteAheadLog(Path.of(walDir), mode, syncIntervalMillis, walSegmentBytes, meterRegistry),
+                meterRegistry);
+    }
+
+    /**
+     * 快照：启动时恢复（带预写日志时再回放日志），运行期间定期写入，关闭时再写一次
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "user.store.snapshot.enabled", havingValue = "true")
+    public UserStoreSnapshotter userStoreSnapshotter(UserStore userStore,
+                                                     @Value("${user.store.snapshot.path}") String path,
+                                                     @Value("${user.store.snapshot.interval-seconds:60}") long intervalSeconds) {
+        return new UserStoreSnapshotter(userStore, Path.of(path), intervalSeconds);
+    }
+}
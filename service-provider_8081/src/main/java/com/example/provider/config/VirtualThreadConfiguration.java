@@ -0,0 +1,27 @@
+package com.example.provider.config;
+
+import com.example.common.pinning.VirtualThreadPinningMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式配置
+ * spring.threads.virtual.enabled=true 时，Tomcat请求处理线程改为虚拟线程
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    /**
+     * 监控虚拟线程钉住情况
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${provider.virtual-threads.pinning-threshold-ms:20}") long thresholdMillis) {
+        return new VirtualThreadPinningMonitor(Duration.ofMillis(thresholdMillis));
+    }
+}
@@ -1,17 +1,32 @@
 package com.example.provider.controller;
 
+import com.example.common.refresh.RefreshableValue;
+import com.example.common.refresh.RefreshableValues;
+import com.example.provider.fault.FaultInjector;
+import com.example.provider.task.HeavyTask;
+import com.example.provider.task.HeavyTaskEngine;
+import com.example.provider.task.TaskRejectedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-@RefreshScope  // 添加RefreshScope注解，支持动态配置刷新
 @RestController
 @RequestMapping("/provider")
 public class ProviderController {
@@ -21,51 +36,146 @@ public class ProviderController {
     @Value("${server.port}")
     private String serverPort;
     
-    // 添加可动态刷新的配置属性
-    @Value("${provider.message:默认配置消息}")
-    private String configMessage;
+    // 可动态刷新的配置属性，配置中心刷新时原地更新，不重建控制器
+    private final RefreshableValue<String> configMessage;
+
+    @Autowired
+    private HeavyTaskEngine heavyTaskEngine;
+
+    @Autowired
+    private FaultInjector faultInjector;
+
+    // 长轮询等待任务结果的最长时间
+    private static final long MAX_AWAIT_MILLIS = 60000;
+
+    public ProviderController(RefreshableValues refreshableValues) {
+        this.configMessage = refreshableValues.bind("provider.message", String.class, "默认配置消息");
+    }
 
     @GetMapping("/hello")
     public String hello() {
         logger.info("收到 /provider/hello 请求，当前实例端口：{}", serverPort);
+        faultInjector.apply("hello");
         return "Hello from Service Provider，实例端口：" + serverPort;
     }
     
+    /**
+     * 同步执行繁重任务，响应内容与原来一致
+     * 任务交给执行引擎运行，等待期间不占用Tomcat工作线程
+     */
     @GetMapping("/heavy-task/{taskId}")
-    public String performHeavyTask(@PathVariable String taskId) {
+    public CompletableFuture<String> performHeavyTask(@PathVariable String taskId) {
         logger.info("收到繁重任务请求，taskId: {}，当前实例端口：{}", taskId, serverPort);
-        try {
-            // 模拟耗时操作
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        return heavyTaskEngine.execute(taskId, () -> doHeavyTask(taskId)).getCompletion();
+    }
+
+    /**
+     * 异步提交繁重任务，立即返回202和任务状态
+     */
+    @PostMapping("/heavy-task/{taskId}/async")
+    public ResponseEntity<Map<String, Object>> submitHeavyTask(@PathVariable String taskId) {
+        logger.info("收到异步繁重任务请求，taskId: {}，当前实例端口：{}", taskId, serverPort);
+        HeavyTask task = heavyTaskEngine.submit(taskId, () -> doHeavyTask(taskId));
+        return ResponseEntity.accepted()
+                .location(URI.create("/provider/heavy-task/" + taskId + "/status"))
+                .body(toView(task));
+    }
+
+    /**
+     * 查询异步任务状态
+     */
+    @GetMapping("/heavy-task/{taskId}/status")
+    public ResponseEntity<Map<String, Object>> getHeavyTaskStatus(@PathVariable String taskId) {
+        HeavyTask task = heavyTaskEngine.find(taskId);
+        if (task == null) {
+            return ResponseEntity.notFound().build();
         }
-        return String.format("任务 %s 已在Service Provider实例（端口：%s）处理完成", taskId, serverPort);
+        return ResponseEntity.ok(toView(task));
+    }
+
+    /**
+     * 长轮询等待异步任务完成
+     * 在timeoutMs内完成则返回200和结果，否则返回202和当前状态，调用方可继续轮询；timeoutMs不是正数时返回400
+     */
+    @GetMapping("/heavy-task/{taskId}/result")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> awaitHeavyTask(
+            @PathVariable String taskId,
+            @RequestParam(defaultValue = "30000") long timeoutMs) {
+        if (timeoutMs <= 0) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> rejected = new DeferredResult<>();
+            rejected.setResult(ResponseEntity.badRequest().body(Map.of("error", "timeoutMs应在1到"
+                    + MAX_AWAIT_MILLIS + "之间")));
+            return rejected;
+        }
+        HeavyTask task = heavyTaskEngine.find(taskId);
+        DeferredResult<ResponseEntity<Map<String, Object>>> result =
+                new DeferredResult<>(Math.min(timeoutMs, MAX_AWAIT_MILLIS));
+        if (task == null) {
+            result.setResult(ResponseEntity.notFound().build());
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(ResponseEntity.accepted().body(toView(task))));
+        task.getCompletion().whenComplete((value, error) -> result.setResult(error == null
+                ? ResponseEntity.ok(toView(task))
+                : ResponseEntity.internalServerError().body(toView(task))));
+        return result;
+    }
+
+    /**
+     * 任务队列已满时返回503，并提示调用方稍后重试
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<String> handleTaskRejected(TaskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
     }
     
     @GetMapping("/lb-test")
     public String loadBalanceTest() {
         logger.info("收到负载均衡测试请求，当前实例端口：{}", serverPort);
+        faultInjector.apply("lb-test");
         return "负载均衡测试响应，来自Provider实例，端口：" + serverPort;
     }
     
     /**
      * 错误测试端点 - 用于测试熔断机制
-     * 始终返回500错误
+     * 默认始终返回500错误，错误比例和状态码由故障注入点 error 控制
      */
     @GetMapping("/error")
     public String error() {
-        logger.info("收到 /provider/error 请求，返回异常，当前实例端口：{}", serverPort);
-        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "模拟服务错误，用于测试熔断");
+        logger.info("收到 /provider/error 请求，当前实例端口：{}", serverPort);
+        faultInjector.apply("error");
+        return "注入点 error 未返回错误，实例端口：" + serverPort;
     }
     
+    private String doHeavyTask(String taskId) {
+        // 模拟耗时操作，默认1秒
+        faultInjector.apply("heavy-task");
+        return String.format("任务 %s 已在Service Provider实例（端口：%s）处理完成", taskId, serverPort);
+    }
+
+    private Map<String, Object> toView(HeavyTask task) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("taskId", task.getTaskId());
+        view.put("status", task.getStatus());
+        view.put("result", task.getResult());
+        view.put("submittedAt", task.getSubmittedAt());
+        view.put("startedAt", task.getStartedAt());
+        view.put("finishedAt", task.getFinishedAt());
+        view.put("running", heavyTaskEngine.getRunningCount());
+        view.put("queued", heavyTaskEngine.getQueuedCount());
+        return view;
+    }
+
     /**
      * 用于测试配置动态刷新的端点
      * 返回从配置中心获取的消息
      */
     @GetMapping("/config-message")
     public String getConfigMessage() {
-        logger.info("获取配置消息，当前消息：{}", configMessage);
-        return "配置中心的消息：" + configMessage;
+        String message = configMessage.get();
+        logger.info("获取配置消息，当前消息：{}", message);
+        return "配置中心的消息：" + message;
     }
 }
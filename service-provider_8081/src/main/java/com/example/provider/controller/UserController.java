@@ -1,32 +1,49 @@
 package com.example.provider.controller;
 
+import com.example.common.codec.User;
+import com.example.provider.fault.FaultInjector;
+import com.example.provider.store.UserStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);  // 定义日志
 
-    private final Map<Integer, String> userStore = new ConcurrentHashMap<>();
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final UserStore userStore;
+    private final FaultInjector faultInjector;
+    private final ObjectMapper objectMapper;
+
+    public UserController(UserStore userStore, FaultInjector faultInjector, ObjectMapper objectMapper) {
+        this.userStore = userStore;
+        this.faultInjector = faultInjector;
+        this.objectMapper = objectMapper;
+    }
 
     // 1. 获取用户信息
     @GetMapping("/{id}")
     public ResponseEntity<String> getUser(@PathVariable Integer id) {
-        try {
-            Thread.sleep(3000); // 添加3秒延迟
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        faultInjector.apply("get-user"); // 默认3秒延迟，见 FaultInjectionConfiguration
         logger.info("收到获取用户请求，用户ID: {}", id);  // 日志记录
-        if (userStore.containsKey(id)) {
-            logger.info("用户存在，返回用户信息: {}", userStore.get(id));
-            return ResponseEntity.ok(userStore.get(id));
+        String name = userStore.get(id);
+        if (name != null) {
+            logger.info("用户存在，返回用户信息: {}", name);
+            return ResponseEntity.ok(name);
         } else {
             logger.warn("用户不存在，ID: {}", id);
             return ResponseEntity.status(404).body("用户不存在");
@@ -35,38 +52,162 @@ public class UserController {
 
     // 2. 创建用户
     @PostMapping
-    public ResponseEntity<String> createUser(@RequestBody Map<String, String> user) {
-        Integer id = Integer.parseInt(user.get("id"));
-        String name = user.get("name");
-        logger.info("收到创建用户请求，用户ID: {}, 用户名: {}", id, name);
-        userStore.put(id, name);
-        logger.info("用户创建成功: {}", name);
-        return ResponseEntity.ok("创建成功: " + name);
+    public ResponseEntity<String> createUser(@RequestBody User user) {
+        faultInjector.apply("write-user");
+        logger.info("收到创建用户请求，用户ID: {}, 用户名: {}", user.id(), user.name());
+        userStore.put(user.id(), user.name());
+        logger.info("用户创建成功: {}", user.name());
+        return ResponseEntity.ok("创建成功: " + user.name());
     }
 
-    // 3. 更新用户
+    // 3. 更新用户，以路径中的ID为准，忽略请求体中的id
     @PutMapping("/{id}")
-    public ResponseEntity<String> updateUser(@PathVariable Integer id, @RequestBody Map<String, String> user) {
-        logger.info("收到更新用户请求，用户ID: {}, 新用户名: {}", id, user.get("name"));
-        if (!userStore.containsKey(id)) {
+    public ResponseEntity<String> updateUser(@PathVariable Integer id, @RequestBody User user) {
+        faultInjector.apply("write-user");
+        logger.info("收到更新用户请求，用户ID: {}, 新用户名: {}", id, user.name());
+        if (!userStore.contains(id)) {
             logger.warn("更新失败，用户ID: {} 不存在", id);
             return ResponseEntity.status(404).body("用户不存在");
         }
-        userStore.put(id, user.get("name"));
-        logger.info("用户更新成功: {}", user.get("name"));
-        return ResponseEntity.ok("更新成功: " + user.get("name"));
+        userStore.put(id, user.name());
+        logger.info("用户更新成功: {}", user.name());
+        return ResponseEntity.ok("更新成功: " + user.name());
     }
 
     // 4. 删除用户
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteUser(@PathVariable Integer id) {
+        faultInjector.apply("write-user");
         logger.info("收到删除用户请求，用户ID: {}", id);
-        if (!userStore.containsKey(id)) {
+        if (userStore.remove(id) == null) {
             logger.warn("删除失败，用户ID: {} 不存在", id);
             return ResponseEntity.status(404).body("用户不存在");
         }
-        userStore.remove(id);
         logger.info("用户删除成功，ID: {}", id);
         return ResponseEntity.ok("删除成功");
     }
+
+    // 5. 批量获取用户信息，只返回存在的用户；整批只承担一次模拟延迟
+    @GetMapping("/batch")
+    public ResponseEntity<Map<Integer, String>> getUsers(@RequestParam("ids") List<Integer> ids) {
+        faultInjector.apply("get-users"); // 默认与单个查询相同的3秒延迟
+        logger.info("收到批量获取用户请求，数量: {}", ids.size());
+        Map<Integer, String> result = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            String name = userStore.get(id);
+            if (name != null) {
+                result.put(id, name);
+            }
+        }
+        logger.info("批量获取完成，命中: {}/{}", result.size(), ids.size());
+        return ResponseEntity.ok(result);
+    }
+
+    // 6. 批量创建用户
+    @PostMapping("/batch")
+    public ResponseEntity<String> createUsers(@RequestBody List<User> users) {
+        faultInjector.apply("write-user");
+        logger.info("收到批量创建用户请求，数量: {}", users.size());
+        for (User user : users) {
+            userStore.put(user.id(), user.name());
+        }
+        logger.info("批量创建成功，数量: {}", users.size());
+        return ResponseEntity.ok("批量创建成功: " + users.size());
+    }
+
+    // 7. 批量更新用户，不存在的用户会被跳过
+    @PutMapping("/batch")
+    public ResponseEntity<String> updateUsers(@RequestBody List<User> users) {
+        faultInjector.apply("write-user");
+        logger.info("收到批量更新用户请求，数量: {}", users.size());
+        int updated = 0;
+        for (User user : users) {
+            if (userStore.contains(user.id())) {
+                userStore.put(user.id(), user.name());
+                updated++;
+            }
+        }
+        logger.info("批量更新完成，成功: {}，不存在: {}", updated, users.size() - updated);
+        return ResponseEntity.ok("批量更新成功: " + updated + ", 不存在: " + (users.size() - updated));
+    }
+
+    // 8. 批量删除用户，不存在的用户会被跳过
+    @DeleteMapping("/batch")
+    public ResponseEntity<String> deleteUsers(@RequestParam("ids") List<Integer> ids) {
+        faultInjector.apply("write-user");
+        logger.info("收到批量删除用户请求，数量: {}", ids.size());
+        int deleted = 0;
+        for (Integer id : ids) {
+            if (userStore.remove(id) != null) {
+                deleted++;
+            }
+        }
+        logger.info("批量删除完成，成功: {}，不存在: {}", deleted, ids.size() - deleted);
+        return ResponseEntity.ok("批量删除成功: " + deleted + ", 不存在: " + (ids.size() - deleted));
+    }
+
+    // 9. 分页列出用户，顺序固定但与ID无关；nextCursor为空表示已经到最后一页
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listUsers(@RequestParam(value = "cursor", defaultValue = "0") long cursor,
+                                                         @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        faultInjector.apply("list-users");
+        if (cursor < 0 || cursor > UserStore.MAX_SCAN_KEY || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "cursor应在0到" + UserStore.MAX_SCAN_KEY
+                    + "之间，limit应在1到" + MAX_PAGE_SIZE + "之间"));
+        }
+        List<User> users = new ArrayList<>(limit);
+        long next = userStore.scan(cursor, limit, (id, name) -> users.add(new User(id, name)));
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("users", users);
+        page.put("nextCursor", next >= 0 ? next : null);
+        logger.info("分页列出用户，游标: {}，返回: {}", cursor, users.size());
+        return ResponseEntity.ok(page);
+    }
+
+    // 10. 以NDJSON流式列出全部用户，每行一个 {"id":..,"name":..}
+    // 按页遍历存储，每页写完刷新一次，内存占用与用户总数无关；在请求线程上直接写响应，不受异步请求超时限制
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public void streamUsers(@RequestParam(value = "cursor", defaultValue = "0") long cursor,
+                            HttpServletResponse response) throws IOException {
+        faultInjector.apply("list-users");
+        if (cursor < 0 || cursor > UserStore.MAX_SCAN_KEY) {
+            response.sendError(400, "cursor应在0到" + UserStore.MAX_SCAN_KEY + "之间");
+            return;
+        }
+        logger.info("开始流式列出用户，游标: {}", cursor);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        long startNanos = System.nanoTime();
+        long[] written = new long[1];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            IOException[] failure = new IOException[1];
+            while (cursor >= 0) {
+                cursor = userStore.scan(cursor, STREAM_PAGE_SIZE, (id, name) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        generator.writeStartObject();
+                        generator.writeNumberField("id", id);
+                        generator.writeStringField("name", name);
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                        written[0]++;
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                generator.flush();
+            }
+        } catch (IOException e) {
+            // 消费者断开连接，后续页不再读取
+            logger.warn("流式列出用户中断，已写出: {}，原因: {}", written[0], e.getMessage());
+            return;
+        }
+        logger.info("流式列出用户完成，数量: {}，耗时: {}ms", written[0], (System.nanoTime() - startNanos) / 1_000_000);
+    }
 }
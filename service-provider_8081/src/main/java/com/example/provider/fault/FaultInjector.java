@@ -0,0 +1,239 @@
+package com.example.provider.fault;
+
+import com.example.common.refresh.RefreshableValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 故障注入
+ * 控制器在各注入点调用 {@link #apply(String)}，按该点的规则依次：等待停顿结束、注入延迟、按比例抛出错误。
+ * 没有规则的注入点直接返回。规则的来源按优先级：
+ * <ol>
+ *     <li>通过 /actuator/fault/{point} 设置的覆盖，只作用于当前实例，重启后失效</li>
+ *     <li>配置中心 provider.fault.instances.&lt;实例ID&gt; 下的规则</li>
+ *     <li>配置中心 provider.fault.points 下的规则，所有实例共用</li>
+ * </ol>
+ * 配置刷新后下一次调用即按新规则执行。默认规则与原来写死的行为一致：获取用户3秒、繁重任务1秒、/provider/error 总是500。
+ * <p>
+ * 注入的延迟用 Thread.sleep 实现，虚拟线程模式下不占用载体线程。每次注入按注入点和类型计数（provider.fault.injected），
+ * 便于和消费者侧的熔断、隔离指标对照。
+ */
+@Endpoint(id = "fault")
+public class FaultInjector {
+
+    private static final Logger log = LoggerFactory.getLogger(FaultInjector.class);
+
+    /**
+     * 编译后的规则
+     *
+     * @param source 规则来源：override、instance 或 default
+     */
+    private record ActiveRule(FaultRule rule, LatencyDistribution latency, String source) {
+    }
+
+    private record Compiled(FaultProperties properties, Map<String, FaultRule> overrides,
+                            Map<String, ActiveRule> rules) {
+    }
+
+    private record CounterKey(String point, String type) {
+    }
+
+    private final RefreshableValue<FaultProperties> properties;
+    private final String instanceId;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+    private volatile Map<String, FaultRule> overrides = Map.of();
+    private volatile Compiled compiled;
+
+    public FaultInjector(RefreshableValue<FaultProperties> properties, String instanceId, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.instanceId = instanceId;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 在注入点执行规则
+     *
+     * @throws ResponseStatusException 按错误比例注入的错误
+     */
+    public void apply(String point) {
+        ActiveRule active = rules().get(point);
+        if (active == null) {
+            return;
+        }
+        FaultRule rule = active.rule();
+        try {
+            long stallMillis = stallRemainingMillis(rule);
+            if (stallMillis > 0) {
+                count(point, "stall");
+                Thread.sleep(stallMillis);
+            }
+            double latencyMillis = active.latency().sampleMillis(ThreadLocalRandom.current());
+            if (latencyMillis > 0) {
+                count(point, "latency");
+                long nanos = (long) (latencyMillis * 1_000_000);
+                Thread.sleep(Duration.ofNanos(nanos));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (rule.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < rule.errorRate()) {
+            count(point, "error");
+            throw new ResponseStatusException(HttpStatus.valueOf(rule.errorStatus()), "注入的故障: " + point);
+        }
+    }
+
+    /**
+     * 当前实例各注入点生效的规则
+     */
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> points = new TreeMap<>();
+        rules().forEach((point, active) -> {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("source", active.source());
+            view.put("latency", active.rule().latency());
+            view.put("errorRate", active.rule().errorRate());
+            view.put("errorStatus", active.rule().errorStatus());
+            view.put("stallEvery", active.rule().stallEvery());
+            view.put("stallFor", active.rule().stallFor());
+            points.put(point, view);
+        });
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("instanceId", instanceId);
+        report.put("points", points);
+        return report;
+    }
+
+    /**
+     * 在当前实例上覆盖一个注入点的规则，未给出的参数取默认值（无延迟、无错误、不停顿）。
+     * 示例：curl -X POST localhost:8081/actuator/fault/get-user -H 'Content-Type: application/json'
+     * -d '{"latency":"lognormal:median=200,sigma=1","errorRate":0.05}'
+     */
+    @WriteOperation
+    public Map<String, Object> override(@Selector String point, @Nullable String latency, @Nullable Double errorRate,
+                                        @Nullable Integer errorStatus, @Nullable Duration stallEvery,
+                                        @Nullable Duration stallFor) {
+        FaultRule rule = new FaultRule(latency != null ? latency : "none", errorRate != null ? errorRate : 0,
+                errorStatus != null ? errorStatus : 500, stallEvery, stallFor);
+        try {
+            compile(rule);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        Map<String, FaultRule> updated = new HashMap<>(overrides);
+        updated.put(point, rule);
+        overrides = Map.copyOf(updated);
+        log.info("故障注入点 {} 在本实例上被覆盖: {}", point, rule);
+        return report();
+    }
+
+    /**
+     * 删除一个注入点的覆盖，恢复配置中心的规则
+     */
+    @DeleteOperation
+    public Map<String, Object> clear(@Selector String point) {
+        Map<String, FaultRule> updated = new HashMap<>(overrides);
+        if (updated.remove(point) != null) {
+            overrides = Map.copyOf(updated);
+            log.info("故障注入点 {} 的覆盖已删除", point);
+        }
+        return report();
+    }
+
+    /**
+     * 删除所有覆盖
+     */
+    @DeleteOperation
+    public Map<String, Object> clearAll() {
+        overrides = Map.of();
+        log.info("故障注入的覆盖已全部删除");
+        return report();
+    }
+
+    private Map<String, ActiveRule> rules() {
+        FaultProperties current = properties.get();
+        Map<String, FaultRule> currentOverrides = overrides;
+        Compiled snapshot = compiled;
+        if (snapshot == null || snapshot.properties() != current || snapshot.overrides() != currentOverrides) {
+            snapshot = new Compiled(current, currentOverrides, compileAll(current, currentOverrides));
+            compiled = snapshot;
+        }
+        return snapshot.rules();
+    }
+
+    private Map<String, ActiveRule> compileAll(FaultProperties properties, Map<String, FaultRule> overrides) {
+        Map<String, ActiveRule> rules = new HashMap<>();
+        putAll(rules, properties.points(), "default");
+        putAll(rules, properties.instances().getOrDefault(instanceId, Map.of()), "instance");
+        putAll(rules, overrides, "override");
+        return Map.copyOf(rules);
+    }
+
+    private static void putAll(Map<String, ActiveRule> rules, Map<String, FaultRule> source, String name) {
+        source.forEach((point, rule) -> {
+            try {
+                rules.put(point, new ActiveRule(rule, compile(rule), name));
+            } catch (IllegalArgumentException e) {
+                // 配置中心下发了错误的规则时只跳过这一条，不影响请求
+                log.error("故障注入点 {} 的规则无效，忽略: {}", point, e.getMessage());
+            }
+        });
+    }
+
+    private static LatencyDistribution compile(FaultRule rule) {
+        if (rule.errorRate() < 0 || rule.errorRate() > 1) {
+            throw new IllegalArgumentException("errorRate 应在0到1之间: " + rule.errorRate());
+        }
+        if (HttpStatus.resolve(rule.errorStatus()) == null) {
+            throw new IllegalArgumentException("errorStatus 不是有效的HTTP状态码: " + rule.errorStatus());
+        }
+        if ((rule.stallEvery() == null) != (rule.stallFor() == null)
+                || (rule.stallEvery() != null && rule.stallEvery().toMillis() <= 0)) {
+            throw new IllegalArgumentException("stallEvery 和 stallFor 需要同时设置，且周期至少1ms");
+        }
+        return LatencyDistribution.parse(rule.latency());
+    }
+
+    /**
+     * 按挂钟时间对齐周期，当前处于停顿区间内时返回剩余的停顿时长
+     */
+    private static long stallRemainingMillis(FaultRule rule) {
+        if (rule.stallEvery() == null) {
+            return 0;
+        }
+        long phase = System.currentTimeMillis() % rule.stallEvery().toMillis();
+        long stall = rule.stallFor().toMillis();
+        return phase < stall ? stall - phase : 0;
+    }
+
+    private void count(String point, String type) {
+        counters.computeIfAbsent(new CounterKey(point, type), key -> Counter.builder("provider.fault.injected")
+                .tag("point", key.point())
+                .tag("type", key.type())
+                .description("故障注入次数，按注入点和类型（stall、latency、error）区分")
+                .register(meterRegistry))
+                .increment();
+    }
+}
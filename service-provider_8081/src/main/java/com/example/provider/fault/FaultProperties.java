@@ -0,0 +1,18 @@
+package com.example.provider.fault;
+
+import java.util.Map;
+
+/**
+ * 故障注入配置（provider.fault）
+ *
+ * @param points 各注入点的规则，所有实例共用
+ * @param instances 按实例ID（eureka.instance.instance-id）覆盖的规则，用于在多个实例中只让一个变慢；
+ *                  某个注入点在这里有规则时整体取代 points 中的同名规则
+ */
+public record FaultProperties(Map<String, FaultRule> points, Map<String, Map<String, FaultRule>> instances) {
+
+    public FaultProperties {
+        points = points != null ? Map.copyOf(points) : Map.of();
+        instances = instances != null ? Map.copyOf(instances) : Map.of();
+    }
+}
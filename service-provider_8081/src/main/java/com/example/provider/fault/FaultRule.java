@@ -0,0 +1,30 @@
+package com.example.provider.fault;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * 一个注入点的故障规则
+ *
+ * @param latency 延迟分布描述，格式见 LatencyDistribution，默认不注入延迟
+ * @param errorRate 返回错误的比例，0到1
+ * @param errorStatus 注入错误时的HTTP状态码
+ * @param stallEvery 停顿周期，与stallFor一起使用：按挂钟时间对齐，每个周期开头的 stallFor 内到达的请求
+ *                   一直等到停顿结束，模拟GC停顿、磁盘卡顿等整个实例无响应的情况
+ * @param stallFor 每个周期内停顿的时长
+ */
+public record FaultRule(@DefaultValue("none") String latency,
+                        double errorRate,
+                        @DefaultValue("500") int errorStatus,
+                        Duration stallEvery,
+                        Duration stallFor) {
+
+    public static FaultRule latency(String latency) {
+        return new FaultRule(latency, 0, 500, null, null);
+    }
+
+    public static FaultRule errors(double errorRate) {
+        return new FaultRule("none", errorRate, 500, null, null);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.provider.fault;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * 注入延迟的分布，由一行描述解析而来，便于写在配置文件和端点参数中：
+ * <ul>
+ *     <li>none：不注入延迟</li>
+ *     <li>fixed:3000：固定3000ms</li>
+ *     <li>lognormal:median=50,sigma=0.8,max=5000：对数正态分布，中位数50ms，长尾由sigma决定，max可选</li>
+ *     <li>bimodal:fast=20,slow=2000,slow-ratio=0.05：双峰，5%的请求2000ms，其余20ms</li>
+ *     <li>histogram:5=120,10=800,50=950,250=1000：按直方图回放，键为桶上界（ms），值为累计次数，
+ *     可以直接抄 /actuator/prometheus 中 http_server_requests_seconds_bucket 的数据（le换算成ms，不写+Inf桶）；
+ *     桶内按均匀分布取值</li>
+ * </ul>
+ */
+public sealed interface LatencyDistribution {
+
+    LatencyDistribution NONE = new None();
+
+    /**
+     * 取一个样本，单位毫秒
+     */
+    double sampleMillis(RandomGenerator random);
+
+    static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank() || spec.trim().equalsIgnoreCase("none")) {
+            return NONE;
+        }
+        String trimmed = spec.trim();
+        int colon = trimmed.indexOf(':');
+        String type = (colon < 0 ? trimmed : trimmed.substring(0, colon)).toLowerCase(Locale.ROOT);
+        String args = colon < 0 ? "" : trimmed.substring(colon + 1);
+        try {
+            return switch (type) {
+                case "fixed" -> new Fixed(positive(Double.parseDouble(args.trim()), "fixed"));
+                case "lognormal" -> {
+                    Map<String, Double> params = params(args);
+                    yield new LogNormal(positive(require(params, "median"), "median"),
+                            positive(require(params, "sigma"), "sigma"),
+                            params.getOrDefault("max", Double.POSITIVE_INFINITY));
+                }
+                case "bimodal" -> {
+                    Map<String, Double> params = params(args);
+                    double ratio = require(params, "slow-ratio");
+                    if (ratio < 0 || ratio > 1) {
+                        throw new IllegalArgumentException("slow-ratio 应在0到1之间: " + ratio);
+                    }
+                    yield new Bimodal(positive(require(params, "fast"), "fast"),
+                            positive(require(params, "slow"), "slow"), ratio);
+                }
+                case "histogram" -> Histogram.of(params(args));
+                default -> throw new IllegalArgumentException("未知的延迟分布: " + type);
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("延迟分布参数不是数字: " + spec, e);
+        }
+    }
+
+    private static Map<String, Double> params(String args) {
+        Map<String, Double> params = new LinkedHashMap<>();
+        for (String pair : args.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("延迟分布参数应为 键=值: " + pair);
+            }
+            params.put(pair.substring(0, eq).trim().toLowerCase(Locale.ROOT),
+                    Double.parseDouble(pair.substring(eq + 1).trim()));
+        }
+        return params;
+    }
+
+    private static double require(Map<String, Double> params, String name) {
+        Double value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少延迟分布参数: " + name);
+        }
+        return value;
+    }
+
+    private static double positive(double value, String name) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException(name + " 不能为负数: " + value);
+        }
+        return value;
+    }
+
+    record None() implements LatencyDistribution {
+        @Override
+        public double sampleMillis(RandomGenerator random) {
+            return 0;
+        }
+    }
+
+    record Fixed(double millis) implements LatencyDistribution {
+        @Override
+        public double sampleMillis(RandomGenerator random) {
+            return millis;
+        }
+    }
+
+    record LogNormal(double medianMillis, double sigma, double maxMillis) implements LatencyDistribution {
+        @Override
+        public double sampleMillis(RandomGenerator random) {
+            return Math.min(medianMillis * Math.exp(sigma * random.nextGaussian()), maxMillis);
+        }
+    }
+
+    record Bimodal(double fastMillis, double slowMillis, double slowRatio) implements LatencyDistribution {
+        @Override
+        public double sampleMillis(RandomGenerator random) {
+            return random.nextDouble() < slowRatio ? slowMillis : fastMillis;
+        }
+    }
+
+    /**
+     * @param bounds 桶上界，升序
+     * @param cumulative 累计比例，与bounds一一对应，最后一个为1
+     */
+    record Histogram(double[] bounds, double[] cumulative) implements LatencyDistribution {
+
+        static Histogram of(Map<String, Double> buckets) {
+            if (buckets.isEmpty()) {
+                throw new IllegalArgumentException("直方图至少需要一个桶");
+            }
+            double[][] sorted = buckets.entrySet().stream()
+                    .map(e -> new double[]{Double.parseDouble(e.getKey()), e.getValue()})
+                    .sorted((a, b) -> Double.compare(a[0], b[0]))
+                    .toArray(double[][]::new);
+            double total = sorted[sorted.length - 1][1];
+            double[] bounds = new double[sorted.length];
+            double[] cumulative = new double[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                if (sorted[i][0] < 0 || (i > 0 && sorted[i][1] < sorted[i - 1][1])) {
+                    throw new IllegalArgumentException("直方图的桶上界不能为负数，累计次数不能递减");
+                }
+                bounds[i] = sorted[i][0];
+                cumulative[i] = total > 0 ? sorted[i][1] / total : 1;
+            }
+            return new Histogram(bounds, cumulative);
+        }
+
+        @Override
+        public double sampleMillis(RandomGenerator random) {
+            double p = random.nextDouble();
+            int i = Arrays.binarySearch(cumulative, p);
+            i = i >= 0 ? i : -i - 1;
+            // 跳过空桶，p恰好落在累计比例上时取下一个有样本的桶
+            while (i < cumulative.length - 1 && cumulative[i] == (i > 0 ? cumulative[i - 1] : 0)) {
+                i++;
+            }
+            double lower = i > 0 ? bounds[i - 1] : 0;
+            return lower + random.nextDouble() * (bounds[i] - lower);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Histogram h
+                    && Arrays.equals(bounds, h.bounds) && Arrays.equals(cumulative, h.cumulative);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(bounds) + Arrays.hashCode(cumulative);
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram[bounds=" + Arrays.toString(bounds) + ", cumulative=" + Arrays.toString(cumulative) + "]";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.provider.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于ConcurrentHashMap的用户存储
+ * 原有的实现方式，适合小数据量或调试场景
+ */
+public class ConcurrentMapUserStore implements UserStore {
+
+    private final Map<Integer, String> users = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(int id) {
+        return users.get(id);
+    }
+
+    @Override
+    public String put(int id, String name) {
+        return users.put(id, name);
+    }
+
+    @Override
+    public String remove(int id) {
+        return users.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return users.size();
+    }
+
+    @Override
+    public void forEach(UserVisitor visitor) {
+        users.forEach(visitor::visit);
+    }
+
+    @Override
+    public void clear() {
+        users.clear();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.provider.store;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 持久化用户存储
+ * 包装内存存储引擎，写操作在锁内依次修改内存并追加到预写日志，保证日志顺序与修改顺序一致；
+ * 释放锁后再等待日志落盘，并发请求共用一次fsync。内存修改先于落盘，其他请求可能读到尚未确认的写入。
+ * 引擎拒绝的写操作（如用户名为空）不会写入日志；追加日志或等待落盘失败时撤销内存修改。
+ * 日志失败后之后的写操作都会被拒绝，但并发写入同一用户时撤销顺序无法保证、清空也无法撤销，
+ * 内存中可能留下未确认的修改，因此快照会拒绝写入（{@link #checkpointLsn()}、{@link #awaitLogged()}），
+ * 重启后按已落盘的快照和日志恢复。
+ * <p>
+ * 启动时由 UserStoreSnapshotter 加载快照后调用 {@link #recover(long, long)} 回放快照之后的日志，
+ * 写快照时通过 {@link #checkpointLsn()} 取得快照对应的LSN，快照落盘后 {@link #truncate(long)} 删除旧日志。
+ * 读操作直接访问内存存储。
+ */
+public class DurableUserStore implements UserStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DurableUserStore.class);
+
+    private final UserStore delegate;
+    private final WriteAheadLog wal;
+    // 不用synchronized：虚拟线程模式下竞争监视器会钉住载体线程
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long recoveryNanos;
+
+    public DurableUserStore(UserStore delegate, WriteAheadLog wal, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.wal = wal;
+        Gauge.builder("user.store.recovery.seconds", this, store -> store.recoveryNanos / 1e9)
+                .description("启动时恢复用户数据（加载快照和回放日志）的总耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 实际保存数据的内存存储，加载快照时直接写入，不经过日志
+     */
+    public UserStore delegate() {
+        return delegate;
+    }
+
+    /**
+     * 回放LSN大于 snapshotLsn 的日志并打开日志接受写入
+     *
+     * @param recoveryStartNanos 开始加载快照的时间，用于统计整个恢复过程的耗时
+     */
+    public void recover(long snapshotLsn, long recoveryStartNanos) {
+        long replayed = wal.replay(snapshotLsn, new WriteAheadLog.RecordVisitor() {
+            @Override
+            public void put(int id, String name) {
+                delegate.put(id, name);
+            }
+
+            @Override
+            public void remove(int id) {
+                delegate.remove(id);
+            }
+
+            @Override
+            public void clear() {
+                delegate.clear();
+            }
+        });
+        wal.open();
+        recoveryNanos = System.nanoTime() - recoveryStartNanos;
+        logger.info("用户数据恢复完成，快照LSN: {}，回放日志记录: {}，用户数: {}，总耗时: {}ms",
+                snapshotLsn, replayed, delegate.size(), TimeUnit.NANOSECONDS.toMillis(recoveryNanos));
+    }
+
+    /**
+     * 快照开始前调用：返回的LSN及之前的记录都已经修改到内存中，且此刻内存中没有未写日志的修改
+     */
+    public long checkpointLsn() {
+        if (wal.failed()) {
+            throw new IllegalStateException("预写日志写入失败，内存中可能有未落盘的修改，停止写快照");
+        }
+        writeLock.lock();
+        try {
+            return wal.lastLsn();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 快照遍历完内存之后、替换快照文件之前调用：等待遍历期间可能看到的修改全部落盘，
+     * 日志已经失败时抛出异常，未确认的修改不会经由快照持久化
+     */
+    public void awaitLogged() {
+        long lsn;
+        writeLock.lock();
+        try {
+            lsn = wal.lastLsn();
+        } finally {
+            writeLock.unlock();
+        }
+        wal.await(lsn);
+    }
+
+    /**
+     * 快照已落盘，删除已包含在快照中的日志
+     */
+    public void truncate(long snapshotLsn) {
+        wal.truncate(snapshotLsn);
+    }
+
+    @Override
+    public String get(int id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return delegate.contains(id);
+    }
+
+    @Override
+    public String put(int id, String name) {
+        String previous;
+        long lsn;
+        writeLock.lock();
+        try {
+            previous = delegate.put(id, name);
+            try {
+                lsn = wal.appendPut(id, name);
+            } catch (RuntimeException e) {
+                undo(id, previous);
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            wal.await(lsn);
+        } catch (RuntimeException e) {
+            revert(id, name, previous);
+            throw e;
+        }
+        return previous;
+    }
+
+    @Override
+    public String remove(int id) {
+        String previous;
+        long lsn;
+        writeLock.lock();
+        try {
+            previous = delegate.remove(id);
+            if (previous == null) {
+                return null;
+            }
+            try {
+                lsn = wal.appendRemove(id);
+            } catch (RuntimeException e) {
+                undo(id, previous);
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            wal.await(lsn);
+        } catch (RuntimeException e) {
+            revert(id, null, previous);
+            throw e;
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEach(UserVisitor visitor) {
+        delegate.forEach(visitor);
+    }
+
+    @Override
+    public long scan(long cursor, int limit, UserVisitor visitor) {
+        return delegate.scan(cursor, limit, visitor);
+    }
+
+    @Override
+    public void clear() {
+        long lsn;
+        writeLock.lock();
+        try {
+            lsn = wal.appendClear();
+            delegate.clear();
+        } finally {
+            writeLock.unlock();
+        }
+        wal.await(lsn);
+    }
+
+    /**
+     * 关闭日志，之后的写操作会失败；应在最后一次快照之后关闭
+     */
+    @Override
+    public void close() {
+        wal.close();
+    }
+
+    /**
+     * 落盘失败后撤销自己的修改；已经被其他写操作覆盖时保留当前值
+     */
+    private void revert(int id, String written, String previous) {
+        writeLock.lock();
+        try {
+            if (Objects.equals(delegate.get(id), written)) {
+                undo(id, previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void undo(int id, String previous) {
+        if (previous != null) {
+            delegate.put(id, previous);
+        } else {
+            delegate.remove(id);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.provider.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 堆外用户存储
+ * 使用int主键的开放寻址哈希表（线性探测 + 删除时后移），用户名以UTF-8编码追加写入堆外内存分段中。
+ * 哈希表本身只有int[]和long[]两个基本类型数组，GC无需扫描其中的引用，
+ * 因此停顿时间不会随用户数量增长；用户名占用的堆外内存通过 -XX:MaxDirectMemorySize 控制。
+ * 读操作优先使用StampedLock乐观读，失败后退化为读锁。
+ */
+public class OffHeapUserStore implements UserStore {
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int FOR_EACH_PAGE = 4096;
+
+    private final StampedLock lock = new StampedLock();
+    private final int segmentSize;
+
+    private int[] keys;
+    private long[] refs;  // 高32位为分段下标，低32位为分段内偏移；EMPTY表示空槽
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    private int writeOffset;
+    private long liveBytes;
+    private long allocatedBytes;
+
+    /**
+     * @param expectedUsers 预估用户数，用于预分配哈希表，避免频繁扩容
+     * @param segmentSize 每个堆外分段的字节数，单个用户名不能超过该大小
+     */
+    public OffHeapUserStore(int expectedUsers, int segmentSize) {
+        if (segmentSize <= LENGTH_BYTES) {
+            throw new IllegalArgumentException("segmentSize过小: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        initTable(tableSizeFor(expectedUsers));
+    }
+
+    @Override
+    public String get(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                String name = read(id);
+                if (lock.validate(stamp)) {
+                    return name;
+                }
+            } catch (RuntimeException e) {
+                // 乐观读期间表被并发修改，读到了不一致的数据，加读锁重试
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public String put(int id, String name) {
+        if (name == null) {
+            throw new NullPointerException("用户名不能为空");
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + LENGTH_BYTES > segmentSize) {
+            throw new IllegalArgumentException("用户名过长: " + bytes.length + " 字节");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(keys, refs, mask, id);
+            String previous = null;
+            if (slot >= 0) {
+                previous = readName(segments, refs[slot]);
+                liveBytes -= recordSize(segments, refs[slot]);
+            } else {
+                slot = -slot - 1;
+                keys[slot] = id;
+                size++;
+            }
+            refs[slot] = append(bytes);
+            if (size > resizeThreshold) {
+                resize();
+            }
+            compactIfNeeded();
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public String remove(int id) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(keys, refs, mask, id);
+            if (slot < 0) {
+                return null;
+            }
+            String previous = readName(segments, refs[slot]);
+            liveBytes -= recordSize(segments, refs[slot]);
+            deleteSlot(slot);
+            size--;
+            compactIfNeeded();
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 按 {@link #scan} 分批遍历：每批在读锁内复制数据，释放锁后再交给visitor，visitor较慢（如写快照文件）时不会阻塞写操作。
+     * 遍历期间一直存在的用户恰好访问一次，期间新增或删除的用户可能访问也可能不访问。
+     */
+    @Override
+    public void forEach(UserVisitor visitor) {
+        long cursor = 0;
+        do {
+            cursor = scan(cursor, FOR_EACH_PAGE, visitor);
+        } while (cursor >= 0);
+    }
+
+    /**
+     * 排序键的高位就是槽位下标按位反转，因此按反转后的下标依次访问归属槽位，每页只访问游标之后的少量槽位。
+     * 在读锁内收集一页数据，释放锁后再交给visitor，写出响应较慢时不会阻塞写操作。
+     */
+    @Override
+    public long scan(long cursor, int limit, UserVisitor visitor) {
+        if (cursor < 0 || cursor > MAX_SCAN_KEY || limit <= 0) {
+            throw new IllegalArgumentException("非法的游标或页大小: " + cursor + ", " + limit);
+        }
+        int[] ids = new int[limit];
+        String[] names = new String[limit];
+        int count = 0;
+        long next = -1;
+        long stamp = lock.readLock();
+        try {
+            int bits = Integer.numberOfTrailingZeros(keys.length);
+            long[] group = new long[8];
+            for (int r = (int) (cursor >>> (Integer.SIZE - bits)); r <= mask && count < limit; r++) {
+                int home = Integer.reverse(r) >>> (Integer.SIZE - bits);
+                // 线性探测下归属同一槽位的元素都在从该槽位开始的连续非空区间内
+                int groupSize = 0;
+                for (int j = home; refs[j] != EMPTY; j = (j + 1) & mask) {
+                    long key = UserStore.scanKey(keys[j]);
+                    if ((hash(keys[j]) & mask) == home && key >= cursor) {
+                        if (groupSize == group.length) {
+                            group = Arrays.copyOf(group, groupSize << 1);
+                        }
+                        group[groupSize++] = key << 32 | j;
+                    }
+                }
+                // 同一槽位的元素通常只有一两个，插入排序即可；键占高32位，按无符号比较
+                for (int i = 1; i < groupSize; i++) {
+                    long entry = group[i];
+                    int k = i - 1;
+                    for (; k >= 0 && Long.compareUnsigned(group[k], entry) > 0; k--) {
+                        group[k + 1] = group[k];
+                    }
+                    group[k + 1] = entry;
+                }
+                for (int i = 0; i < groupSize && count < limit; i++) {
+                    int slot = (int) group[i];
+                    ids[count] = keys[slot];
+                    names[count] = readName(segments, refs[slot]);
+                    count++;
+                    next = (group[i] >>> 32) + 1;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (int i = 0; i < count; i++) {
+            visitor.visit(ids[i], names[i]);
+        }
+        return count < limit || next > MAX_SCAN_KEY ? -1 : next;
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            initTable(keys.length);
+            size = 0;
+            segments = new ByteBuffer[0];
+            writeOffset = 0;
+            liveBytes = 0;
+            allocatedBytes = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 当前已申请的堆外内存字节数
+     */
+    public long offHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) segments.length * segmentSize;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private String read(int id) {
+        int[] k = keys;
+        long[] r = refs;
+        ByteBuffer[] s = segments;
+        int slot = findSlot(k, r, mask, id);
+        return slot >= 0 ? readName(s, r[slot]) : null;
+    }
+
+    /**
+     * 查找ID所在槽位；不存在时返回 -(可插入的空槽下标 + 1)
+     */
+    private static int findSlot(int[] k, long[] r, int m, int id) {
+        int i = hash(id) & m;
+        for (int probes = 0; probes <= m; probes++) {
+            if (r[i] == EMPTY) {
+                return -i - 1;
+            }
+            if (k[i] == id) {
+                return i;
+            }
+            i = (i + 1) & m;
+        }
+        throw new IllegalStateException("哈希表已满");
+    }
+
+    /**
+     * 线性探测的后移删除：把后续探测链上的元素前移填补空洞，避免使用墓碑标记
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int j = slot;
+        while (true) {
+            j = (j + 1) & mask;
+            if (refs[j] == EMPTY) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            boolean homeInRange = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!homeInRange) {
+                keys[hole] = keys[j];
+                refs[hole] = refs[j];
+                hole = j;
+            }
+        }
+        refs[hole] = EMPTY;
+    }
+
+    private void resize() {
+        if (keys.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("用户数量超过存储上限");
+        }
+        int[] oldKeys = keys;
+        long[] oldRefs = refs;
+        initTable(keys.length << 1);
+        for (int i = 0; i < oldRefs.length; i++) {
+            if (oldRefs[i] != EMPTY) {
+                int slot = -findSlot(keys, refs, mask, oldKeys[i]) - 1;
+                keys[slot] = oldKeys[i];
+                refs[slot] = oldRefs[i];
+            }
+        }
+    }
+
+    private void initTable(int capacity) {
+        keys = new int[capacity];
+        long[] newRefs = new long[capacity];
+        Arrays.fill(newRefs, EMPTY);
+        refs = newRefs;
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private long append(byte[] bytes) {
+        int record = LENGTH_BYTES + bytes.length;
+        if (segments.length == 0 || writeOffset + record > segmentSize) {
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = ByteBuffer.allocateDirect(segmentSize);
+            writeOffset = 0;
+        }
+        int segmentIndex = segments.length - 1;
+        ByteBuffer segment = segments[segmentIndex];
+        segment.putInt(writeOffset, bytes.length);
+        segment.put(writeOffset + LENGTH_BYTES, bytes);
+        long ref = ((long) segmentIndex << 32) | writeOffset;
+        writeOffset += record;
+        liveBytes += record;
+        allocatedBytes += record;
+        return ref;
+    }
+
+    /**
+     * 更新和删除会在分段中留下废弃记录，废弃空间超过存活数据时整体搬迁一次
+     */
+    private void compactIfNeeded() {
+        long garbage = allocatedBytes - liveBytes;
+        if (garbage < segmentSize || garbage < liveBytes) {
+            return;
+        }
+        ByteBuffer[] oldSegments = segments;
+        segments = new ByteBuffer[0];
+        writeOffset = 0;
+        liveBytes = 0;
+        allocatedBytes = 0;
+        for (int i = 0; i < refs.length; i++) {
+            if (refs[i] != EMPTY) {
+                refs[i] = append(readBytes(oldSegments, refs[i]));
+            }
+        }
+    }
+
+    private int recordSize(ByteBuffer[] s, long ref) {
+        return LENGTH_BYTES + s[(int) (ref >>> 32)].getInt((int) ref);
+    }
+
+    private String readName(ByteBuffer[] s, long ref) {
+        return new String(readBytes(s, ref), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(ByteBuffer[] s, long ref) {
+        ByteBuffer segment = s[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        int length = segment.getInt(offset);
+        if (length < 0 || length > segmentSize - LENGTH_BYTES) {
+            throw new IllegalStateException("非法的记录长度: " + length);
+        }
+        byte[] bytes = new byte[length];
+        segment.get(offset + LENGTH_BYTES, bytes);
+        return bytes;
+    }
+
+    private static int tableSizeFor(int expectedUsers) {
+        long needed = (long) Math.ceil(Math.max(expectedUsers, 16) / (double) LOAD_FACTOR);
+        int capacity = Integer.highestOneBit((int) Math.min(needed, MAX_CAPACITY));
+        return capacity < needed ? Math.min(capacity << 1, MAX_CAPACITY) : capacity;
+    }
+
+    /**
+     * 打散连续ID，减少线性探测的聚集：即 murmur3 的 fmix32，由排序键反转回来，保证槽位与 {@link #scan} 的顺序一致
+     */
+    private static int hash(int id) {
+        return Integer.reverse((int) UserStore.scanKey(id));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.provider.store;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * 用户存储引擎接口
+ * 以int类型的用户ID为键，用户名为值，供UserController使用
+ */
+public interface UserStore {
+
+    /**
+     * 查询用户名，不存在时返回null
+     */
+    String get(int id);
+
+    /**
+     * 判断用户是否存在
+     */
+    default boolean contains(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * 写入用户，返回旧的用户名（不存在时返回null）
+     */
+    String put(int id, String name);
+
+    /**
+     * 删除用户，返回被删除的用户名（不存在时返回null）
+     */
+    String remove(int id);
+
+    /**
+     * 当前用户数量
+     */
+    int size();
+
+    /**
+     * 遍历所有用户，遍历期间不保证能看到并发写入
+     */
+    void forEach(UserVisitor visitor);
+
+    /**
+     * 清空所有用户
+     */
+    void clear();
+
+    /**
+     * 按游标分页遍历：按排序键升序返回键不小于 cursor 的至多 limit 个用户，返回下一页的游标，遍历完时返回 -1。
+     * 第一页的游标为0。排序键是用户ID打散后的固定排列（{@link #scanKey(int)}），与存储内部布局和扩容无关，
+     * 因此分页之间的写入不会造成遗漏或重复：整个遍历期间一直存在的用户恰好返回一次，期间新增或删除的用户可能返回也可能不返回。
+     * <p>
+     * 默认实现每页遍历一次全部用户，只适合小数据量；OffHeapUserStore 只访问游标附近的槽位。
+     */
+    default long scan(long cursor, int limit, UserVisitor visitor) {
+        if (cursor < 0 || limit <= 0) {
+            throw new IllegalArgumentException("非法的游标或页大小: " + cursor + ", " + limit);
+        }
+        // 保留排序键最小的limit个用户：大顶堆，堆顶是当前保留的最大键
+        PriorityQueue<long[]> page = new PriorityQueue<>(limit + 1,
+                (a, b) -> Long.compare(b[0], a[0]));
+        forEach((id, name) -> {
+            long key = scanKey(id);
+            if (key >= cursor && (page.size() < limit || key < page.peek()[0])) {
+                page.add(new long[]{key, id});
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        });
+        long[][] sorted = page.toArray(long[][]::new);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a[0], b[0]));
+        long next = -1;
+        for (long[] entry : sorted) {
+            String name = get((int) entry[1]);
+            if (name != null) {
+                visitor.visit((int) entry[1], name);
+            }
+            next = entry[0] + 1;
+        }
+        return sorted.length < limit || next > MAX_SCAN_KEY ? -1 : next;
+    }
+
+    /**
+     * 排序键的最大值
+     */
+    long MAX_SCAN_KEY = 0xFFFFFFFFL;
+
+    /**
+     * 分页遍历的排序键：ID经murmur3的fmix32打散（一一映射）后按位反转，取值 0 ~ MAX_SCAN_KEY。
+     * 位反转后的高位就是哈希的低位，开放寻址表按低位定位槽位，所以同一个槽位的用户在排序上相邻，表扩容后顺序也不变。
+     */
+    static long scanKey(int id) {
+        return Integer.toUnsignedLong(Integer.reverse(hash(id)));
+    }
+
+    /**
+     * murmur3的fmix32，打散连续ID
+     */
+    private static int hash(int id) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 用户遍历回调，避免对ID装箱
+     */
+    @FunctionalInterface
+    interface UserVisitor {
+        void visit(int id, String name);
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.provider.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 用户存储快照
+ * 定期把用户数据顺序写入快照文件，启动时以内存映射方式读取快照恢复数据，重启后无需通过HTTP重新灌数据。
+ * 快照先写入临时文件再原子替换，写到一半宕机不会破坏上一份快照。
+ * 存储为 DurableUserStore 时，快照记录开始遍历前的日志LSN：恢复时回放该LSN之后的日志，快照落盘后删除之前的日志。
+ * 遍历期间的并发写入可能部分出现在快照中，回放时会再执行一次，结果不变。
+ * 遍历由存储引擎分批在锁内复制数据（见 OffHeapUserStore#forEach），文件写入不占用存储的锁，写快照期间不阻塞写操作。
+ *
+ * 加载失败（文件损坏、格式不匹配）时把快照文件改名为 *.时间戳.corrupt 保留下来再以空数据启动，
+ * 之后的定时快照不会覆盖唯一的一份数据；改名失败时启动失败。
+ *
+ * 文件格式：magic(4) | version(4) | count(8) | crc32(8) | lsn(8) | 记录...
+ * 每条记录：id(4) | 名称长度(4) | UTF-8名称
+ * 校验和覆盖每条记录的id（大端4字节）和名称。
+ */
+public class UserStoreSnapshotter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStoreSnapshotter.class);
+
+    private static final int MAGIC = 0x55535253;  // "USRS"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 32;
+    private static final int WINDOW_BYTES = 64 * 1024 * 1024;
+    /**
+     * 单个用户名的上限，超出说明长度字段已损坏，避免按它分配内存
+     */
+    private static final int MAX_NAME_BYTES = WINDOW_BYTES;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int WRITE_BUFFER_BYTES = 1024 * 1024;
+
+    private final UserStore store;
+    private final DurableUserStore durable;
+    private final Path path;
+    private final long intervalSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    public UserStoreSnapshotter(UserStore store, Path path, long intervalSeconds) {
+        this.store = store;
+        this.durable = store instanceof DurableUserStore durableStore ? durableStore : null;
+        this.path = path;
+        this.intervalSeconds = intervalSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-store-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 从快照恢复数据（存储带预写日志时再回放快照之后的日志）并开始定期写快照
+     */
+    public void start() {
+        long begin = System.nanoTime();
+        long snapshotLsn = 0;
+        if (Files.exists(path)) {
+            long[] loaded = load();
+            snapshotLsn = loaded[1];
+            logger.info("从快照恢复用户数据完成，用户数: {}，耗时: {}ms，文件: {}",
+                    loaded[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin), path);
+        } else {
+            logger.info("快照文件不存在，以空数据启动: {}", path);
+        }
+        if (durable != null) {
+            durable.recover(snapshotLsn, begin);
+        }
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 停止定时任务，并在退出前写最后一次快照
+     */
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotQuietly();
+    }
+
+    /**
+     * 立即写一份快照，返回写入的用户数
+     */
+    public synchronized long snapshot() {
+        long begin = System.nanoTime();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long lsn = durable != null ? durable.checkpointLsn() : 0;
+        long count;
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ChannelWriter writer = new ChannelWriter(channel, HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                ByteBuffer idBytes = ByteBuffer.allocate(Integer.BYTES);
+                long[] written = new long[1];
+                store.forEach((id, name) -> {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    writer.putInt(id);
+                    writer.putInt(bytes.length);
+                    writer.put(bytes);
+                    crc.update(idBytes.clear().putInt(id).flip());
+                    crc.update(bytes);
+                    written[0]++;
+                });
+                count = written[0];
+                if (durable != null) {
+                    // 遍历期间看到的修改必须都已落盘，否则日志失败时未确认的写入会随快照保存下来
+                    durable.awaitLogged();
+                }
+                writer.flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC).putInt(VERSION).putLong(count).putLong(crc.getValue()).putLong(lsn)
+                        .flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, HEADER_BYTES - header.remaining());
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (durable != null) {
+                // 替换快照的重命名落盘之后才能删除日志，否则宕机后可能是旧快照加上已被删除的日志
+                try (FileChannel dir = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                    dir.force(true);
+                }
+            }
+            logger.info("用户快照写入完成，用户数: {}，LSN: {}，耗时: {}ms", count, lsn,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入用户快照失败: " + path, e);
+        }
+        if (durable != null) {
+            durable.truncate(lsn);
+        }
+        return count;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            logger.error("定时写入用户快照失败", e);
+        }
+    }
+
+    /**
+     * 返回 {用户数, 快照LSN}；带日志时直接写入内存存储，不产生日志记录
+     */
+    private long[] load() {
+        UserStore target = durable != null ? durable.delegate() : store;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("快照文件不完整");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("快照文件格式不匹配，magic: " + Integer.toHexString(magic) + "，版本: " + version);
+            }
+            long count = header.getLong();
+            long expectedCrc = header.getLong();
+            long lsn = header.getLong();
+            if (count < 0 || count > (fileSize - HEADER_BYTES) / RECORD_HEADER_BYTES) {
+                throw new IOException("非法的用户数: " + count);
+            }
+
+            MappedReader reader = new MappedReader(channel, HEADER_BYTES, fileSize);
+            CRC32 crc = new CRC32();
+            ByteBuffer idBytes = ByteBuffer.allocate(Integer.BYTES);
+            target.clear();
+            for (long i = 0; i < count; i++) {
+                int id = reader.getInt();
+                int length = reader.getInt();
+                if (length < 0 || length > MAX_NAME_BYTES || length > reader.remaining()) {
+                    throw new IOException("第 " + i + " 条记录的名称长度非法: " + length);
+                }
+                byte[] bytes = new byte[length];
+                reader.get(bytes);
+                crc.update(idBytes.clear().putInt(id).flip());
+                crc.update(bytes);
+                target.put(id, new String(bytes, StandardCharsets.UTF_8));
+            }
+            if (reader.remaining() != 0) {
+                throw new IOException("快照文件末尾有多余的 " + reader.remaining() + " 字节");
+            }
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("快照校验和不匹配");
+            }
+            return new long[]{count, lsn};
+        } catch (IOException | RuntimeException e) {
+            target.clear();
+            quarantine(e);
+            return new long[]{0, 0};
+        }
+    }
+
+    /**
+     * 把损坏的快照改名保留，之后写入的新快照不会覆盖它；改名失败时不能保证数据不被覆盖，直接启动失败
+     */
+    private void quarantine(Exception cause) {
+        Path corrupt = path.resolveSibling(path.getFileName() + "." + System.currentTimeMillis() + ".corrupt");
+        try {
+            Files.move(path, corrupt, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            throw new UncheckedIOException("用户快照损坏且无法改名保留，拒绝以空数据启动: " + path, e);
+        }
+        logger.error("加载用户快照失败，已改名保留为 {}，以空数据启动", corrupt.getFileName(), cause);
+    }
+
+    /**
+     * 基于堆外缓冲区的顺序写入器，缓冲区写满后批量刷入文件
+     */
+    private static final class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private long position;
+
+        ChannelWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void put(byte[] bytes) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * 按固定窗口大小映射文件的顺序读取器
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long fileSize;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel, long position, long fileSize) throws IOException {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            remap(position);
+        }
+
+        long remaining() {
+            return fileSize - windowStart - window.position();
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        void get(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(window.remaining(), bytes.length - offset);
+                window.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                remap(windowStart + window.position());
+                if (window.remaining() < bytes) {
+                    throw new IOException("快照文件被截断");
+                }
+            }
+        }
+
+        private void remap(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, fileSize - position));
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package com.example.provider.store;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 用户写操作的预写日志
+ * 写操作先追加到内存缓冲区，由单独的刷盘线程成批写入日志文件：刷盘期间到达的写操作进入下一批，
+ * 并发写入的请求共用一次 write 和一次 fsync（组提交）。
+ * <p>
+ * 同步模式：
+ * <ul>
+ *     <li>BATCH：每批写入后fsync，请求在自己所在的批次落盘后返回，宕机不丢已确认的写入</li>
+ *     <li>INTERVAL：每批写入操作系统后即返回，每隔 syncIntervalMillis fsync一次，操作系统宕机最多丢失一个间隔内的写入</li>
+ *     <li>NONE：写入操作系统后即返回，不主动fsync，进程崩溃不丢数据，操作系统宕机时丢失多少由操作系统决定</li>
+ * </ul>
+ * 日志按段存放在目录中，文件名为段内第一条记录的LSN；单段超过 segmentBytes 或快照要求截断时切换到新段。
+ * 快照写入后 {@link #truncate(long)} 删除记录全部已包含在快照中的旧段。
+ * <p>
+ * 记录格式：长度(4) | crc32(4) | lsn(8) | 类型(1) | id(4) | UTF-8名称（长度 - 13字节）
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    public enum SyncMode {
+        BATCH, INTERVAL, NONE
+    }
+
+    /**
+     * 回放时的记录回调
+     */
+    public interface RecordVisitor {
+        void put(int id, String name);
+
+        void remove(int id);
+
+        void clear();
+    }
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int PAYLOAD_HEADER_BYTES = 13;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private final SyncMode mode;
+    private final long syncIntervalNanos;
+    private final long segmentBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    // 以下字段由 lock 保护
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private ByteBuffer writing = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private long appendedLsn;
+    private long writtenLsn;
+    private long syncedLsn;
+    private boolean rollRequested;
+    private boolean closed;
+    private IOException failure;
+
+    // 以下字段只由刷盘线程修改
+    private FileChannel segment;
+    private long segmentFirstLsn;
+    private long segmentPosition;
+    private long nextSyncNanos;
+    private Thread flusher;
+
+    private volatile long startLsn;
+    private volatile long batches;
+    private volatile long bytesWritten;
+    private volatile long syncs;
+    private volatile long syncNanos;
+    private volatile long replayedRecords;
+    private volatile long replayNanos;
+
+    /**
+     * @param syncIntervalMillis 仅INTERVAL模式使用
+     * @param segmentBytes 单个日志段的大小上限，超过后切换到新段
+     */
+    public WriteAheadLog(Path dir, SyncMode mode, long syncIntervalMillis, long segmentBytes,
+                         MeterRegistry meterRegistry) {
+        this.dir = dir;
+        this.mode = mode;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.segmentBytes = segmentBytes;
+        // 写入吞吐量 = rate(records)，平均组提交大小 = rate(records) / rate(batches)
+        FunctionCounter.builder("user.store.wal.records", this, wal -> wal.lastLsn() - wal.startLsn)
+                .description("追加到预写日志的记录数")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.store.wal.batches", this, wal -> wal.batches)
+                .description("组提交批次数，每批一次write")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.store.wal.bytes", this, wal -> wal.bytesWritten)
+                .description("写入日志文件的字节数")
+                .register(meterRegistry);
+        FunctionTimer.builder("user.store.wal.sync", this, wal -> wal.syncs, wal -> wal.syncNanos, TimeUnit.NANOSECONDS)
+                .description("fsync次数和耗时")
+                .register(meterRegistry);
+        Gauge.builder("user.store.wal.unsynced", this, wal -> wal.lastLsn() - wal.syncedLsn())
+                .description("已追加但尚未fsync的记录数，INTERVAL和NONE模式下宕机可能丢失")
+                .register(meterRegistry);
+        Gauge.builder("user.store.wal.replay.records", this, wal -> wal.replayedRecords)
+                .description("启动时从日志回放的记录数")
+                .register(meterRegistry);
+        Gauge.builder("user.store.wal.replay.seconds", this, wal -> wal.replayNanos / 1e9)
+                .description("启动时回放日志的耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 回放LSN大于 afterLsn 的记录，必须在 {@link #open()} 之前调用。
+     * 遇到不完整或校验失败的记录（通常是宕机时没写完的尾部）时停止回放，截掉该段其后的内容并删除更新的段，
+     * 保证日志始终是连续的前缀。返回回放的记录数。
+     */
+    public long replay(long afterLsn, RecordVisitor visitor) {
+        long begin = System.nanoTime();
+        long lastLsn = afterLsn;
+        long count = 0;
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                Path path = segments.get(i);
+                long validBytes;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    SegmentReader reader = new SegmentReader(channel);
+                    while (reader.next()) {
+                        if (reader.lsn <= afterLsn) {
+                            continue;
+                        }
+                        if (reader.lsn != lastLsn + 1) {
+                            // 中间缺少记录（日志段被删除或快照丢失），继续回放会得到不一致的数据
+                            throw new IOException("日志LSN不连续: " + lastLsn + " -> " + reader.lsn);
+                        }
+                        switch (reader.type) {
+                            case PUT -> visitor.put(reader.id, reader.name);
+                            case REMOVE -> visitor.remove(reader.id);
+                            case CLEAR -> visitor.clear();
+                            default -> throw new IOException("未知的日志记录类型: " + reader.type);
+                        }
+                        lastLsn = reader.lsn;
+                        count++;
+                    }
+                    validBytes = reader.validBytes;
+                    if (validBytes == channel.size()) {
+                        continue;
+                    }
+                }
+                logger.warn("日志段 {} 在 {} 字节处损坏或不完整，丢弃其后的内容", path.getFileName(), validBytes);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                    channel.force(true);
+                }
+                for (Path newer : segments.subList(i + 1, segments.size())) {
+                    logger.warn("删除损坏位置之后的日志段: {}", newer.getFileName());
+                    Files.delete(newer);
+                }
+                break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("回放预写日志失败: " + dir, e);
+        }
+        lock.lock();
+        try {
+            appendedLsn = writtenLsn = syncedLsn = lastLsn;
+        } finally {
+            lock.unlock();
+        }
+        startLsn = lastLsn;
+        replayedRecords = count;
+        replayNanos = System.nanoTime() - begin;
+        return count;
+    }
+
+    /**
+     * 打开新的日志段并启动刷盘线程，之后才能追加记录
+     */
+    public void open() {
+        try {
+            Files.createDirectories(dir);
+            openSegment(lastLsn() + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开预写日志失败: " + dir, e);
+        }
+        nextSyncNanos = System.nanoTime() + syncIntervalNanos;
+        flusher = Thread.ofPlatform().name("user-store-wal").daemon().start(this::flushLoop);
+        logger.info("预写日志已打开，目录: {}，同步模式: {}，起始LSN: {}", dir, mode, segmentFirstLsn);
+    }
+
+    public long appendPut(int id, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return append(PUT, id, bytes);
+    }
+
+    public long appendRemove(int id) {
+        return append(REMOVE, id, null);
+    }
+
+    public long appendClear() {
+        return append(CLEAR, 0, null);
+    }
+
+    /**
+     * 等待记录达到同步模式要求的持久程度：BATCH等待fsync，其他模式等待写入操作系统
+     */
+    public void await(long lsn) {
+        lock.lock();
+        try {
+            while ((mode == SyncMode.BATCH ? syncedLsn : writtenLsn) < lsn) {
+                checkUsable();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 最后一条已追加记录的LSN
+     */
+    public long lastLsn() {
+        lock.lock();
+        try {
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 刷盘线程是否已经失败，失败后已追加但没写出的记录永远不会落盘
+     */
+    public boolean failed() {
+        lock.lock();
+        try {
+            return failure != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long syncedLsn() {
+        lock.lock();
+        try {
+            return syncedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 快照已包含 lsn 及之前的所有记录：切换到新段，删除记录全部不超过 lsn 的旧段。
+     * 切换时当前段可能已经有新的记录，它要等下一次截断才会被删除。
+     */
+    public void truncate(long lsn) {
+        lock.lock();
+        try {
+            rollRequested = true;
+            flushNeeded.signal();
+            while (rollRequested) {
+                checkUsable();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            List<Path> segments = segments();
+            int deleted = 0;
+            // 最后一段是当前段，不删除；其余段的最后一条记录是下一段的起始LSN减一
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (firstLsn(segments.get(i + 1)) - 1 > lsn) {
+                    break;
+                }
+                Files.delete(segments.get(i));
+                deleted++;
+            }
+            if (deleted > 0) {
+                logger.info("快照LSN: {}，删除{}个旧日志段", lsn, deleted);
+            }
+        } catch (IOException e) {
+            logger.warn("删除旧日志段失败，下次快照后重试", e);
+        }
+    }
+
+    /**
+     * 写出剩余记录、fsync并停止刷盘线程
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long records = lastLsn() - startLsn;
+        logger.info("预写日志已关闭，本次运行追加记录: {}，批次: {}，平均每批: {}，fsync: {}次",
+                records, batches, batches > 0 ? String.format("%.1f", (double) records / batches) : "-", syncs);
+    }
+
+    private long append(byte type, int id, byte[] name) {
+        int payloadBytes = PAYLOAD_HEADER_BYTES + (name != null ? name.length : 0);
+        lock.lock();
+        try {
+            checkUsable();
+            if (flusher == null) {
+                throw new IllegalStateException("预写日志尚未打开");
+            }
+            ensureCapacity(FRAME_HEADER_BYTES + payloadBytes);
+            long lsn = appendedLsn + 1;
+            int start = pending.position();
+            pending.putInt(payloadBytes).putInt(0).putLong(lsn).put(type).putInt(id);
+            if (name != null) {
+                pending.put(name);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(pending.array(), start + FRAME_HEADER_BYTES, payloadBytes);
+            pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+            appendedLsn = lsn;
+            flushNeeded.signal();
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("预写日志写入失败，拒绝写操作", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("预写日志已关闭");
+        }
+    }
+
+    private void flushLoop() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long batchLsn;
+                boolean roll;
+                boolean closing;
+                lock.lock();
+                try {
+                    while (pending.position() == 0 && !rollRequested && !closed && !intervalSyncDue(writtenLsn)) {
+                        if (mode == SyncMode.INTERVAL && syncedLsn < writtenLsn) {
+                            flushNeeded.awaitNanos(nextSyncNanos - System.nanoTime());
+                        } else {
+                            flushNeeded.await();
+                        }
+                    }
+                    // 交换缓冲区，刷盘期间追加的记录进入下一批
+                    batch = pending;
+                    pending = writing;
+                    writing = batch;
+                    batch.flip();
+                    batchLsn = appendedLsn;
+                    roll = rollRequested;
+                    closing = closed;
+                } finally {
+                    lock.unlock();
+                }
+
+                boolean wrote = batch.hasRemaining();
+                if (wrote) {
+                    while (batch.hasRemaining()) {
+                        segmentPosition += segment.write(batch, segmentPosition);
+                    }
+                    bytesWritten += batch.limit();
+                    batches++;
+                }
+                batch.clear();
+                boolean sync = closing || roll || segmentPosition >= segmentBytes
+                        || (mode == SyncMode.BATCH && wrote) || intervalSyncDue(batchLsn);
+                if (sync) {
+                    sync();
+                }
+                if ((roll || segmentPosition >= segmentBytes) && segmentPosition > 0 && !closing) {
+                    segment.close();
+                    openSegment(batchLsn + 1);
+                }
+
+                lock.lock();
+                try {
+                    writtenLsn = batchLsn;
+                    if (sync) {
+                        syncedLsn = batchLsn;
+                    }
+                    if (roll) {
+                        rollRequested = false;
+                    }
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                if (closing) {
+                    segment.close();
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            logger.error("预写日志刷盘失败，之后的写操作将被拒绝", e);
+            lock.lock();
+            try {
+                failure = e instanceof IOException io ? io : new IOException(e);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * INTERVAL模式下有未fsync的记录且距上次fsync已满一个间隔；syncedLsn只由刷盘线程修改，刷盘线程读取时不需要加锁
+     */
+    private boolean intervalSyncDue(long upToLsn) {
+        return mode == SyncMode.INTERVAL && upToLsn > syncedLsn && System.nanoTime() - nextSyncNanos >= 0;
+    }
+
+    private void sync() throws IOException {
+        long begin = System.nanoTime();
+        segment.force(false);
+        syncNanos += System.nanoTime() - begin;
+        syncs++;
+        nextSyncNanos = System.nanoTime() + syncIntervalNanos;
+    }
+
+    /**
+     * 同名的段只可能是上次切换后没有写入记录的空段（有记录的话回放后的LSN会更大），直接覆盖
+     */
+    private void openSegment(long firstLsn) throws IOException {
+        segment = FileChannel.open(dir.resolve(String.format("%020d", firstLsn) + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        segmentFirstLsn = firstLsn;
+        segmentPosition = 0;
+        syncDirectory();
+    }
+
+    /**
+     * 新建的段文件要fsync所在目录才能保证宕机后文件本身还在；不支持的平台上忽略
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("同步日志目录失败，忽略: {}", e.toString());
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            segments.sort((a, b) -> Long.compare(firstLsn(a), firstLsn(b)));
+            return segments;
+        }
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 顺序读取一个日志段，next() 返回false时 validBytes 为最后一条完整记录的结束位置
+     */
+    private static final class SegmentReader {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES).flip();
+        private final CRC32 crc = new CRC32();
+        private long readPosition;
+        private long validBytes;
+
+        long lsn;
+        byte type;
+        int id;
+        String name;
+
+        SegmentReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        boolean next() throws IOException {
+            if (!fill(FRAME_HEADER_BYTES)) {
+                return false;
+            }
+            int payloadBytes = buffer.getInt(buffer.position());
+            int expectedCrc = buffer.getInt(buffer.position() + Integer.BYTES);
+            if (payloadBytes < PAYLOAD_HEADER_BYTES || payloadBytes > channel.size() - validBytes
+                    || !fill(FRAME_HEADER_BYTES + payloadBytes)) {
+                return false;
+            }
+            int payload = buffer.position() + FRAME_HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.array(), payload, payloadBytes);
+            if ((int) crc.getValue() != expectedCrc) {
+                return false;
+            }
+            lsn = buffer.getLong(payload);
+            type = buffer.get(payload + Long.BYTES);
+            id = buffer.getInt(payload + Long.BYTES + 1);
+            int nameBytes = payloadBytes - PAYLOAD_HEADER_BYTES;
+            name = type == PUT
+                    ? new String(buffer.array(), payload + PAYLOAD_HEADER_BYTES, nameBytes, StandardCharsets.UTF_8)
+                    : null;
+            buffer.position(payload + payloadBytes);
+            validBytes += FRAME_HEADER_BYTES + payloadBytes;
+            return true;
+        }
+
+        /**
+         * 保证缓冲区中至少有 bytes 个字节，文件不够时返回false
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+            if (buffer.capacity() < bytes) {
+                // 超长的用户名，按记录大小扩大缓冲区
+                buffer = ByteBuffer.allocate(bytes).put(buffer);
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < bytes) {
+                int read = channel.read(buffer, readPosition);
+                if (read < 0) {
+                    break;
+                }
+                readPosition += read;
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+    }
+}
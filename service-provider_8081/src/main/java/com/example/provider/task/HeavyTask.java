@@ -0,0 +1,75 @@
+package com.example.provider.task;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一个异步提交的繁重任务
+ */
+public class HeavyTask {
+
+    private final String taskId;
+    private final long submittedAt = System.currentTimeMillis();
+    private final CompletableFuture<String> completion = new CompletableFuture<>();
+    private volatile HeavyTaskStatus status = HeavyTaskStatus.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    HeavyTask(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public HeavyTaskStatus getStatus() {
+        return status;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * 任务完成时结束的Future，失败时以异常结束
+     */
+    public CompletableFuture<String> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * 任务结果，未完成或失败时返回null
+     */
+    public String getResult() {
+        return status == HeavyTaskStatus.COMPLETED ? completion.getNow(null) : null;
+    }
+
+    void markRunning() {
+        startedAt = System.currentTimeMillis();
+        status = HeavyTaskStatus.RUNNING;
+    }
+
+    void complete(String result) {
+        finishedAt = System.currentTimeMillis();
+        status = HeavyTaskStatus.COMPLETED;
+        completion.complete(result);
+    }
+
+    void fail(Throwable error) {
+        finishedAt = System.currentTimeMillis();
+        status = HeavyTaskStatus.FAILED;
+        completion.completeExceptionally(error);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.provider.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 繁重任务执行引擎
+ * 任务在独立的执行器中运行，不占用Tomcat工作线程。
+ * 排队和运行中的任务总数受capacity限制，超出时抛出TaskRejectedException，由调用方返回背压响应。
+ */
+public class HeavyTaskEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeavyTaskEngine.class);
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int capacity;
+    private final long retentionMillis;
+    private final Map<String, HeavyTask> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final ScheduledExecutorService cleaner;
+
+    /**
+     * @param executor 任务执行器（虚拟线程或固定大小线程池）
+     * @param capacity 排队和运行中任务的总上限
+     * @param retentionMillis 已完成任务的状态保留时长
+     */
+    public HeavyTaskEngine(ExecutorService executor, int capacity, long retentionMillis) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.retentionMillis = retentionMillis;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "heavy-task-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, retentionMillis / 4);
+        cleaner.scheduleWithFixedDelay(this::evictFinished, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步提交一个可查询状态的任务；相同taskId的任务仍在保留期内时直接返回已有任务
+     *
+     * @throws TaskRejectedException 任务队列已满
+     */
+    public HeavyTask submit(String taskId, Callable<String> work) {
+        return tasks.computeIfAbsent(taskId, id -> start(new HeavyTask(id), work));
+    }
+
+    /**
+     * 执行一个不登记状态的任务，供同步接口使用
+     *
+     * @throws TaskRejectedException 任务队列已满
+     */
+    public HeavyTask execute(String taskId, Callable<String> work) {
+        return start(new HeavyTask(taskId), work);
+    }
+
+    /**
+     * 查询任务，不存在或已过保留期时返回null
+     */
+    public HeavyTask find(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    public int getQueuedCount() {
+        return capacity - permits.availablePermits() - running.get();
+    }
+
+    public void shutdown() {
+        cleaner.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private HeavyTask start(HeavyTask task, Callable<String> work) {
+        if (!permits.tryAcquire()) {
+            logger.warn("任务队列已满，拒绝任务: {}，上限: {}", task.getTaskId(), capacity);
+            throw new TaskRejectedException("任务队列已满，请稍后重试");
+        }
+        try {
+            executor.execute(() -> run(task, work));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new TaskRejectedException("任务执行器已关闭");
+        }
+        return task;
+    }
+
+    private void run(HeavyTask task, Callable<String> work) {
+        running.incrementAndGet();
+        task.markRunning();
+        try {
+            task.complete(work.call());
+        } catch (Exception e) {
+            logger.error("任务执行失败: {}", task.getTaskId(), e);
+            task.fail(e);
+        } finally {
+            running.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void evictFinished() {
+        long deadline = System.currentTimeMillis() - retentionMillis;
+        tasks.values().removeIf(task -> task.isDone() && task.getFinishedAt() < deadline);
+    }
+}
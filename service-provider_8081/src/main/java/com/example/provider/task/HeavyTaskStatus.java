@@ -0,0 +1,11 @@
+package com.example.provider.task;
+
+/**
+ * 繁重任务状态
+ */
+public enum HeavyTaskStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
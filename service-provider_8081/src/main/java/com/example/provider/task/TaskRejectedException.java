@@ -0,0 +1,11 @@
+package com.example.provider.task;
+
+/**
+ * 任务队列已满时抛出，调用方应稍后重试
+ */
+public class TaskRejectedException extends RuntimeException {
+
+    public TaskRejectedException(String message) {
+        super(message);
+    }
+}
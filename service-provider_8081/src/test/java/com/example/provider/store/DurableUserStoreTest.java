@@ -0,0 +1,81 @@
+package com.example.provider.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DurableUserStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversWritesFromLog() {
+        try (DurableUserStore store = open(0)) {
+            assertNull(store.put(1, "user-1"));
+            assertEquals("user-1", store.put(1, "user-1b"));
+            store.put(2, "user-2");
+            store.put(3, "user-3");
+            assertEquals("user-2", store.remove(2));
+            assertNull(store.remove(4));
+            assertEquals(5, store.checkpointLsn());
+        }
+
+        try (DurableUserStore store = open(0)) {
+            assertEquals(2, store.size());
+            assertEquals("user-1b", store.get(1));
+            assertNull(store.get(2));
+            assertEquals("user-3", store.get(3));
+        }
+    }
+
+    @Test
+    void recoversFromSnapshotLsn() {
+        long lsn;
+        try (DurableUserStore store = open(0)) {
+            store.put(1, "user-1");
+            lsn = store.checkpointLsn();
+            store.clear();
+            store.put(2, "user-2");
+        }
+
+        // 快照中已有用户1，只回放快照之后的清空和写入
+        UserStore snapshot = new ConcurrentMapUserStore();
+        snapshot.put(1, "user-1");
+        try (DurableUserStore store = open(snapshot, lsn)) {
+            assertEquals(1, store.size());
+            assertEquals("user-2", store.get(2));
+        }
+    }
+
+    @Test
+    void failedAppendLeavesMemoryUnchanged() {
+        DurableUserStore store = open(0);
+        store.put(1, "user-1");
+        store.close();
+
+        assertThrows(IllegalStateException.class, () -> store.put(1, "user-1b"));
+        assertThrows(IllegalStateException.class, () -> store.put(2, "user-2"));
+        assertThrows(IllegalStateException.class, () -> store.remove(1));
+        assertEquals("user-1", store.get(1));
+        assertNull(store.get(2));
+    }
+
+    private DurableUserStore open(long snapshotLsn) {
+        return open(new ConcurrentMapUserStore(), snapshotLsn);
+    }
+
+    private DurableUserStore open(UserStore delegate, long snapshotLsn) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.SyncMode.BATCH, 100, 64 * 1024, meterRegistry);
+        DurableUserStore store = new DurableUserStore(delegate, wal, meterRegistry);
+        store.recover(snapshotLsn, System.nanoTime());
+        return store;
+    }
+}
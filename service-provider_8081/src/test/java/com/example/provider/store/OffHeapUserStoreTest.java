@@ -0,0 +1,98 @@
+package com.example.provider.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapUserStoreTest {
+
+    @Test
+    void scanReturnsEachUserOnceAcrossResize() {
+        // 初始容量32，写入过程中会扩容多次
+        OffHeapUserStore store = new OffHeapUserStore(16, 4096);
+        for (int id = 0; id < 20; id++) {
+            store.put(id, "user-" + id);
+        }
+
+        Map<Integer, Integer> seen = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+        UserStore.UserVisitor visitor = (id, name) -> {
+            assertEquals("user-" + id, name);
+            seen.merge(id, 1, Integer::sum);
+            keys.add(UserStore.scanKey(id));
+        };
+        long cursor = store.scan(0, 5, visitor);
+        assertEquals(5, seen.size());
+        for (int id = 20; id < 5000; id++) {
+            store.put(id, "user-" + id);
+        }
+        while (cursor >= 0) {
+            cursor = store.scan(cursor, 7, visitor);
+            // 分页之间删除一些不在初始集合中的用户
+            store.remove(20 + keys.size());
+        }
+
+        for (int id = 0; id < 20; id++) {
+            assertEquals(1, seen.get(id), "用户 " + id + " 应恰好返回一次");
+        }
+        seen.forEach((id, count) -> assertEquals(1, count, "用户 " + id + " 重复返回"));
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1) < keys.get(i), "排序键应严格递增");
+        }
+    }
+
+    @Test
+    void scanMatchesDefaultImplementation() {
+        OffHeapUserStore offHeap = new OffHeapUserStore(16, 4096);
+        UserStore map = new ConcurrentMapUserStore();
+        for (int id = -500; id < 1500; id += 3) {
+            offHeap.put(id, "user-" + id);
+            map.put(id, "user-" + id);
+        }
+
+        List<Integer> expected = scanAll(map, 64);
+        assertEquals(map.size(), expected.size());
+        assertEquals(expected, scanAll(offHeap, 64));
+        assertEquals(expected, scanAll(offHeap, 1));
+        assertEquals(expected, scanAll(offHeap, expected.size() + 1));
+    }
+
+    @Test
+    void scanOfEmptyStoreEnds() {
+        OffHeapUserStore store = new OffHeapUserStore(16, 4096);
+        assertEquals(-1, store.scan(0, 10, (id, name) -> {
+            throw new AssertionError("空存储不应返回用户");
+        }));
+    }
+
+    @Test
+    void scanRejectsInvalidCursorAndLimit() {
+        OffHeapUserStore store = new OffHeapUserStore(16, 4096);
+        store.put(1, "user-1");
+        UserStore.UserVisitor visitor = (id, name) -> {
+        };
+        assertThrows(IllegalArgumentException.class, () -> store.scan(-1, 10, visitor));
+        assertThrows(IllegalArgumentException.class, () -> store.scan(UserStore.MAX_SCAN_KEY + 1, 10, visitor));
+        assertThrows(IllegalArgumentException.class, () -> store.scan(0, 0, visitor));
+        assertThrows(IllegalArgumentException.class, () -> store.scan(0, -1, visitor));
+        assertEquals(-1, store.scan(UserStore.MAX_SCAN_KEY, 10, visitor));
+    }
+
+    private static List<Integer> scanAll(UserStore store, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        long cursor = 0;
+        do {
+            int before = ids.size();
+            cursor = store.scan(cursor, limit, (id, name) -> ids.add(id));
+            assertTrue(ids.size() - before <= limit, "每页不超过页大小");
+        } while (cursor >= 0);
+        return ids;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.provider.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserStoreSnapshotterTest {
+
+    private static final int HEADER_BYTES = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoresUsersFromSnapshot() {
+        Path path = dir.resolve("users.snapshot");
+        UserStore source = new ConcurrentMapUserStore();
+        for (int id = -10; id < 1000; id++) {
+            source.put(id, "user-" + id);
+        }
+        source.put(5000, "");
+        source.put(5001, "用户");
+        assertEquals(1012, new UserStoreSnapshotter(source, path, 0).snapshot());
+
+        UserStore restored = new OffHeapUserStore(16, 4096);
+        new UserStoreSnapshotter(restored, path, 0).start();
+        assertEquals(source.size(), restored.size());
+        source.forEach((id, name) -> assertEquals(name, restored.get(id)));
+    }
+
+    @Test
+    void corruptNameLengthIsQuarantined() throws IOException {
+        Path path = writeSnapshot();
+        // 第一条记录的名称长度改成负数
+        overwrite(path, HEADER_BYTES + Integer.BYTES, ByteBuffer.allocate(4).putInt(-1).flip());
+        assertQuarantined(path);
+    }
+
+    @Test
+    void oversizedNameLengthIsQuarantined() throws IOException {
+        Path path = writeSnapshot();
+        overwrite(path, HEADER_BYTES + Integer.BYTES, ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).flip());
+        assertQuarantined(path);
+    }
+
+    @Test
+    void checksumMismatchIsQuarantined() throws IOException {
+        Path path = writeSnapshot();
+        overwrite(path, HEADER_BYTES + 2 * Integer.BYTES, ByteBuffer.wrap(new byte[]{'X'}));
+        assertQuarantined(path);
+    }
+
+    @Test
+    void truncatedOrUnknownVersionIsQuarantined() throws IOException {
+        Path path = writeSnapshot();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+        assertQuarantined(path);
+
+        path = writeSnapshot();
+        // 系列开发过程中的旧版本格式不再支持
+        overwrite(path, Integer.BYTES, ByteBuffer.allocate(4).putInt(2).flip());
+        assertQuarantined(path);
+    }
+
+    /**
+     * 加载失败后以空数据启动，原文件改名保留；之后的快照写入新文件，不覆盖保留的文件
+     */
+    private void assertQuarantined(Path path) throws IOException {
+        byte[] original = Files.readAllBytes(path);
+        UserStore store = new ConcurrentMapUserStore();
+        UserStoreSnapshotter snapshotter = new UserStoreSnapshotter(store, path, 0);
+        snapshotter.start();
+        assertEquals(0, store.size());
+        assertFalse(Files.exists(path));
+
+        List<Path> corrupt = corruptFiles();
+        assertEquals(1, corrupt.size());
+        assertArrayEquals(original, Files.readAllBytes(corrupt.getFirst()));
+
+        snapshotter.snapshot();
+        assertTrue(Files.exists(path));
+        assertArrayEquals(original, Files.readAllBytes(corrupt.getFirst()));
+        Files.delete(corrupt.getFirst());
+        Files.delete(path);
+    }
+
+    private Path writeSnapshot() {
+        Path path = dir.resolve("users.snapshot");
+        UserStore store = new ConcurrentMapUserStore();
+        for (int id = 0; id < 100; id++) {
+            store.put(id, "user-" + id);
+        }
+        new UserStoreSnapshotter(store, path, 0).snapshot();
+        return path;
+    }
+
+    private static void overwrite(Path path, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private List<Path> corruptFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".corrupt")).toList();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.provider.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    // 每条put记录 8 + 13 + 6 = 27 字节，三条就超过段大小
+    private static final long SMALL_SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAppendedRecordsInOrder() {
+        try (WriteAheadLog wal = open(0, Long.MAX_VALUE)) {
+            wal.await(wal.appendPut(1, "user-1"));
+            wal.await(wal.appendPut(2, "用户-2"));
+            wal.await(wal.appendRemove(1));
+            wal.await(wal.appendClear());
+            wal.await(wal.appendPut(3, ""));
+        }
+
+        Recorder recorder = new Recorder();
+        WriteAheadLog wal = newLog(Long.MAX_VALUE);
+        assertEquals(5, wal.replay(0, recorder));
+        assertEquals(List.of("put 1 user-1", "put 2 用户-2", "remove 1", "clear", "put 3 "), recorder.records);
+        assertEquals(5, wal.lastLsn());
+    }
+
+    @Test
+    void replaySkipsRecordsCoveredBySnapshot() {
+        write(Long.MAX_VALUE, 1, 5);
+
+        Recorder recorder = new Recorder();
+        assertEquals(2, newLog(Long.MAX_VALUE).replay(3, recorder));
+        assertEquals(List.of("put 4 user-4", "put 5 user-5"), recorder.records);
+    }
+
+    @Test
+    void rollsSegmentsAndContinuesAfterReopen() throws IOException {
+        write(SMALL_SEGMENT_BYTES, 1, 10);
+        assertTrue(segments().size() > 1, "超过段大小后应切换到新段");
+
+        // 重启后从回放到的LSN继续追加
+        try (WriteAheadLog wal = open(0, SMALL_SEGMENT_BYTES)) {
+            assertEquals(11, wal.appendPut(11, "user-11"));
+            wal.await(11);
+        }
+
+        Recorder recorder = new Recorder();
+        assertEquals(11, newLog(SMALL_SEGMENT_BYTES).replay(0, recorder));
+        for (int i = 1; i <= 11; i++) {
+            assertEquals("put " + i + " user-" + i, recorder.records.get(i - 1));
+        }
+    }
+
+    @Test
+    void truncateDeletesSegmentsCoveredBySnapshot() throws IOException {
+        try (WriteAheadLog wal = open(0, SMALL_SEGMENT_BYTES)) {
+            appendPuts(wal, 1, 10);
+            wal.truncate(6);
+            // 段为 1~3、4~6、7~9、10，只有前两段的记录全部包含在快照中
+            assertEquals(7, firstLsn(segments().getFirst()));
+            appendPuts(wal, 11, 12);
+        }
+
+        Recorder recorder = new Recorder();
+        assertEquals(6, newLog(SMALL_SEGMENT_BYTES).replay(6, recorder));
+        assertEquals("put 7 user-7", recorder.records.getFirst());
+        assertEquals("put 12 user-12", recorder.records.getLast());
+    }
+
+    @Test
+    void truncatesTornTail() throws IOException {
+        write(Long.MAX_VALUE, 1, 3);
+        Path segment = segments().getLast();
+        long validBytes = Files.size(segment);
+        // 模拟宕机时写了一半的记录：只有长度和部分内容
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(19).putInt(0x12345678).putInt(4).flip());
+        }
+
+        Recorder recorder = new Recorder();
+        WriteAheadLog wal = newLog(Long.MAX_VALUE);
+        assertEquals(3, wal.replay(0, recorder));
+        assertEquals(validBytes, Files.size(segment));
+
+        wal.open();
+        try (wal) {
+            assertEquals(4, wal.appendPut(4, "user-4"));
+            wal.await(4);
+        }
+        assertEquals(4, newLog(Long.MAX_VALUE).replay(0, new Recorder()));
+    }
+
+    @Test
+    void corruptRecordDropsEverythingAfterIt() throws IOException {
+        write(SMALL_SEGMENT_BYTES, 1, 10);
+        List<Path> before = segments();
+        assertTrue(before.size() > 2);
+        // 改坏第一段第二条记录的用户名，CRC校验失败
+        Path first = before.getFirst();
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 27 + 8 + 13);
+        }
+
+        Recorder recorder = new Recorder();
+        assertEquals(1, newLog(SMALL_SEGMENT_BYTES).replay(0, recorder));
+        assertEquals(List.of("put 1 user-1"), recorder.records);
+        assertEquals(List.of(first), segments());
+        assertEquals(27, Files.size(first));
+    }
+
+    @Test
+    void missingSegmentFailsReplay() throws IOException {
+        write(SMALL_SEGMENT_BYTES, 1, 10);
+        List<Path> segments = segments();
+        assertTrue(segments.size() > 2);
+        Files.delete(segments.get(1));
+
+        WriteAheadLog wal = newLog(SMALL_SEGMENT_BYTES);
+        assertThrows(UncheckedIOException.class, () -> wal.replay(0, new Recorder()));
+    }
+
+    @Test
+    void rejectsAppendsAfterClose() {
+        WriteAheadLog wal = open(0, Long.MAX_VALUE);
+        wal.close();
+        assertThrows(IllegalStateException.class, () -> wal.appendPut(1, "user-1"));
+        assertFalse(wal.failed());
+    }
+
+    private WriteAheadLog newLog(long segmentBytes) {
+        return new WriteAheadLog(dir, WriteAheadLog.SyncMode.BATCH, 100, segmentBytes, new SimpleMeterRegistry());
+    }
+
+    private WriteAheadLog open(long afterLsn, long segmentBytes) {
+        WriteAheadLog wal = newLog(segmentBytes);
+        wal.replay(afterLsn, new Recorder());
+        wal.open();
+        return wal;
+    }
+
+    /**
+     * 打开日志写入 from ~ to 的用户后关闭
+     */
+    private void write(long segmentBytes, int from, int to) {
+        try (WriteAheadLog wal = open(0, segmentBytes)) {
+            appendPuts(wal, from, to);
+        }
+    }
+
+    /**
+     * 逐条追加并等待落盘，保证每条记录单独一批，段切换的位置是确定的
+     */
+    private static void appendPuts(WriteAheadLog wal, int from, int to) {
+        for (int id = from; id <= to; id++) {
+            wal.await(wal.appendPut(id, "user-" + id));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .filter(path -> path.toFile().length() > 0)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - ".log".length()));
+    }
+
+    private static final class Recorder implements WriteAheadLog.RecordVisitor {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void put(int id, String name) {
+            records.add("put " + id + " " + name);
+        }
+
+        @Override
+        public void remove(int id) {
+            records.add("remove " + id);
+        }
+
+        @Override
+        public void clear() {
+            records.add("clear");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.register.membership;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRenewedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * 成员变化推送
+ * 客户端默认每30秒拉取一次注册表，注册中心的响应缓存还会再延迟最多30秒，实例上下线要一分钟左右才能被消费者看到。
+ * 这里在实例可用状态变化时立即把变化推送给订阅者，订阅者在自己的实例元数据中声明：
+ * <ul>
+ *     <li>membership-push-path：接收推送的路径</li>
+ *     <li>membership-services：订阅的服务名称，逗号分隔，不区分大小写</li>
+ * </ul>
+ * 推送是尽力而为的异步请求，失败只记录日志，订阅者仍然按拉取的注册表兜底。集群复制过来的事件不推送，由原节点负责。
+ * <p>
+ * 只推送真正的上下线：按实例记录上一次推送的状态，注册或续约时状态变为UP推送上线，从UP变为其他状态
+ * （OUT_OF_SERVICE、DOWN等）或下线、被剔除时推送下线；以STARTING等状态注册的实例不推送。
+ * Eureka没有状态变更事件，通过管理接口修改的状态在实例下一次续约时推送。
+ */
+@Component
+@ConditionalOnProperty(name = "register.membership-push.enabled", havingValue = "true", matchIfMissing = true)
+public class MembershipPushNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipPushNotifier.class);
+
+    static final String PUSH_PATH_METADATA = "membership-push-path";
+    static final String SERVICES_METADATA = "membership-services";
+
+    private final ObjectProvider<PeerAwareInstanceRegistry> registry;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final Map<String, Boolean> lastUp = new ConcurrentHashMap<>();
+
+    public MembershipPushNotifier(ObjectProvider<PeerAwareInstanceRegistry> registry,
+                                  ObjectMapper objectMapper,
+                                  @Value("${register.membership-push.timeout-ms:500}") long timeoutMillis) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @EventListener
+    public void onRegistered(EurekaInstanceRegisteredEvent event) {
+        if (!event.isReplication()) {
+            onStatus(event.getInstanceInfo());
+        }
+    }
+
+    /**
+     * 续约事件带着注册表中的实例信息，通过它发现管理接口修改的状态
+     */
+    @EventListener
+    public void onRenewed(EurekaInstanceRenewedEvent event) {
+        if (!event.isReplication() && event.getInstanceInfo() != null) {
+            onStatus(event.getInstanceInfo());
+        }
+    }
+
+    @EventListener
+    public void onCanceled(EurekaInstanceCanceledEvent event) {
+        if (event.isReplication()) {
+            return;
+        }
+        Boolean wasUp = lastUp.remove(event.getServerId());
+        if (wasUp == null || wasUp) {
+            push(new MembershipChange(event.getAppName(), event.getServerId(), null, 0, false, false));
+        }
+    }
+
+    private void onStatus(InstanceInfo info) {
+        boolean up = info.getStatus() == InstanceInfo.InstanceStatus.UP;
+        Boolean wasUp = lastUp.put(info.getInstanceId(), up);
+        // 第一次看到的非UP实例没有上线过，不需要通知
+        if (wasUp == null ? !up : wasUp == up) {
+            return;
+        }
+        boolean secure = info.isPortEnabled(InstanceInfo.PortType.SECURE);
+        push(new MembershipChange(info.getAppName(), info.getInstanceId(), info.getHostName(),
+                secure ? info.getSecurePort() : info.getPort(), secure, up));
+    }
+
+    private void push(MembershipChange change) {
+        PeerAwareInstanceRegistry instanceRegistry = registry.getIfAvailable();
+        if (instanceRegistry == null) {
+            return;
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        instanceRegistry.getApplications().getRegisteredApplications().forEach(application ->
+                application.getInstances().forEach(subscriber -> {
+                    if (subscribes(subscriber, change.serviceId())
+                            && !subscriber.getInstanceId().equals(change.instanceId())) {
+                        send(subscriber, change, body);
+                    }
+                }));
+    }
+
+    private static boolean subscribes(InstanceInfo subscriber, String serviceId) {
+        String services = subscriber.getMetadata().get(SERVICES_METADATA);
+        return subscriber.getMetadata().containsKey(PUSH_PATH_METADATA) && services != null
+                && Arrays.stream(services.split(",")).map(String::trim).anyMatch(serviceId::equalsIgnoreCase);
+    }
+
+    private void send(InstanceInfo subscriber, MembershipChange change, String body) {
+        URI uri = URI.create("http://" + subscriber.getHostName() + ":" + subscriber.getPort()
+                + subscriber.getMetadata().get(PUSH_PATH_METADATA));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if (e != null) {
+                log.debug("推送成员变化失败: {} -> {}: {}", change, subscriber.getInstanceId(), e.toString());
+            } else if (response.statusCode() >= 300) {
+                log.debug("推送成员变化被拒绝: {} -> {}: {}", change, subscriber.getInstanceId(), response.statusCode());
+            }
+        });
+        log.info("推送成员变化 {} {} {} -> {}", change.serviceId(), change.instanceId(), change.up() ? "上线" : "下线",
+                subscriber.getInstanceId());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.register.ratelimit;
+
+/**
+ * 令牌租约请求
+ *
+ * @param name 限流器名称
+ * @param instanceId 消费者实例ID，用于统计活跃实例数
+ * @param permits 希望租用的令牌数
+ * @param limitForPeriod 整个集群每周期的许可数
+ * @param periodMillis 周期长度
+ */
+public record LeaseRequest(String name, String instanceId, int permits, int limitForPeriod, long periodMillis) {
+}
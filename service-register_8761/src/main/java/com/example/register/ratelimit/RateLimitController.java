@@ -0,0 +1,40 @@
+package com.example.register.ratelimit;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 集群限流接口，消费者实例向这里租用令牌
+ */
+@RestController
+@RequestMapping("/rate-limit")
+public class RateLimitController {
+
+    private final RateLimitCoordinator coordinator;
+
+    public RateLimitController(RateLimitCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    @PostMapping("/leases")
+    public LeaseResponse lease(@RequestBody LeaseRequest request) {
+        return coordinator.lease(request);
+    }
+
+    @GetMapping("/status")
+    public Map<String, Map<String, Object>> status() {
+        return coordinator.status();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.register.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 集群限流协调者
+ * 每个限流器名称一个全局令牌桶，容量为每周期许可数，按 每周期许可数 / 周期 的速率连续补充，
+ * 与Resilience4j限流器的语义一致：任意一个周期内整个集群最多放行 limitForPeriod 个请求。
+ * 消费者实例成批租用令牌，在本地消耗；租约只在一个周期内有效，避免实例囤积令牌后集中放行。
+ * 未过期租约中的令牌仍计入占用，可租出的令牌不超过 limitForPeriod - 未过期的租出令牌数：
+ * 否则刚租出的令牌在一个周期内仍可使用，同一周期内补充出来的令牌又被租出，集群最多会放行约两倍的许可。
+ * 限流参数由消费者在租约请求中携带，以最后一次请求为准，消费者刷新配置后协调者随之生效。
+ */
+@Component
+public class RateLimitCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitCoordinator.class);
+
+    /**
+     * 超过这么多个周期没有租约请求的实例不再计入活跃实例数
+     */
+    private static final int ACTIVE_PERIODS = 5;
+
+    private final Map<String, GlobalBucket> buckets = new ConcurrentHashMap<>();
+
+    public LeaseResponse lease(LeaseRequest request) {
+        if (request.limitForPeriod() <= 0 || request.periodMillis() <= 0) {
+            throw new IllegalArgumentException("限流参数无效: limitForPeriod=" + request.limitForPeriod()
+                    + ", periodMillis=" + request.periodMillis());
+        }
+        GlobalBucket bucket = buckets.computeIfAbsent(request.name(), name -> {
+            log.info("限流器 {} 开始集群限流，每{}毫秒{}个许可", name, request.periodMillis(), request.limitForPeriod());
+            return new GlobalBucket(request.limitForPeriod());
+        });
+        return bucket.lease(request);
+    }
+
+    /**
+     * 各限流器的当前状态，用于观察多个消费者实例的令牌分配
+     */
+    public Map<String, Map<String, Object>> status() {
+        Map<String, Map<String, Object>> status = new LinkedHashMap<>();
+        buckets.forEach((name, bucket) -> status.put(name, bucket.status()));
+        return status;
+    }
+
+    private static final class GlobalBucket {
+
+        private final Map<String, InstanceUsage> instances = new LinkedHashMap<>();
+        private int limitForPeriod;
+        private long periodNanos;
+        private double tokens;
+        private long refilledAt;
+        private int leasedTokens;  // 未过期租约中的令牌数
+
+        GlobalBucket(int limitForPeriod) {
+            this.tokens = limitForPeriod;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized LeaseResponse lease(LeaseRequest request) {
+            long now = System.nanoTime();
+            limitForPeriod = request.limitForPeriod();
+            periodNanos = request.periodMillis() * 1_000_000L;
+            refill(now);
+            expireLeases(now);
+            InstanceUsage usage = instances.computeIfAbsent(request.instanceId(), id -> new InstanceUsage());
+            usage.lastSeen = now;
+            double available = Math.min(tokens, limitForPeriod - leasedTokens);
+            int granted = (int) Math.min(Math.max(request.permits(), 0), Math.max(0, Math.floor(available)));
+            if (granted > 0) {
+                tokens -= granted;
+                leasedTokens += granted;
+                usage.granted += granted;
+                usage.leases.addLast(new Lease(now + periodNanos, granted));
+            }
+            long retryAfterMillis = 0;
+            if (granted < request.permits()) {
+                // 已不足一个令牌，告诉消费者下一个令牌补充出来、且有租约过期腾出名额还要多久，在此之前不必再来请求
+                double nanosPerToken = (double) periodNanos / limitForPeriod;
+                long waitNanos = (long) Math.ceil(Math.max(0, 1 - tokens) * nanosPerToken);
+                if (limitForPeriod - leasedTokens < 1) {
+                    waitNanos = Math.max(waitNanos, earliestExpiry() - now);
+                }
+                retryAfterMillis = Math.max(1, (waitNanos + 999_999) / 1_000_000);
+            }
+            return new LeaseResponse(granted, request.periodMillis(), retryAfterMillis, instances.size());
+        }
+
+        synchronized Map<String, Object> status() {
+            long now = System.nanoTime();
+            refill(now);
+            expireLeases(now);
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("limitForPeriod", limitForPeriod);
+            status.put("periodMillis", periodNanos / 1_000_000);
+            status.put("availableTokens", Math.max(0, Math.floor(Math.min(tokens, limitForPeriod - leasedTokens))));
+            status.put("leasedTokens", leasedTokens);
+            status.put("activeInstances", instances.size());
+            Map<String, Long> granted = new LinkedHashMap<>();
+            instances.forEach((id, usage) -> granted.put(id, usage.granted));
+            status.put("grantedByInstance", granted);
+            return status;
+        }
+
+        private void refill(long now) {
+            if (periodNanos > 0) {
+                tokens = Math.min(limitForPeriod, tokens + (double) (now - refilledAt) * limitForPeriod / periodNanos);
+            }
+            refilledAt = now;
+        }
+
+        /**
+         * 释放已过期租约占用的令牌；租约都已过期且超过 ACTIVE_PERIODS 个周期没有请求的实例从表中移除，不再计入活跃实例数
+         */
+        private void expireLeases(long now) {
+            long activeNanos = periodNanos * ACTIVE_PERIODS;
+            Iterator<InstanceUsage> it = instances.values().iterator();
+            while (it.hasNext()) {
+                InstanceUsage usage = it.next();
+                while (!usage.leases.isEmpty() && usage.leases.peekFirst().expiresAt() - now <= 0) {
+                    leasedTokens -= usage.leases.pollFirst().permits();
+                }
+                if (usage.leases.isEmpty() && now - usage.lastSeen > activeNanos) {
+                    it.remove();
+                }
+            }
+        }
+
+        private long earliestExpiry() {
+            long earliest = Long.MAX_VALUE;
+            for (InstanceUsage usage : instances.values()) {
+                if (!usage.leases.isEmpty()) {
+                    long expiresAt = usage.leases.peekFirst().expiresAt();
+                    if (earliest == Long.MAX_VALUE || expiresAt - earliest < 0) {
+                        earliest = expiresAt;
+                    }
+                }
+            }
+            return earliest;
+        }
+    }
+
+    private static final class InstanceUsage {
+        private final Deque<Lease> leases = new ArrayDeque<>();
+        private long lastSeen;
+        private long granted;
+    }
+
+    /**
+     * 一次租出的令牌，expiresAt之后消费者不再使用
+     */
+    private record Lease(long expiresAt, int permits) {
+    }
+}